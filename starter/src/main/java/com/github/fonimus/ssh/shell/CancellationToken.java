@@ -0,0 +1,90 @@
+package com.github.fonimus.ssh.shell;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <p>Cancellation token of running command, cancelled on Ctrl-C or when background job is killed</p>
+ * <p>Cancelling interrupts command thread, long running commands which do not block on interruptible calls can
+ * check token with {@link #isCancelled()} or {@link #throwIfCancelled()}, and commands waiting for other threads
+ * can register callbacks with {@link #onCancel(Runnable)} (for example to cancel a future)</p>
+ */
+@Slf4j
+public class CancellationToken {
+
+    private final Thread thread;
+
+    private final List<Runnable> callbacks = new CopyOnWriteArrayList<>();
+
+    private volatile boolean cancelled;
+
+    /**
+     * Constructor
+     *
+     * @param thread command thread, interrupted on cancel, can be null
+     */
+    public CancellationToken(Thread thread) {
+        this.thread = thread;
+    }
+
+    /**
+     * Check if command has been cancelled
+     *
+     * @return true if cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Throw exception if command has been cancelled
+     *
+     * @throws CancellationException if cancelled
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Command cancelled");
+        }
+    }
+
+    /**
+     * Register callback called on cancel, immediately if already cancelled
+     *
+     * @param callback callback
+     */
+    public void onCancel(Runnable callback) {
+        callbacks.add(callback);
+        if (cancelled && callbacks.remove(callback)) {
+            run(callback);
+        }
+    }
+
+    /**
+     * Cancel command: set flag, call callbacks and interrupt command thread
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        for (Runnable callback : callbacks) {
+            if (callbacks.remove(callback)) {
+                run(callback);
+            }
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private static void run(Runnable callback) {
+        try {
+            callback.run();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Cancel callback failed", e);
+        }
+    }
+}
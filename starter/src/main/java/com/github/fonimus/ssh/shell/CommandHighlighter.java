@@ -0,0 +1,71 @@
+package com.github.fonimus.ssh.shell;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+import org.jline.reader.Highlighter;
+import org.jline.reader.LineReader;
+import org.jline.utils.AttributedString;
+import org.jline.utils.AttributedStringBuilder;
+import org.jline.utils.AttributedStyle;
+import org.springframework.shell.MethodTarget;
+import org.springframework.shell.Shell;
+
+/**
+ * <p>Highlighter which displays known command in bold, unknown command in red</p>
+ * <p>Command names are indexed in a {@link CommandTrie}, only rebuilt when shell commands change</p>
+ */
+@Slf4j
+public class CommandHighlighter
+		implements Highlighter {
+
+	private final Shell shell;
+
+	private volatile Index index;
+
+	/**
+	 * Constructor
+	 *
+	 * @param shell spring shell
+	 */
+	public CommandHighlighter(Shell shell) {
+		this.shell = shell;
+	}
+
+	@Override
+	public AttributedString highlight(LineReader reader, String buffer) {
+		int l = trie().longestPrefix(buffer);
+		if (l > 0) {
+			return new AttributedStringBuilder(buffer.length()).append(buffer.substring(0, l), AttributedStyle.BOLD).append(buffer.substring(l)).toAttributedString();
+		} else {
+			return new AttributedString(buffer, AttributedStyle.DEFAULT.foreground(AttributedStyle.RED));
+		}
+	}
+
+	private CommandTrie trie() {
+		Map<String, MethodTarget> commands = shell.listCommands();
+		Index current = index;
+		if (current == null || current.commands != commands || current.size != commands.size()) {
+			current = new Index(commands);
+			index = current;
+			LOGGER.debug("Command trie built with {} commands", current.trie.size());
+		}
+		return current.trie;
+	}
+
+	private static class Index {
+
+		private final Map<String, MethodTarget> commands;
+
+		private final int size;
+
+		private final CommandTrie trie;
+
+		private Index(Map<String, MethodTarget> commands) {
+			this.commands = commands;
+			this.size = commands.size();
+			this.trie = new CommandTrie(commands.keySet());
+		}
+	}
+}
@@ -0,0 +1,355 @@
+package com.github.fonimus.ssh.shell;
+
+import com.github.fonimus.ssh.shell.auth.SshAuthentication;
+import com.github.fonimus.ssh.shell.commands.SshShellCacheable;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.shell.MethodTarget;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * <p>Cache of command results, shared between sessions</p>
+ * <p>Only commands annotated with {@link SshShellCacheable} or configured with a time to live are cached. Entries are
+ * keyed by session user (principal and authorities) and command line, so that a result is never returned to another
+ * user, and the least recently used one is evicted when maximum size is reached</p>
+ * <p>Concurrent misses on the same key evaluate the command once, other sessions wait for its result</p>
+ */
+@Slf4j
+public class CommandResultCache {
+
+    private final int maxEntries;
+
+    private final Map<String, Duration> configuredTtls;
+
+    private final Map<String, Duration> resolvedTtls = new ConcurrentHashMap<>();
+
+    private final Map<String, Entry> entries;
+
+    /**
+     * Evaluations in progress by entry key, completed with cacheable result or null
+     */
+    private final Map<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param maxEntries     maximum number of cached results
+     * @param configuredTtls time to live per command name, override annotation values, zero to disable cache
+     */
+    public CommandResultCache(int maxEntries, Map<String, Duration> configuredTtls) {
+        this.maxEntries = maxEntries;
+        this.configuredTtls = configuredTtls == null ? Collections.emptyMap() : new LinkedHashMap<>(configuredTtls);
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > CommandResultCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Check time to live of all commands, so that invalid annotation values fail on startup
+     *
+     * @param commands shell commands
+     * @throws IllegalArgumentException if a time to live cannot be parsed
+     */
+    public void validate(Map<String, MethodTarget> commands) {
+        for (Map.Entry<String, MethodTarget> command : commands.entrySet()) {
+            ttl(command.getKey(), command.getValue());
+        }
+    }
+
+    /**
+     * Get command result from cache, or evaluate it, without session user
+     *
+     * @param commands   shell commands
+     * @param words      command words
+     * @param evaluation command evaluation
+     * @return command result
+     */
+    public Object evaluate(Map<String, MethodTarget> commands, List<String> words, Supplier<Object> evaluation) {
+        return evaluate(commands, words, null, evaluation);
+    }
+
+    /**
+     * Get command result from cache, or evaluate it
+     *
+     * @param commands       shell commands
+     * @param words          command words
+     * @param authentication (optional) session user, results are only shared with same user
+     * @param evaluation     command evaluation
+     * @return command result
+     */
+    public Object evaluate(Map<String, MethodTarget> commands, List<String> words, SshAuthentication authentication,
+                           Supplier<Object> evaluation) {
+        String command = findLongestCommand(commands, words);
+        if (command == null) {
+            return evaluation.get();
+        }
+        MethodTarget target = commands.get(command);
+        Duration ttl = ttl(command, target);
+        // availability is checked on each call, as it may depend on session user
+        if (ttl.isZero() || ttl.isNegative() || !target.getAvailability().isAvailable()) {
+            return evaluation.get();
+        }
+        String line = key(words);
+        String user = user(authentication);
+        String key = user.isEmpty() ? line : user + '\u0000' + line;
+        Object cached = get(key);
+        if (cached != null) {
+            return hit(line, cached);
+        }
+        CompletableFuture<Object> loader = new CompletableFuture<>();
+        CompletableFuture<Object> running = loading.putIfAbsent(key, loader);
+        if (running != null) {
+            Object shared;
+            try {
+                shared = running.get();
+            } catch (InterruptedException e) {
+                return e;
+            } catch (ExecutionException e) {
+                shared = null;
+            }
+            if (shared != null) {
+                return hit(line, shared);
+            }
+            // other evaluation failed, it may succeed for this session
+            misses.incrementAndGet();
+            return evaluation.get();
+        }
+        try {
+            // entry may have been added between lookup and registration
+            cached = get(key);
+            if (cached != null) {
+                loader.complete(cached);
+                return hit(line, cached);
+            }
+            misses.incrementAndGet();
+            Object result = evaluation.get();
+            if (result != null && !(result instanceof Throwable)) {
+                put(key, line, user, command, result, ttl);
+                loader.complete(result);
+            }
+            return result;
+        } finally {
+            loading.remove(key, loader);
+            loader.complete(null);
+        }
+    }
+
+    private Object hit(String line, Object result) {
+        hits.incrementAndGet();
+        LOGGER.debug("Result of [{}] found in cache", line);
+        return result;
+    }
+
+    /**
+     * Build user part of cache key
+     *
+     * @param authentication session authentication
+     * @return principal name and sorted authorities, empty if no authentication
+     */
+    static String user(SshAuthentication authentication) {
+        if (authentication == null) {
+            return "";
+        }
+        Object principal = authentication.getPrincipal();
+        List<String> authorities = authentication.getAuthorities() == null ? new ArrayList<>() :
+                new ArrayList<>(authentication.getAuthorities());
+        Collections.sort(authorities);
+        return (principal instanceof Principal ? ((Principal) principal).getName() : String.valueOf(principal)) +
+                authorities;
+    }
+
+    /**
+     * Build cache key from command words, quoting words which contain spaces, quotes or backslashes, so that
+     * different argument lists never share a key (<code>report "a b"</code> and <code>report a b</code>)
+     *
+     * @param words command words
+     * @return cache key
+     */
+    static String key(List<String> words) {
+        StringBuilder sb = new StringBuilder();
+        for (String word : words) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            boolean quote = word.isEmpty();
+            for (int i = 0; i < word.length() && !quote; i++) {
+                char c = word.charAt(i);
+                quote = Character.isWhitespace(c) || c == '"' || c == '\'' || c == '\\';
+            }
+            if (!quote) {
+                sb.append(word);
+                continue;
+            }
+            sb.append('"');
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                if (c == '"' || c == '\\') {
+                    sb.append('\\');
+                }
+                sb.append(c);
+            }
+            sb.append('"');
+        }
+        return sb.toString();
+    }
+
+    private static String findLongestCommand(Map<String, MethodTarget> commands, List<String> words) {
+        // command names are made of words, only line prefixes ending on a word are looked up
+        String result = null;
+        StringBuilder prefix = new StringBuilder();
+        for (String word : words) {
+            if (prefix.length() > 0) {
+                prefix.append(' ');
+            }
+            prefix.append(word);
+            String candidate = prefix.toString();
+            if (commands.containsKey(candidate)) {
+                result = candidate;
+            }
+        }
+        return result;
+    }
+
+    private Duration ttl(String command, MethodTarget target) {
+        return resolvedTtls.computeIfAbsent(command, c -> {
+            Duration configured = configuredTtls.get(c);
+            if (configured != null) {
+                return configured;
+            }
+            SshShellCacheable cacheable = AnnotatedElementUtils.findMergedAnnotation(target.getMethod(), SshShellCacheable.class);
+            if (cacheable == null) {
+                return Duration.ZERO;
+            }
+            try {
+                return DurationStyle.detectAndParse(cacheable.ttl());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid @SshShellCacheable ttl [" + cacheable.ttl() +
+                        "] for command [" + c + "]", e);
+            }
+        });
+    }
+
+    private Object get(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired()) {
+                entries.remove(key);
+                return null;
+            }
+            entry.hits++;
+            return entry.value;
+        }
+    }
+
+    private void put(String key, String line, String user, String command, Object value, Duration ttl) {
+        synchronized (entries) {
+            entries.put(key, new Entry(line, user, command, value, ttl));
+        }
+    }
+
+    /**
+     * Get cached entries, expired ones are removed
+     *
+     * @return entries, from least to most recently used
+     */
+    public List<Entry> entries() {
+        synchronized (entries) {
+            entries.values().removeIf(Entry::isExpired);
+            return new ArrayList<>(entries.values());
+        }
+    }
+
+    /**
+     * Remove entries
+     *
+     * @param keyOrCommand entry key, or command name to remove all its entries, null to remove all entries
+     * @return number of removed entries
+     */
+    public int flush(String keyOrCommand) {
+        synchronized (entries) {
+            int count = 0;
+            for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+                Entry entry = it.next();
+                if (keyOrCommand == null || entry.key.equals(keyOrCommand) || entry.command.equals(keyOrCommand)) {
+                    it.remove();
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Cached command result
+     */
+    @Getter
+    public static class Entry {
+
+        private final String key;
+
+        /**
+         * Principal and authorities of user who evaluated command, empty without authentication
+         */
+        private final String user;
+
+        private final String command;
+
+        private final Object value;
+
+        private final long createdAt = System.currentTimeMillis();
+
+        private final long expiresAt;
+
+        private volatile long hits;
+
+        private Entry(String key, String user, String command, Object value, Duration ttl) {
+            this.key = key;
+            this.user = user;
+            this.command = command;
+            this.value = value;
+            this.expiresAt = createdAt + ttl.toMillis();
+        }
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
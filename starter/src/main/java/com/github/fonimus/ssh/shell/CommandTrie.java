@@ -0,0 +1,111 @@
+package com.github.fonimus.ssh.shell;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>Immutable prefix trie of command names</p>
+ * <p>Finds the longest command prefixing a buffer in O(length of the buffer), whatever the number of commands</p>
+ */
+public class CommandTrie {
+
+	private final Node root;
+
+	private final int size;
+
+	/**
+	 * Constructor
+	 *
+	 * @param commands command names
+	 */
+	public CommandTrie(Collection<String> commands) {
+		MutableNode mutableRoot = new MutableNode();
+		int count = 0;
+		for (String command : commands) {
+			if (command == null || command.isEmpty()) {
+				continue;
+			}
+			MutableNode current = mutableRoot;
+			for (int i = 0; i < command.length(); i++) {
+				current = current.children.computeIfAbsent(command.charAt(i), c -> new MutableNode());
+			}
+			if (!current.terminal) {
+				current.terminal = true;
+				count++;
+			}
+		}
+		this.root = mutableRoot.freeze();
+		this.size = count;
+	}
+
+	/**
+	 * Get number of commands in trie
+	 *
+	 * @return number of commands
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Find longest command which is a prefix of given buffer
+	 *
+	 * @param buffer buffer to check
+	 * @return length of longest command found, 0 if none
+	 */
+	public int longestPrefix(CharSequence buffer) {
+		Node current = root;
+		int longest = 0;
+		for (int i = 0; i < buffer.length(); i++) {
+			current = current.child(buffer.charAt(i));
+			if (current == null) {
+				break;
+			}
+			if (current.terminal) {
+				longest = i + 1;
+			}
+		}
+		return longest;
+	}
+
+	private static class MutableNode {
+
+		private final Map<Character, MutableNode> children = new TreeMap<>();
+
+		private boolean terminal;
+
+		private Node freeze() {
+			char[] keys = new char[children.size()];
+			Node[] nodes = new Node[children.size()];
+			int i = 0;
+			for (Map.Entry<Character, MutableNode> entry : children.entrySet()) {
+				keys[i] = entry.getKey();
+				nodes[i] = entry.getValue().freeze();
+				i++;
+			}
+			return new Node(keys, nodes, terminal);
+		}
+	}
+
+	private static class Node {
+
+		private final char[] keys;
+
+		private final Node[] children;
+
+		private final boolean terminal;
+
+		private Node(char[] keys, Node[] children, boolean terminal) {
+			this.keys = keys;
+			this.children = children;
+			this.terminal = terminal;
+		}
+
+		private Node child(char c) {
+			int index = Arrays.binarySearch(keys, c);
+			return index >= 0 ? children[index] : null;
+		}
+	}
+}
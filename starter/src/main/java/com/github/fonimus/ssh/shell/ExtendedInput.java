@@ -6,7 +6,6 @@ package com.github.fonimus.ssh.shell;
 
 import org.springframework.shell.Input;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -20,9 +19,17 @@ public class ExtendedInput
 
     public static final String ARROW = ">";
 
-    public static final List<String> KEY_CHARS = Arrays.asList(PIPE, ARROW);
+    public static final String DOUBLE_ARROW = ">>";
 
-    private Input base;
+    public static final String ERROR_ARROW = "2>";
+
+    public static final String ERROR_DOUBLE_ARROW = "2>>";
+
+    public static final String BACKGROUND = "&";
+
+    public static final List<String> KEY_CHARS = Arrays.asList(PIPE, ARROW, DOUBLE_ARROW, ERROR_ARROW, ERROR_DOUBLE_ARROW);
+
+    private Pipeline pipeline;
 
     /**
      * Default constructor
@@ -30,45 +37,25 @@ public class ExtendedInput
      * @param base input base
      */
     public ExtendedInput(Input base) {
-        this.base = base;
+        this(new PipelineParser(0).parse(base.rawText()));
     }
 
-    private static boolean isKeyCharInLine(String str) {
-        for (String key : KEY_CHARS) {
-            if (str.contains(key)) {
-                return true;
-            }
-        }
-        return false;
+    /**
+     * Constructor from parsed pipeline
+     *
+     * @param pipeline parsed pipeline
+     */
+    public ExtendedInput(Pipeline pipeline) {
+        this.pipeline = pipeline;
     }
 
     @Override
     public String rawText() {
-        String raw = base.rawText();
-        return raw != null && isKeyCharInLine(raw) ? raw.substring(0, firstIndexOfKeyChar(raw)) : raw;
+        return pipeline.getCommandText();
     }
 
     @Override
     public List<String> words() {
-        List<String> newList = new ArrayList<>();
-        for (String word : base.words()) {
-            if (KEY_CHARS.contains(word)) {
-                return newList;
-            }
-            newList.add(word);
-        }
-        return newList;
-    }
-
-    private int firstIndexOfKeyChar(String str) {
-        int firstIndex = Integer.MAX_VALUE;
-        for (String key : KEY_CHARS) {
-            int keyIndex = str.indexOf(key);
-            if (keyIndex > -1 && keyIndex < firstIndex) {
-                firstIndex = keyIndex;
-            }
-        }
-        return firstIndex;
+        return pipeline.getCommandWords();
     }
 }
-
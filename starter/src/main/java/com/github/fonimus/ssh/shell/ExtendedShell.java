@@ -1,19 +1,16 @@
 package com.github.fonimus.ssh.shell;
 
-import com.github.fonimus.ssh.shell.postprocess.PostProcessorObject;
-import com.github.fonimus.ssh.shell.postprocess.provided.SavePostProcessor;
+import com.github.fonimus.ssh.shell.jobs.Job;
+import com.github.fonimus.ssh.shell.jobs.JobExecutor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.shell.ExitRequest;
 import org.springframework.shell.Input;
 import org.springframework.shell.ResultHandler;
 import org.springframework.shell.Shell;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
 
-import static com.github.fonimus.ssh.shell.ExtendedInput.*;
 import static com.github.fonimus.ssh.shell.SshShellCommandFactory.SSH_THREAD_CONTEXT;
 
 /**
@@ -23,54 +20,139 @@ import static com.github.fonimus.ssh.shell.SshShellCommandFactory.SSH_THREAD_CON
 public class ExtendedShell
         extends Shell {
 
+    private final ResultHandler resultHandler;
+
+    private final PipelineParser pipelineParser;
+
+    private final CommandResultCache commandResultCache;
+
+    private final JobExecutor jobExecutor;
+
     /**
      * Default constructor
      *
      * @param resultHandler result handler
      */
     public ExtendedShell(ResultHandler resultHandler) {
+        this(resultHandler, new PipelineParser());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param resultHandler  result handler
+     * @param pipelineParser pipeline parser
+     */
+    public ExtendedShell(ResultHandler resultHandler, PipelineParser pipelineParser) {
+        this(resultHandler, pipelineParser, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param resultHandler      result handler
+     * @param pipelineParser     pipeline parser
+     * @param commandResultCache (optional) command result cache
+     */
+    public ExtendedShell(ResultHandler resultHandler, PipelineParser pipelineParser, CommandResultCache commandResultCache) {
+        this(resultHandler, pipelineParser, commandResultCache, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param resultHandler      result handler
+     * @param pipelineParser     pipeline parser
+     * @param commandResultCache (optional) command result cache
+     * @param jobExecutor        (optional) background jobs executor, commands ending with '&amp;' run in foreground
+     *                           without it
+     */
+    public ExtendedShell(ResultHandler resultHandler, PipelineParser pipelineParser, CommandResultCache commandResultCache,
+                         JobExecutor jobExecutor) {
         super(resultHandler);
+        this.resultHandler = resultHandler;
+        this.pipelineParser = pipelineParser;
+        this.commandResultCache = commandResultCache;
+        this.jobExecutor = jobExecutor;
     }
 
-    private static boolean isKeyCharInList(List<String> strList) {
-        for (String key : KEY_CHARS) {
-            if (strList.contains(key)) {
-                return true;
-            }
+    @Override
+    public void gatherMethodTargets() throws Exception {
+        super.gatherMethodTargets();
+        if (commandResultCache != null) {
+            // invalid time to live fails on startup instead of on first call
+            commandResultCache.validate(listCommands());
         }
-        return false;
     }
 
     @Override
     public Object evaluate(Input input) {
-        List<String> words = input.words();
-        Object toReturn = super.evaluate(new ExtendedInput(input));
+        Pipeline pipeline = pipelineParser.parse(input.rawText());
         SshContext ctx = SSH_THREAD_CONTEXT.get();
-        if (ctx != null && isKeyCharInList(words)) {
-            List<Integer> indexes = IntStream.range(0, words.size()).filter(i -> KEY_CHARS.contains(words.get(i))).boxed().collect(Collectors.toList());
-            List<PostProcessorObject> postProcessors = new ArrayList<>();
-            for (Integer index : indexes) {
-                if (words.size() > index + 1) {
-                    String keyChar = words.get(index);
-                    if (keyChar.equals(PIPE)) {
-                        String postProcessorName = words.get(index + 1);
-                        int currentIndex = 2;
-                        String word = words.size() > index + currentIndex ? words.get(index + currentIndex) : null;
-                        List<String> params = new ArrayList<>();
-                        while (word != null && !KEY_CHARS.contains(word)) {
-                            params.add(word);
-                            currentIndex++;
-                            word = words.size() > index + currentIndex ? words.get(index + currentIndex) : null;
-                        }
-                        postProcessors.add(new PostProcessorObject(postProcessorName, params));
-                    } else if (keyChar.equals(ARROW)) {
-                        postProcessors.add(new PostProcessorObject(SavePostProcessor.SAVE, Collections.singletonList(words.get(index + 1))));
-                    }
-                }
+        if (ctx != null && pipeline.isBackground() && jobExecutor != null && !pipeline.getCommandWords().isEmpty()) {
+            return submit(ctx, input.rawText(), pipeline);
+        }
+        applyPostProcessors(ctx, pipeline);
+        return doEvaluate(ctx, pipeline);
+    }
+
+    private static void applyPostProcessors(SshContext ctx, Pipeline pipeline) {
+        if (ctx != null && pipeline.hasPostProcessors()) {
+            LOGGER.debug("Found {} post processors", pipeline.getPostProcessors().size());
+            ctx.setPostProcessorsList(pipeline.getPostProcessors());
+            ctx.setErrorPostProcessor(pipeline.getErrorPostProcessor());
+        }
+    }
+
+    private Object doEvaluate(SshContext ctx, Pipeline pipeline) {
+        ExtendedInput extendedInput = new ExtendedInput(pipeline);
+        CancellationToken token = ctx != null ? ctx.startCommand() : null;
+        try {
+            Object result = commandResultCache == null ? super.evaluate(extendedInput)
+                    : commandResultCache.evaluate(listCommands(), pipeline.getCommandWords(),
+                    ctx != null ? ctx.getAuthentication() : null, () -> super.evaluate(extendedInput));
+            if (token != null && token.isCancelled() && result instanceof Throwable && !(result instanceof CancellationException)) {
+                // whatever interruption caused, display that command has been cancelled
+                CancellationException cancelled = new CancellationException("Command cancelled");
+                cancelled.initCause((Throwable) result);
+                return cancelled;
+            }
+            return result;
+        } finally {
+            if (token != null) {
+                ctx.endCommand(token);
             }
-            LOGGER.debug("Found {} post processors", postProcessors.size());
-            ctx.setPostProcessorsList(postProcessors);
         }
-        return toReturn;
+    }
+
+    /**
+     * Run command as background job, result is handled in job thread, with job context
+     *
+     * @param ctx      session context
+     * @param line     raw command line
+     * @param pipeline parsed command line
+     * @return job submission message
+     */
+    @SuppressWarnings("unchecked")
+    private Object submit(SshContext ctx, String line, Pipeline pipeline) {
+        String trimmed = line.trim();
+        // displayed command, without ending '&'
+        String command = trimmed.substring(0, trimmed.length() - ExtendedInput.BACKGROUND.length()).trim();
+        try {
+            Job job = jobExecutor.submit(ctx, command, () -> {
+                SshContext jobCtx = SSH_THREAD_CONTEXT.get();
+                applyPostProcessors(jobCtx, pipeline);
+                Object result = doEvaluate(jobCtx, pipeline);
+                // exit requests only apply to foreground commands
+                if (result != NO_INPUT && !(result instanceof ExitRequest)) {
+                    resultHandler.handleResult(result);
+                }
+                return result;
+            });
+            return "[" + job.getId() + "] " + command;
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Job rejected: {}", command);
+            return new IllegalStateException("Too many background jobs, please retry later", e);
+        }
     }
 }
@@ -0,0 +1,58 @@
+package com.github.fonimus.ssh.shell;
+
+import com.github.fonimus.ssh.shell.postprocess.PostProcessorObject;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>Immutable parsed command line: command with its words, followed by post processors</p>
+ * <p>Built by {@link PipelineParser}, can be shared between sessions</p>
+ */
+@Getter
+public class Pipeline {
+
+    /**
+     * Command part of raw line, without post processors
+     */
+    private final String commandText;
+
+    /**
+     * Command words, unquoted
+     */
+    private final List<String> commandWords;
+
+    /**
+     * Post processors to apply on command result
+     */
+    private final List<PostProcessorObject> postProcessors;
+
+    /**
+     * Post processor to apply when command result is an error, null if none
+     */
+    private final PostProcessorObject errorPostProcessor;
+
+    /**
+     * Whether line ends with <code>&amp;</code>, to run command as background job
+     */
+    private final boolean background;
+
+    Pipeline(String commandText, List<String> commandWords, List<PostProcessorObject> postProcessors,
+             PostProcessorObject errorPostProcessor, boolean background) {
+        this.commandText = commandText;
+        this.commandWords = Collections.unmodifiableList(commandWords);
+        this.postProcessors = Collections.unmodifiableList(postProcessors);
+        this.errorPostProcessor = errorPostProcessor;
+        this.background = background;
+    }
+
+    /**
+     * Check if there is something after command
+     *
+     * @return true if at least one post processor or error post processor is present
+     */
+    public boolean hasPostProcessors() {
+        return !postProcessors.isEmpty() || errorPostProcessor != null;
+    }
+}
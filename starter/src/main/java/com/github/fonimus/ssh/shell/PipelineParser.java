@@ -0,0 +1,194 @@
+package com.github.fonimus.ssh.shell;
+
+import com.github.fonimus.ssh.shell.postprocess.PostProcessorObject;
+import com.github.fonimus.ssh.shell.postprocess.provided.SavePostProcessor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.fonimus.ssh.shell.ExtendedInput.*;
+
+/**
+ * <p>Parser of command lines with post processors: <code>command args | processor args > file</code></p>
+ * <p>Words are separated by spaces, can be quoted with simple or double quotes, and characters can be escaped with
+ * backslash, like spring shell parser does. Only unquoted words equal to key characters are operators:</p>
+ * <ul>
+ * <li><code>|</code>: followed by post processor name and parameters</li>
+ * <li><code>&gt;</code>, <code>&gt;&gt;</code>: save result to file, or append to it</li>
+ * <li><code>2&gt;</code>, <code>2&gt;&gt;</code>: save result to file, or append to it, only when it is an error</li>
+ * <li><code>&amp;</code>: only as last word, run command as background job</li>
+ * </ul>
+ * <p>Parsed pipelines are cached by raw line</p>
+ */
+public class PipelineParser {
+
+    public static final int DEFAULT_CACHE_SIZE = 256;
+
+    private final Map<String, Pipeline> cache;
+
+    /**
+     * Constructor with default cache size
+     */
+    public PipelineParser() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param cacheSize maximum number of cached pipelines, 0 to disable cache
+     */
+    public PipelineParser(int cacheSize) {
+        this.cache = cacheSize <= 0 ? null : Collections.synchronizedMap(new LinkedHashMap<String, Pipeline>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Pipeline> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Parse line, or get it from cache
+     *
+     * @param line raw line
+     * @return pipeline
+     */
+    public Pipeline parse(String line) {
+        String raw = line == null ? "" : line;
+        if (cache == null) {
+            return doParse(raw);
+        }
+        Pipeline pipeline = cache.get(raw);
+        if (pipeline == null) {
+            pipeline = doParse(raw);
+            cache.put(raw, pipeline);
+        }
+        return pipeline;
+    }
+
+    /**
+     * Get number of cached pipelines
+     *
+     * @return cache size
+     */
+    public int cacheSize() {
+        return cache == null ? 0 : cache.size();
+    }
+
+    private static Pipeline doParse(String line) {
+        List<Token> tokens = tokenize(line);
+        boolean background = false;
+        if (!tokens.isEmpty() && tokens.get(tokens.size() - 1).is(BACKGROUND)) {
+            background = true;
+            tokens.remove(tokens.size() - 1);
+        }
+        int firstOperator = tokens.size();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.get(i).isOperator()) {
+                firstOperator = i;
+                break;
+            }
+        }
+        List<String> commandWords = new ArrayList<>(firstOperator);
+        for (int i = 0; i < firstOperator; i++) {
+            commandWords.add(tokens.get(i).text);
+        }
+        String commandText = firstOperator < tokens.size() ? line.substring(0, tokens.get(firstOperator).start)
+                : background ? line.substring(0, line.lastIndexOf(BACKGROUND)) : line;
+
+        List<PostProcessorObject> postProcessors = new ArrayList<>();
+        PostProcessorObject errorPostProcessor = null;
+        int i = firstOperator;
+        while (i < tokens.size()) {
+            String operator = tokens.get(i++).text;
+            List<String> parameters = new ArrayList<>();
+            while (i < tokens.size() && !tokens.get(i).isOperator()) {
+                parameters.add(tokens.get(i++).text);
+            }
+            if (parameters.isEmpty()) {
+                // operator without name or file, ignored
+                continue;
+            }
+            if (operator.equals(PIPE)) {
+                String name = parameters.remove(0);
+                postProcessors.add(new PostProcessorObject(name, Collections.unmodifiableList(parameters)));
+                continue;
+            }
+            if (operator.equals(DOUBLE_ARROW) || operator.equals(ERROR_DOUBLE_ARROW)) {
+                parameters.add(SavePostProcessor.APPEND_OPTION);
+            }
+            PostProcessorObject save = new PostProcessorObject(SavePostProcessor.SAVE, Collections.unmodifiableList(parameters));
+            if (operator.equals(ERROR_ARROW) || operator.equals(ERROR_DOUBLE_ARROW)) {
+                errorPostProcessor = save;
+            } else {
+                postProcessors.add(save);
+            }
+        }
+        return new Pipeline(commandText, commandWords, postProcessors, errorPostProcessor, background);
+    }
+
+    private static List<Token> tokenize(String line) {
+        List<Token> tokens = new ArrayList<>();
+        StringBuilder current = null;
+        int start = 0;
+        boolean quoted = false;
+        char quote = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quote == 0 && Character.isWhitespace(c)) {
+                if (current != null) {
+                    tokens.add(new Token(current.toString(), start, quoted));
+                    current = null;
+                }
+                continue;
+            }
+            if (current == null) {
+                current = new StringBuilder();
+                start = i;
+                quoted = false;
+            }
+            if (c == '\\' && i + 1 < line.length()) {
+                current.append(line.charAt(++i));
+                quoted = true;
+            } else if (quote != 0 && c == quote) {
+                quote = 0;
+            } else if (quote == 0 && (c == '\'' || c == '"')) {
+                quote = c;
+                quoted = true;
+            } else {
+                current.append(c);
+            }
+        }
+        if (current != null) {
+            tokens.add(new Token(current.toString(), start, quoted));
+        }
+        return tokens;
+    }
+
+    private static class Token {
+
+        private final String text;
+
+        private final int start;
+
+        private final boolean quoted;
+
+        private Token(String text, int start, boolean quoted) {
+            this.text = text;
+            this.start = start;
+            this.quoted = quoted;
+        }
+
+        private boolean isOperator() {
+            return !quoted && KEY_CHARS.contains(text);
+        }
+
+        private boolean is(String operator) {
+            return !quoted && operator.equals(text);
+        }
+    }
+}
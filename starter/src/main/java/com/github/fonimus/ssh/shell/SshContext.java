@@ -1,13 +1,18 @@
 package com.github.fonimus.ssh.shell;
 
 import com.github.fonimus.ssh.shell.auth.SshAuthentication;
+import com.github.fonimus.ssh.shell.jobs.Job;
 import com.github.fonimus.ssh.shell.postprocess.PostProcessorObject;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.jline.reader.LineReader;
 import org.jline.terminal.Terminal;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Ssh context to hold terminal, exit callback and thread per thread
@@ -26,6 +31,22 @@ public class SshContext {
     @Setter
     private List<PostProcessorObject> postProcessorsList;
 
+    @Setter
+    private PostProcessorObject errorPostProcessor;
+
+    /**
+     * Background jobs of session, by id
+     */
+    private final ConcurrentNavigableMap<Integer, Job> jobs = new ConcurrentSkipListMap<>();
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger jobIds = new AtomicInteger();
+
+    /**
+     * Cancellation token of running command, null if none
+     */
+    private volatile CancellationToken cancellationToken;
+
     /**
      * Constructor
      *
@@ -41,4 +62,51 @@ public class SshContext {
         this.lineReader = lineReader;
         this.authentication = authentication;
     }
+
+    /**
+     * Get next background job id
+     *
+     * @return job id, unique in session
+     */
+    public int nextJobId() {
+        return jobIds.incrementAndGet();
+    }
+
+    /**
+     * Start command in current thread
+     *
+     * @return command cancellation token
+     */
+    public synchronized CancellationToken startCommand() {
+        cancellationToken = new CancellationToken(Thread.currentThread());
+        return cancellationToken;
+    }
+
+    /**
+     * End command, must be called from command thread
+     *
+     * @param token command cancellation token
+     */
+    public synchronized void endCommand(CancellationToken token) {
+        if (cancellationToken == token) {
+            cancellationToken = null;
+        }
+        if (token.isCancelled()) {
+            // do not leak interruption to next command or prompt
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Cancel running command, if any
+     *
+     * @return true if a command was running
+     */
+    public synchronized boolean cancel() {
+        if (cancellationToken == null) {
+            return false;
+        }
+        cancellationToken.cancel();
+        return true;
+    }
 }
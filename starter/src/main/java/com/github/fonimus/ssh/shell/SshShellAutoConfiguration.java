@@ -3,16 +3,25 @@ package com.github.fonimus.ssh.shell;
 import com.github.fonimus.ssh.shell.auth.SshShellAuthenticationProvider;
 import com.github.fonimus.ssh.shell.auth.SshShellPasswordAuthenticationProvider;
 import com.github.fonimus.ssh.shell.auth.SshShellSecurityAuthenticationProvider;
+import com.github.fonimus.ssh.shell.interactive.SamplingScheduler;
+import com.github.fonimus.ssh.shell.jobs.JobExecutor;
 import com.github.fonimus.ssh.shell.postprocess.PostProcessor;
+import com.github.fonimus.ssh.shell.postprocess.PostProcessorRegistry;
 import com.github.fonimus.ssh.shell.postprocess.TypePostProcessorResultHandler;
 import com.github.fonimus.ssh.shell.postprocess.provided.*;
 import com.github.fonimus.ssh.shell.providers.AnyOsFileValueProvider;
+import com.github.fonimus.ssh.shell.providers.DirectoryListingCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import org.apache.sshd.server.SshServer;
 import org.jline.reader.LineReader;
 import org.jline.reader.Parser;
 import org.jline.terminal.Terminal;
 import org.jline.utils.AttributedString;
 import org.jline.utils.AttributedStyle;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
@@ -90,15 +99,38 @@ public class SshShellAutoConfiguration {
 
     @Bean
     @Primary
-    public Shell sshShell(@Qualifier("main") ResultHandler<Object> resultHandler, List<PostProcessor> postProcessors) {
-        return new ExtendedShell(new TypePostProcessorResultHandler(resultHandler, postProcessors));
+    public Shell sshShell(@Qualifier("main") ResultHandler<Object> resultHandler, PostProcessorRegistry postProcessorRegistry,
+                          @Autowired(required = false) CommandResultCache commandResultCache,
+                          @Autowired(required = false) JobExecutor jobExecutor) {
+        return new ExtendedShell(new TypePostProcessorResultHandler(resultHandler, postProcessorRegistry), new PipelineParser(),
+                commandResultCache, jobExecutor);
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = SSH_SHELL_PREFIX + ".command-cache.enable", havingValue = "true", matchIfMissing = true)
+    public CommandResultCache commandResultCache(SshShellProperties properties) {
+        return new CommandResultCache(properties.getCommandCache().getMaxEntries(), properties.getCommandCache().getCommands());
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = SSH_SHELL_PREFIX + ".jobs.enable", havingValue = "true", matchIfMissing = true)
+    public JobExecutor jobExecutor(SshShellProperties properties) {
+        return new JobExecutor(properties.getJobs());
+    }
+
+    @Bean
+    public PostProcessorRegistry postProcessorRegistry(List<PostProcessor> postProcessors) {
+        return new PostProcessorRegistry(postProcessors);
     }
 
     // value providers
 
     @Bean
     public ValueProvider anyOsFileValueProvider(SshShellProperties properties) {
-        return new AnyOsFileValueProvider(properties.isAnyOsFileProvider());
+        SshShellProperties.FileCompletion fileCompletion = properties.getFileCompletion();
+        return new AnyOsFileValueProvider(properties.isAnyOsFileProvider(),
+                fileCompletion.isCache() ? new DirectoryListingCache(fileCompletion.getMaxEntries()) : null,
+                fileCompletion.getMaxProposals());
     }
 
     // post processors
@@ -130,6 +162,16 @@ public class SshShellAutoConfiguration {
         return new HighlightPostProcessor();
     }
 
+    @Bean
+    public SshShellSessionExecutor sshShellSessionExecutor(SshShellProperties properties) {
+        return new SshShellSessionExecutor(properties.getSessionExecutor());
+    }
+
+    @Bean
+    public SamplingScheduler samplingScheduler() {
+        return new SamplingScheduler();
+    }
+
     @Bean
     public SshShellHelper sshShellHelper(SshShellProperties properties) {
         return new SshShellHelper(properties.getConfirmationWords());
@@ -205,5 +247,27 @@ public class SshShellAutoConfiguration {
             }
         };
     }
+
+    /**
+     * Session executor metrics, if micrometer is present
+     */
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    public static class SshShellMetricsConfiguration {
+
+        @Bean
+        public MeterBinder sshShellSessionMetrics(SshShellSessionExecutor sessionExecutor) {
+            return registry -> {
+                Tags tags = Tags.of("type", sessionExecutor.getType().name());
+                new ExecutorServiceMetrics(sessionExecutor.getExecutor(), "ssh.shell.sessions", tags).bindTo(registry);
+                Gauge.builder("ssh.shell.sessions.rejected", sessionExecutor, SshShellSessionExecutor::getRejectedSessions)
+                        .tags(tags).description("The number of ssh sessions rejected because max sessions was reached")
+                        .register(registry);
+                Gauge.builder("ssh.shell.sessions.queued", sessionExecutor, SshShellSessionExecutor::getQueuedSessions)
+                        .tags(tags).description("The number of ssh sessions waiting for a free slot")
+                        .register(registry);
+            };
+        }
+    }
 }
 
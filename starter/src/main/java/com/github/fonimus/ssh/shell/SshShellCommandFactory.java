@@ -5,28 +5,15 @@ import lombok.extern.slf4j.Slf4j;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
 
 import org.apache.sshd.common.Factory;
-import org.apache.sshd.server.ChannelSessionAware;
-import org.apache.sshd.server.ExitCallback;
-import org.apache.sshd.server.Signal;
-import org.apache.sshd.server.channel.ChannelSession;
 import org.apache.sshd.server.command.Command;
 import org.jline.reader.EndOfFileException;
+import org.jline.reader.Highlighter;
 import org.jline.reader.LineReader;
-import org.jline.reader.LineReaderBuilder;
 import org.jline.reader.Parser;
-import org.jline.terminal.Attributes;
-import org.jline.terminal.Size;
-import org.jline.terminal.Terminal;
-import org.jline.terminal.TerminalBuilder;
-import org.jline.utils.AttributedString;
-import org.jline.utils.AttributedStringBuilder;
-import org.jline.utils.AttributedStyle;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.Banner;
@@ -38,51 +25,43 @@ import org.springframework.shell.Shell;
 import org.springframework.shell.jline.InteractiveShellApplicationRunner;
 import org.springframework.shell.jline.JLineShellAutoConfiguration;
 import org.springframework.shell.jline.PromptProvider;
-import org.springframework.shell.result.DefaultResultHandler;
 import org.springframework.stereotype.Component;
 
-import com.github.fonimus.ssh.shell.auth.SshAuthentication;
-import com.github.fonimus.ssh.shell.auth.SshShellSecurityAuthenticationProvider;
-
 import static com.github.fonimus.ssh.shell.SshShellHistoryAutoConfiguration.HISTORY_FILE;
 
 /**
- * Ssh shell command factory implementation
+ * <p>Ssh shell command factory implementation</p>
+ * <p>Holds the pieces shared by all sessions (completer, parser, highlighter, banner) and creates
+ * one {@link SshShellRunnable} per ssh channel</p>
  */
 @Slf4j
 @Component
 public class SshShellCommandFactory
-		implements Command, Factory<Command>, ChannelSessionAware, Runnable {
+		implements Factory<Command> {
 
 	public static final ThreadLocal<SshContext> SSH_THREAD_CONTEXT = ThreadLocal.withInitial(() -> null);
 
-	private InputStream is;
-
-	private OutputStream os;
-
-	private ExitCallback ec;
+	private final Banner shellBanner;
 
-	private Thread sshThread;
+	private final PromptProvider promptProvider;
 
-	private ChannelSession session;
+	private final Shell shell;
 
-	private Banner shellBanner;
+	private final JLineShellAutoConfiguration.CompleterAdapter completerAdapter;
 
-	private PromptProvider promptProvider;
-
-	private Shell shell;
+	private final Parser parser;
 
-	private JLineShellAutoConfiguration.CompleterAdapter completerAdapter;
+	private final Environment environment;
 
-	private final Parser parser;
+	private final File historyFile;
 
-	private Environment environment;
+	private final boolean displayBanner;
 
-	private File historyFile;
+	private final Highlighter highlighter;
 
-	private org.apache.sshd.server.Environment sshEnv;
+	private final SshShellSessionExecutor sessionExecutor;
 
-	private boolean displayBanner;
+	private volatile byte[] bannerBytes;
 
 	/**
 	 * Constructor
@@ -95,10 +74,11 @@ public class SshShellCommandFactory
 	 * @param environment      spring environment
 	 * @param historyFile      history file location
 	 * @param properties       ssh shell properties
+	 * @param sessionExecutor  ssh sessions executor
 	 */
 	public SshShellCommandFactory(@Autowired(required = false) Banner banner, @Lazy PromptProvider promptProvider, Shell shell,
 			JLineShellAutoConfiguration.CompleterAdapter completerAdapter, Parser parser, Environment environment,
-			@Qualifier(HISTORY_FILE) File historyFile, SshShellProperties properties) {
+			@Qualifier(HISTORY_FILE) File historyFile, SshShellProperties properties, SshShellSessionExecutor sessionExecutor) {
 		this.shellBanner = banner;
 		this.promptProvider = promptProvider;
 		this.shell = shell;
@@ -107,103 +87,73 @@ public class SshShellCommandFactory
 		this.environment = environment;
 		this.historyFile = historyFile;
 		this.displayBanner = properties.isDisplayBanner();
+		this.sessionExecutor = sessionExecutor;
+		this.highlighter = new CommandHighlighter(shell);
 	}
 
 	/**
-	 * Start ssh session
+	 * Create a new command for each ssh channel
 	 *
-	 * @param channelSession ssh channel session
-	 * @param env            ssh environment
+	 * @return new ssh shell command
 	 */
 	@Override
-	public void start(ChannelSession channelSession, org.apache.sshd.server.Environment env) throws IOException {
-		LOGGER.debug("{}: start", session.toString());
-		sshEnv = env;
-		sshThread = new Thread(this, "ssh-session-" + System.nanoTime());
-		sshThread.start();
+	public Command create() {
+		return new SshShellRunnable(this);
 	}
 
 	/**
-	 * Run ssh session
+	 * Banner is printed only once and kept as bytes to be sent to each new session
+	 *
+	 * @return banner bytes, empty if no banner has to be displayed
+	 * @throws IOException if banner cannot be printed
 	 */
-	@Override
-	public void run() {
-		LOGGER.debug("{}: run", session.toString());
-		Size size = new Size(Integer.parseInt(sshEnv.getEnv().get("COLUMNS")), Integer.parseInt(sshEnv.getEnv().get("LINES")));
-		try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-				PrintStream ps = new PrintStream(baos, true, StandardCharsets.UTF_8.name());
-				Terminal terminal = TerminalBuilder.builder().system(false).size(size).type(sshEnv.getEnv().get("TERM")).streams(is, os).build()) {
-
-			DefaultResultHandler resultHandler = new DefaultResultHandler();
-			resultHandler.setTerminal(terminal);
-
-			Attributes attr = terminal.getAttributes();
-			SshShellUtils.fill(attr, sshEnv.getPtyModes());
-			terminal.setAttributes(attr);
+	byte[] bannerBytes() throws IOException {
+		byte[] bytes = bannerBytes;
+		if (bytes == null) {
+			synchronized (this) {
+				bytes = bannerBytes;
+				if (bytes == null) {
+					bytes = new byte[0];
+					if (displayBanner && shellBanner != null) {
+						try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
+								PrintStream ps = new PrintStream(baos, true, StandardCharsets.UTF_8.name())) {
+							shellBanner.printBanner(environment, this.getClass(), ps);
+							bytes = baos.toByteArray();
+						}
+					}
+					bannerBytes = bytes;
+				}
+			}
+		}
+		return bytes;
+	}
 
-			sshEnv.addSignalListener((channel, signal) -> {
-				terminal.setSize(new Size(
-						Integer.parseInt(sshEnv.getEnv().get("COLUMNS")),
-						Integer.parseInt(sshEnv.getEnv().get("LINES"))));
-				terminal.raise(Terminal.Signal.WINCH);
-			}, Signal.WINCH);
+	PromptProvider getPromptProvider() {
+		return promptProvider;
+	}
 
-			if (displayBanner && shellBanner != null) {
-				shellBanner.printBanner(environment, this.getClass(), ps);
-			}
-			resultHandler.handleResult(new String(baos.toByteArray(), StandardCharsets.UTF_8));
-			resultHandler.handleResult("Please type `help` to see available commands");
+	Shell getShell() {
+		return shell;
+	}
 
-			LineReader reader = LineReaderBuilder.builder()
-					.terminal(terminal)
-					.appName("Spring Ssh Shell")
-					.completer(completerAdapter)
-					.highlighter((reader1, buffer) -> {
-						int l = 0;
-						String best = null;
-						for (String command : shell.listCommands().keySet()) {
-							if (buffer.startsWith(command) && command.length() > l) {
-								l = command.length();
-								best = command;
-							}
-						}
-						if (best != null) {
-							return new AttributedStringBuilder(buffer.length()).append(best, AttributedStyle.BOLD).append(buffer.substring(l)).toAttributedString();
-						} else {
-							return new AttributedString(buffer, AttributedStyle.DEFAULT.foreground(AttributedStyle.RED));
-						}
-					})
-					.parser(parser)
-					.build();
-			reader.setVariable(LineReader.HISTORY_FILE, historyFile.toPath());
+	JLineShellAutoConfiguration.CompleterAdapter getCompleterAdapter() {
+		return completerAdapter;
+	}
 
-			Object authenticationObject = session.getSession().getIoSession().getAttribute(
-					SshShellSecurityAuthenticationProvider.AUTHENTICATION_ATTRIBUTE);
-			SshAuthentication authentication = null;
-			if (authenticationObject != null) {
-				if (!(authenticationObject instanceof SshAuthentication)) {
-					throw new IllegalStateException("Unknown authentication object class: " + authenticationObject.getClass().getName());
-				}
-				authentication = (SshAuthentication) authenticationObject;
-			}
+	Parser getParser() {
+		return parser;
+	}
 
-			SSH_THREAD_CONTEXT.set(new SshContext(sshThread, terminal, reader, authentication));
-			shell.run(new SshShellInputProvider(reader, promptProvider));
-			LOGGER.debug("{}: end", session.toString());
-			quit(0);
-		} catch (Throwable e) {
-			LOGGER.error("{}: unexpected exception", session.toString(), e);
-			quit(1);
-		}
+	File getHistoryFile() {
+		return historyFile;
 	}
 
-	private void quit(int exitCode) {
-		ec.onExit(exitCode);
+	Highlighter getHighlighter() {
+		return highlighter;
 	}
 
-	@Override
-	public void destroy(ChannelSession channelSession) throws Exception {
-		// nothing to do
+	SshShellSessionExecutor getSessionExecutor() {
+		return sessionExecutor;
 	}
 
 	static class SshShellInputProvider
@@ -218,6 +168,7 @@ public class SshShellCommandFactory
 			SshContext ctx = SSH_THREAD_CONTEXT.get();
 			if (ctx != null) {
 				ctx.setPostProcessorsList(null);
+				ctx.setErrorPostProcessor(null);
 			}
 			try {
 				return super.readInput();
@@ -226,34 +177,4 @@ public class SshShellCommandFactory
 			}
 		}
 	}
-
-	@Override
-	public void setErrorStream(OutputStream errOS) {
-		// not used
-	}
-
-	@Override
-	public void setExitCallback(ExitCallback ec) {
-		this.ec = ec;
-	}
-
-	@Override
-	public void setInputStream(InputStream is) {
-		this.is = is;
-	}
-
-	@Override
-	public void setOutputStream(OutputStream os) {
-		this.os = os;
-	}
-
-	@Override
-	public void setChannelSession(ChannelSession session) {
-		this.session = session;
-	}
-
-	@Override
-	public Command create() {
-		return this;
-	}
 }
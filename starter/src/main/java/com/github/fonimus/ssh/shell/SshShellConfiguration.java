@@ -70,8 +70,8 @@ public class SshShellConfiguration {
 		server.setHost(properties.getHost());
 		server.setPasswordAuthenticator(passwordAuthenticator);
 		server.setPort(properties.getPort());
-		server.setShellFactory(channelSession -> shellCommandFactory);
-		server.setCommandFactory((channelSession, s) -> shellCommandFactory);
+		server.setShellFactory(channelSession -> shellCommandFactory.create());
+		server.setCommandFactory((channelSession, s) -> shellCommandFactory.create());
 		return server;
 	}
 
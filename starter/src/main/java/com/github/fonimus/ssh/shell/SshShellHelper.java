@@ -1,6 +1,7 @@
 package com.github.fonimus.ssh.shell;
 
 import com.github.fonimus.ssh.shell.auth.SshAuthentication;
+import com.github.fonimus.ssh.shell.interactive.IncrementalDisplay;
 import com.github.fonimus.ssh.shell.interactive.Interactive;
 import com.github.fonimus.ssh.shell.interactive.InteractiveInput;
 import com.github.fonimus.ssh.shell.interactive.KeyBinding;
@@ -18,6 +19,7 @@ import org.springframework.shell.table.CellMatcher;
 
 import java.io.PrintWriter;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Ssh shell helper for user interactions and authorities check
@@ -31,6 +33,8 @@ public class SshShellHelper {
 
     public static final String EXIT = "_EXIT";
 
+    private static final long RESIZE_CHECK_DELAY = 100;
+
     public static final List<String> DEFAULT_CONFIRM_WORDS = Arrays.asList("y", "yes");
 
     private final List<String> confirmWords;
@@ -345,22 +349,16 @@ public class SshShellHelper {
      */
     public void interactive(Interactive interactive) {
         final long[] refreshDelay = {interactive.getRefreshDelay()};
-        int rows = 0;
-        final int[] maxLines = {rows};
+        int maxLines = 0;
         Terminal terminal = SshShellCommandFactory.SSH_THREAD_CONTEXT.get().getTerminal();
-        Display display = new Display(terminal, interactive.isFullScreen());
+        IncrementalDisplay display = new IncrementalDisplay(terminal, interactive.isFullScreen());
         Size size = interactive.getSize() != null ? interactive.getSize() : new Size();
         BindingReader bindingReader = new BindingReader(terminal.reader());
 
         size.copy(new Size(terminal.getSize().getColumns(), terminal.getSize().getRows()));
-        Terminal.SignalHandler prevHandler = terminal.handle(Terminal.Signal.WINCH, signal -> {
-            int previous = size.getColumns();
-            size.copy(new Size(terminal.getSize().getColumns(), rows));
-            if (size.getColumns() < previous) {
-                display.clear();
-            }
-            maxLines[0] = display(interactive.getInput(), display, size, refreshDelay[0]);
-        });
+        // only flag resize, several signals are coalesced in one redraw from command thread
+        AtomicBoolean resized = new AtomicBoolean();
+        Terminal.SignalHandler prevHandler = terminal.handle(Terminal.Signal.WINCH, signal -> resized.set(true));
         Attributes attr = terminal.enterRawMode();
         try {
 
@@ -429,12 +427,22 @@ public class SshShellHelper {
             }
 
             String op;
+            boolean refresh = true;
+            long nextRefresh = t0;
             do {
-                maxLines[0] = display(interactive.getInput(), display, size, refreshDelay[0]);
+                if (resized.getAndSet(false)) {
+                    size.copy(new Size(terminal.getSize().getColumns(), terminal.getSize().getRows()));
+                    refresh = true;
+                }
+                if (refresh || System.currentTimeMillis() >= nextRefresh) {
+                    maxLines = display(interactive.getInput(), display, size, refreshDelay[0]);
+                    nextRefresh = ((System.currentTimeMillis() - t0) / refreshDelay[0] + 1) * refreshDelay[0] + t0;
+                    refresh = false;
+                }
                 checkInterrupted();
 
-                long delta = ((System.currentTimeMillis() - t0) / refreshDelay[0] + 1)
-                        * refreshDelay[0] + t0 - System.currentTimeMillis();
+                // wake up regularly to handle resize
+                long delta = Math.max(1, Math.min(nextRefresh - System.currentTimeMillis(), RESIZE_CHECK_DELAY));
 
                 int ch = bindingReader.peekCharacter(delta);
                 op = null;
@@ -452,6 +460,7 @@ public class SshShellHelper {
                 if (input != null) {
                     input.action();
                 }
+                refresh = true;
             } while (op == null || !op.equals(EXIT));
         } catch (InterruptedException ie) {
             // Do nothing
@@ -467,7 +476,7 @@ public class SshShellHelper {
                 terminal.puts(InfoCmp.Capability.keypad_local);
                 terminal.writer().flush();
             } else {
-                for (int i = 0; i < maxLines[0]; i++) {
+                for (int i = 0; i < maxLines; i++) {
                     terminal.writer().println();
                 }
             }
@@ -501,20 +510,41 @@ public class SshShellHelper {
         interactive(Interactive.builder().input(input).refreshDelay(delay).fullScreen(fullScreen).size(size).build());
     }
 
-    private int display(InteractiveInput input, Display display, Size size, long currentDelay) {
-        display.resize(size.getRows(), size.getColumns());
+    private int display(InteractiveInput input, IncrementalDisplay display, Size size, long currentDelay) {
         List<AttributedString> lines = input.getLines(size, currentDelay);
-        display.update(lines, 0);
+        display.update(lines, size);
         return lines.size();
     }
 
     private void checkInterrupted() throws InterruptedException {
         Thread.yield();
-        if (Thread.currentThread().isInterrupted()) {
+        if (Thread.currentThread().isInterrupted() || isCancelled()) {
             throw new InterruptedException();
         }
     }
 
+    /**
+     * Get cancellation token of running command, cancelled on Ctrl-C (or when background job is killed)
+     *
+     * @return cancellation token, never cancelled if not called from a command
+     */
+    public CancellationToken getCancellationToken() {
+        SshContext ctx = SshShellCommandFactory.SSH_THREAD_CONTEXT.get();
+        CancellationToken token = ctx != null ? ctx.getCancellationToken() : null;
+        return token != null ? token : new CancellationToken(null);
+    }
+
+    /**
+     * Check if running command has been cancelled, to be called regularly by long running commands
+     *
+     * @return true if cancelled
+     */
+    public boolean isCancelled() {
+        SshContext ctx = SshShellCommandFactory.SSH_THREAD_CONTEXT.get();
+        CancellationToken token = ctx != null ? ctx.getCancellationToken() : null;
+        return token != null && token.isCancelled();
+    }
+
     /**
      * Return the terminal writer
      *
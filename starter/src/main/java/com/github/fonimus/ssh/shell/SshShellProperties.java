@@ -3,11 +3,15 @@ package com.github.fonimus.ssh.shell;
 import lombok.Data;
 
 import java.io.File;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
 import static com.github.fonimus.ssh.shell.SshShellProperties.SSH_SHELL_PREFIX;
@@ -43,6 +47,14 @@ public class SshShellProperties {
 
     private Actuator actuator = new Actuator();
 
+    private SessionExecutor sessionExecutor = new SessionExecutor();
+
+    private FileCompletion fileCompletion = new FileCompletion();
+
+    private CommandCache commandCache = new CommandCache();
+
+    private Jobs jobs = new Jobs();
+
     private boolean enable = true;
 
     private String host = "127.0.0.1";
@@ -71,6 +83,10 @@ public class SshShellProperties {
         simple, security
     }
 
+    public enum SessionExecutorType {
+        platform, pool, virtual
+    }
+
     /**
      * Prompt configuration
      */
@@ -95,16 +111,92 @@ public class SshShellProperties {
         private List<String> excludes = new ArrayList<>();
     }
 
+    /**
+     * Session executor configuration
+     */
+    @Data
+    public static class SessionExecutor {
+
+        private SessionExecutorType type = SessionExecutorType.platform;
+
+        // 0 or negative for unlimited
+        private int maxSessions = 0;
+
+        // sessions waiting for a free slot when max sessions is reached, 0 to reject them
+        private int queueSize = 0;
+    }
+
+    /**
+     * File completion configuration (for {@link com.github.fonimus.ssh.shell.providers.AnyOsFileValueProvider})
+     */
+    @Data
+    public static class FileCompletion {
+
+        // cache directory listings, kept current by file system events
+        private boolean cache = false;
+
+        // maximum number of cached directory listings
+        private int maxEntries = 100;
+
+        // 0 or negative for unlimited
+        private int maxProposals = 0;
+    }
+
+    /**
+     * Command result cache configuration
+     */
+    @Data
+    public static class CommandCache {
+
+        private boolean enable = true;
+
+        // maximum number of cached results, for all commands
+        private int maxEntries = 100;
+
+        // time to live per command name, overrides @SshShellCacheable, 0 to disable cache for command
+        private Map<String, Duration> commands = new HashMap<>();
+    }
+
+    /**
+     * Background jobs configuration (commands ending with '&')
+     */
+    @Data
+    public static class Jobs {
+
+        private boolean enable = true;
+
+        // maximum number of jobs running at the same time, for all sessions
+        private int maxThreads = 4;
+
+        // jobs waiting for a free thread, 0 to reject them
+        private int queueSize = 16;
+
+        // output kept per job, oldest output is dropped
+        private DataSize outputSize = DataSize.ofKilobytes(64);
+    }
+
     /**
      * Default commands configuration
      */
     @Data
     public static class DefaultCommands {
 
+        private boolean cache = true;
+
+        private boolean jfr = true;
+
+        private boolean jobs = true;
+
         private boolean jvm = true;
 
+        private boolean locks = true;
+
+        private boolean memory = true;
+
         private boolean postprocessors = true;
 
+        private boolean profile = true;
+
         private boolean threads = true;
     }
 
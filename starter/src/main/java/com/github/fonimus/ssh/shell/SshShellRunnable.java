@@ -0,0 +1,207 @@
+package com.github.fonimus.ssh.shell;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.sshd.server.ChannelSessionAware;
+import org.apache.sshd.server.ExitCallback;
+import org.apache.sshd.server.Signal;
+import org.apache.sshd.server.channel.ChannelSession;
+import org.apache.sshd.server.command.Command;
+import org.jline.reader.LineReader;
+import org.jline.reader.LineReaderBuilder;
+import org.jline.terminal.Attributes;
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.TerminalBuilder;
+import org.springframework.shell.result.DefaultResultHandler;
+
+import com.github.fonimus.ssh.shell.auth.SshAuthentication;
+import com.github.fonimus.ssh.shell.auth.SshShellSecurityAuthenticationProvider;
+import com.github.fonimus.ssh.shell.jobs.Job;
+
+import static com.github.fonimus.ssh.shell.SshShellCommandFactory.SSH_THREAD_CONTEXT;
+
+/**
+ * <p>Ssh shell command created for each ssh channel</p>
+ * <p>Only holds session state, shared objects are taken from {@link SshShellCommandFactory}</p>
+ */
+@Slf4j
+public class SshShellRunnable
+		implements Command, ChannelSessionAware, Runnable {
+
+	private final SshShellCommandFactory factory;
+
+	private InputStream is;
+
+	private OutputStream os;
+
+	private ExitCallback ec;
+
+	private ChannelSession session;
+
+	private org.apache.sshd.server.Environment sshEnv;
+
+	/**
+	 * Constructor
+	 *
+	 * @param factory command factory holding shared objects
+	 */
+	public SshShellRunnable(SshShellCommandFactory factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * Start ssh session
+	 *
+	 * @param channelSession ssh channel session
+	 * @param env            ssh environment
+	 */
+	@Override
+	public void start(ChannelSession channelSession, org.apache.sshd.server.Environment env) throws IOException {
+		LOGGER.debug("{}: start", session);
+		sshEnv = env;
+		try {
+			if (factory.getSessionExecutor().submit(this)) {
+				LOGGER.info("{}: max ssh sessions reached, session queued", session);
+				write("Max ssh sessions reached, waiting for a free slot...");
+			}
+		} catch (RejectedExecutionException e) {
+			LOGGER.warn("{}: {}", session, e.getMessage());
+			write(e.getMessage());
+			quit(1);
+		}
+	}
+
+	private void write(String message) throws IOException {
+		os.write((message + "\r\n").getBytes(StandardCharsets.UTF_8));
+		os.flush();
+	}
+
+	/**
+	 * Run ssh session
+	 */
+	@Override
+	public void run() {
+		LOGGER.debug("{}: run", session);
+		Size size = new Size(Integer.parseInt(sshEnv.getEnv().get("COLUMNS")), Integer.parseInt(sshEnv.getEnv().get("LINES")));
+		try (Terminal terminal = TerminalBuilder.builder().system(false).size(size).type(sshEnv.getEnv().get("TERM")).streams(is, os).build()) {
+
+			DefaultResultHandler resultHandler = new DefaultResultHandler();
+			resultHandler.setTerminal(terminal);
+
+			Attributes attr = terminal.getAttributes();
+			SshShellUtils.fill(attr, sshEnv.getPtyModes());
+			terminal.setAttributes(attr);
+
+			sshEnv.addSignalListener((channel, signal) -> {
+				terminal.setSize(new Size(
+						Integer.parseInt(sshEnv.getEnv().get("COLUMNS")),
+						Integer.parseInt(sshEnv.getEnv().get("LINES"))));
+				terminal.raise(Terminal.Signal.WINCH);
+			}, Signal.WINCH);
+
+			resultHandler.handleResult(new String(factory.bannerBytes(), StandardCharsets.UTF_8));
+			resultHandler.handleResult("Please type `help` to see available commands");
+
+			LineReader reader = LineReaderBuilder.builder()
+					.terminal(terminal)
+					.appName("Spring Ssh Shell")
+					.completer(factory.getCompleterAdapter())
+					.highlighter(factory.getHighlighter())
+					.parser(factory.getParser())
+					.build();
+			reader.setVariable(LineReader.HISTORY_FILE, factory.getHistoryFile().toPath());
+
+			Object authenticationObject = session.getSession().getIoSession().getAttribute(
+					SshShellSecurityAuthenticationProvider.AUTHENTICATION_ATTRIBUTE);
+			SshAuthentication authentication = null;
+			if (authenticationObject != null) {
+				if (!(authenticationObject instanceof SshAuthentication)) {
+					throw new IllegalStateException("Unknown authentication object class: " + authenticationObject.getClass().getName());
+				}
+				authentication = (SshAuthentication) authenticationObject;
+			}
+
+			SshContext ctx = new SshContext(Thread.currentThread(), terminal, reader, authentication);
+			SSH_THREAD_CONTEXT.set(ctx);
+
+			// ctrl-c is received as signal by terminal (line reader handles it while reading input),
+			// or as ssh signal request
+			terminal.handle(Terminal.Signal.INT, signal -> {
+				if (ctx.cancel()) {
+					LOGGER.debug("{}: running command cancelled", session);
+				}
+			});
+			sshEnv.addSignalListener((channel, signal) -> terminal.raise(Terminal.Signal.INT), Signal.INT);
+
+			factory.getShell().run(new SshShellCommandFactory.SshShellInputProvider(reader, factory.getPromptProvider()));
+			LOGGER.debug("{}: end", session);
+			quit(0);
+		} catch (Throwable e) {
+			LOGGER.error("{}: unexpected exception", session, e);
+			quit(1);
+		} finally {
+			SshContext ctx = SSH_THREAD_CONTEXT.get();
+			if (ctx != null) {
+				// background jobs do not outlive their session
+				ctx.getJobs().values().forEach(Job::kill);
+			}
+			SSH_THREAD_CONTEXT.remove();
+		}
+	}
+
+	private void quit(int exitCode) {
+		ec.onExit(exitCode);
+	}
+
+	@Override
+	public void destroy(ChannelSession channelSession) {
+		// client disconnected while waiting for a free slot, session must not take one later
+		if (factory.getSessionExecutor().remove(this)) {
+			LOGGER.info("{}: queued session closed by client", session);
+		}
+	}
+
+	@Override
+	public void setErrorStream(OutputStream errOS) {
+		// not used
+	}
+
+	@Override
+	public void setExitCallback(ExitCallback ec) {
+		this.ec = ec;
+	}
+
+	@Override
+	public void setInputStream(InputStream is) {
+		this.is = is;
+	}
+
+	@Override
+	public void setOutputStream(OutputStream os) {
+		this.os = os;
+	}
+
+	@Override
+	public void setChannelSession(ChannelSession session) {
+		this.session = session;
+	}
+
+	SshShellCommandFactory getFactory() {
+		return factory;
+	}
+
+	InputStream getInputStream() {
+		return is;
+	}
+
+	OutputStream getOutputStream() {
+		return os;
+	}
+}
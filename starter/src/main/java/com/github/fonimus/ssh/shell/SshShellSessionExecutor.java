@@ -0,0 +1,231 @@
+package com.github.fonimus.ssh.shell;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Executor running ssh sessions</p>
+ * <p>Depending on {@link SshShellProperties.SessionExecutor#getType()}, sessions run on a new platform thread,
+ * on a bounded pool of reused platform threads or on virtual threads (jdk 21+)</p>
+ * <p>When {@link SshShellProperties.SessionExecutor#getMaxSessions()} is reached, new sessions are queued up to
+ * {@link SshShellProperties.SessionExecutor#getQueueSize()}, then rejected. Queued sessions are run by the thread of
+ * the next ending session</p>
+ */
+@Slf4j
+public class SshShellSessionExecutor
+		implements AutoCloseable {
+
+	public static final String THREAD_PREFIX = "ssh-session-";
+
+	private final SshShellProperties.SessionExecutorType type;
+
+	private final int maxSessions;
+
+	private final ThreadPoolExecutor executor;
+
+	private final BlockingQueue<Runnable> waiting;
+
+	private final AtomicLong rejected = new AtomicLong();
+
+	// guarded by this, with waiting queue, so that a session is either started or queued
+	private int running;
+
+	/**
+	 * Constructor
+	 *
+	 * @param properties session executor properties
+	 */
+	public SshShellSessionExecutor(SshShellProperties.SessionExecutor properties) {
+		ThreadFactory threadFactory = null;
+		SshShellProperties.SessionExecutorType executorType = properties.getType();
+		if (executorType == SshShellProperties.SessionExecutorType.virtual) {
+			threadFactory = virtualThreadFactory();
+			if (threadFactory == null) {
+				LOGGER.warn("Virtual threads are not available on this jvm (java {}), falling back to platform threads",
+						System.getProperty("java.version"));
+				executorType = SshShellProperties.SessionExecutorType.platform;
+			}
+		}
+		if (threadFactory == null) {
+			threadFactory = platformThreadFactory();
+		}
+		this.type = executorType;
+		this.maxSessions = properties.getMaxSessions() > 0 ? properties.getMaxSessions() : Integer.MAX_VALUE;
+		this.waiting = properties.getQueueSize() > 0 && properties.getMaxSessions() > 0
+				? new LinkedBlockingQueue<>(properties.getQueueSize()) : null;
+		// threads are created on demand, max sessions is enforced on submit; only pool type keeps idle threads
+		long keepAlive = type == SshShellProperties.SessionExecutorType.pool ? 60000 : 1;
+		this.executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, keepAlive, TimeUnit.MILLISECONDS,
+				new SynchronousQueue<>(), threadFactory);
+		LOGGER.debug("Ssh session executor created [type={}, maxSessions={}, queueSize={}]",
+				type, properties.getMaxSessions(), properties.getQueueSize());
+	}
+
+	private static ThreadFactory platformThreadFactory() {
+		AtomicLong counter = new AtomicLong();
+		return r -> new Thread(r, THREAD_PREFIX + counter.incrementAndGet());
+	}
+
+	/**
+	 * Use reflection as project is compiled with java 8
+	 *
+	 * @return virtual thread factory, or null if not available
+	 */
+	private static ThreadFactory virtualThreadFactory() {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Method name = builderClass.getMethod("name", String.class, long.class);
+			builder = name.invoke(builder, THREAD_PREFIX, 1L);
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			LOGGER.debug("Unable to create virtual thread factory", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Submit ssh session
+	 *
+	 * @param session session runnable
+	 * @return true if session has been queued because max sessions is reached, false if it has been started
+	 * @throws RejectedExecutionException if max sessions is reached and queue is full
+	 */
+	public boolean submit(Runnable session) {
+		synchronized (this) {
+			if (running >= maxSessions) {
+				if (waiting != null && waiting.offer(session)) {
+					return true;
+				}
+				rejected.incrementAndGet();
+				throw new RejectedExecutionException("Too many ssh sessions (max: " + maxSessions + "), please retry later");
+			}
+			running++;
+		}
+		try {
+			executor.execute(() -> run(session));
+		} catch (RejectedExecutionException e) {
+			synchronized (this) {
+				running--;
+			}
+			rejected.incrementAndGet();
+			throw new RejectedExecutionException("Unable to start ssh session", e);
+		}
+		return false;
+	}
+
+	private void run(Runnable session) {
+		Runnable next = session;
+		while (next != null) {
+			Runnable current = next;
+			next = null;
+			boolean completed = false;
+			try {
+				current.run();
+				completed = true;
+			} catch (RuntimeException e) {
+				LOGGER.warn("Ssh session ended with error", e);
+				completed = true;
+			} finally {
+				// slot is always released or handed over, even if session ended with an error
+				Runnable queued;
+				synchronized (this) {
+					queued = waiting != null ? waiting.poll() : null;
+					if (queued == null) {
+						running--;
+					}
+				}
+				if (completed) {
+					next = queued;
+				} else if (queued != null) {
+					// this thread ends with error, queued session gets a new one
+					start(queued);
+				}
+			}
+		}
+	}
+
+	private void start(Runnable queued) {
+		try {
+			executor.execute(() -> run(queued));
+		} catch (RejectedExecutionException e) {
+			synchronized (this) {
+				running--;
+			}
+			rejected.incrementAndGet();
+			LOGGER.warn("Unable to start queued ssh session", e);
+		}
+	}
+
+	/**
+	 * Remove session from queue, when its client disconnected before it started
+	 *
+	 * @param session session runnable
+	 * @return true if session was queued
+	 */
+	public boolean remove(Runnable session) {
+		return waiting != null && waiting.remove(session);
+	}
+
+	/**
+	 * Get effective executor type
+	 *
+	 * @return type, platform if virtual threads were asked but are not available
+	 */
+	public SshShellProperties.SessionExecutorType getType() {
+		return type;
+	}
+
+	/**
+	 * Get underlying thread pool executor, to expose metrics
+	 *
+	 * @return executor
+	 */
+	public ThreadPoolExecutor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Get number of running sessions
+	 *
+	 * @return running sessions
+	 */
+	public synchronized int getActiveSessions() {
+		return running;
+	}
+
+	/**
+	 * Get number of sessions waiting for a free slot
+	 *
+	 * @return queued sessions
+	 */
+	public int getQueuedSessions() {
+		return waiting != null ? waiting.size() : 0;
+	}
+
+	/**
+	 * Get number of rejected sessions since startup
+	 *
+	 * @return rejected sessions
+	 */
+	public long getRejectedSessions() {
+		return rejected.get();
+	}
+
+	@Override
+	public void close() {
+		if (waiting != null) {
+			waiting.clear();
+		}
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,91 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import com.github.fonimus.ssh.shell.CommandResultCache;
+import com.github.fonimus.ssh.shell.SshShellHelper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.shell.Availability;
+import org.springframework.shell.standard.ShellCommandGroup;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellMethodAvailability;
+import org.springframework.shell.standard.ShellOption;
+import org.springframework.shell.table.ArrayTableModel;
+import org.springframework.shell.table.BorderStyle;
+import org.springframework.shell.table.TableBuilder;
+
+import java.util.List;
+
+import static com.github.fonimus.ssh.shell.SshShellProperties.SSH_SHELL_PREFIX;
+
+/**
+ * Command to inspect or flush command result cache
+ */
+@SshShellComponent
+@ShellCommandGroup("Built-In Commands")
+@ConditionalOnProperty(
+        value = {
+                SSH_SHELL_PREFIX + ".default-commands.cache",
+                SSH_SHELL_PREFIX + ".defaultCommands.cache"
+        }, havingValue = "true", matchIfMissing = true
+)
+public class CacheCommand {
+
+    private CommandResultCache cache;
+
+    private SshShellHelper helper;
+
+    @Autowired
+    public CacheCommand(ObjectProvider<CommandResultCache> cache, SshShellHelper helper) {
+        this(cache.getIfAvailable(), helper);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param cache  (optional) command result cache, command is unavailable without it
+     * @param helper ssh shell helper
+     */
+    public CacheCommand(CommandResultCache cache, SshShellHelper helper) {
+        this.cache = cache;
+        this.helper = helper;
+    }
+
+    enum CacheAction {
+        LIST, FLUSH
+    }
+
+    @ShellMethod("Display or flush cached command results.")
+    @ShellMethodAvailability("cacheAvailability")
+    public String cache(@ShellOption(defaultValue = "LIST") CacheAction action,
+                        @ShellOption(help = "Only for FLUSH action: entry key or command name, all entries if not set",
+                                defaultValue = ShellOption.NULL) String key) {
+        if (action == CacheAction.FLUSH) {
+            return helper.getSuccess(cache.flush(key) + " cache entries flushed");
+        }
+        List<CommandResultCache.Entry> entries = cache.entries();
+        long now = System.currentTimeMillis();
+        Object[][] data = new Object[entries.size() + 1][];
+        data[0] = new Object[]{"KEY", "TYPE", "AGE (s)", "EXPIRES IN (s)", "HITS"};
+        int i = 1;
+        for (CommandResultCache.Entry entry : entries) {
+            data[i++] = new Object[]{
+                    entry.getKey(),
+                    entry.getValue().getClass().getSimpleName(),
+                    (now - entry.getCreatedAt()) / 1000,
+                    Math.max(0, entry.getExpiresAt() - now) / 1000,
+                    entry.getHits()
+            };
+        }
+        return "Entries: " + entries.size() + "/" + cache.getMaxEntries() + ", hits: " + cache.getHits()
+                + ", misses: " + cache.getMisses() + "\n"
+                + new TableBuilder(new ArrayTableModel(data)).addHeaderAndVerticalsBorders(BorderStyle.fancy_light).build().render(helper.terminalSize().getColumns());
+    }
+
+    /**
+     * @return whether `cache` command is available
+     */
+    public Availability cacheAvailability() {
+        return cache != null ? Availability.available() : Availability.unavailable("command cache is disabled");
+    }
+}
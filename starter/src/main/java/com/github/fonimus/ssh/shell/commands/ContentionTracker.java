@@ -0,0 +1,109 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import lombok.Getter;
+
+import java.lang.management.ThreadInfo;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Monitor contention between two lock reports, for locks watch</p>
+ * <p>Reports only show threads blocked at sampling time. Contention which starts and ends between two samples is
+ * counted from deltas of {@link ThreadInfo#getBlockedCount()} and {@link ThreadInfo#getBlockedTime()} (time is only
+ * measured when thread contention monitoring is enabled). Threads ended between samples are not counted</p>
+ */
+@Getter
+class ContentionTracker {
+
+    private Map<Long, ThreadInfo> previous;
+
+    private LockAnalyzer.LockReport lastReport;
+
+    /**
+     * Threads blocked since previous report, most blocked first
+     */
+    private List<ThreadContention> contentions = Collections.emptyList();
+
+    private long blockedCount;
+
+    /**
+     * Blocked time since previous report in milliseconds, -1 if not measured
+     */
+    private long blockedTime = -1;
+
+    private long totalBlockedCount;
+
+    private long totalBlockedTime;
+
+    /**
+     * Update with report, ignored if it is the last one (shared snapshot redrawn)
+     *
+     * @param report lock report
+     */
+    void update(LockAnalyzer.LockReport report) {
+        if (report == lastReport) {
+            return;
+        }
+        lastReport = report;
+        Map<Long, ThreadInfo> current = report.getThreads();
+        if (previous == null) {
+            previous = current;
+            return;
+        }
+        List<ThreadContention> list = new ArrayList<>();
+        long count = 0;
+        long time = -1;
+        for (ThreadInfo info : current.values()) {
+            ThreadInfo before = previous.get(info.getThreadId());
+            if (before == null) {
+                continue;
+            }
+            long deltaCount = info.getBlockedCount() - before.getBlockedCount();
+            long deltaTime = info.getBlockedTime() >= 0 && before.getBlockedTime() >= 0 ?
+                    info.getBlockedTime() - before.getBlockedTime() : -1;
+            if (deltaCount <= 0 && deltaTime <= 0) {
+                continue;
+            }
+            count += Math.max(0, deltaCount);
+            if (deltaTime >= 0) {
+                time = Math.max(0, time) + deltaTime;
+            }
+            list.add(new ThreadContention(info.getThreadId(), info.getThreadName(), deltaCount, deltaTime));
+        }
+        list.sort((c1, c2) -> c1.blockedTime != c2.blockedTime ? Long.compare(c2.blockedTime, c1.blockedTime) :
+                Long.compare(c2.blockedCount, c1.blockedCount));
+        previous = current;
+        contentions = Collections.unmodifiableList(list);
+        blockedCount = count;
+        blockedTime = time;
+        totalBlockedCount += count;
+        totalBlockedTime += Math.max(0, time);
+    }
+
+    /**
+     * Contention of one thread between two reports
+     */
+    @Getter
+    static class ThreadContention {
+
+        private final long id;
+
+        private final String name;
+
+        private final long blockedCount;
+
+        /**
+         * Blocked time in milliseconds, -1 if not measured
+         */
+        private final long blockedTime;
+
+        private ThreadContention(long id, String name, long blockedCount, long blockedTime) {
+            this.id = id;
+            this.name = name;
+            this.blockedCount = blockedCount;
+            this.blockedTime = blockedTime;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>Garbage collection recorder, fed by gc notifications of <code>GarbageCollectorMXBean</code></p>
+ * <p>Gc pauses are written in a fixed size ring buffer, without lock: writer claims a slot with an atomic cursor and
+ * publishes an immutable pause with its sequence number, readers copy last published pauses and skip slots not yet
+ * overwritten with expected sequence. Allocated bytes (eden growth between
+ * collections) and promoted bytes (old generation growth during young collections) are summed up</p>
+ * <p>Listeners are only registered while at least one session watches, so that gc costs nothing more otherwise</p>
+ */
+@Slf4j
+class GcRecorder {
+
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+    /**
+     * Gc start times are relative to jvm start
+     */
+    private final long jvmStartTime = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    private final MemoryPoolMXBean eden;
+
+    private final Set<String> heapPools = new HashSet<>();
+
+    private final NotificationListener listener = this::onNotification;
+
+    private final AtomicReferenceArray<GcPause> pauses;
+
+    private final AtomicLong cursor = new AtomicLong();
+
+    private final AtomicLong allocated = new AtomicLong();
+
+    private final AtomicLong promoted = new AtomicLong();
+
+    private volatile long edenAfterGc;
+
+    private int watchers;
+
+    /**
+     * Constructor
+     *
+     * @param capacity number of last pauses kept
+     */
+    GcRecorder(int capacity) {
+        this.pauses = new AtomicReferenceArray<>(capacity);
+        MemoryPoolMXBean found = null;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool.getName());
+            }
+            if (isEden(pool.getName())) {
+                found = pool;
+            }
+        }
+        this.eden = found;
+    }
+
+    /**
+     * Start recording, until returned handle is closed
+     *
+     * @return handle, to be closed when watching ends
+     */
+    synchronized Watch watch() {
+        if (watchers++ == 0) {
+            edenAfterGc = eden != null ? eden.getUsage().getUsed() : 0;
+            for (GarbageCollectorMXBean collector : collectors) {
+                if (collector instanceof NotificationEmitter) {
+                    ((NotificationEmitter) collector).addNotificationListener(listener, null, null);
+                }
+            }
+            LOGGER.debug("Gc recording started");
+        }
+        return new Watch();
+    }
+
+    private synchronized void unwatch() {
+        if (--watchers > 0) {
+            return;
+        }
+        for (GarbageCollectorMXBean collector : collectors) {
+            if (collector instanceof NotificationEmitter) {
+                try {
+                    ((NotificationEmitter) collector).removeNotificationListener(listener);
+                } catch (ListenerNotFoundException e) {
+                    LOGGER.debug("Gc listener not registered on {}", collector.getName());
+                }
+            }
+        }
+        LOGGER.debug("Gc recording stopped");
+    }
+
+    private void onNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        Map<String, MemoryUsage> before = info.getGcInfo().getMemoryUsageBeforeGc();
+        Map<String, MemoryUsage> after = info.getGcInfo().getMemoryUsageAfterGc();
+        long heapBefore = 0;
+        long heapAfter = 0;
+        long oldGrowth = 0;
+        for (Map.Entry<String, MemoryUsage> entry : before.entrySet()) {
+            String pool = entry.getKey();
+            MemoryUsage usageAfter = after.get(pool);
+            if (usageAfter == null || !heapPools.contains(pool)) {
+                continue;
+            }
+            heapBefore += entry.getValue().getUsed();
+            heapAfter += usageAfter.getUsed();
+            if (isEden(pool)) {
+                allocated.addAndGet(Math.max(0, entry.getValue().getUsed() - edenAfterGc));
+                edenAfterGc = usageAfter.getUsed();
+            } else if (isOld(pool)) {
+                oldGrowth += usageAfter.getUsed() - entry.getValue().getUsed();
+            }
+        }
+        if (info.getGcAction().contains("minor") && oldGrowth > 0) {
+            promoted.addAndGet(oldGrowth);
+        }
+        // notifications are delivered asynchronously, pause time is taken from gc info
+        add(new GcPause(jvmStartTime + info.getGcInfo().getStartTime(), info.getGcName(),
+                info.getGcAction(), info.getGcCause(), info.getGcInfo().getDuration(), heapBefore, heapAfter));
+    }
+
+    /**
+     * Publish pause in ring buffer, overwriting oldest one when full
+     *
+     * @param pause pause
+     */
+    void add(GcPause pause) {
+        long index = cursor.getAndIncrement();
+        pauses.set((int) (index % pauses.length()), pause.withSequence(index));
+    }
+
+    /**
+     * Get last pauses
+     *
+     * @param max maximum number of pauses
+     * @return last pauses, most recent first
+     */
+    List<GcPause> last(int max) {
+        long end = cursor.get();
+        int count = (int) Math.min(Math.min(end, pauses.length()), Math.max(0, max));
+        List<GcPause> result = new ArrayList<>(count);
+        for (long i = end - 1; i >= end - count; i--) {
+            GcPause pause = pauses.get((int) (i % pauses.length()));
+            // slot claimed but not yet written, still empty or holding an older pause
+            if (pause != null && pause.sequence == i) {
+                result.add(pause);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get number of recorded pauses
+     *
+     * @return pause count, including overwritten ones
+     */
+    long getCount() {
+        return cursor.get();
+    }
+
+    /**
+     * Get allocated bytes since recording start, including current eden usage
+     *
+     * @return allocated bytes, -1 if heap has no eden space (non generational collector)
+     */
+    long getAllocated() {
+        if (eden == null) {
+            return -1;
+        }
+        return allocated.get() + Math.max(0, eden.getUsage().getUsed() - edenAfterGc);
+    }
+
+    /**
+     * Get promoted bytes since recording start
+     *
+     * @return bytes moved to old generation by young collections
+     */
+    long getPromoted() {
+        return promoted.get();
+    }
+
+    private static boolean isEden(String pool) {
+        return pool.contains("Eden");
+    }
+
+    private static boolean isOld(String pool) {
+        return pool.contains("Old") || pool.contains("Tenured");
+    }
+
+    /**
+     * Recording handle of a watching session
+     */
+    class Watch
+            implements AutoCloseable {
+
+        private boolean closed;
+
+        @Override
+        public void close() {
+            synchronized (GcRecorder.this) {
+                if (!closed) {
+                    closed = true;
+                    unwatch();
+                }
+            }
+        }
+    }
+
+    /**
+     * Garbage collection pause
+     */
+    @Getter
+    static class GcPause {
+
+        /**
+         * Index in recorder, -1 if not recorded
+         */
+        private final long sequence;
+
+        /**
+         * Start time in milliseconds since epoch
+         */
+        private final long time;
+
+        private final String collector;
+
+        private final String action;
+
+        private final String cause;
+
+        /**
+         * Duration in milliseconds
+         */
+        private final long duration;
+
+        private final long heapBefore;
+
+        private final long heapAfter;
+
+        GcPause(long time, String collector, String action, String cause, long duration, long heapBefore,
+                long heapAfter) {
+            this(-1, time, collector, action, cause, duration, heapBefore, heapAfter);
+        }
+
+        private GcPause(long sequence, long time, String collector, String action, String cause, long duration,
+                        long heapBefore, long heapAfter) {
+            this.sequence = sequence;
+            this.time = time;
+            this.collector = collector;
+            this.action = action;
+            this.cause = cause;
+            this.duration = duration;
+            this.heapBefore = heapBefore;
+            this.heapAfter = heapAfter;
+        }
+
+        private GcPause withSequence(long index) {
+            return new GcPause(index, time, collector, action, cause, duration, heapBefore, heapAfter);
+        }
+    }
+}
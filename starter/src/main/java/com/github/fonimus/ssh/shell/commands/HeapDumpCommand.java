@@ -0,0 +1,271 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import com.github.fonimus.ssh.shell.SshShellHelper;
+import com.sun.management.HotSpotDiagnosticMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.shell.standard.ShellCommandGroup;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import static com.github.fonimus.ssh.shell.SshShellProperties.SSH_SHELL_PREFIX;
+
+/**
+ * Heap dump command
+ */
+@Slf4j
+@SshShellComponent
+@ShellCommandGroup("Built-In Commands")
+@ConditionalOnProperty(
+        value = {
+                SSH_SHELL_PREFIX + ".default-commands.memory",
+                SSH_SHELL_PREFIX + ".defaultCommands.memory"
+        }, havingValue = "true", matchIfMissing = true
+)
+public class HeapDumpCommand {
+
+    public static final String THREAD_NAME = "ssh-shell-heapdump";
+
+    public static final String HPROF_EXTENSION = ".hprof";
+
+    public static final String GZIP_EXTENSION = ".gz";
+
+    private static final long REFRESH_DELAY = 500;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Only one heap dump at a time, other sessions are refused instead of waiting
+     */
+    private static final AtomicBoolean RUNNING = new AtomicBoolean();
+
+    private SshShellHelper helper;
+
+    public HeapDumpCommand(SshShellHelper helper) {
+        this.helper = helper;
+    }
+
+    @ShellMethod(key = "heapdump", value = "Dump heap to file, compressed if file ends with .gz.")
+    public String heapdump(@ShellOption(help = "File path, ending with .hprof, or .gz to compress") String file,
+                           @ShellOption(help = "Compress with gzip, .gz is appended to file if missing. Default is: " +
+                                   "false, true if file ends with .gz") boolean gzip,
+                           @ShellOption(help = "Include unreachable objects, without full gc. Default is: false")
+                                   boolean all,
+                           @ShellOption(help = "Minimum free disk space left after dump. Default is: 1GB",
+                                   defaultValue = "1GB") String minFree) {
+        boolean compress = gzip || file.endsWith(GZIP_EXTENSION);
+        // compressed file name always tells it is gzipped
+        Path target = Paths.get(compress && !file.endsWith(GZIP_EXTENSION) ? file + GZIP_EXTENSION : file)
+                .toAbsolutePath();
+        if (!compress && !file.endsWith(HPROF_EXTENSION)) {
+            throw new IllegalArgumentException("Heap dump file must end with " + HPROF_EXTENSION + " or " +
+                    GZIP_EXTENSION);
+        }
+        if (Files.exists(target)) {
+            throw new IllegalArgumentException("File already exists: " + target);
+        }
+        // jvm writes uncompressed dump, then it is compressed to target file
+        Path dump = compress ? target.resolveSibling(target.getFileName() + ".tmp" + HPROF_EXTENSION) : target;
+        long estimated = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        checkSpace(target, compress ? estimated + estimated / 2 : estimated, DataSize.parse(minFree).toBytes());
+
+        if (!RUNNING.compareAndSet(false, true)) {
+            throw new IllegalStateException("A heap dump is already running");
+        }
+        Dumper dumper = new Dumper(dump, target, compress, !all);
+        Thread thread = new Thread(dumper, THREAD_NAME);
+        thread.setDaemon(true);
+        try {
+            thread.start();
+        } catch (RuntimeException | Error e) {
+            RUNNING.set(false);
+            throw e;
+        }
+        waitFor(thread, dumper, estimated);
+        if (dumper.error != null) {
+            throw new IllegalStateException("Heap dump failed: " + dumper.error.getMessage(), dumper.error);
+        }
+        return helper.getSuccess("Heap dumped to " + target + ": " + dumper.written + " bytes" +
+                (compress ? " (" + dumper.dumped + " bytes uncompressed)" : "") + " in " + dumper.duration + " ms");
+    }
+
+    private static void checkSpace(Path target, long estimated, long minFree) {
+        Path dir = target.getParent();
+        if (dir == null || !Files.isDirectory(dir)) {
+            throw new IllegalArgumentException("Directory does not exist: " + dir);
+        }
+        long usable;
+        try {
+            usable = Files.getFileStore(dir).getUsableSpace();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to get free disk space of " + dir, e);
+        }
+        if (usable - estimated < minFree) {
+            throw new IllegalStateException("Not enough disk space: " + usable + " bytes usable in " + dir + ", heap " +
+                    "dump needs about " + estimated + " bytes, and " + minFree + " bytes must be left");
+        }
+    }
+
+    private void waitFor(Thread thread, Dumper dumper, long estimated) {
+        // ctrl-c aborts compression, jvm dump itself cannot be interrupted
+        helper.getCancellationToken().onCancel(() -> dumper.cancelled = true);
+        PrintWriter writer = helper.terminalWriter();
+        String phase = null;
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            if (!dumper.phase.equals(phase)) {
+                phase = dumper.phase;
+                writer.print((phase.equals(Dumper.DUMPING) ? "" : "\n") + phase + " " +
+                        dumper.target.getFileName() + "\n");
+            }
+            writer.print("\r" + helper.progress(dumper.progress(estimated)));
+            writer.flush();
+            try {
+                thread.join(REFRESH_DELAY);
+            } catch (InterruptedException e) {
+                if (!interrupted) {
+                    writer.print("\n" + helper.getWarning("Heap dump cannot be interrupted, waiting for its end") +
+                            "\n");
+                    interrupted = true;
+                }
+            }
+        }
+        writer.print("\n");
+        writer.flush();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Background heap dump, released for another dump when done
+     */
+    private static class Dumper
+            implements Runnable {
+
+        private static final String DUMPING = "Dumping heap to";
+
+        private static final String COMPRESSING = "Compressing heap dump to";
+
+        private final Path dump;
+
+        private final Path target;
+
+        private final boolean compress;
+
+        private final boolean live;
+
+        private volatile String phase = DUMPING;
+
+        private volatile boolean cancelled;
+
+        /**
+         * Compressed target opened by this command, only set in compression phase
+         */
+        private boolean targetCreated;
+
+        private volatile long compressed;
+
+        private volatile long dumped;
+
+        private volatile long written;
+
+        private volatile long duration;
+
+        private volatile Exception error;
+
+        private Dumper(Path dump, Path target, boolean compress, boolean live) {
+            this.dump = dump;
+            this.target = target;
+            this.compress = compress;
+            this.live = live;
+        }
+
+        @Override
+        public void run() {
+            long start = System.currentTimeMillis();
+            // files are only deleted on failure if this command created them, never if another one was there
+            boolean dumpCreated = false;
+            try {
+                ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class).dumpHeap(dump.toString(), live);
+                dumpCreated = true;
+                dumped = Files.size(dump);
+                if (compress) {
+                    phase = COMPRESSING;
+                    gzip();
+                }
+                written = Files.size(target);
+                LOGGER.info("Heap dumped to {}: {} bytes", target, written);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Heap dump to {} failed", target, e);
+                error = e;
+                if (targetCreated) {
+                    delete(target);
+                }
+            } finally {
+                if (compress && dumpCreated) {
+                    delete(dump);
+                }
+                duration = System.currentTimeMillis() - start;
+                RUNNING.set(false);
+            }
+        }
+
+        private void gzip() throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            try (OutputStream file = Files.newOutputStream(target, StandardOpenOption.CREATE_NEW)) {
+                targetCreated = true;
+                try (FileChannel in = FileChannel.open(dump, StandardOpenOption.READ);
+                     OutputStream out = new GZIPOutputStream(file, BUFFER_SIZE)) {
+                    int read;
+                    while ((read = in.read(buffer)) >= 0) {
+                        if (cancelled) {
+                            throw new CancellationException("Heap dump cancelled");
+                        }
+                        out.write(buffer.array(), 0, read);
+                        buffer.clear();
+                        compressed += read;
+                    }
+                }
+            }
+        }
+
+        private int progress(long estimated) {
+            if (phase.equals(COMPRESSING)) {
+                return (int) Math.min(100, compressed * 100 / Math.max(1, dumped));
+            }
+            // dump size is not known in advance, used heap is an upper bound for live objects
+            long size = 0;
+            try {
+                size = Files.exists(dump) ? Files.size(dump) : 0;
+            } catch (IOException e) {
+                // file is being created
+            }
+            return (int) Math.min(99, size * 100 / Math.max(1, estimated));
+        }
+
+        private static void delete(Path path) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                LOGGER.warn("Unable to delete {}", path, e);
+            }
+        }
+    }
+}
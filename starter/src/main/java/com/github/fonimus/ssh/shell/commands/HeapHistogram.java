@@ -0,0 +1,214 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>Class histogram of heap, from diagnostic command <code>GC.class_histogram</code></p>
+ * <p>Histogram is parsed into primitive arrays, one entry per class name.
+ * Classes with same name, loaded by different class loaders, are merged</p>
+ */
+@Getter
+class HeapHistogram {
+
+    private static final String DIAGNOSTIC_COMMAND = "com.sun.management:type=DiagnosticCommand";
+
+    private static final String GC_CLASS_HISTOGRAM = "gcClassHistogram";
+
+    private final long time;
+
+    private final int size;
+
+    private final String[] names;
+
+    private final long[] instances;
+
+    private final long[] bytes;
+
+    private final long totalInstances;
+
+    private final long totalBytes;
+
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Integer> index;
+
+    private HeapHistogram(long time, int size, String[] names, long[] instances, long[] bytes,
+                          Map<String, Integer> index) {
+        this.time = time;
+        this.index = index;
+        this.size = size;
+        this.names = names;
+        this.instances = instances;
+        this.bytes = bytes;
+        long ti = 0;
+        long tb = 0;
+        for (int i = 0; i < size; i++) {
+            ti += instances[i];
+            tb += bytes[i];
+        }
+        this.totalInstances = ti;
+        this.totalBytes = tb;
+    }
+
+    /**
+     * Take histogram
+     *
+     * @param all true to include unreachable objects, without full gc, false for live objects only (full gc)
+     * @return histogram
+     */
+    static HeapHistogram take(boolean all) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            String[] arguments = all ? new String[]{"-all"} : new String[0];
+            String output = (String) server.invoke(new ObjectName(DIAGNOSTIC_COMMAND), GC_CLASS_HISTOGRAM,
+                    new Object[]{arguments}, new String[]{String[].class.getName()});
+            return parse(output);
+        } catch (JMException e) {
+            throw new IllegalStateException("Unable to get class histogram: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parse histogram output, lines like <code>   1:   3391   234400  [C (java.base@11)</code>
+     *
+     * @param output diagnostic command output
+     * @return histogram
+     */
+    static HeapHistogram parse(String output) {
+        int capacity = 1024;
+        String[] names = new String[capacity];
+        long[] instances = new long[capacity];
+        long[] bytes = new long[capacity];
+        int size = 0;
+        Map<String, Integer> index = new HashMap<>();
+        int start = 0;
+        int length = output.length();
+        while (start < length) {
+            int end = output.indexOf('\n', start);
+            if (end < 0) {
+                end = length;
+            }
+            int p = skipSpaces(output, start, end);
+            int rankEnd = output.indexOf(':', p);
+            if (rankEnd > p && rankEnd < end && isDigits(output, p, rankEnd)) {
+                if (size == capacity) {
+                    capacity *= 2;
+                    names = Arrays.copyOf(names, capacity);
+                    instances = Arrays.copyOf(instances, capacity);
+                    bytes = Arrays.copyOf(bytes, capacity);
+                }
+                p = skipSpaces(output, rankEnd + 1, end);
+                int q = nextSpace(output, p, end);
+                long count = Long.parseLong(output.substring(p, q));
+                p = skipSpaces(output, q, end);
+                q = nextSpace(output, p, end);
+                long total = Long.parseLong(output.substring(p, q));
+                p = skipSpaces(output, q, end);
+                // module, if any, is ignored
+                q = nextSpace(output, p, end);
+                String name = className(output.substring(p, q));
+                Integer existing = index.putIfAbsent(name, size);
+                int i = existing != null ? existing : size++;
+                names[i] = name;
+                instances[i] += count;
+                bytes[i] += total;
+            }
+            start = end + 1;
+        }
+        return new HeapHistogram(System.currentTimeMillis(), size, names, instances, bytes, index);
+    }
+
+    private static int skipSpaces(String s, int from, int to) {
+        while (from < to && Character.isWhitespace(s.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int nextSpace(String s, int from, int to) {
+        while (from < to && !Character.isWhitespace(s.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean isDigits(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isDigit(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get java name of histogram class name: <code>[Ljava.lang.String;</code> to <code>java.lang.String[]</code>
+     *
+     * @param name histogram class name
+     * @return java class name
+     */
+    static String className(String name) {
+        int dimensions = 0;
+        while (dimensions < name.length() && name.charAt(dimensions) == '[') {
+            dimensions++;
+        }
+        if (dimensions == 0 || dimensions == name.length()) {
+            return name;
+        }
+        String component;
+        switch (name.charAt(dimensions)) {
+            case 'Z':
+                component = "boolean";
+                break;
+            case 'B':
+                component = "byte";
+                break;
+            case 'C':
+                component = "char";
+                break;
+            case 'S':
+                component = "short";
+                break;
+            case 'I':
+                component = "int";
+                break;
+            case 'J':
+                component = "long";
+                break;
+            case 'F':
+                component = "float";
+                break;
+            case 'D':
+                component = "double";
+                break;
+            case 'L':
+                component = name.substring(dimensions + 1, name.endsWith(";") ? name.length() - 1 : name.length());
+                break;
+            default:
+                return name;
+        }
+        StringBuilder sb = new StringBuilder(component);
+        for (int i = 0; i < dimensions; i++) {
+            sb.append("[]");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Get entry of class
+     *
+     * @param name class name
+     * @return entry index, -1 if class is not in histogram
+     */
+    int indexOf(String name) {
+        return index.getOrDefault(name, -1);
+    }
+}
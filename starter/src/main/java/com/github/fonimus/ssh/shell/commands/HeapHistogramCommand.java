@@ -0,0 +1,326 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import com.github.fonimus.ssh.shell.SshShellHelper;
+import com.github.fonimus.ssh.shell.interactive.Interactive;
+import com.github.fonimus.ssh.shell.interactive.KeyBinding;
+import com.github.fonimus.ssh.shell.interactive.SamplingScheduler;
+import org.jline.utils.AttributedString;
+import org.jline.utils.AttributedStringBuilder;
+import org.jline.utils.AttributedStyle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.shell.standard.ShellCommandGroup;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+import org.springframework.shell.table.ArrayTableModel;
+import org.springframework.shell.table.BorderStyle;
+import org.springframework.shell.table.SimpleHorizontalAligner;
+import org.springframework.shell.table.TableBuilder;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import static com.github.fonimus.ssh.shell.SshShellCommandFactory.SSH_THREAD_CONTEXT;
+import static com.github.fonimus.ssh.shell.SshShellHelper.INTERACTIVE_LONG_MESSAGE;
+import static com.github.fonimus.ssh.shell.SshShellHelper.INTERACTIVE_SHORT_MESSAGE;
+import static com.github.fonimus.ssh.shell.SshShellHelper.at;
+import static com.github.fonimus.ssh.shell.SshShellProperties.SSH_SHELL_PREFIX;
+
+/**
+ * Heap histogram command
+ */
+@SshShellComponent
+@ShellCommandGroup("Built-In Commands")
+@ConditionalOnProperty(
+        value = {
+                SSH_SHELL_PREFIX + ".default-commands.memory",
+                SSH_SHELL_PREFIX + ".defaultCommands.memory"
+        }, havingValue = "true", matchIfMissing = true
+)
+public class HeapHistogramCommand {
+
+    public static final String HEAP_HISTO_SOURCE = "heap-histo";
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private static final long INTERACTIVE_REFRESH_DELAY = 10000;
+
+    /**
+     * Minimum interval between two histograms in interactive mode, whatever the refresh delay
+     */
+    private static final long MIN_SAMPLING_INTERVAL = 10000;
+
+    private static final Object NO_SESSION = new Object();
+
+    /**
+     * Last snapshot per session, released with session context
+     */
+    private final Map<Object, HeapHistogram> previous = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final ClassLoadingMXBean classLoadingMXBean = ManagementFactory.getClassLoadingMXBean();
+
+    private SshShellHelper helper;
+
+    private SamplingScheduler samplingScheduler;
+
+    public HeapHistogramCommand(SshShellHelper helper) {
+        this(helper, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param helper            ssh shell helper
+     * @param samplingScheduler (optional) scheduler sharing histogram between interactive sessions
+     */
+    @Autowired
+    public HeapHistogramCommand(SshShellHelper helper,
+                                @Autowired(required = false) SamplingScheduler samplingScheduler) {
+        this.helper = helper;
+        this.samplingScheduler = samplingScheduler;
+    }
+
+    @ShellMethod(key = "heap-histo", value = "Display heap class histogram. Triggers a full gc unless --all is set.")
+    public String heapHisto(@ShellOption(help = "Number of classes displayed. Default is: 20", defaultValue = "20") int top,
+                            @ShellOption(help = "Comma separated class name prefixes, all classes if not set",
+                                    defaultValue = ShellOption.NULL) String packages,
+                            @ShellOption(help = "Compare with previous snapshot of session, ordered by bytes growth. " +
+                                    "Default is: false") boolean diff,
+                            @ShellOption(help = "Include unreachable objects, without full gc. Default is: false, always true " +
+                                    "in interactive mode") boolean all,
+                            @ShellOption(help = "Refresh histogram, with growth since first snapshot, without full gc. " +
+                                    "Default is: false") boolean interactive) {
+        String[] prefixes = packages != null ? packages.split(",") : new String[0];
+        for (int i = 0; i < prefixes.length; i++) {
+            prefixes[i] = prefixes[i].trim();
+        }
+        if (interactive) {
+            return watch(top, prefixes, diff);
+        }
+        HeapHistogram current = HeapHistogram.take(all);
+        Object session = SSH_THREAD_CONTEXT.get() != null ? SSH_THREAD_CONTEXT.get() : NO_SESSION;
+        HeapHistogram base = previous.put(session, current);
+        StringBuilder sb = new StringBuilder();
+        if (diff && base == null) {
+            sb.append(helper.getWarning("No previous snapshot in session, next call will be compared with this one"))
+                    .append('\n');
+        }
+        for (String line : lines(current, diff ? base : null, diff, top, prefixes, Integer.MAX_VALUE)) {
+            sb.append(line).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private String watch(int top, String[] prefixes, boolean diff) {
+        @SuppressWarnings("unchecked")
+        SamplingScheduler.Subscription<HeapHistogram>[] subscription = new SamplingScheduler.Subscription[1];
+        // no full gc in interactive mode, histogram would force one per refresh and per session
+        HeapHistogram first = HeapHistogram.take(true);
+        HeapHistogram[] histograms = {first, first};
+        boolean[] byGrowth = {diff};
+        Interactive interactive = Interactive.builder().refreshDelay(INTERACTIVE_REFRESH_DELAY)
+                .binding(KeyBinding.builder().key("d").description("ORDER_BY_GROWTH")
+                        .input(() -> byGrowth[0] = !byGrowth[0]).build())
+                .input((size, currentDelay) -> {
+                    if (subscription[0] != null) {
+                        histograms[1] = subscription[0].latest();
+                    } else if (System.currentTimeMillis() - histograms[1].getTime() >=
+                            Math.max(currentDelay, MIN_SAMPLING_INTERVAL)) {
+                        // key presses and shorter refresh delays redraw without taking new histogram
+                        histograms[1] = HeapHistogram.take(true);
+                    }
+                    List<AttributedString> lines = new ArrayList<>(size.getRows());
+                    lines.add(new AttributedStringBuilder()
+                            .append("Time: ")
+                            .append(FORMATTER.format(LocalDateTime.now()), AttributedStyle.BOLD)
+                            .append(", refresh delay: ")
+                            .append(String.valueOf(currentDelay), AttributedStyle.BOLD)
+                            .append(" ms")
+                            .toAttributedString());
+                    // header, borders and footer lines
+                    int rows = Math.max(1, size.getRows() - 9);
+                    for (String line : lines(histograms[1], histograms[0], byGrowth[0], top, prefixes, rows)) {
+                        for (String s : line.split("\n")) {
+                            lines.add(AttributedString.fromAnsi(s));
+                        }
+                    }
+                    lines.add(AttributedString.fromAnsi("Press 'd' to order by bytes or by growth since first snapshot"));
+                    String msg = INTERACTIVE_LONG_MESSAGE.length() <= helper.terminalSize().getColumns() ?
+                            INTERACTIVE_LONG_MESSAGE : INTERACTIVE_SHORT_MESSAGE;
+                    lines.add(AttributedString.fromAnsi(msg));
+                    return lines;
+                }).build();
+
+        // histogram is taken once per interval for all watching sessions
+        if (samplingScheduler != null) {
+            subscription[0] = samplingScheduler.subscribe(HEAP_HISTO_SOURCE,
+                    Math.max(interactive.getRefreshDelay(), MIN_SAMPLING_INTERVAL), () -> HeapHistogram.take(true));
+        }
+        try {
+            helper.interactive(interactive);
+        } finally {
+            if (subscription[0] != null) {
+                subscription[0].close();
+            }
+        }
+        return "";
+    }
+
+    private List<String> lines(HeapHistogram current, HeapHistogram base, boolean byGrowth, int top, String[] prefixes,
+                               int maxRows) {
+        int size = current.getSize();
+        String[] names = current.getNames();
+        int[] candidates = new int[size];
+        int count = 0;
+        long filteredInstances = 0;
+        long filteredBytes = 0;
+        for (int i = 0; i < size; i++) {
+            if (matches(names[i], prefixes)) {
+                candidates[count++] = i;
+                filteredInstances += current.getInstances()[i];
+                filteredBytes += current.getBytes()[i];
+            }
+        }
+        long[] deltaInstances = null;
+        long[] deltaBytes = null;
+        if (base != null) {
+            deltaInstances = new long[size];
+            deltaBytes = new long[size];
+            for (int c = 0; c < count; c++) {
+                int i = candidates[c];
+                int b = base.indexOf(names[i]);
+                deltaInstances[i] = current.getInstances()[i] - (b < 0 ? 0 : base.getInstances()[b]);
+                deltaBytes[i] = current.getBytes()[i] - (b < 0 ? 0 : base.getBytes()[b]);
+            }
+        }
+        int[] ordered = top(base != null && byGrowth ? deltaBytes : current.getBytes(), candidates, count,
+                Math.min(top, maxRows));
+
+        List<String> lines = new ArrayList<>();
+        lines.add("Classes: " + classLoadingMXBean.getLoadedClassCount() + " loaded, " +
+                classLoadingMXBean.getTotalLoadedClassCount() + " loaded since start, " +
+                classLoadingMXBean.getUnloadedClassCount() + " unloaded");
+        lines.add("Heap: " + current.getTotalInstances() + " instances, " + current.getTotalBytes() + " bytes" +
+                (prefixes.length > 0 ? ", matching: " + count + " classes, " + filteredInstances + " instances, " +
+                        filteredBytes + " bytes" : ""));
+        if (base != null) {
+            lines.add("Compared with snapshot of " +
+                    FORMATTER.format(Instant.ofEpochMilli(base.getTime()).atZone(ZoneId.systemDefault())) + ": " +
+                    signed(current.getTotalBytes() - base.getTotalBytes()) + " bytes");
+        }
+
+        int columns = base != null ? 6 : 4;
+        String[][] data = new String[ordered.length + 1][];
+        data[0] = base != null ?
+                new String[]{"#", "INSTANCES", "BYTES", "+/- INSTANCES", "+/- BYTES", "CLASS"} :
+                new String[]{"#", "INSTANCES", "BYTES", "CLASS"};
+        for (int r = 0; r < ordered.length; r++) {
+            int i = ordered[r];
+            data[r + 1] = base != null ?
+                    new String[]{String.valueOf(r + 1), String.valueOf(current.getInstances()[i]),
+                            String.valueOf(current.getBytes()[i]), signed(deltaInstances[i]), signed(deltaBytes[i]),
+                            names[i]} :
+                    new String[]{String.valueOf(r + 1), String.valueOf(current.getInstances()[i]),
+                            String.valueOf(current.getBytes()[i]), names[i]};
+        }
+        TableBuilder tableBuilder = new TableBuilder(new ArrayTableModel(data));
+        for (int r = 0; r < data.length; r++) {
+            for (int c = 0; c < columns - 1; c++) {
+                tableBuilder.on(at(r, c)).addAligner(SimpleHorizontalAligner.right);
+            }
+        }
+        lines.add(tableBuilder.addHeaderAndVerticalsBorders(BorderStyle.fancy_light).build()
+                .render(helper.terminalSize().getColumns()));
+        return lines;
+    }
+
+    private static boolean matches(String name, String[] prefixes) {
+        if (prefixes.length == 0) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Select entries with highest keys, with a min heap of at most n entries
+     *
+     * @param keys       keys per entry
+     * @param candidates candidate entries
+     * @param count      number of candidates
+     * @param n          number of selected entries
+     * @return selected entries, highest key first
+     */
+    static int[] top(long[] keys, int[] candidates, int count, int n) {
+        int[] heap = new int[Math.max(0, Math.min(n, count))];
+        int size = 0;
+        for (int c = 0; c < count && heap.length > 0; c++) {
+            int i = candidates[c];
+            if (size < heap.length) {
+                heap[size] = i;
+                siftUp(heap, keys, size++);
+            } else if (keys[i] > keys[heap[0]]) {
+                heap[0] = i;
+                siftDown(heap, keys, size);
+            }
+        }
+        // heap sort, lowest is moved at end
+        for (int end = size - 1; end > 0; end--) {
+            int tmp = heap[0];
+            heap[0] = heap[end];
+            heap[end] = tmp;
+            siftDown(heap, keys, end);
+        }
+        return heap;
+    }
+
+    private static void siftUp(int[] heap, long[] keys, int k) {
+        while (k > 0) {
+            int parent = (k - 1) / 2;
+            if (keys[heap[k]] >= keys[heap[parent]]) {
+                return;
+            }
+            int tmp = heap[k];
+            heap[k] = heap[parent];
+            heap[parent] = tmp;
+            k = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, long[] keys, int size) {
+        int k = 0;
+        while (true) {
+            int child = 2 * k + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                child++;
+            }
+            if (keys[heap[k]] <= keys[heap[child]]) {
+                return;
+            }
+            int tmp = heap[k];
+            heap[k] = heap[child];
+            heap[child] = tmp;
+            k = child;
+        }
+    }
+
+    private static String signed(long value) {
+        return value > 0 ? "+" + value : String.valueOf(value);
+    }
+}
@@ -0,0 +1,293 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import com.github.fonimus.ssh.shell.SshShellHelper;
+import com.github.fonimus.ssh.shell.interactive.Interactive;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.jline.utils.AttributedString;
+import org.jline.utils.AttributedStringBuilder;
+import org.jline.utils.AttributedStyle;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.shell.standard.ShellCommandGroup;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+import org.springframework.shell.table.ArrayTableModel;
+import org.springframework.shell.table.BorderStyle;
+import org.springframework.shell.table.TableBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.github.fonimus.ssh.shell.SshShellHelper.INTERACTIVE_LONG_MESSAGE;
+import static com.github.fonimus.ssh.shell.SshShellHelper.INTERACTIVE_SHORT_MESSAGE;
+import static com.github.fonimus.ssh.shell.SshShellProperties.SSH_SHELL_PREFIX;
+
+/**
+ * Java flight recorder command, available when jdk.jfr api is present (jdk 8u262+, 11+)
+ */
+@SshShellComponent
+@ShellCommandGroup("Built-In Commands")
+@ConditionalOnClass(name = "jdk.jfr.FlightRecorder")
+@ConditionalOnProperty(
+        value = {
+                SSH_SHELL_PREFIX + ".default-commands.jfr",
+                SSH_SHELL_PREFIX + ".defaultCommands.jfr"
+        }, havingValue = "true", matchIfMissing = true
+)
+public class JfrCommand {
+
+    public static final String DEFAULT_NAME = "ssh-shell";
+
+    public static final String DEFAULT_EVENTS = "jdk.CPULoad,jdk.GarbageCollection,jdk.JavaMonitorEnter,jdk.ThreadPark";
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    /**
+     * Bytes transferred per channel call, so that recordings are never fully buffered
+     */
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+
+    private static final int LAST_EVENTS = 20;
+
+    private SshShellHelper helper;
+
+    public JfrCommand(SshShellHelper helper) {
+        this.helper = helper;
+    }
+
+    @ShellMethod("Java flight recorder: start, stop or dump a recording, display recordings, or watch live events.")
+    public String jfr(@ShellOption(defaultValue = "STATUS") JfrAction action,
+                      @ShellOption(help = "Recording name. Default is: " + DEFAULT_NAME, defaultValue = DEFAULT_NAME)
+                              String name,
+                      @ShellOption(help = "Only for START action, settings: 'default' (low overhead) or 'profile'. " +
+                              "Default is: default", defaultValue = "default") String settings,
+                      @ShellOption(help = "Only for START action, maximum size kept on disk (example: 100MB)",
+                              defaultValue = ShellOption.NULL) String maxSize,
+                      @ShellOption(help = "Only for START action, maximum age of kept data (example: 10m)",
+                              defaultValue = ShellOption.NULL) String maxAge,
+                      @ShellOption(help = "Only for START action, recording duration, stopped after (example: 60s)",
+                              defaultValue = ShellOption.NULL) String duration,
+                      @ShellOption(help = "For STOP and DUMP actions, file to write recording to",
+                              defaultValue = ShellOption.NULL) String file,
+                      @ShellOption(help = "Only for WATCH action, comma separated event names. Default is: " +
+                              DEFAULT_EVENTS, defaultValue = DEFAULT_EVENTS) String events) {
+        if (!FlightRecorder.isAvailable()) {
+            throw new IllegalStateException("Flight recorder is not available on this jvm");
+        }
+        switch (action) {
+            case START:
+                return start(name, settings, maxSize, maxAge, duration);
+            case STOP:
+                return stop(name, file);
+            case DUMP:
+                return dump(name, file);
+            case WATCH:
+                return watch(Arrays.stream(events.split(",")).map(String::trim).filter(e -> !e.isEmpty())
+                        .collect(Collectors.toList()));
+            default:
+                return status();
+        }
+    }
+
+    private String start(String name, String settings, String maxSize, String maxAge, String duration) {
+        if (find(name) != null) {
+            throw new IllegalArgumentException("Recording [" + name + "] already exists, stop it first");
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown recording settings: " + settings, e);
+        }
+        Recording recording = new Recording(configuration);
+        recording.setName(name);
+        recording.setToDisk(true);
+        if (maxSize != null) {
+            recording.setMaxSize(DataSize.parse(maxSize).toBytes());
+        }
+        if (maxAge != null) {
+            recording.setMaxAge(DurationStyle.detectAndParse(maxAge));
+        }
+        if (duration != null) {
+            recording.setDuration(DurationStyle.detectAndParse(duration));
+        }
+        recording.start();
+        return helper.getSuccess("Recording [" + name + "] started with '" + settings + "' settings");
+    }
+
+    private String stop(String name, String file) {
+        Recording recording = get(name);
+        Path path = file != null ? checkTarget(Paths.get(file)) : null;
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        if (path == null) {
+            recording.close();
+            return helper.getSuccess("Recording [" + name + "] stopped and discarded");
+        }
+        long size;
+        try {
+            size = write(recording, path);
+        } catch (RuntimeException e) {
+            // recording is kept, stopped, so that it can be written again
+            throw new IllegalStateException(e.getMessage() + ". Recording [" + name + "] is stopped but kept, " +
+                    "stop it again with another file", e);
+        }
+        recording.close();
+        return helper.getSuccess("Recording [" + name + "] stopped, " + size + " bytes written to " + file);
+    }
+
+    private String dump(String name, String file) {
+        if (file == null) {
+            throw new IllegalArgumentException("File is mandatory to dump recording");
+        }
+        Recording recording = get(name);
+        Path path = checkTarget(Paths.get(file));
+        // stopped copy, so that running recording keeps going
+        try (Recording copy = recording.copy(true)) {
+            long size = write(copy, path);
+            return helper.getSuccess("Recording [" + name + "] dumped, " + size + " bytes written to " + file);
+        }
+    }
+
+    /**
+     * Check that recording can be written to file, before recording is stopped
+     *
+     * @param path file path
+     * @return absolute file path
+     */
+    private static Path checkTarget(Path path) {
+        Path absolute = path.toAbsolutePath();
+        if (Files.exists(absolute)) {
+            throw new IllegalArgumentException("File already exists: " + absolute);
+        }
+        if (absolute.getParent() == null || !Files.isDirectory(absolute.getParent())) {
+            throw new IllegalArgumentException("Directory does not exist: " + absolute.getParent());
+        }
+        return absolute;
+    }
+
+    /**
+     * Stream recording to file through channels, chunk by chunk
+     *
+     * @param recording stopped recording
+     * @param path      file path, must not exist
+     * @return written bytes
+     */
+    static long write(Recording recording, Path path) {
+        try (InputStream is = recording.getStream(null, null)) {
+            if (is == null) {
+                throw new IllegalStateException("Recording [" + recording.getName() + "] has no data");
+            }
+            try (ReadableByteChannel in = Channels.newChannel(is);
+                 FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                long position = 0;
+                long transferred;
+                while ((transferred = out.transferFrom(in, position, TRANSFER_CHUNK)) > 0) {
+                    position += transferred;
+                }
+                return position;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write recording to " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    private String status() {
+        List<Recording> recordings = FlightRecorder.getFlightRecorder().getRecordings();
+        if (recordings.isEmpty()) {
+            return "No recordings";
+        }
+        List<Object[]> data = new ArrayList<>();
+        data.add(new Object[]{"ID", "NAME", "STATE", "STARTED", "DURATION", "SIZE (bytes)", "MAX SIZE", "MAX AGE"});
+        for (Recording r : recordings) {
+            data.add(new Object[]{
+                    r.getId(),
+                    r.getName(),
+                    r.getState(),
+                    r.getStartTime() != null ? r.getStartTime().toString() : "-",
+                    r.getDuration() != null ? r.getDuration().toString() : "-",
+                    r.getSize(),
+                    r.getMaxSize() > 0 ? String.valueOf(r.getMaxSize()) : "-",
+                    r.getMaxAge() != null ? r.getMaxAge().toString() : "-"
+            });
+        }
+        return new TableBuilder(new ArrayTableModel(data.toArray(new Object[0][])))
+                .addHeaderAndVerticalsBorders(BorderStyle.fancy_light).build().render(helper.terminalSize().getColumns());
+    }
+
+    private String watch(List<String> events) {
+        if (events.isEmpty()) {
+            throw new IllegalArgumentException("At least one event name is mandatory");
+        }
+        try (JfrEventStream stream = new JfrEventStream(events, Duration.ofSeconds(1), Duration.ofMillis(10),
+                LAST_EVENTS)) {
+            helper.interactive(Interactive.builder().input((size, currentDelay) -> {
+                List<AttributedString> lines = new ArrayList<>(size.getRows());
+                lines.add(new AttributedStringBuilder()
+                        .append("Time: ")
+                        .append(FORMATTER.format(LocalDateTime.now()), AttributedStyle.BOLD)
+                        .append(", refresh delay: ")
+                        .append(String.valueOf(currentDelay), AttributedStyle.BOLD)
+                        .append(" ms")
+                        .toAttributedString());
+                Map<String, Long> counts = stream.getCounts();
+                for (String event : events) {
+                    lines.add(AttributedString.fromAnsi(event + ": " + counts.getOrDefault(event, 0L) + " events"));
+                }
+                lines.add(AttributedString.fromAnsi(""));
+                // keep room for header and footer
+                List<String> last = stream.getLast();
+                int max = Math.max(0, size.getRows() - lines.size() - 2);
+                for (String event : last.subList(Math.max(0, last.size() - max), last.size())) {
+                    lines.add(AttributedString.fromAnsi(event));
+                }
+                String msg = INTERACTIVE_LONG_MESSAGE.length() <= helper.terminalSize().getColumns() ?
+                        INTERACTIVE_LONG_MESSAGE : INTERACTIVE_SHORT_MESSAGE;
+                lines.add(AttributedString.fromAnsi(msg));
+                return lines;
+            }).build());
+        }
+        return "";
+    }
+
+    private static Recording find(String name) {
+        return FlightRecorder.getFlightRecorder().getRecordings().stream()
+                .filter(r -> r.getName().equals(name) && r.getState() != RecordingState.CLOSED)
+                .findFirst().orElse(null);
+    }
+
+    private static Recording get(String name) {
+        Recording recording = find(name);
+        if (recording == null) {
+            throw new IllegalArgumentException("Could not find recording: " + name);
+        }
+        return recording;
+    }
+
+    enum JfrAction {
+        START, STOP, DUMP, STATUS, WATCH
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import jdk.jfr.EventSettings;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * <p>Live jfr event stream, for jfr watch command</p>
+ * <p>Relies on <code>jdk.jfr.consumer.RecordingStream</code>, only available from jdk 14, through reflection since
+ * starter is compiled for jdk 8. Events are consumed by jfr stream thread, which keeps counts per event type and last
+ * events, read by command thread</p>
+ */
+@Slf4j
+class JfrEventStream
+        implements AutoCloseable {
+
+    private static final String RECORDING_STREAM = "jdk.jfr.consumer.RecordingStream";
+
+    private final Object stream;
+
+    private final Map<String, Long> counts = new TreeMap<>();
+
+    private final Deque<String> last = new ArrayDeque<>();
+
+    private final int maxLast;
+
+    /**
+     * Start stream
+     *
+     * @param events    enabled event names
+     * @param period    period of periodic events
+     * @param threshold minimum duration of durational events
+     * @param maxLast   number of last events kept
+     */
+    JfrEventStream(List<String> events, Duration period, Duration threshold, int maxLast) {
+        this.maxLast = maxLast;
+        try {
+            Class<?> streamClass = Class.forName(RECORDING_STREAM);
+            stream = streamClass.getConstructor().newInstance();
+            Method enable = streamClass.getMethod("enable", String.class);
+            for (String event : events) {
+                ((EventSettings) enable.invoke(stream, event)).withPeriod(period).withThreshold(threshold);
+            }
+            Consumer<RecordedEvent> consumer = this::onEvent;
+            streamClass.getMethod("onEvent", Consumer.class).invoke(stream, consumer);
+            streamClass.getMethod("startAsync").invoke(stream);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Live event streaming requires jdk 14 or later");
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Unable to start event stream: " + e.getCause().getMessage(), e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to start event stream: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Check if live event streaming is available
+     *
+     * @return true if jdk 14 or later
+     */
+    static boolean isSupported() {
+        try {
+            Class.forName(RECORDING_STREAM);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private synchronized void onEvent(RecordedEvent event) {
+        counts.merge(event.getEventType().getName(), 1L, Long::sum);
+        if (last.size() == maxLast) {
+            last.removeFirst();
+        }
+        last.addLast(format(event));
+    }
+
+    static String format(RecordedEvent event) {
+        StringBuilder sb = new StringBuilder(event.getEventType().getName());
+        if (!event.getDuration().isZero()) {
+            sb.append(" ").append(event.getDuration().toMillis()).append(" ms");
+        }
+        if (event.hasField("eventThread")) {
+            RecordedThread thread = event.getThread("eventThread");
+            if (thread != null) {
+                sb.append(" [").append(thread.getJavaName()).append("]");
+            }
+        }
+        event.getFields().stream()
+                .filter(f -> !f.getName().equals("startTime") && !f.getName().equals("duration")
+                        && !f.getName().equals("eventThread") && !f.getName().equals("stackTrace"))
+                .limit(4)
+                .forEach(f -> sb.append(" ").append(f.getName()).append("=").append(value(event.getValue(f.getName()))));
+        return sb.toString();
+    }
+
+    private static String value(Object value) {
+        String s = String.valueOf(value).replace('\n', ' ');
+        return s.length() > 60 ? s.substring(0, 57) + "..." : s;
+    }
+
+    /**
+     * Get event counts
+     *
+     * @return count per event type, copy
+     */
+    synchronized Map<String, Long> getCounts() {
+        return new TreeMap<>(counts);
+    }
+
+    /**
+     * Get last events
+     *
+     * @return last events, oldest first, copy
+     */
+    synchronized List<String> getLast() {
+        return new ArrayList<>(last);
+    }
+
+    @Override
+    public void close() {
+        try {
+            stream.getClass().getMethod("close").invoke(stream);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.warn("Unable to close event stream", e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import com.github.fonimus.ssh.shell.SshContext;
+import com.github.fonimus.ssh.shell.SshShellHelper;
+import com.github.fonimus.ssh.shell.jobs.Job;
+import org.jline.terminal.Terminal;
+import org.jline.utils.NonBlockingReader;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.shell.standard.ShellCommandGroup;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+import org.springframework.shell.table.ArrayTableModel;
+import org.springframework.shell.table.BorderStyle;
+import org.springframework.shell.table.TableBuilder;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.fonimus.ssh.shell.SshShellCommandFactory.SSH_THREAD_CONTEXT;
+import static com.github.fonimus.ssh.shell.SshShellProperties.SSH_SHELL_PREFIX;
+
+/**
+ * Commands to manage background jobs, started with '&amp;' at end of command line
+ */
+@SshShellComponent
+@ShellCommandGroup("Built-In Commands")
+@ConditionalOnProperty(
+        value = {
+                SSH_SHELL_PREFIX + ".default-commands.jobs",
+                SSH_SHELL_PREFIX + ".defaultCommands.jobs"
+        }, havingValue = "true", matchIfMissing = true
+)
+public class JobsCommand {
+
+    private static final long REFRESH_DELAY = 100;
+
+    private SshShellHelper helper;
+
+    public JobsCommand(SshShellHelper helper) {
+        this.helper = helper;
+    }
+
+    @ShellMethod("List background jobs of session.")
+    public String jobs() {
+        Map<Integer, Job> jobs = context().getJobs();
+        if (jobs.isEmpty()) {
+            return "No background jobs";
+        }
+        List<Object[]> data = new ArrayList<>();
+        data.add(new Object[]{"ID", "STATUS", "DURATION (s)", "OUTPUT (bytes)", "COMMAND"});
+        for (Job job : jobs.values()) {
+            data.add(new Object[]{
+                    job.getId(),
+                    job.getStatus(),
+                    job.getDuration() / 1000,
+                    job.getOutput().getWritten(),
+                    job.getCommand()
+            });
+        }
+        return new TableBuilder(new ArrayTableModel(data.toArray(new Object[0][])))
+                .addHeaderAndVerticalsBorders(BorderStyle.fancy_light).build().render(helper.terminalSize().getColumns());
+    }
+
+    @ShellMethod("Display background job output, until job ends, key 'q' is pressed, or Ctrl-C kills job.")
+    public String fg(@ShellOption(help = "Job id, last job if not set", defaultValue = ShellOption.NULL) Integer id)
+            throws IOException {
+        SshContext ctx = context();
+        Job job = job(ctx, id);
+        Terminal terminal = ctx.getTerminal();
+        long position = 0;
+        while (true) {
+            boolean done = job.isDone();
+            position = follow(job, position, terminal);
+            if (done) {
+                ctx.getJobs().remove(job.getId());
+                return status(job);
+            }
+            int key;
+            try {
+                key = terminal.reader().read(REFRESH_DELAY);
+            } catch (InterruptedIOException e) {
+                key = NonBlockingReader.READ_EXPIRED;
+            }
+            if (helper.isCancelled()) {
+                // ctrl-c kills followed job
+                job.kill();
+                ctx.getJobs().remove(job.getId());
+                return helper.getWarning("[" + job.getId() + "] killed");
+            }
+            if (key == 'q' || key < 0 && key != NonBlockingReader.READ_EXPIRED) {
+                return helper.getInfo("[" + job.getId() + "] still running in background");
+            }
+        }
+    }
+
+    @ShellMethod("Kill background job, or remove it if already ended.")
+    public String kill(@ShellOption(help = "Job id") int id) {
+        SshContext ctx = context();
+        Job job = job(ctx, id);
+        boolean running = !job.isDone();
+        job.kill();
+        ctx.getJobs().remove(job.getId());
+        return helper.getSuccess("[" + job.getId() + "] " + (running ? "killed" : "removed"));
+    }
+
+    private long follow(Job job, long position, Terminal terminal) throws IOException {
+        long oldest = job.getOutput().getOldest();
+        if (position < oldest) {
+            terminal.writer().println(helper.getWarning("... " + (oldest - position) + " bytes dropped ..."));
+        }
+        terminal.writer().flush();
+        long next = job.getOutput().copyTo(position, terminal.output());
+        terminal.flush();
+        return next;
+    }
+
+    private String status(Job job) {
+        String status = "[" + job.getId() + "] " + job.getStatus().name().toLowerCase() + " in " + job.getDuration() + " ms: "
+                + job.getCommand();
+        return job.getStatus() == Job.JobStatus.DONE ? helper.getSuccess(status) : helper.getWarning(status);
+    }
+
+    private static Job job(SshContext ctx, Integer id) {
+        Map.Entry<Integer, Job> last = ctx.getJobs().lastEntry();
+        if (last == null) {
+            throw new IllegalArgumentException("No background jobs");
+        }
+        Job job = id == null ? last.getValue() : ctx.getJobs().get(id);
+        if (job == null) {
+            throw new IllegalArgumentException("Could not find background job for id: " + id);
+        }
+        return job;
+    }
+
+    private static SshContext context() {
+        SshContext ctx = SSH_THREAD_CONTEXT.get();
+        if (ctx == null) {
+            throw new IllegalStateException("Background jobs are only available in ssh sessions");
+        }
+        return ctx;
+    }
+}
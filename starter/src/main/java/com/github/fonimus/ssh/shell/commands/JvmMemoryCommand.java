@@ -0,0 +1,170 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import com.github.fonimus.ssh.shell.SshShellHelper;
+import com.github.fonimus.ssh.shell.interactive.Interactive;
+import org.jline.utils.AttributedString;
+import org.jline.utils.AttributedStringBuilder;
+import org.jline.utils.AttributedStyle;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.shell.standard.ShellCommandGroup;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+import org.springframework.shell.table.ArrayTableModel;
+import org.springframework.shell.table.BorderStyle;
+import org.springframework.shell.table.TableBuilder;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.fonimus.ssh.shell.SshShellHelper.INTERACTIVE_LONG_MESSAGE;
+import static com.github.fonimus.ssh.shell.SshShellHelper.INTERACTIVE_SHORT_MESSAGE;
+import static com.github.fonimus.ssh.shell.SshShellProperties.SSH_SHELL_PREFIX;
+import static com.github.fonimus.ssh.shell.commands.ThreadCommand.bytes;
+
+/**
+ * Jvm memory command
+ */
+@SshShellComponent
+@ShellCommandGroup("Built-In Commands")
+@ConditionalOnProperty(
+        value = {
+                SSH_SHELL_PREFIX + ".default-commands.memory",
+                SSH_SHELL_PREFIX + ".defaultCommands.memory"
+        }, havingValue = "true", matchIfMissing = true
+)
+public class JvmMemoryCommand {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private static final DateTimeFormatter PAUSE_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+
+    private static final int MAX_PAUSES = 256;
+
+    /**
+     * Minimum interval between two rate computations, so that key presses do not give meaningless rates
+     */
+    private static final long MIN_RATE_INTERVAL = 1000;
+
+    private final GcRecorder recorder = new GcRecorder(MAX_PAUSES);
+
+    private final MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+
+    private SshShellHelper helper;
+
+    public JvmMemoryCommand(SshShellHelper helper) {
+        this.helper = helper;
+    }
+
+    @ShellMethod(key = "jvm-memory", value = "Display memory pools, allocation and promotion rates, and gc pauses.")
+    public String jvmMemory(@ShellOption(help = "Maximum number of last gc pauses displayed. Default is: 10",
+            defaultValue = "10") int pauses) {
+        long[] previous = new long[3];
+        long[] rates = {-1, -1};
+        try (GcRecorder.Watch ignored = recorder.watch()) {
+            previous[0] = System.currentTimeMillis();
+            previous[1] = recorder.getAllocated();
+            previous[2] = recorder.getPromoted();
+            long startCount = recorder.getCount();
+            helper.interactive(Interactive.builder().input((size, currentDelay) -> {
+                long now = System.currentTimeMillis();
+                if (now - previous[0] >= MIN_RATE_INTERVAL) {
+                    long allocated = recorder.getAllocated();
+                    long promoted = recorder.getPromoted();
+                    rates[0] = allocated < 0 ? -1 : (allocated - previous[1]) * 1000 / (now - previous[0]);
+                    rates[1] = (promoted - previous[2]) * 1000 / (now - previous[0]);
+                    previous[0] = now;
+                    previous[1] = allocated;
+                    previous[2] = promoted;
+                }
+                List<AttributedString> lines = new ArrayList<>(size.getRows());
+                lines.add(new AttributedStringBuilder()
+                        .append("Time: ")
+                        .append(FORMATTER.format(LocalDateTime.now()), AttributedStyle.BOLD)
+                        .append(", refresh delay: ")
+                        .append(String.valueOf(currentDelay), AttributedStyle.BOLD)
+                        .append(" ms")
+                        .toAttributedString());
+                for (String line : lines(rates[0], rates[1], recorder.getCount() - startCount, pauses)) {
+                    for (String s : line.split("\n")) {
+                        lines.add(AttributedString.fromAnsi(s));
+                    }
+                }
+                String msg = INTERACTIVE_LONG_MESSAGE.length() <= helper.terminalSize().getColumns() ?
+                        INTERACTIVE_LONG_MESSAGE : INTERACTIVE_SHORT_MESSAGE;
+                lines.add(AttributedString.fromAnsi(msg));
+                return lines;
+            }).build());
+        }
+        return "";
+    }
+
+    private List<String> lines(long allocationRate, long promotionRate, long pauseCount, int maxPauses) {
+        List<String> lines = new ArrayList<>();
+        MemoryUsage heap = memoryMXBean.getHeapMemoryUsage();
+        MemoryUsage nonHeap = memoryMXBean.getNonHeapMemoryUsage();
+        lines.add("Heap: " + bytes(heap.getUsed()) + " used, " + bytes(heap.getCommitted()) + " committed, " +
+                (heap.getMax() < 0 ? "no" : bytes(heap.getMax())) + " max. Non heap: " + bytes(nonHeap.getUsed()) +
+                " used, " + bytes(nonHeap.getCommitted()) + " committed");
+        lines.add("Allocation rate: " + rate(allocationRate) + ", promotion rate: " + rate(promotionRate));
+
+        List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+        String[][] data = new String[pools.size() + 1][];
+        data[0] = new String[]{"POOL", "TYPE", "USED", "COMMITTED", "MAX", "USAGE", "AFTER LAST GC"};
+        for (int i = 0; i < pools.size(); i++) {
+            MemoryPoolMXBean pool = pools.get(i);
+            MemoryUsage usage = pool.getUsage();
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            data[i + 1] = new String[]{
+                    pool.getName(),
+                    pool.getType().name(),
+                    bytes(usage.getUsed()),
+                    bytes(usage.getCommitted()),
+                    usage.getMax() < 0 ? "-" : bytes(usage.getMax()),
+                    usage.getMax() <= 0 ? "-" : (usage.getUsed() * 100 / usage.getMax()) + "%",
+                    afterGc == null ? "-" : bytes(afterGc.getUsed())
+            };
+        }
+        lines.add(table(data));
+
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        data = new String[collectors.size() + 1][];
+        data[0] = new String[]{"COLLECTOR", "COUNT", "TIME (ms)", "POOLS"};
+        for (int i = 0; i < collectors.size(); i++) {
+            GarbageCollectorMXBean collector = collectors.get(i);
+            data[i + 1] = new String[]{
+                    collector.getName(),
+                    String.valueOf(collector.getCollectionCount()),
+                    String.valueOf(collector.getCollectionTime()),
+                    String.join(", ", collector.getMemoryPoolNames())
+            };
+        }
+        lines.add(table(data));
+
+        lines.add("Gc pauses since view opened: " + pauseCount + ", last ones:");
+        for (GcRecorder.GcPause pause : recorder.last(maxPauses)) {
+            lines.add(PAUSE_FORMATTER.format(Instant.ofEpochMilli(pause.getTime()).atZone(ZoneId.systemDefault())) +
+                    " " + pause.getCollector() + ", " + pause.getAction() + " (" + pause.getCause() + "): " +
+                    pause.getDuration() + " ms, heap " + bytes(pause.getHeapBefore()) + " -> " +
+                    bytes(pause.getHeapAfter()));
+        }
+        return lines;
+    }
+
+    private String table(String[][] data) {
+        return new TableBuilder(new ArrayTableModel(data)).addHeaderAndVerticalsBorders(BorderStyle.fancy_light)
+                .build().render(helper.terminalSize().getColumns());
+    }
+
+    private static String rate(long rate) {
+        return rate < 0 ? "-" : bytes(rate) + "/s";
+    }
+}
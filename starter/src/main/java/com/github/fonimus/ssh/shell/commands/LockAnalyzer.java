@@ -0,0 +1,220 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import lombok.Getter;
+
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MonitorInfo;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Lock analyzer for locks command</p>
+ * <p>Builds wait-for graph of all threads: a thread waiting to enter a monitor, or parked on an owned synchronizer,
+ * waits for lock owner. Locks are ranked by number of waiters, and deadlock cycles are extracted from threads found by
+ * {@link ThreadMXBean#findDeadlockedThreads()} and {@link ThreadMXBean#findMonitorDeadlockedThreads()}</p>
+ */
+class LockAnalyzer {
+
+    private final ThreadMXBean threadMXBean;
+
+    LockAnalyzer() {
+        this(ManagementFactory.getThreadMXBean());
+    }
+
+    LockAnalyzer(ThreadMXBean threadMXBean) {
+        this.threadMXBean = threadMXBean;
+    }
+
+    /**
+     * Enable thread contention monitoring if supported, so that blocked times are measured, until returned object is
+     * closed
+     *
+     * @return acquired measurement, contention monitoring is restored to its previous state when closed
+     */
+    ThreadMeasurements measureContention() {
+        return ThreadMeasurements.acquire(threadMXBean, ThreadMeasurements.Measurement.CONTENTION);
+    }
+
+    /**
+     * Analyze all threads
+     *
+     * @param lockedInfo whether to read locked monitors, to get frame where owners locked contended monitors, with
+     *                   full stack traces
+     * @return lock report, unmodifiable
+     */
+    LockReport analyze(boolean lockedInfo) {
+        long[] ids = threadMXBean.getAllThreadIds();
+        ThreadInfo[] infos = lockedInfo ?
+                threadMXBean.getThreadInfo(ids, threadMXBean.isObjectMonitorUsageSupported(),
+                        threadMXBean.isSynchronizerUsageSupported()) :
+                threadMXBean.getThreadInfo(ids, 0);
+        Map<Long, ThreadInfo> byId = new HashMap<>(infos.length * 2);
+        for (ThreadInfo info : infos) {
+            if (info != null) {
+                byId.put(info.getThreadId(), info);
+            }
+        }
+
+        Map<String, LockContention> contentions = new LinkedHashMap<>();
+        int blocked = 0;
+        for (ThreadInfo info : byId.values()) {
+            LockInfo lock = info.getLockInfo();
+            // threads in Object.wait() or awaiting a condition do not contend: lock has no owner
+            if (lock == null || info.getLockOwnerId() < 0 && info.getThreadState() != Thread.State.BLOCKED) {
+                continue;
+            }
+            blocked++;
+            contentions.computeIfAbsent(key(lock), k -> new LockContention(lock, byId.get(info.getLockOwnerId())))
+                    .waiters.add(info);
+        }
+        List<LockContention> ranked = new ArrayList<>(contentions.values());
+        ranked.sort((c1, c2) -> Integer.compare(c2.waiters.size(), c1.waiters.size()));
+
+        return new LockReport(System.currentTimeMillis(), byId.size(), blocked, Collections.unmodifiableList(ranked),
+                deadlocks(byId), Collections.unmodifiableMap(byId));
+    }
+
+    private List<List<ThreadInfo>> deadlocks(Map<Long, ThreadInfo> byId) {
+        Set<Long> deadlocked = new HashSet<>();
+        add(deadlocked, threadMXBean.findMonitorDeadlockedThreads());
+        if (threadMXBean.isSynchronizerUsageSupported()) {
+            add(deadlocked, threadMXBean.findDeadlockedThreads());
+        }
+        List<List<ThreadInfo>> cycles = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+        for (Long id : deadlocked) {
+            // follow owners from each unvisited deadlocked thread, until a thread is seen twice
+            List<ThreadInfo> path = new ArrayList<>();
+            Map<Long, Integer> index = new HashMap<>();
+            ThreadInfo current = byId.get(id);
+            while (current != null && !visited.contains(current.getThreadId())
+                    && !index.containsKey(current.getThreadId())) {
+                index.put(current.getThreadId(), path.size());
+                path.add(current);
+                current = byId.get(current.getLockOwnerId());
+            }
+            if (current != null && index.containsKey(current.getThreadId())) {
+                cycles.add(Collections.unmodifiableList(path.subList(index.get(current.getThreadId()), path.size())));
+            }
+            visited.addAll(index.keySet());
+        }
+        return Collections.unmodifiableList(cycles);
+    }
+
+    private static void add(Set<Long> set, long[] ids) {
+        if (ids != null) {
+            for (long id : ids) {
+                set.add(id);
+            }
+        }
+    }
+
+    /**
+     * Get unique lock key
+     *
+     * @param lock lock
+     * @return lock class name and identity hash code
+     */
+    static String key(LockInfo lock) {
+        return lock.getClassName() + '@' + Integer.toHexString(lock.getIdentityHashCode());
+    }
+
+    /**
+     * Lock report
+     */
+    @Getter
+    static class LockReport {
+
+        private final long time;
+
+        private final int threadCount;
+
+        /**
+         * Number of threads waiting for an owned lock
+         */
+        private final int blockedCount;
+
+        /**
+         * Contended locks, most waited first
+         */
+        private final List<LockContention> contentions;
+
+        /**
+         * Deadlock cycles, each thread waiting for lock owned by next one, last one waiting for first one
+         */
+        private final List<List<ThreadInfo>> deadlocks;
+
+        /**
+         * All threads by id, with their cumulated blocked count and time
+         */
+        private final Map<Long, ThreadInfo> threads;
+
+        private LockReport(long time, int threadCount, int blockedCount, List<LockContention> contentions,
+                           List<List<ThreadInfo>> deadlocks, Map<Long, ThreadInfo> threads) {
+            this.time = time;
+            this.threadCount = threadCount;
+            this.blockedCount = blockedCount;
+            this.contentions = contentions;
+            this.deadlocks = deadlocks;
+            this.threads = threads;
+        }
+
+        /**
+         * Get number of waiters of most contended lock
+         *
+         * @return waiters count, 0 if no contention
+         */
+        int getMaxWaiters() {
+            return contentions.isEmpty() ? 0 : contentions.get(0).getWaiters().size();
+        }
+    }
+
+    /**
+     * Contended lock, with its owner and waiters
+     */
+    @Getter
+    static class LockContention {
+
+        private final String key;
+
+        private final LockInfo lock;
+
+        /**
+         * Owner, null if unknown (ended, or monitor being released)
+         */
+        private final ThreadInfo owner;
+
+        private final List<ThreadInfo> waiters = new ArrayList<>();
+
+        private LockContention(LockInfo lock, ThreadInfo owner) {
+            this.key = key(lock);
+            this.lock = lock;
+            this.owner = owner;
+        }
+
+        /**
+         * Get frame where owner locked monitor, only available when locked monitors have been read
+         *
+         * @return stack frame, null if unknown
+         */
+        StackTraceElement getLockedFrame() {
+            if (owner != null) {
+                for (MonitorInfo monitor : owner.getLockedMonitors()) {
+                    if (key.equals(key(monitor))) {
+                        return monitor.getLockedStackFrame();
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import com.github.fonimus.ssh.shell.PromptColor;
+import com.github.fonimus.ssh.shell.SshShellHelper;
+import com.github.fonimus.ssh.shell.interactive.Interactive;
+import com.github.fonimus.ssh.shell.interactive.SamplingScheduler;
+import lombok.extern.slf4j.Slf4j;
+import org.jline.utils.AttributedString;
+import org.jline.utils.AttributedStringBuilder;
+import org.jline.utils.AttributedStyle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.shell.standard.ShellCommandGroup;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+import org.springframework.shell.table.ArrayTableModel;
+import org.springframework.shell.table.BorderStyle;
+import org.springframework.shell.table.TableBuilder;
+
+import java.lang.management.ThreadInfo;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.github.fonimus.ssh.shell.SshShellHelper.INTERACTIVE_LONG_MESSAGE;
+import static com.github.fonimus.ssh.shell.SshShellHelper.INTERACTIVE_SHORT_MESSAGE;
+import static com.github.fonimus.ssh.shell.SshShellProperties.SSH_SHELL_PREFIX;
+
+/**
+ * Deadlock and lock contention command
+ */
+@Slf4j
+@SshShellComponent
+@ShellCommandGroup("Built-In Commands")
+@ConditionalOnProperty(
+        value = {
+                SSH_SHELL_PREFIX + ".default-commands.locks",
+                SSH_SHELL_PREFIX + ".defaultCommands.locks"
+        }, havingValue = "true", matchIfMissing = true
+)
+public class LocksCommand {
+
+    public static final String LOCKS_SOURCE = "locks";
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private static final int MAX_PEAKS = 1000;
+
+    private final LockAnalyzer analyzer = new LockAnalyzer();
+
+    private SshShellHelper helper;
+
+    private SamplingScheduler samplingScheduler;
+
+    public LocksCommand(SshShellHelper helper) {
+        this(helper, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param helper            ssh shell helper
+     * @param samplingScheduler (optional) scheduler sharing lock analysis between watching sessions
+     */
+    @Autowired
+    public LocksCommand(SshShellHelper helper, @Autowired(required = false) SamplingScheduler samplingScheduler) {
+        this.helper = helper;
+        this.samplingScheduler = samplingScheduler;
+    }
+
+    @ShellMethod("Display deadlocks and most contended locks.")
+    public String locks(@ShellOption(defaultValue = "REPORT") LocksAction action,
+                        @ShellOption(help = "Maximum number of locks displayed. Default is: 10", defaultValue = "10") int top,
+                        @ShellOption(help = "Only for WATCH action, alert when a lock has at least this number of " +
+                                "waiters. Default is: 5", defaultValue = "5") int threshold) {
+        if (action == LocksAction.REPORT) {
+            LockAnalyzer.LockReport report = analyzer.analyze(true);
+            StringBuilder sb = new StringBuilder();
+            for (String line : lines(report, top, null, true)) {
+                sb.append(line).append('\n');
+            }
+            return sb.toString();
+        }
+        return watch(top, threshold);
+    }
+
+    private String watch(int top, int threshold) {
+        @SuppressWarnings("unchecked")
+        SamplingScheduler.Subscription<LockAnalyzer.LockReport>[] subscription = new SamplingScheduler.Subscription[1];
+        // peak waiters per lock, only seen when sampled, contention between samples is counted by tracker
+        Map<String, Integer> peaks = new HashMap<>();
+        ContentionTracker tracker = new ContentionTracker();
+        String[] lastAlert = {null};
+        boolean[] alerting = {false};
+
+        Interactive interactive = Interactive.builder().input((size, currentDelay) -> {
+            LockAnalyzer.LockReport report = subscription[0] != null ? subscription[0].latest() : analyzer.analyze(false);
+            if (peaks.size() > MAX_PEAKS) {
+                peaks.clear();
+            }
+            for (LockAnalyzer.LockContention contention : report.getContentions()) {
+                peaks.merge(contention.getKey(), contention.getWaiters().size(), Math::max);
+            }
+            tracker.update(report);
+            String alert = alert(report, threshold);
+            if (alert != null && !alerting[0]) {
+                LOGGER.warn("Lock alert: {}", alert);
+                lastAlert[0] = FORMATTER.format(LocalDateTime.now()) + " " + alert;
+            }
+            alerting[0] = alert != null;
+
+            List<AttributedString> lines = new ArrayList<>(size.getRows());
+            lines.add(new AttributedStringBuilder()
+                    .append("Time: ")
+                    .append(FORMATTER.format(LocalDateTime.now()), AttributedStyle.BOLD)
+                    .append(", refresh delay: ")
+                    .append(String.valueOf(currentDelay), AttributedStyle.BOLD)
+                    .append(" ms, threshold: ")
+                    .append(String.valueOf(threshold), AttributedStyle.BOLD)
+                    .append(" waiters")
+                    .toAttributedString());
+            lines.add(AttributedString.fromAnsi(alert != null ? helper.getColored("ALERT: " + alert, PromptColor.RED) :
+                    helper.getColored("No alert", PromptColor.GREEN)));
+            if (lastAlert[0] != null) {
+                lines.add(AttributedString.fromAnsi("Last alert: " + lastAlert[0]));
+            }
+            for (String line : lines(report, top, peaks, false)) {
+                for (String s : line.split("\n")) {
+                    lines.add(AttributedString.fromAnsi(s));
+                }
+            }
+            for (String line : lines(tracker, top)) {
+                for (String s : line.split("\n")) {
+                    lines.add(AttributedString.fromAnsi(s));
+                }
+            }
+            String msg = INTERACTIVE_LONG_MESSAGE.length() <= helper.terminalSize().getColumns() ?
+                    INTERACTIVE_LONG_MESSAGE : INTERACTIVE_SHORT_MESSAGE;
+            lines.add(AttributedString.fromAnsi(msg));
+            return lines;
+        }).build();
+
+        // threads are analyzed once per interval for all watching sessions
+        if (samplingScheduler != null) {
+            subscription[0] = samplingScheduler.subscribe(LOCKS_SOURCE, interactive.getRefreshDelay(),
+                    () -> analyzer.analyze(false));
+        }
+        // blocked times are measured while watching only
+        try (ThreadMeasurements ignored = analyzer.measureContention()) {
+            helper.interactive(interactive);
+        } finally {
+            if (subscription[0] != null) {
+                subscription[0].close();
+            }
+        }
+        return "";
+    }
+
+    private static String alert(LockAnalyzer.LockReport report, int threshold) {
+        if (!report.getDeadlocks().isEmpty()) {
+            return report.getDeadlocks().size() + " deadlock(s) detected";
+        }
+        if (report.getMaxWaiters() >= threshold) {
+            LockAnalyzer.LockContention hottest = report.getContentions().get(0);
+            return "lock " + hottest.getKey() + " has " + hottest.getWaiters().size() + " waiters";
+        }
+        return null;
+    }
+
+    private List<String> lines(LockAnalyzer.LockReport report, int top, Map<String, Integer> peaks,
+                               boolean lockedFrames) {
+        List<String> lines = new ArrayList<>();
+        if (report.getDeadlocks().isEmpty()) {
+            lines.add(helper.getSuccess("No deadlock"));
+        }
+        int i = 1;
+        for (List<ThreadInfo> cycle : report.getDeadlocks()) {
+            lines.add(helper.getColored("Deadlock " + i++ + ":", PromptColor.RED));
+            for (ThreadInfo info : cycle) {
+                lines.add("  " + thread(info) + " waits for " + info.getLockName() + " held by " +
+                        thread(info.getLockOwnerName(), info.getLockOwnerId()));
+            }
+        }
+        lines.add("Threads: " + report.getThreadCount() + ", waiting for a lock: " + report.getBlockedCount() +
+                ", contended locks: " + report.getContentions().size() + " at " +
+                FORMATTER.format(Instant.ofEpochMilli(report.getTime()).atZone(ZoneId.systemDefault())));
+        if (report.getContentions().isEmpty()) {
+            return lines;
+        }
+
+        List<Object[]> data = new ArrayList<>();
+        List<Object> headers = new ArrayList<>();
+        headers.add("LOCK");
+        headers.add("WAITERS");
+        if (peaks != null) {
+            headers.add("PEAK");
+        }
+        headers.add("OWNER");
+        if (lockedFrames) {
+            headers.add("LOCKED AT");
+        }
+        headers.add("WAITING THREADS");
+        data.add(headers.toArray());
+        for (LockAnalyzer.LockContention contention : report.getContentions().stream().limit(Math.max(0, top))
+                .collect(Collectors.toList())) {
+            List<Object> row = new ArrayList<>();
+            row.add(contention.getKey());
+            row.add(contention.getWaiters().size());
+            if (peaks != null) {
+                row.add(peaks.getOrDefault(contention.getKey(), contention.getWaiters().size()));
+            }
+            row.add(contention.getOwner() != null ? thread(contention.getOwner()) : "-");
+            if (lockedFrames) {
+                StackTraceElement frame = contention.getLockedFrame();
+                row.add(frame != null ? frame.toString() : "-");
+            }
+            row.add(contention.getWaiters().stream().map(LocksCommand::thread).collect(Collectors.joining(", ")));
+            data.add(row.toArray());
+        }
+        lines.add(new TableBuilder(new ArrayTableModel(data.toArray(new Object[0][])))
+                .addHeaderAndVerticalsBorders(BorderStyle.fancy_light).build().render(helper.terminalSize().getColumns()));
+        if (report.getContentions().size() > top) {
+            lines.add("... " + (report.getContentions().size() - top) + " more contended locks");
+        }
+        return lines;
+    }
+
+    private List<String> lines(ContentionTracker tracker, int top) {
+        List<String> lines = new ArrayList<>();
+        lines.add("Monitor contention since previous sample: " + tracker.getBlockedCount() + " blocks, " +
+                time(tracker.getBlockedTime()) + " (since watch start: " + tracker.getTotalBlockedCount() +
+                " blocks, " + tracker.getTotalBlockedTime() + " ms)");
+        if (tracker.getContentions().isEmpty()) {
+            return lines;
+        }
+        List<Object[]> data = new ArrayList<>();
+        data.add(new Object[]{"THREAD", "BLOCKED", "BLOCKED TIME"});
+        for (ContentionTracker.ThreadContention contention : tracker.getContentions().stream()
+                .limit(Math.max(0, top)).collect(Collectors.toList())) {
+            data.add(new Object[]{thread(contention.getName(), contention.getId()), contention.getBlockedCount(),
+                    time(contention.getBlockedTime())});
+        }
+        lines.add(new TableBuilder(new ArrayTableModel(data.toArray(new Object[0][])))
+                .addHeaderAndVerticalsBorders(BorderStyle.fancy_light).build().render(helper.terminalSize().getColumns()));
+        if (tracker.getContentions().size() > top) {
+            lines.add("... " + (tracker.getContentions().size() - top) + " more blocked threads");
+        }
+        return lines;
+    }
+
+    private static String time(long millis) {
+        return millis >= 0 ? millis + " ms" : "n/a";
+    }
+
+    private static String thread(ThreadInfo info) {
+        return thread(info.getThreadName(), info.getThreadId());
+    }
+
+    private static String thread(String name, long id) {
+        return "[" + id + "] " + name;
+    }
+
+    enum LocksAction {
+        REPORT, WATCH
+    }
+}
@@ -1,17 +1,18 @@
 package com.github.fonimus.ssh.shell.commands;
 
-import java.lang.reflect.ParameterizedType;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
 import org.jline.utils.AttributedStringBuilder;
 import org.jline.utils.AttributedStyle;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.shell.standard.ShellCommandGroup;
 import org.springframework.shell.standard.ShellMethod;
 
 import com.github.fonimus.ssh.shell.postprocess.PostProcessor;
+import com.github.fonimus.ssh.shell.postprocess.PostProcessorRegistry;
 
 import static com.github.fonimus.ssh.shell.SshShellProperties.SSH_SHELL_PREFIX;
 
@@ -28,21 +29,25 @@ import static com.github.fonimus.ssh.shell.SshShellProperties.SSH_SHELL_PREFIX;
 )
 public class Postprocessors {
 
-	private List<PostProcessor> postProcessors;
+	private List<PostProcessorRegistry.Registration> registrations;
 
 	public Postprocessors(List<PostProcessor> postProcessors) {
-		this.postProcessors = new ArrayList<>(postProcessors);
-		this.postProcessors.sort(Comparator.comparing(PostProcessor::getName));
+		this(new PostProcessorRegistry(postProcessors));
+	}
+
+	@Autowired
+	public Postprocessors(PostProcessorRegistry registry) {
+		this.registrations = new ArrayList<>(registry.getRegistrations());
+		this.registrations.sort(Comparator.comparing(r -> r.getPostProcessor().getName()));
 	}
 
 	@ShellMethod(value = "Display the available post processors")
 	public CharSequence postprocessors() {
 		AttributedStringBuilder result = new AttributedStringBuilder();
 		result.append("Available Post-Processors\n\n", AttributedStyle.BOLD);
-		for (PostProcessor postProcessor : postProcessors) {
-			result.append("\t" + postProcessor.getName() + ": ", AttributedStyle.BOLD);
-			Class<?> cls = ((Class) ((ParameterizedType) (postProcessor.getClass().getGenericInterfaces())[0]).getActualTypeArguments()[0]);
-			result.append(cls.getName() + "\n", AttributedStyle.DEFAULT);
+		for (PostProcessorRegistry.Registration registration : registrations) {
+			result.append("\t" + registration.getPostProcessor().getName() + ": ", AttributedStyle.BOLD);
+			result.append(registration.getInputType().getName() + "\n", AttributedStyle.DEFAULT);
 		}
 
 		return result;
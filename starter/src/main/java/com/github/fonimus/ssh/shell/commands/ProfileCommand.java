@@ -0,0 +1,262 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import com.github.fonimus.ssh.shell.SshShellHelper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.shell.standard.ShellCommandGroup;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+import org.springframework.shell.table.ArrayTableModel;
+import org.springframework.shell.table.BorderStyle;
+import org.springframework.shell.table.SimpleHorizontalAligner;
+import org.springframework.shell.table.TableBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+import static com.github.fonimus.ssh.shell.SshShellHelper.at;
+import static com.github.fonimus.ssh.shell.SshShellProperties.SSH_SHELL_PREFIX;
+
+/**
+ * Sampling profiler command
+ */
+@Slf4j
+@SshShellComponent
+@ShellCommandGroup("Built-In Commands")
+@ConditionalOnProperty(
+        value = {
+                SSH_SHELL_PREFIX + ".default-commands.profile",
+                SSH_SHELL_PREFIX + ".defaultCommands.profile"
+        }, havingValue = "true", matchIfMissing = true
+)
+public class ProfileCommand {
+
+    public static final String THREAD_NAME = "ssh-shell-profiler";
+
+    private static final int MAX_DURATION = 3600;
+
+    /**
+     * Each sample is a safepoint, frequency is kept low so that profiling does not slow down application
+     */
+    private static final int MAX_FREQUENCY = 100;
+
+    /**
+     * Only one profile at a time, other sessions are refused instead of adding their own safepoints
+     */
+    private static final AtomicBoolean RUNNING = new AtomicBoolean();
+
+    /**
+     * Interval between thread name filter refreshes, in nanoseconds
+     */
+    private static final long FILTER_REFRESH = TimeUnit.SECONDS.toNanos(1);
+
+    private static final double FLAME_GRAPH_MIN_WIDTH = 0.05;
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private SshShellHelper helper;
+
+    public ProfileCommand(SshShellHelper helper) {
+        this.helper = helper;
+    }
+
+    @ShellMethod("Sample thread stacks to find hot methods. Ctrl-C stops sampling early.")
+    public String profile(@ShellOption(help = "Sampling duration in seconds. Default is: 10", defaultValue = "10") int duration,
+                          @ShellOption(help = "Samples per second. Default is: 20", defaultValue = "20") int frequency,
+                          @ShellOption(help = "Regular expression on thread names, all threads if not set",
+                                  defaultValue = ShellOption.NULL) String threads,
+                          @ShellOption(help = "Output format: TOP (hot methods), COLLAPSED (collapsed stacks) or " +
+                                  "FLAMEGRAPH (html page, to save with '>'). Default is: TOP", defaultValue = "TOP")
+                                  ProfileFormat format,
+                          @ShellOption(help = "Only for TOP format, number of methods. Default is: 20", defaultValue = "20")
+                                  int top,
+                          @ShellOption(help = "Sample threads in all states, for a wall clock profile, instead of " +
+                                  "runnable threads only. Default is: false") boolean allStates) {
+        if (duration < 1 || duration > MAX_DURATION) {
+            throw new IllegalArgumentException("Duration must be between 1 and " + MAX_DURATION + " seconds");
+        }
+        if (frequency < 1 || frequency > MAX_FREQUENCY) {
+            throw new IllegalArgumentException("Frequency must be between 1 and " + MAX_FREQUENCY + " samples per second");
+        }
+        Pattern filter = threads != null ? Pattern.compile(threads) : null;
+
+        if (!RUNNING.compareAndSet(false, true)) {
+            throw new IllegalStateException("A profile is already running");
+        }
+        Sampler sampler = new Sampler(filter, allStates, TimeUnit.SECONDS.toNanos(duration),
+                TimeUnit.SECONDS.toNanos(1) / frequency);
+        boolean interrupted = false;
+        try {
+            Thread thread = new Thread(sampler, THREAD_NAME);
+            thread.setDaemon(true);
+            thread.start();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                // ctrl-c: stop sampling, and display what has been sampled
+                interrupted = true;
+                sampler.stopped = true;
+                joinUninterruptibly(thread);
+            }
+        } finally {
+            RUNNING.set(false);
+        }
+        if (sampler.error != null) {
+            throw new IllegalStateException("Profiling failed: " + sampler.error.getMessage(), sampler.error);
+        }
+
+        StackProfile profile = sampler.profile;
+        String summary = String.format(Locale.ROOT, "%d samples of %s threads in %.1f s at %d Hz%s",
+                profile.getSamples(), filter != null ? "'" + threads + "'" : "all", sampler.elapsed / 1e9, frequency,
+                interrupted ? " (stopped)" : "");
+        StringBuilder sb = new StringBuilder();
+        switch (format) {
+            case COLLAPSED:
+                profile.collapsed(sb);
+                return sb.toString();
+            case FLAMEGRAPH:
+                profile.flameGraph(sb, "Flame graph: " + summary, FLAME_GRAPH_MIN_WIDTH);
+                return sb.toString();
+            default:
+                return helper.getInfo(summary) + "\n" + table(profile, top);
+        }
+    }
+
+    private String table(StackProfile profile, int top) {
+        List<StackProfile.MethodStat> methods = profile.hotMethods(top);
+        String[][] data = new String[methods.size() + 1][];
+        data[0] = new String[]{"SELF %", "SELF", "TOTAL %", "TOTAL", "METHOD"};
+        double samples = Math.max(1, profile.getSamples());
+        int r = 1;
+        for (StackProfile.MethodStat method : methods) {
+            data[r++] = new String[]{
+                    String.format(Locale.ROOT, "%.1f", method.getSelf() * 100 / samples),
+                    String.valueOf(method.getSelf()),
+                    String.format(Locale.ROOT, "%.1f", method.getTotal() * 100 / samples),
+                    String.valueOf(method.getTotal()),
+                    method.getName()
+            };
+        }
+        TableBuilder tableBuilder = new TableBuilder(new ArrayTableModel(data));
+        for (int i = 0; i < data.length; i++) {
+            for (int j = 0; j < 4; j++) {
+                tableBuilder.on(at(i, j)).addAligner(SimpleHorizontalAligner.right);
+            }
+        }
+        return tableBuilder.addHeaderAndVerticalsBorders(BorderStyle.fancy_light).build()
+                .render(helper.terminalSize().getColumns());
+    }
+
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    enum ProfileFormat {
+        TOP, COLLAPSED, FLAMEGRAPH
+    }
+
+    /**
+     * Background sampler, only thread accessing stack profile until it ends
+     */
+    private class Sampler
+            implements Runnable {
+
+        private final StackProfile profile = new StackProfile();
+
+        private final Pattern filter;
+
+        private final boolean allStates;
+
+        private final long duration;
+
+        private final long period;
+
+        private volatile boolean stopped;
+
+        private volatile Throwable error;
+
+        private volatile long elapsed;
+
+        private long[] ids;
+
+        private long idsRefreshedAt;
+
+        private Sampler(Pattern filter, boolean allStates, long duration, long period) {
+            this.filter = filter;
+            this.allStates = allStates;
+            this.duration = duration;
+            this.period = period;
+        }
+
+        @Override
+        public void run() {
+            long self = Thread.currentThread().getId();
+            long start = System.nanoTime();
+            long next = start;
+            try {
+                while (!stopped) {
+                    long now = System.nanoTime();
+                    if (now - start >= duration) {
+                        break;
+                    }
+                    for (ThreadInfo info : sample(now)) {
+                        if (info != null && info.getThreadId() != self
+                                && (allStates || info.getThreadState() == Thread.State.RUNNABLE)) {
+                            profile.add(info.getStackTrace());
+                        }
+                    }
+                    // fixed rate, missed samples are skipped
+                    next += period;
+                    long sleep = next - System.nanoTime();
+                    if (sleep > 0) {
+                        TimeUnit.NANOSECONDS.sleep(sleep);
+                    } else {
+                        next = System.nanoTime();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Profiling failed", e);
+                error = e;
+            } finally {
+                elapsed = System.nanoTime() - start;
+            }
+        }
+
+        private ThreadInfo[] sample(long now) {
+            if (filter == null) {
+                return threadMXBean.dumpAllThreads(false, false);
+            }
+            // matching threads are resolved periodically, only their stacks are dumped
+            if (ids == null || now - idsRefreshedAt >= FILTER_REFRESH) {
+                List<Long> matching = new ArrayList<>();
+                for (ThreadInfo info : threadMXBean.getThreadInfo(threadMXBean.getAllThreadIds(), 0)) {
+                    if (info != null && filter.matcher(info.getThreadName()).find()) {
+                        matching.add(info.getThreadId());
+                    }
+                }
+                ids = matching.stream().mapToLong(Long::longValue).toArray();
+                idsRefreshedAt = now;
+            }
+            return ids.length == 0 ? new ThreadInfo[0] : threadMXBean.getThreadInfo(ids, Integer.MAX_VALUE);
+        }
+    }
+}
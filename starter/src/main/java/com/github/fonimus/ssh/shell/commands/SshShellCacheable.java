@@ -0,0 +1,24 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Mark a {@link org.springframework.shell.standard.ShellMethod} result as cacheable, for all sessions</p>
+ * <p>Results are cached by command and arguments, errors and null results are not cached</p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface SshShellCacheable {
+
+	/**
+	 * Time to live of cached results, in spring boot duration format (examples: 500ms, 30s, 5m)
+	 *
+	 * @return time to live
+	 */
+	String ttl() default "60s";
+}
@@ -0,0 +1,326 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * <p>Stack samples folded into a trie, for profile command</p>
+ * <p>Frames are interned by method (class and method name, line numbers are ignored): each distinct stack trace element
+ * is resolved once to a frame id. Trie nodes are stored in primitive arrays, and children are found in an open
+ * addressing table keyed by parent node and frame id, so that adding a sample does not allocate once its frames have
+ * been seen</p>
+ * <p>Not thread safe</p>
+ */
+class StackProfile {
+
+    static final int MAX_NODES = 1 << 20;
+
+    private static final int ROOT = 0;
+
+    private final Map<StackTraceElement, Integer> elementFrames = new HashMap<>();
+
+    private final Map<String, Integer> frameIds = new HashMap<>();
+
+    private final List<String> frames = new ArrayList<>();
+
+    private int[] nodeFrame = new int[1024];
+
+    private int[] nodeParent = new int[1024];
+
+    private long[] nodeSelf = new long[1024];
+
+    private long[] nodeTotal = new long[1024];
+
+    private int nodeCount = 1;
+
+    // open addressing table: (parent node << 32 | frame id) + 1 -> child node, 0 key is empty
+    private long[] childKeys = new long[2048];
+
+    private int[] childNodes = new int[2048];
+
+    @Getter
+    private long samples;
+
+    StackProfile() {
+        nodeFrame[ROOT] = -1;
+        nodeParent[ROOT] = -1;
+    }
+
+    /**
+     * Add stack sample
+     *
+     * @param stack stack trace, top frame first
+     */
+    void add(StackTraceElement[] stack) {
+        samples++;
+        int node = ROOT;
+        nodeTotal[ROOT]++;
+        for (int i = stack.length - 1; i >= 0; i--) {
+            int child = child(node, frame(stack[i]));
+            if (child < 0) {
+                // trie is full, sample is truncated
+                break;
+            }
+            node = child;
+            nodeTotal[node]++;
+        }
+        nodeSelf[node]++;
+    }
+
+    private int frame(StackTraceElement element) {
+        Integer id = elementFrames.get(element);
+        if (id == null) {
+            String name = element.getClassName() + '.' + element.getMethodName();
+            id = frameIds.computeIfAbsent(name, n -> {
+                frames.add(n);
+                return frames.size() - 1;
+            });
+            elementFrames.put(element, id);
+        }
+        return id;
+    }
+
+    private int child(int parent, int frame) {
+        long key = (((long) parent << 32) | frame) + 1;
+        int mask = childKeys.length - 1;
+        int slot = mix(key) & mask;
+        while (childKeys[slot] != 0) {
+            if (childKeys[slot] == key) {
+                return childNodes[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (nodeCount >= MAX_NODES) {
+            return -1;
+        }
+        int node = nodeCount++;
+        if (node == nodeFrame.length) {
+            int length = Math.min(nodeFrame.length * 2, MAX_NODES);
+            nodeFrame = Arrays.copyOf(nodeFrame, length);
+            nodeParent = Arrays.copyOf(nodeParent, length);
+            nodeSelf = Arrays.copyOf(nodeSelf, length);
+            nodeTotal = Arrays.copyOf(nodeTotal, length);
+        }
+        nodeFrame[node] = frame;
+        nodeParent[node] = parent;
+        childKeys[slot] = key;
+        childNodes[slot] = node;
+        if (nodeCount * 2 > childKeys.length) {
+            rehash();
+        }
+        return node;
+    }
+
+    private void rehash() {
+        long[] oldKeys = childKeys;
+        int[] oldNodes = childNodes;
+        childKeys = new long[oldKeys.length * 2];
+        childNodes = new int[oldKeys.length * 2];
+        int mask = childKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (childKeys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                childKeys[slot] = oldKeys[i];
+                childNodes[slot] = oldNodes[i];
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Get number of trie nodes
+     *
+     * @return node count, root included
+     */
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Get hottest methods
+     *
+     * @param top maximum number of methods
+     * @return methods, most sampled on top of stack first
+     */
+    List<MethodStat> hotMethods(int top) {
+        long[] self = new long[frames.size()];
+        long[] total = new long[frames.size()];
+        // recursive methods are counted once per stack in total
+        int[] onPath = new int[frames.size()];
+        int[][] children = children();
+        // each node is pushed twice: on entry, and to leave its path
+        int[] stack = new int[nodeCount * 2];
+        boolean[] exiting = new boolean[nodeCount];
+        int size = 0;
+        for (int c : children[ROOT]) {
+            stack[size++] = c;
+        }
+        while (size > 0) {
+            int node = stack[--size];
+            int frame = nodeFrame[node];
+            if (exiting[node]) {
+                onPath[frame]--;
+                continue;
+            }
+            self[frame] += nodeSelf[node];
+            if (onPath[frame] == 0) {
+                total[frame] += nodeTotal[node];
+            }
+            onPath[frame]++;
+            exiting[node] = true;
+            stack[size++] = node;
+            for (int c : children[node]) {
+                stack[size++] = c;
+            }
+        }
+        List<MethodStat> stats = new ArrayList<>();
+        for (int i = 0; i < frames.size(); i++) {
+            stats.add(new MethodStat(frames.get(i), self[i], total[i]));
+        }
+        stats.sort((m1, m2) -> m1.self != m2.self ? Long.compare(m2.self, m1.self) : Long.compare(m2.total, m1.total));
+        return stats.subList(0, Math.min(Math.max(0, top), stats.size()));
+    }
+
+    private int[][] children() {
+        int[] counts = new int[nodeCount];
+        for (int node = 1; node < nodeCount; node++) {
+            counts[nodeParent[node]]++;
+        }
+        int[][] children = new int[nodeCount][];
+        for (int node = 0; node < nodeCount; node++) {
+            children[node] = new int[counts[node]];
+            counts[node] = 0;
+        }
+        for (int node = 1; node < nodeCount; node++) {
+            int parent = nodeParent[node];
+            children[parent][counts[parent]++] = node;
+        }
+        return children;
+    }
+
+    /**
+     * Write collapsed stacks, one line per distinct stack: frames from root separated by ';', then sample count
+     *
+     * @param sb output
+     */
+    void collapsed(StringBuilder sb) {
+        for (int node = 1; node < nodeCount; node++) {
+            if (nodeSelf[node] > 0) {
+                path(sb, node);
+                sb.append(' ').append(nodeSelf[node]).append('\n');
+            }
+        }
+    }
+
+    private void path(StringBuilder sb, int node) {
+        int depth = 0;
+        for (int n = node; n != ROOT; n = nodeParent[n]) {
+            depth++;
+        }
+        int[] path = new int[depth];
+        for (int n = node; n != ROOT; n = nodeParent[n]) {
+            path[--depth] = n;
+        }
+        for (int i = 0; i < path.length; i++) {
+            if (i > 0) {
+                sb.append(';');
+            }
+            sb.append(frames.get(nodeFrame[path[i]]));
+        }
+    }
+
+    /**
+     * Write self-contained flame graph html page: one bar per node, as wide as its samples, root at bottom
+     *
+     * @param sb       output
+     * @param title    page title
+     * @param minWidth minimum bar width in percent, smaller nodes are not written
+     */
+    void flameGraph(StringBuilder sb, String title, double minWidth) {
+        int[][] children = children();
+        int[] depths = new int[nodeCount];
+        double[] lefts = new double[nodeCount];
+        int maxDepth = 0;
+        StringBuilder bars = new StringBuilder();
+        int[] stack = new int[nodeCount];
+        int size = 0;
+        stack[size++] = ROOT;
+        double all = Math.max(1, nodeTotal[ROOT]);
+        while (size > 0) {
+            int node = stack[--size];
+            double width = nodeTotal[node] * 100 / all;
+            if (width < minWidth) {
+                continue;
+            }
+            maxDepth = Math.max(maxDepth, depths[node]);
+            String name = node == ROOT ? "all" : frames.get(nodeFrame[node]);
+            bars.append(String.format(Locale.ROOT,
+                    "<div style=\"left:%.4f%%;width:%.4f%%;bottom:%dpx;background:%s\" title=\"%s (%d samples, %.2f%%)\">%s</div>\n",
+                    lefts[node], width, depths[node] * 17, color(name), escape(name), nodeTotal[node], width,
+                    escape(name)));
+            double left = lefts[node];
+            for (int c : children[node]) {
+                depths[c] = depths[node] + 1;
+                lefts[c] = left;
+                left += nodeTotal[c] * 100 / all;
+                stack[size++] = c;
+            }
+        }
+        sb.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>").append(escape(title))
+                .append("</title>\n<style>\n")
+                .append("body{font:12px monospace;margin:8px}\n")
+                .append("#graph{position:relative;width:100%;height:").append((maxDepth + 1) * 17).append("px}\n")
+                .append("#graph div{position:absolute;height:16px;line-height:16px;overflow:hidden;white-space:nowrap;")
+                .append("box-sizing:border-box;border:1px solid #fff;padding-left:2px;cursor:default}\n")
+                .append("</style>\n</head>\n<body>\n<h3>").append(escape(title)).append("</h3>\n<div id=\"graph\">\n")
+                .append(bars)
+                .append("</div>\n</body>\n</html>\n");
+    }
+
+    private static String color(String name) {
+        int h = name.hashCode();
+        return String.format("rgb(%d,%d,%d)", 205 + (h & 0x31), 80 + ((h >>> 8) & 0x7f), 40 + ((h >>> 16) & 0x3f));
+    }
+
+    private static String escape(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    /**
+     * Method statistics
+     */
+    @Getter
+    static class MethodStat {
+
+        private final String name;
+
+        /**
+         * Samples with method on top of stack
+         */
+        private final long self;
+
+        /**
+         * Samples with method anywhere in stack
+         */
+        private final long total;
+
+        private MethodStat(String name, long self, long total) {
+            this.name = name;
+            this.self = self;
+            this.total = total;
+        }
+    }
+}
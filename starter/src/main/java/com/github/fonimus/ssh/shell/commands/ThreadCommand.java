@@ -1,16 +1,20 @@
 package com.github.fonimus.ssh.shell.commands;
 
+import java.lang.management.LockInfo;
+import java.lang.management.MonitorInfo;
+import java.lang.management.ThreadInfo;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CancellationException;
 
 import org.jline.utils.AttributedString;
 import org.jline.utils.AttributedStringBuilder;
 import org.jline.utils.AttributedStyle;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.shell.standard.ShellCommandGroup;
 import org.springframework.shell.standard.ShellMethod;
@@ -24,6 +28,7 @@ import com.github.fonimus.ssh.shell.PromptColor;
 import com.github.fonimus.ssh.shell.SshShellHelper;
 import com.github.fonimus.ssh.shell.interactive.Interactive;
 import com.github.fonimus.ssh.shell.interactive.KeyBinding;
+import com.github.fonimus.ssh.shell.interactive.SamplingScheduler;
 
 import static com.github.fonimus.ssh.shell.SshShellHelper.INTERACTIVE_LONG_MESSAGE;
 import static com.github.fonimus.ssh.shell.SshShellHelper.INTERACTIVE_SHORT_MESSAGE;
@@ -45,59 +50,55 @@ public class ThreadCommand {
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd:MM:yyyy HH:mm:ss");
 
+    public static final String THREADS_SOURCE = "threads";
+
+    public static final String THREADS_TOP_SOURCE = "threads-top";
+
+    private static final long TOP_STATIC_DELAY = 1000;
+
     private SshShellHelper helper;
 
-    public ThreadCommand(SshShellHelper helper) {
-        this.helper = helper;
-    }
+    private SamplingScheduler samplingScheduler;
 
-    private static Map<Long, Thread> getThreads() {
-        ThreadGroup root = getRoot();
-        Thread[] threads = new Thread[root.activeCount()];
-        while (root.enumerate(threads, true) == threads.length) {
-            threads = new Thread[threads.length * 2];
-        }
-        Map<Long, Thread> map = new HashMap<>();
-        for (Thread thread : threads) {
-            if (thread != null) {
-                map.put(thread.getId(), thread);
-            }
-        }
-        return map;
+    private final ThreadInfoReader reader = new ThreadInfoReader();
+
+    public ThreadCommand(SshShellHelper helper) {
+        this(helper, null);
     }
 
-    private Thread get(Long threadId) {
-        if (threadId == null) {
-            throw new IllegalArgumentException("Thread id is mandatory");
-        }
-        Thread t = getThreads().get(threadId);
-        if (t == null) {
-            throw new IllegalArgumentException("Could not find thread for id: " + threadId);
-        }
-        return t;
+    /**
+     * Constructor
+     *
+     * @param helper            ssh shell helper
+     * @param samplingScheduler (optional) scheduler sharing thread list between interactive sessions
+     */
+    @Autowired
+    public ThreadCommand(SshShellHelper helper, @Autowired(required = false) SamplingScheduler samplingScheduler) {
+        this.helper = helper;
+        this.samplingScheduler = samplingScheduler;
     }
 
-    private Comparator<? super Thread> comparator(ThreadColumn orderBy, boolean reverseOrder) {
-        Comparator<? super Thread> c;
+    private Comparator<ThreadInfoReader.ThreadRow> comparator(ThreadColumn orderBy, boolean reverseOrder) {
+        Comparator<ThreadInfoReader.ThreadRow> c;
         switch (orderBy) {
 
             case PRIORITY:
-                c = Comparator.comparingDouble(Thread::getPriority);
+                c = Comparator.comparingInt(ThreadInfoReader.ThreadRow::getPriority);
                 break;
             case STATE:
                 c = Comparator.comparing(e -> e.getState().name());
                 break;
             case INTERRUPTED:
-                c = Comparator.comparing(Thread::isAlive);
+                c = Comparator.comparing(ThreadInfoReader.ThreadRow::isInterrupted);
                 break;
             case DAEMON:
-                c = Comparator.comparing(Thread::isDaemon);
+                c = Comparator.comparing(ThreadInfoReader.ThreadRow::isDaemon);
                 break;
             case NAME:
-                c = Comparator.comparing(Thread::getName);
+                c = Comparator.comparing(ThreadInfoReader.ThreadRow::getName);
                 break;
             default:
-                c = Comparator.comparingDouble(Thread::getId);
+                c = Comparator.comparingLong(ThreadInfoReader.ThreadRow::getId);
                 break;
         }
         if (reverseOrder) {
@@ -122,40 +123,43 @@ public class ThreadCommand {
         }
     }
 
-    private static ThreadGroup getRoot() {
-        ThreadGroup group = Thread.currentThread().getThreadGroup();
-        ThreadGroup parent;
-        while ((parent = group.getParent()) != null) {
-            group = parent;
-        }
-        return group;
-    }
-
     enum ThreadColumn {
         ID, PRIORITY, STATE, INTERRUPTED, DAEMON, NAME
     }
 
+    enum TopColumn {
+        CPU, ALLOCATION, BLOCKED, WAITED
+    }
+
     @ShellMethod("Thread command.")
     public String threads(@ShellOption(defaultValue = "LIST") ThreadAction action,
                           @ShellOption(help = "Order by column. Default is: ID", defaultValue = "ID") ThreadColumn orderBy,
                           @ShellOption(help = "Reverse order by column. Default is: false") boolean reverseOrder,
                           @ShellOption(help = "Not interactive. Default is: false") boolean staticDisplay,
-                          @ShellOption(help = "Only for DUMP action", defaultValue = ShellOption.NULL) Long threadId) {
+                          @ShellOption(help = "Only for DUMP action", defaultValue = ShellOption.NULL) Long threadId,
+                          @ShellOption(help = "Only for TOP action, order by column, descending. Default is: CPU",
+                                  defaultValue = "CPU") TopColumn topOrderBy,
+                          @ShellOption(help = "Only for DUMP action, maximum stack depth, negative for full stack. " +
+                                  "Default is: -1", defaultValue = "-1") int stackDepth,
+                          @ShellOption(help = "Only for DUMP action, display locked monitors and synchronizers. " +
+                                  "Default is: false") boolean lockedInfo) {
 
         if (action == ThreadAction.DUMP) {
-            Thread th = get(threadId);
-            helper.print("Name  : " + th.getName());
-            helper.print("State : " + helper.getColored(th.getState().name(), color(th.getState())) + "\n");
-            Exception e = new Exception("Thread [" + th.getId() + "] stack trace");
-            e.setStackTrace(th.getStackTrace());
-            e.printStackTrace(helper.terminalWriter());
+            dump(get(threadId, stackDepth, lockedInfo), stackDepth);
             return "";
         }
 
+        if (action == ThreadAction.TOP) {
+            return top(topOrderBy, reverseOrder, staticDisplay);
+        }
+
         if (staticDisplay) {
-            return table(orderBy, reverseOrder, false);
+            return table(reader.list(), orderBy, reverseOrder, false);
         }
 
+        @SuppressWarnings("unchecked")
+        SamplingScheduler.Subscription<List<ThreadInfoReader.ThreadRow>>[] subscription =
+                new SamplingScheduler.Subscription[1];
         boolean[] finalReverseOrder = {reverseOrder};
         ThreadColumn[] finalOrderBy = {orderBy};
 
@@ -174,7 +178,7 @@ public class ThreadCommand {
         builder.binding(KeyBinding.builder().key("r").description("REVERSE")
                 .input(() -> finalReverseOrder[0] = !finalReverseOrder[0]).build());
 
-        helper.interactive(builder.input((size, currentDelay) -> {
+        Interactive interactive = builder.input((size, currentDelay) -> {
             List<AttributedString> lines = new ArrayList<>(size.getRows());
 
             lines.add(new AttributedStringBuilder()
@@ -185,7 +189,8 @@ public class ThreadCommand {
                     .append(" ms\n")
                     .toAttributedString());
 
-            for (String s : table(finalOrderBy[0], finalReverseOrder[0], true).split("\n")) {
+            List<ThreadInfoReader.ThreadRow> threads = subscription[0] != null ? subscription[0].latest() : reader.list();
+            for (String s : table(threads, finalOrderBy[0], finalReverseOrder[0], true).split("\n")) {
                 lines.add(AttributedString.fromAnsi(s));
             }
 
@@ -195,12 +200,74 @@ public class ThreadCommand {
             lines.add(AttributedString.fromAnsi(msg));
 
             return lines;
-        }).build());
+        }).build();
+
+        // thread list is sampled once for all sessions displaying threads
+        if (samplingScheduler != null) {
+            subscription[0] = samplingScheduler.subscribe(THREADS_SOURCE, interactive.getRefreshDelay(), reader::list);
+        }
+        try {
+            helper.interactive(interactive);
+        } finally {
+            if (subscription[0] != null) {
+                subscription[0].close();
+            }
+        }
         return "";
     }
 
-    private String table(ThreadColumn orderBy, boolean reverseOrder, boolean fullscreen) {
-        List<Thread> ordered = new ArrayList<>(getThreads().values());
+    private ThreadInfo get(Long threadId, int stackDepth, boolean lockedInfo) {
+        if (threadId == null) {
+            throw new IllegalArgumentException("Thread id is mandatory");
+        }
+        ThreadInfo info = threadId > 0 ? reader.info(threadId, stackDepth, lockedInfo) : null;
+        if (info == null) {
+            throw new IllegalArgumentException("Could not find thread for id: " + threadId);
+        }
+        return info;
+    }
+
+    private void dump(ThreadInfo info, int stackDepth) {
+        helper.print("Name  : " + info.getThreadName());
+        helper.print("State : " + helper.getColored(info.getThreadState().name(), color(info.getThreadState())));
+        if (info.getLockName() != null) {
+            helper.print("Lock  : " + info.getLockName() + (info.getLockOwnerName() != null ?
+                    " owned by [" + info.getLockOwnerId() + "] " + info.getLockOwnerName() : ""));
+        }
+        helper.print("");
+
+        StringBuilder sb = new StringBuilder("Thread [").append(info.getThreadId()).append("] stack trace\n");
+        StackTraceElement[] stack = info.getStackTrace();
+        int depth = stackDepth < 0 ? stack.length : Math.min(stackDepth, stack.length);
+        for (int i = 0; i < depth; i++) {
+            sb.append("\tat ").append(stack[i]).append('\n');
+            if (i == 0 && info.getLockInfo() != null) {
+                sb.append("\t- ").append(info.getThreadState() == Thread.State.BLOCKED ? "waiting to lock " :
+                        "waiting on ").append(info.getLockInfo()).append('\n');
+            }
+            for (MonitorInfo monitor : info.getLockedMonitors()) {
+                if (monitor.getLockedStackDepth() == i) {
+                    sb.append("\t- locked ").append(monitor).append('\n');
+                }
+            }
+        }
+        if (depth < stack.length) {
+            sb.append("\t... ").append(stack.length - depth).append(" more\n");
+        }
+        LockInfo[] synchronizers = info.getLockedSynchronizers();
+        if (synchronizers.length > 0) {
+            sb.append("\nLocked synchronizers:\n");
+            for (LockInfo synchronizer : synchronizers) {
+                sb.append("\t- ").append(synchronizer).append('\n');
+            }
+        }
+        helper.terminalWriter().print(sb);
+        helper.terminalWriter().flush();
+    }
+
+    private String table(List<ThreadInfoReader.ThreadRow> threads, ThreadColumn orderBy, boolean reverseOrder,
+                         boolean fullscreen) {
+        List<ThreadInfoReader.ThreadRow> ordered = new ArrayList<>(threads);
         ordered.sort(comparator(orderBy, reverseOrder));
 
         // handle maximum rows: 1 line for headers, 3 borders, 3 description lines
@@ -223,7 +290,7 @@ public class ThreadCommand {
             i++;
         }
         int r = 1;
-        for (Thread t : ordered) {
+        for (ThreadInfoReader.ThreadRow t : ordered) {
             data[r][0] = String.valueOf(t.getId());
             data[r][1] = String.valueOf(t.getPriority());
             data[r][2] = t.getState().name();
@@ -245,7 +312,169 @@ public class ThreadCommand {
         return tableBuilder.addHeaderAndVerticalsBorders(BorderStyle.fancy_double).build().render(helper.terminalSize().getRows());
     }
 
+    private String top(TopColumn orderBy, boolean reverseOrder, boolean staticDisplay) {
+        if (staticDisplay) {
+            try (ThreadTop sampler = new ThreadTop()) {
+                sampler.get();
+                try {
+                    Thread.sleep(TOP_STATIC_DELAY);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Command cancelled");
+                }
+                return topTable(sampler.get(), orderBy, reverseOrder, false);
+            }
+        }
+        // shared sampler is only created with sampling source, and closed with it
+        ThreadTop sampler = samplingScheduler == null ? new ThreadTop() : null;
+
+        @SuppressWarnings("unchecked")
+        SamplingScheduler.Subscription<List<ThreadTop.ThreadUsage>>[] subscription =
+                new SamplingScheduler.Subscription[1];
+        boolean[] finalReverseOrder = {reverseOrder};
+        TopColumn[] finalOrderBy = {orderBy};
+
+        Interactive.InteractiveBuilder builder = Interactive.builder();
+        for (TopColumn value : TopColumn.values()) {
+            builder.binding(KeyBinding.builder().description("ORDER_" + value.name())
+                    .key(value.name().toLowerCase().substring(0, 1))
+                    .input(() -> {
+                        if (value == finalOrderBy[0]) {
+                            finalReverseOrder[0] = !finalReverseOrder[0];
+                        } else {
+                            finalOrderBy[0] = value;
+                        }
+                    }).build());
+        }
+        builder.binding(KeyBinding.builder().key("r").description("REVERSE")
+                .input(() -> finalReverseOrder[0] = !finalReverseOrder[0]).build());
+
+        Interactive interactive = builder.input((size, currentDelay) -> {
+            List<AttributedString> lines = new ArrayList<>(size.getRows());
+
+            lines.add(new AttributedStringBuilder()
+                    .append("Time: ")
+                    .append(FORMATTER.format(LocalDateTime.now()), AttributedStyle.BOLD)
+                    .append(", refresh delay: ")
+                    .append(String.valueOf(currentDelay), AttributedStyle.BOLD)
+                    .append(" ms\n")
+                    .toAttributedString());
+
+            List<ThreadTop.ThreadUsage> usages = subscription[0] != null ? subscription[0].latest() : sampler.get();
+            for (String s : topTable(usages, finalOrderBy[0], finalReverseOrder[0], true).split("\n")) {
+                lines.add(AttributedString.fromAnsi(s));
+            }
+
+            lines.add(AttributedString.fromAnsi("Press 'r' to reverse order, 'c', 'a', 'b' or 'w' to order by cpu, " +
+                    "allocation, blocked or waited"));
+            String msg = INTERACTIVE_LONG_MESSAGE.length() <= helper.terminalSize().getColumns() ?
+                    INTERACTIVE_LONG_MESSAGE : INTERACTIVE_SHORT_MESSAGE;
+            lines.add(AttributedString.fromAnsi(msg));
+
+            return lines;
+        }).build();
+
+        // deltas are computed once per sampling interval for all sessions displaying top
+        if (samplingScheduler != null) {
+            subscription[0] = samplingScheduler.subscribeSource(THREADS_TOP_SOURCE, interactive.getRefreshDelay(),
+                    ThreadTop::new);
+        }
+        try {
+            helper.interactive(interactive);
+        } finally {
+            if (subscription[0] != null) {
+                subscription[0].close();
+            }
+            if (sampler != null) {
+                sampler.close();
+            }
+        }
+        return "";
+    }
+
+    private Comparator<ThreadTop.ThreadUsage> topComparator(TopColumn orderBy, boolean reverseOrder) {
+        Comparator<ThreadTop.ThreadUsage> c;
+        switch (orderBy) {
+            case ALLOCATION:
+                c = Comparator.comparingLong(ThreadTop.ThreadUsage::getAllocationRate);
+                break;
+            case BLOCKED:
+                c = Comparator.comparingLong(ThreadTop.ThreadUsage::getBlockedTime)
+                        .thenComparingLong(ThreadTop.ThreadUsage::getBlockedCount);
+                break;
+            case WAITED:
+                c = Comparator.comparingLong(ThreadTop.ThreadUsage::getWaitedTime)
+                        .thenComparingLong(ThreadTop.ThreadUsage::getWaitedCount);
+                break;
+            default:
+                c = Comparator.comparingDouble(ThreadTop.ThreadUsage::getCpuPercent)
+                        .thenComparingLong(ThreadTop.ThreadUsage::getCpuTime);
+                break;
+        }
+        // hottest threads first
+        return reverseOrder ? c : c.reversed();
+    }
+
+    private String topTable(List<ThreadTop.ThreadUsage> usages, TopColumn orderBy, boolean reverseOrder,
+                            boolean fullscreen) {
+        List<ThreadTop.ThreadUsage> ordered = new ArrayList<>(usages);
+        ordered.sort(topComparator(orderBy, reverseOrder));
+
+        // handle maximum rows: 1 line for headers, 3 borders, 3 description lines
+        int maxWithHeadersAndBorders = helper.terminalSize().getRows() - 8;
+        boolean addDotLine = false;
+        if (fullscreen && ordered.size() > maxWithHeadersAndBorders) {
+            ordered = ordered.subList(0, Math.max(0, maxWithHeadersAndBorders));
+            addDotLine = true;
+        }
+
+        String[] headers = {"ID", "NAME", "STATE", "CPU %", "CPU TIME (ms)", "ALLOC/s", "BLOCKED", "BLOCKED (ms)",
+                "WAITED", "WAITED (ms)"};
+        String[][] data = new String[ordered.size() + (addDotLine ? 2 : 1)][headers.length];
+        TableBuilder tableBuilder = new TableBuilder(new ArrayTableModel(data));
+        for (int i = 0; i < headers.length; i++) {
+            data[0][i] = headers[i];
+            tableBuilder.on(at(0, i)).addAligner(SimpleHorizontalAligner.center);
+        }
+        int r = 1;
+        for (ThreadTop.ThreadUsage u : ordered) {
+            data[r][0] = String.valueOf(u.getId());
+            data[r][1] = u.getName();
+            data[r][2] = u.getState().name();
+            tableBuilder.on(at(r, 2)).addAligner(new ColorAligner(color(u.getState())));
+            data[r][3] = u.getCpuPercent() < 0 ? "-" : String.format("%.1f", u.getCpuPercent());
+            data[r][4] = u.getCpuTime() < 0 ? "-" : String.valueOf(u.getCpuTime() / 1_000_000);
+            data[r][5] = u.getAllocationRate() < 0 ? "-" : bytes(u.getAllocationRate());
+            data[r][6] = value(u.getBlockedCount());
+            data[r][7] = value(u.getBlockedTime());
+            data[r][8] = value(u.getWaitedCount());
+            data[r][9] = value(u.getWaitedTime());
+            for (int i = 3; i < headers.length; i++) {
+                tableBuilder.on(at(r, i)).addAligner(SimpleHorizontalAligner.right);
+            }
+            r++;
+        }
+        if (addDotLine) {
+            Arrays.fill(data[r], "...");
+            data[r][1] = "... not enough rows to display all threads";
+        }
+        return tableBuilder.addHeaderAndVerticalsBorders(BorderStyle.fancy_double).build()
+                .render(helper.terminalSize().getColumns());
+    }
+
+    private static String value(long value) {
+        return value < 0 ? "-" : String.valueOf(value);
+    }
+
+    static String bytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        return String.format("%.1f %sB", bytes / (double) (1L << (unit * 10)), " KMGTPE".charAt(unit));
+    }
+
     enum ThreadAction {
-        LIST, DUMP
+        LIST, DUMP, TOP
     }
 }
@@ -0,0 +1,162 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>Batched thread information reader for threads command</p>
+ * <p>All threads are read with one {@link ThreadMXBean#getThreadInfo(long[], int)} call, so in one safepoint, instead
+ * of one call per thread. Thread and id buffers are kept between calls and only grown when too small, so that
+ * refreshing thread list stays cheap with thousands of threads</p>
+ * <p>Threads are still enumerated from root thread group: on java 8, {@link ThreadInfo} has neither priority nor
+ * daemon flag, and interrupted flag is only available from {@link Thread}</p>
+ */
+@Slf4j
+class ThreadInfoReader {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * ThreadMXBean.getThreadInfo(long[], boolean, boolean, int), jdk 10+
+     */
+    private static final Method GET_THREAD_INFO_WITH_DEPTH = getThreadInfoWithDepth();
+
+    private final ThreadMXBean threadMXBean;
+
+    private Thread[] threads = new Thread[INITIAL_CAPACITY];
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+
+    ThreadInfoReader() {
+        this(ManagementFactory.getThreadMXBean());
+    }
+
+    ThreadInfoReader(ThreadMXBean threadMXBean) {
+        this.threadMXBean = threadMXBean;
+    }
+
+    private static Method getThreadInfoWithDepth() {
+        try {
+            return ThreadMXBean.class.getMethod("getThreadInfo", long[].class, boolean.class, boolean.class, int.class);
+        } catch (NoSuchMethodException e) {
+            LOGGER.debug("Stack depth with lock info not supported on this jvm, full stacks will be read");
+            return null;
+        }
+    }
+
+    /**
+     * Read all threads, without stack traces
+     *
+     * @return thread rows, unmodifiable
+     */
+    synchronized List<ThreadRow> list() {
+        int count = enumerate();
+        if (ids.length < count) {
+            ids = new long[threads.length];
+        }
+        for (int i = 0; i < count; i++) {
+            ids[i] = threads[i].getId();
+        }
+        // bean reads every id of array, only valid ones are passed
+        ThreadInfo[] infos = threadMXBean.getThreadInfo(count == ids.length ? ids : Arrays.copyOf(ids, count), 0);
+        List<ThreadRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // thread may have ended since enumeration
+            if (infos[i] != null) {
+                rows.add(new ThreadRow(threads[i], infos[i]));
+            }
+        }
+        // do not retain ended threads until next call
+        Arrays.fill(threads, 0, count, null);
+        return Collections.unmodifiableList(rows);
+    }
+
+    private int enumerate() {
+        ThreadGroup root = getRoot();
+        int count;
+        while ((count = root.enumerate(threads, true)) == threads.length) {
+            threads = new Thread[threads.length * 2];
+        }
+        return count;
+    }
+
+    private static ThreadGroup getRoot() {
+        ThreadGroup group = Thread.currentThread().getThreadGroup();
+        ThreadGroup parent;
+        while ((parent = group.getParent()) != null) {
+            group = parent;
+        }
+        return group;
+    }
+
+    /**
+     * Read one thread with its stack trace
+     *
+     * @param id         thread id
+     * @param maxDepth   maximum stack depth, negative for full stack
+     * @param lockedInfo whether to read locked monitors and ownable synchronizers
+     * @return thread info, null if thread does not exist
+     */
+    ThreadInfo info(long id, int maxDepth, boolean lockedInfo) {
+        long[] single = {id};
+        int depth = maxDepth < 0 ? Integer.MAX_VALUE : maxDepth;
+        if (!lockedInfo) {
+            return threadMXBean.getThreadInfo(single, depth)[0];
+        }
+        boolean monitors = threadMXBean.isObjectMonitorUsageSupported();
+        boolean synchronizers = threadMXBean.isSynchronizerUsageSupported();
+        if (GET_THREAD_INFO_WITH_DEPTH != null) {
+            try {
+                return ((ThreadInfo[]) GET_THREAD_INFO_WITH_DEPTH.invoke(threadMXBean, single, monitors, synchronizers,
+                        depth))[0];
+            } catch (IllegalAccessException e) {
+                LOGGER.debug("Unable to read stack with depth: {}", e.getMessage());
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        // full stack, truncated on display
+        return threadMXBean.getThreadInfo(single, monitors, synchronizers)[0];
+    }
+
+    /**
+     * Thread list row, from live thread and its info
+     */
+    @Getter
+    static class ThreadRow {
+
+        private final long id;
+
+        private final String name;
+
+        private final Thread.State state;
+
+        private final int priority;
+
+        private final boolean interrupted;
+
+        private final boolean daemon;
+
+        private ThreadRow(Thread thread, ThreadInfo info) {
+            this.id = info.getThreadId();
+            this.name = info.getThreadName();
+            this.state = info.getThreadState();
+            this.priority = thread.getPriority();
+            this.interrupted = thread.isInterrupted();
+            this.daemon = thread.isDaemon();
+        }
+    }
+}
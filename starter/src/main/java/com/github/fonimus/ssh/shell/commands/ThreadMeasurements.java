@@ -0,0 +1,163 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Jvm wide thread measurements (cpu time, contention monitoring, allocated memory), enabled while commands use
+ * them</p>
+ * <p>Each measurement is enabled on first acquisition if supported, and set back to its previous state when last
+ * acquisition is closed, so that jvm does not keep paying their overhead once commands end. Usages are counted for
+ * the platform thread bean</p>
+ */
+@Slf4j
+class ThreadMeasurements
+        implements AutoCloseable {
+
+    private static final Map<Measurement, Integer> USAGES = new EnumMap<>(Measurement.class);
+
+    private static final Map<Measurement, Boolean> PREVIOUS = new EnumMap<>(Measurement.class);
+
+    private final ThreadMXBean threadMXBean;
+
+    private final Set<Measurement> acquired = EnumSet.noneOf(Measurement.class);
+
+    private ThreadMeasurements(ThreadMXBean threadMXBean) {
+        this.threadMXBean = threadMXBean;
+    }
+
+    /**
+     * Enable measurements until returned object is closed
+     *
+     * @param threadMXBean thread bean
+     * @param measurements measurements to enable, unsupported ones are ignored
+     * @return acquired measurements, to be closed when not needed anymore
+     */
+    static ThreadMeasurements acquire(ThreadMXBean threadMXBean, Measurement... measurements) {
+        ThreadMeasurements result = new ThreadMeasurements(threadMXBean);
+        synchronized (USAGES) {
+            for (Measurement measurement : measurements) {
+                try {
+                    if (!measurement.isSupported(threadMXBean)) {
+                        continue;
+                    }
+                    int usages = USAGES.getOrDefault(measurement, 0);
+                    if (usages == 0) {
+                        boolean enabled = measurement.isEnabled(threadMXBean);
+                        PREVIOUS.put(measurement, enabled);
+                        if (!enabled) {
+                            measurement.setEnabled(threadMXBean, true);
+                            LOGGER.debug("Thread measurement {} enabled", measurement);
+                        }
+                    }
+                    USAGES.put(measurement, usages + 1);
+                    result.acquired.add(measurement);
+                } catch (SecurityException | UnsupportedOperationException e) {
+                    LOGGER.warn("Unable to enable thread measurement {}: {}", measurement, e.getMessage());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Check if measurement has been acquired, it is then enabled until this object is closed
+     *
+     * @param measurement measurement
+     * @return true if measurement is enabled
+     */
+    boolean isAcquired(Measurement measurement) {
+        synchronized (USAGES) {
+            return acquired.contains(measurement);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (USAGES) {
+            for (Measurement measurement : acquired) {
+                int usages = USAGES.getOrDefault(measurement, 1) - 1;
+                if (usages > 0) {
+                    USAGES.put(measurement, usages);
+                    continue;
+                }
+                USAGES.remove(measurement);
+                if (!PREVIOUS.remove(measurement)) {
+                    try {
+                        measurement.setEnabled(threadMXBean, false);
+                        LOGGER.debug("Thread measurement {} disabled", measurement);
+                    } catch (SecurityException | UnsupportedOperationException e) {
+                        LOGGER.warn("Unable to disable thread measurement {}: {}", measurement, e.getMessage());
+                    }
+                }
+            }
+            acquired.clear();
+        }
+    }
+
+    /**
+     * Thread measurement
+     */
+    enum Measurement {
+        CPU_TIME {
+            @Override
+            boolean isSupported(ThreadMXBean bean) {
+                return bean.isThreadCpuTimeSupported();
+            }
+
+            @Override
+            boolean isEnabled(ThreadMXBean bean) {
+                return bean.isThreadCpuTimeEnabled();
+            }
+
+            @Override
+            void setEnabled(ThreadMXBean bean, boolean enabled) {
+                bean.setThreadCpuTimeEnabled(enabled);
+            }
+        },
+        CONTENTION {
+            @Override
+            boolean isSupported(ThreadMXBean bean) {
+                return bean.isThreadContentionMonitoringSupported();
+            }
+
+            @Override
+            boolean isEnabled(ThreadMXBean bean) {
+                return bean.isThreadContentionMonitoringEnabled();
+            }
+
+            @Override
+            void setEnabled(ThreadMXBean bean, boolean enabled) {
+                bean.setThreadContentionMonitoringEnabled(enabled);
+            }
+        },
+        ALLOCATED_MEMORY {
+            @Override
+            boolean isSupported(ThreadMXBean bean) {
+                com.sun.management.ThreadMXBean hotspot = ThreadTop.hotspot(bean);
+                return hotspot != null && hotspot.isThreadAllocatedMemorySupported();
+            }
+
+            @Override
+            boolean isEnabled(ThreadMXBean bean) {
+                return ThreadTop.hotspot(bean).isThreadAllocatedMemoryEnabled();
+            }
+
+            @Override
+            void setEnabled(ThreadMXBean bean, boolean enabled) {
+                ThreadTop.hotspot(bean).setThreadAllocatedMemoryEnabled(enabled);
+            }
+        };
+
+        abstract boolean isSupported(ThreadMXBean bean);
+
+        abstract boolean isEnabled(ThreadMXBean bean);
+
+        abstract void setEnabled(ThreadMXBean bean, boolean enabled);
+    }
+}
@@ -0,0 +1,194 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * <p>Thread usage sampler for <code>threads top</code></p>
+ * <p>Each sample reads cpu time, allocated bytes, blocked and waited counts and times of all threads, and computes
+ * their deltas since previous sample. Sampler is stateful: when shared between sessions, it must be called by
+ * {@link com.github.fonimus.ssh.shell.interactive.SamplingScheduler} only, so that deltas cover whole sampling
+ * intervals</p>
+ * <p>Cpu time, thread contention monitoring and allocated memory measurements are enabled while sampler is open, if
+ * supported by jvm, see {@link ThreadMeasurements}</p>
+ */
+@Slf4j
+class ThreadTop
+        implements Supplier<List<ThreadTop.ThreadUsage>>, AutoCloseable {
+
+    private static final int CPU = 0;
+    private static final int ALLOCATED = 1;
+    private static final int BLOCKED_COUNT = 2;
+    private static final int BLOCKED_TIME = 3;
+    private static final int WAITED_COUNT = 4;
+    private static final int WAITED_TIME = 5;
+
+    private final ThreadMXBean threadMXBean;
+
+    private final com.sun.management.ThreadMXBean hotspotMXBean;
+
+    private final ThreadMeasurements measurements;
+
+    private Map<Long, long[]> previous = new HashMap<>();
+
+    private long previousTime;
+
+    ThreadTop() {
+        this(ManagementFactory.getThreadMXBean());
+    }
+
+    ThreadTop(ThreadMXBean threadMXBean) {
+        this.threadMXBean = threadMXBean;
+        this.hotspotMXBean = hotspot(threadMXBean);
+        this.measurements = ThreadMeasurements.acquire(threadMXBean, ThreadMeasurements.Measurement.CPU_TIME,
+                ThreadMeasurements.Measurement.CONTENTION, ThreadMeasurements.Measurement.ALLOCATED_MEMORY);
+    }
+
+    /**
+     * Release thread measurements, restored to their previous state if not used anymore
+     */
+    @Override
+    public void close() {
+        measurements.close();
+    }
+
+    static com.sun.management.ThreadMXBean hotspot(ThreadMXBean threadMXBean) {
+        try {
+            if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+                return (com.sun.management.ThreadMXBean) threadMXBean;
+            }
+        } catch (LinkageError e) {
+            LOGGER.debug("Thread allocated bytes not available on this jvm: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Sample all threads
+     *
+     * @return thread usages, with deltas since previous sample
+     */
+    @Override
+    public synchronized List<ThreadUsage> get() {
+        long now = System.nanoTime();
+        long elapsed = previousTime == 0 ? 0 : now - previousTime;
+        long[] ids = threadMXBean.getAllThreadIds();
+        ThreadInfo[] infos = threadMXBean.getThreadInfo(ids, 0);
+        long[] cpu = cpuTimes(ids);
+        long[] allocated = allocatedBytes(ids);
+
+        Map<Long, long[]> current = new HashMap<>(ids.length * 2);
+        List<ThreadUsage> usages = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            ThreadInfo info = infos[i];
+            if (info == null) {
+                // thread ended meanwhile
+                continue;
+            }
+            long[] values = {
+                    cpu[i], allocated[i],
+                    info.getBlockedCount(), info.getBlockedTime(), info.getWaitedCount(), info.getWaitedTime()
+            };
+            current.put(ids[i], values);
+            usages.add(new ThreadUsage(info, values, previous.get(ids[i]), elapsed));
+        }
+        previous = current;
+        previousTime = now;
+        return Collections.unmodifiableList(usages);
+    }
+
+    private long[] cpuTimes(long[] ids) {
+        if (hotspotMXBean != null) {
+            return hotspotMXBean.getThreadCpuTime(ids);
+        }
+        long[] result = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = threadMXBean.isThreadCpuTimeSupported() ? threadMXBean.getThreadCpuTime(ids[i]) : -1;
+        }
+        return result;
+    }
+
+    private long[] allocatedBytes(long[] ids) {
+        if (hotspotMXBean != null && hotspotMXBean.isThreadAllocatedMemorySupported()) {
+            return hotspotMXBean.getThreadAllocatedBytes(ids);
+        }
+        long[] result = new long[ids.length];
+        Arrays.fill(result, -1);
+        return result;
+    }
+
+    private static long delta(long[] values, long[] before, int index) {
+        if (before == null || values[index] < 0 || before[index] < 0) {
+            return -1;
+        }
+        return values[index] - before[index];
+    }
+
+    /**
+     * Usage of one thread, values are -1 when not measured (first sample of thread, or measurement not supported)
+     */
+    @Getter
+    static class ThreadUsage {
+
+        private final long id;
+
+        private final String name;
+
+        private final Thread.State state;
+
+        /**
+         * Total cpu time in nanoseconds
+         */
+        private final long cpuTime;
+
+        /**
+         * Cpu time since previous sample, in percent of one core
+         */
+        private final double cpuPercent;
+
+        /**
+         * Bytes allocated per second since previous sample
+         */
+        private final long allocationRate;
+
+        private final long blockedCount;
+
+        /**
+         * Time blocked since previous sample, in milliseconds
+         */
+        private final long blockedTime;
+
+        private final long waitedCount;
+
+        /**
+         * Time waiting since previous sample, in milliseconds
+         */
+        private final long waitedTime;
+
+        private ThreadUsage(ThreadInfo info, long[] values, long[] before, long elapsed) {
+            this.id = info.getThreadId();
+            this.name = info.getThreadName();
+            this.state = info.getThreadState();
+            this.cpuTime = values[CPU];
+            long cpuDelta = elapsed > 0 ? delta(values, before, CPU) : -1;
+            this.cpuPercent = cpuDelta < 0 ? -1 : cpuDelta * 100d / elapsed;
+            long allocatedDelta = elapsed > 0 ? delta(values, before, ALLOCATED) : -1;
+            this.allocationRate = allocatedDelta < 0 ? -1 : (long) (allocatedDelta * 1_000_000_000d / elapsed);
+            this.blockedCount = delta(values, before, BLOCKED_COUNT);
+            this.blockedTime = delta(values, before, BLOCKED_TIME);
+            this.waitedCount = delta(values, before, WAITED_COUNT);
+            this.waitedTime = delta(values, before, WAITED_TIME);
+        }
+    }
+}
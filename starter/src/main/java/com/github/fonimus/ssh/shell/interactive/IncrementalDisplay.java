@@ -0,0 +1,101 @@
+package com.github.fonimus.ssh.shell.interactive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.utils.AttributedString;
+import org.jline.utils.Display;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Retained mode display for interactive commands</p>
+ * <p>Rows of last rendered frame are kept with their hash, so that a frame identical to the previous one is not sent
+ * to terminal at all. When some rows changed, jline {@link Display} only emits changed characters of changed rows,
+ * with cheapest cursor moves. Terminal is only resized, and cleared when it gets narrower, when size really
+ * changes</p>
+ * <p>Not thread safe, must be used from command thread only</p>
+ */
+@Slf4j
+public class IncrementalDisplay {
+
+    private final Display display;
+
+    private List<AttributedString> rows = new ArrayList<>();
+
+    private int[] hashes = new int[0];
+
+    private int columns = -1;
+
+    private int height = -1;
+
+    private boolean invalid = true;
+
+    /**
+     * Constructor
+     *
+     * @param terminal   terminal
+     * @param fullScreen whether display uses full screen
+     */
+    public IncrementalDisplay(Terminal terminal, boolean fullScreen) {
+        this(new Display(terminal, fullScreen));
+    }
+
+    IncrementalDisplay(Display display) {
+        this.display = display;
+    }
+
+    /**
+     * Render frame, only changes from previous frame are sent to terminal
+     *
+     * @param lines frame rows
+     * @param size  display size
+     * @return true if something has been sent to terminal
+     */
+    public boolean update(List<AttributedString> lines, Size size) {
+        if (size.getColumns() != columns || size.getRows() != height) {
+            if (size.getColumns() < columns) {
+                // wrapped rows of previous frame cannot be diffed
+                display.clear();
+            }
+            display.resize(size.getRows(), size.getColumns());
+            columns = size.getColumns();
+            height = size.getRows();
+            invalid = true;
+        }
+        int[] newHashes = new int[lines.size()];
+        int changed = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            AttributedString line = lines.get(i);
+            newHashes[i] = line.hashCode();
+            if (i >= hashes.length || hashes[i] != newHashes[i] || !rows.get(i).equals(line)) {
+                changed++;
+            }
+        }
+        if (!invalid && changed == 0 && lines.size() == rows.size()) {
+            return false;
+        }
+        LOGGER.trace("Rendering frame: {} rows changed out of {}", changed, lines.size());
+        display.update(lines, 0);
+        rows = new ArrayList<>(lines);
+        hashes = newHashes;
+        invalid = false;
+        return true;
+    }
+
+    /**
+     * Force next frame to be rendered, even if identical to previous one
+     */
+    public void invalidate() {
+        invalid = true;
+    }
+
+    /**
+     * Clear display
+     */
+    public void clear() {
+        display.clear();
+        invalid = true;
+    }
+}
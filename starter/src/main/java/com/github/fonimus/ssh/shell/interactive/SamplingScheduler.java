@@ -0,0 +1,254 @@
+package com.github.fonimus.ssh.shell.interactive;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * <p>Scheduler sampling data sources for interactive commands, shared between sessions</p>
+ * <p>Each named data source (thread list, metrics, health, etc.) is sampled once per interval, whatever the number of
+ * subscribed sessions, and sessions read latest snapshot at their own refresh rate. Interval of a source is the
+ * smallest interval of its subscriptions, and sampling stops when last subscription is closed.</p>
+ * <p>Sources are sampled by a small pool of threads, so that a slow source (like a heap histogram) does not delay
+ * the others, and a source is never sampled concurrently with itself.</p>
+ * <p>Snapshots are shared between sessions, they must not be modified. Samplers implementing {@link AutoCloseable}
+ * are closed when their source stops.</p>
+ */
+@Slf4j
+public class SamplingScheduler
+        implements AutoCloseable {
+
+    public static final String THREAD_NAME = "ssh-shell-sampler";
+
+    private static final int MAX_THREADS = 4;
+
+    private static final long KEEP_ALIVE = 60000;
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    private final Map<String, Source<?>> sources = new HashMap<>();
+
+    /**
+     * Constructor, with up to {@value MAX_THREADS} daemon sampling threads, stopped when idle
+     */
+    public SamplingScheduler() {
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(MAX_THREADS, r -> {
+            Thread thread = new Thread(r, THREAD_NAME + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setKeepAliveTime(KEEP_ALIVE, TimeUnit.MILLISECONDS);
+        this.executor.allowCoreThreadTimeOut(true);
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Subscribe to data source, created if it does not exist yet
+     *
+     * @param name     data source name, unique for a kind of data, sampler of first subscription is kept
+     * @param interval wanted sampling interval in milliseconds
+     * @param sampler  data source sampler
+     * @param <T>      snapshot type
+     * @return subscription, to be closed when not needed anymore
+     */
+    public <T> Subscription<T> subscribe(String name, long interval, Supplier<T> sampler) {
+        return subscribeSource(name, interval, () -> sampler);
+    }
+
+    /**
+     * Subscribe to data source, created with a new sampler if it does not exist yet
+     *
+     * @param name           data source name, unique for a kind of data
+     * @param interval       wanted sampling interval in milliseconds
+     * @param samplerFactory sampler factory, only called when data source is created, for stateful samplers or
+     *                       samplers with side effects
+     * @param <T>            snapshot type
+     * @return subscription, to be closed when not needed anymore
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> Subscription<T> subscribeSource(String name, long interval,
+                                                            Supplier<? extends Supplier<T>> samplerFactory) {
+        Source<T> source = (Source<T>) sources.computeIfAbsent(name, n -> new Source<>(n, samplerFactory.get()));
+        Subscription<T> subscription = new Subscription<>(this, source, Math.max(1, interval));
+        source.subscriptions.add(subscription);
+        schedule(source);
+        return subscription;
+    }
+
+    private void unsubscribe(Subscription<?> subscription) {
+        Source<?> source = subscription.source;
+        synchronized (this) {
+            if (!source.subscriptions.remove(subscription)) {
+                return;
+            }
+            if (!source.subscriptions.isEmpty()) {
+                schedule(source);
+                return;
+            }
+            source.cancel();
+            sources.remove(source.name);
+            LOGGER.debug("Sampling of [{}] stopped", source.name);
+        }
+        // outside of scheduler lock, as a running sample may be slow
+        source.close();
+    }
+
+    private void schedule(Source<?> source) {
+        long interval = Long.MAX_VALUE;
+        for (Subscription<?> subscription : source.subscriptions) {
+            interval = Math.min(interval, subscription.interval);
+        }
+        if (interval == source.interval) {
+            return;
+        }
+        source.cancel();
+        source.interval = interval;
+        // fixed delay task never overlaps itself, and sample is synchronized if rescheduled while running
+        source.future = executor.scheduleWithFixedDelay(source::sample, interval, interval, TimeUnit.MILLISECONDS);
+        LOGGER.debug("Sampling [{}] every {} ms for {} subscriptions", source.name, interval, source.subscriptions.size());
+    }
+
+    /**
+     * Get number of sampled data sources
+     *
+     * @return data sources count
+     */
+    public synchronized int getSourceCount() {
+        return sources.size();
+    }
+
+    @Override
+    public void close() {
+        List<Source<?>> stopped;
+        synchronized (this) {
+            executor.shutdownNow();
+            stopped = new ArrayList<>(sources.values());
+            sources.clear();
+        }
+        stopped.forEach(Source::close);
+    }
+
+    /**
+     * Sampled data source
+     *
+     * @param <T> snapshot type
+     */
+    private static class Source<T> {
+
+        private final String name;
+
+        private final Supplier<T> sampler;
+
+        private final List<Subscription<T>> subscriptions = new ArrayList<>();
+
+        private long interval = -1;
+
+        private ScheduledFuture<?> future;
+
+        private volatile T snapshot;
+
+        private volatile long sampledAt;
+
+        private Source(String name, Supplier<T> sampler) {
+            this.name = name;
+            this.sampler = sampler;
+        }
+
+        private synchronized void sample() {
+            try {
+                snapshot = sampler.get();
+                sampledAt = System.currentTimeMillis();
+            } catch (RuntimeException e) {
+                // previous snapshot is kept
+                LOGGER.warn("Unable to sample [{}]", name, e);
+            }
+        }
+
+        private T latest() {
+            T current = snapshot;
+            if (current == null) {
+                synchronized (this) {
+                    if (snapshot == null) {
+                        // first subscriber does not wait for first interval
+                        sample();
+                    }
+                    current = snapshot;
+                }
+            }
+            return current;
+        }
+
+        private void cancel() {
+            if (future != null) {
+                future.cancel(false);
+                future = null;
+            }
+        }
+
+        /**
+         * Close sampler if closeable, once running sample is done
+         */
+        private synchronized void close() {
+            if (sampler instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) sampler).close();
+                } catch (Exception e) {
+                    LOGGER.warn("Unable to close sampler of [{}]", name, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Subscription to a data source
+     *
+     * @param <T> snapshot type
+     */
+    public static class Subscription<T>
+            implements AutoCloseable {
+
+        private final SamplingScheduler scheduler;
+
+        private final Source<T> source;
+
+        private final long interval;
+
+        private Subscription(SamplingScheduler scheduler, Source<T> source, long interval) {
+            this.scheduler = scheduler;
+            this.source = source;
+            this.interval = interval;
+        }
+
+        /**
+         * Get latest snapshot, sampled now only if data source has never been sampled
+         *
+         * @return latest snapshot, shared between subscriptions
+         */
+        public T latest() {
+            return source.latest();
+        }
+
+        /**
+         * Get time of latest snapshot
+         *
+         * @return latest sample time in milliseconds, 0 if never sampled
+         */
+        public long getSampledAt() {
+            return source.sampledAt;
+        }
+
+        @Override
+        public void close() {
+            scheduler.unsubscribe(this);
+        }
+    }
+}
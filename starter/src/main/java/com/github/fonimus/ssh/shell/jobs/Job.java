@@ -0,0 +1,113 @@
+package com.github.fonimus.ssh.shell.jobs;
+
+import com.github.fonimus.ssh.shell.SshContext;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.concurrent.Future;
+
+/**
+ * Background job of a ssh session, with its captured output
+ */
+@Getter
+public class Job {
+
+    private final int id;
+
+    private final String command;
+
+    private final OutputRingBuffer output;
+
+    private final long submittedAt = System.currentTimeMillis();
+
+    private volatile long startedAt;
+
+    private volatile long endedAt;
+
+    private volatile JobStatus status = JobStatus.QUEUED;
+
+    private volatile Future<?> future;
+
+    @Getter(AccessLevel.NONE)
+    private volatile SshContext context;
+
+    /**
+     * Constructor
+     *
+     * @param id      job id, unique in session
+     * @param command command text
+     * @param output  captured output
+     */
+    public Job(int id, String command, OutputRingBuffer output) {
+        this.id = id;
+        this.command = command;
+        this.output = output;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    void setContext(SshContext context) {
+        this.context = context;
+    }
+
+    synchronized boolean start() {
+        if (status != JobStatus.QUEUED) {
+            return false;
+        }
+        startedAt = System.currentTimeMillis();
+        status = JobStatus.RUNNING;
+        return true;
+    }
+
+    synchronized void end(JobStatus endStatus) {
+        if (!isDone()) {
+            endedAt = System.currentTimeMillis();
+            status = endStatus;
+        }
+    }
+
+    /**
+     * Interrupt job if running, or prevent it from starting
+     */
+    public void kill() {
+        end(JobStatus.KILLED);
+        SshContext ctx = context;
+        if (ctx != null) {
+            ctx.cancel();
+        }
+        Future<?> f = future;
+        if (f != null) {
+            f.cancel(true);
+        }
+    }
+
+    /**
+     * Check if job is over
+     *
+     * @return true if job is done, failed or killed
+     */
+    public boolean isDone() {
+        return status != JobStatus.QUEUED && status != JobStatus.RUNNING;
+    }
+
+    /**
+     * Get job duration
+     *
+     * @return milliseconds since job started, or until it ended, 0 if not started
+     */
+    public long getDuration() {
+        if (startedAt == 0) {
+            return 0;
+        }
+        return (endedAt != 0 ? endedAt : System.currentTimeMillis()) - startedAt;
+    }
+
+    /**
+     * Job status
+     */
+    public enum JobStatus {
+        QUEUED, RUNNING, DONE, FAILED, KILLED
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.fonimus.ssh.shell.jobs;
+
+import com.github.fonimus.ssh.shell.SshContext;
+import com.github.fonimus.ssh.shell.SshShellProperties;
+import com.github.fonimus.ssh.shell.postprocess.TypePostProcessorResultHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.jline.reader.LineReaderBuilder;
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.impl.DumbTerminal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.github.fonimus.ssh.shell.SshShellCommandFactory.SSH_THREAD_CONTEXT;
+
+/**
+ * <p>Executor running background jobs, shared between sessions</p>
+ * <p>Each job runs with its own ssh context, whose terminal writes to a ring buffer instead of ssh channel, so
+ * that output can be displayed later with <code>fg</code></p>
+ */
+@Slf4j
+public class JobExecutor
+        implements AutoCloseable {
+
+    public static final String THREAD_PREFIX = "ssh-shell-job-";
+
+    private final ThreadPoolExecutor executor;
+
+    private final int outputSize;
+
+    /**
+     * Constructor
+     *
+     * @param properties jobs properties
+     */
+    public JobExecutor(SshShellProperties.Jobs properties) {
+        int maxThreads = Math.max(1, properties.getMaxThreads());
+        BlockingQueue<Runnable> queue = properties.getQueueSize() > 0
+                ? new LinkedBlockingQueue<>(properties.getQueueSize()) : new SynchronousQueue<>();
+        AtomicLong counter = new AtomicLong();
+        this.executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS, queue, r -> {
+            Thread thread = new Thread(r, THREAD_PREFIX + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.outputSize = (int) Math.min(Integer.MAX_VALUE, Math.max(1, properties.getOutputSize().toBytes()));
+    }
+
+    /**
+     * Submit background job for session
+     *
+     * @param session session context, job is added to its jobs
+     * @param command command text
+     * @param task    command evaluation, run with job context
+     * @return submitted job
+     * @throws RejectedExecutionException if too many jobs are already running or waiting
+     */
+    public Job submit(SshContext session, String command, Supplier<Object> task) {
+        Job job = new Job(session.nextJobId(), command, new OutputRingBuffer(outputSize));
+        String type = session.getTerminal().getType();
+        Size size = session.getTerminal().getSize();
+        job.setFuture(executor.submit(() -> run(job, session, type, size, task)));
+        session.getJobs().put(job.getId(), job);
+        LOGGER.debug("Job [{}] submitted: {}", job.getId(), command);
+        return job;
+    }
+
+    private static void run(Job job, SshContext session, String type, Size size, Supplier<Object> task) {
+        if (!job.start()) {
+            return;
+        }
+        // no input for background jobs, any read gets end of file
+        try (Terminal terminal = new DumbTerminal("job-" + job.getId(), type, new ByteArrayInputStream(new byte[0]),
+                job.getOutput(), StandardCharsets.UTF_8.name())) {
+            terminal.setSize(size);
+            SshContext ctx = new SshContext(Thread.currentThread(), terminal,
+                    LineReaderBuilder.builder().terminal(terminal).build(), session.getAuthentication());
+            SSH_THREAD_CONTEXT.set(ctx);
+            job.setContext(ctx);
+            Object result = task.get();
+            terminal.writer().flush();
+            job.end(result instanceof Throwable ? Job.JobStatus.FAILED : Job.JobStatus.DONE);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Job [{}] failed: {}", job.getId(), job.getCommand(), e);
+            job.end(Job.JobStatus.FAILED);
+        } finally {
+            job.setContext(null);
+            SSH_THREAD_CONTEXT.remove();
+            TypePostProcessorResultHandler.THREAD_CONTEXT.remove();
+            // pool thread is reused, do not leak interruption of killed job
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Get number of running jobs, for all sessions
+     *
+     * @return running jobs
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.fonimus.ssh.shell.jobs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <p>Output stream keeping only last written bytes, in a fixed size circular buffer</p>
+ * <p>Readers keep their own position, in total written bytes, so that several readers can follow output</p>
+ */
+public class OutputRingBuffer
+        extends OutputStream {
+
+    private final byte[] buffer;
+
+    private long written;
+
+    /**
+     * Constructor
+     *
+     * @param capacity number of bytes kept
+     */
+    public OutputRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.buffer = new byte[capacity];
+    }
+
+    @Override
+    public synchronized void write(int b) {
+        buffer[(int) (written % buffer.length)] = (byte) b;
+        written++;
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+        if (len >= buffer.length) {
+            // only last bytes are kept
+            off += len - buffer.length;
+            written += len - buffer.length;
+            len = buffer.length;
+        }
+        int index = (int) (written % buffer.length);
+        int first = Math.min(len, buffer.length - index);
+        System.arraycopy(b, off, buffer, index, first);
+        System.arraycopy(b, off + first, buffer, 0, len - first);
+        written += len;
+    }
+
+    /**
+     * Get total number of written bytes, including dropped ones
+     *
+     * @return written bytes
+     */
+    public synchronized long getWritten() {
+        return written;
+    }
+
+    /**
+     * Get position of oldest byte still in buffer
+     *
+     * @return oldest available position
+     */
+    public synchronized long getOldest() {
+        return Math.max(0, written - buffer.length);
+    }
+
+    /**
+     * Copy bytes written since position to output
+     *
+     * @param from position to copy from, bytes already dropped are skipped
+     * @param out  target stream
+     * @return new position, to copy from next time
+     * @throws IOException if bytes cannot be written to target stream
+     */
+    public long copyTo(long from, OutputStream out) throws IOException {
+        byte[] bytes;
+        long to;
+        synchronized (this) {
+            long start = Math.max(from, getOldest());
+            to = written;
+            bytes = new byte[(int) (to - start)];
+            int index = (int) (start % buffer.length);
+            int first = Math.min(bytes.length, buffer.length - index);
+            System.arraycopy(buffer, index, bytes, 0, first);
+            System.arraycopy(buffer, 0, bytes, first, bytes.length - first);
+        }
+        // write outside lock, target can be slow
+        out.write(bytes);
+        return to;
+    }
+}
@@ -0,0 +1,220 @@
+package com.github.fonimus.ssh.shell.postprocess;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * <p>Aho-Corasick automaton to find several literal patterns in a single pass over a text</p>
+ * <p>Immutable once built, can be shared between threads</p>
+ */
+public final class AhoCorasick {
+
+	private static final int ROOT = 0;
+
+	private final boolean ignoreCase;
+
+	private final char[][] keys;
+
+	private final int[][] children;
+
+	private final int[] fail;
+
+	/**
+	 * Length of longest pattern ending at node, following failure links, 0 if none
+	 */
+	private final int[] matchLength;
+
+	/**
+	 * Index of longest pattern ending at node, following failure links, -1 if none
+	 */
+	private final int[] matchPattern;
+
+	private final int[] depth;
+
+	/**
+	 * Constructor
+	 *
+	 * @param patterns   literal patterns, empty ones are ignored
+	 * @param ignoreCase whether matching is case insensitive
+	 */
+	public AhoCorasick(Collection<String> patterns, boolean ignoreCase) {
+		this.ignoreCase = ignoreCase;
+		List<Map<Character, Integer>> trie = new ArrayList<>();
+		List<Integer> lengths = new ArrayList<>();
+		List<Integer> indexes = new ArrayList<>();
+		trie.add(new TreeMap<>());
+		lengths.add(0);
+		indexes.add(-1);
+		int index = -1;
+		for (String pattern : patterns) {
+			index++;
+			if (pattern == null || pattern.isEmpty()) {
+				continue;
+			}
+			int node = ROOT;
+			for (int i = 0; i < pattern.length(); i++) {
+				char c = normalize(pattern.charAt(i));
+				Integer next = trie.get(node).get(c);
+				if (next == null) {
+					next = trie.size();
+					trie.add(new TreeMap<>());
+					lengths.add(0);
+					indexes.add(-1);
+					trie.get(node).put(c, next);
+				}
+				node = next;
+			}
+			if (indexes.get(node) < 0) {
+				lengths.set(node, pattern.length());
+				indexes.set(node, index);
+			}
+		}
+		int size = trie.size();
+		this.keys = new char[size][];
+		this.children = new int[size][];
+		this.fail = new int[size];
+		this.matchLength = new int[size];
+		this.matchPattern = new int[size];
+		this.depth = new int[size];
+		for (int node = 0; node < size; node++) {
+			Map<Character, Integer> map = trie.get(node);
+			keys[node] = new char[map.size()];
+			children[node] = new int[map.size()];
+			int i = 0;
+			for (Map.Entry<Character, Integer> entry : map.entrySet()) {
+				keys[node][i] = entry.getKey();
+				children[node][i] = entry.getValue();
+				i++;
+			}
+			matchLength[node] = lengths.get(node);
+			matchPattern[node] = indexes.get(node);
+		}
+		// breadth first to compute failure links
+		Queue<Integer> queue = new ArrayDeque<>();
+		for (int child : children[ROOT]) {
+			fail[child] = ROOT;
+			depth[child] = 1;
+			queue.add(child);
+		}
+		while (!queue.isEmpty()) {
+			int node = queue.poll();
+			for (int i = 0; i < keys[node].length; i++) {
+				int child = children[node][i];
+				int f = fail[node];
+				int next = child(f, keys[node][i]);
+				while (next < 0 && f != ROOT) {
+					f = fail[f];
+					next = child(f, keys[node][i]);
+				}
+				fail[child] = next >= 0 ? next : ROOT;
+				depth[child] = depth[node] + 1;
+				if (matchLength[child] == 0) {
+					matchLength[child] = matchLength[fail[child]];
+					matchPattern[child] = matchPattern[fail[child]];
+				}
+				queue.add(child);
+			}
+		}
+	}
+
+	private char normalize(char c) {
+		return ignoreCase ? Character.toLowerCase(Character.toUpperCase(c)) : c;
+	}
+
+	private int child(int node, char c) {
+		int index = Arrays.binarySearch(keys[node], c);
+		return index >= 0 ? children[node][index] : -1;
+	}
+
+	private int next(int node, char c) {
+		int current = node;
+		while (true) {
+			int child = child(current, c);
+			if (child >= 0) {
+				return child;
+			}
+			if (current == ROOT) {
+				return ROOT;
+			}
+			current = fail[current];
+		}
+	}
+
+	/**
+	 * Check whether text contains at least one pattern
+	 *
+	 * @param text text to scan
+	 * @return true if one pattern is found
+	 */
+	public boolean containsAny(CharSequence text) {
+		int node = ROOT;
+		for (int i = 0; i < text.length(); i++) {
+			node = next(node, normalize(text.charAt(i)));
+			if (matchLength[node] > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Find leftmost longest non overlapping occurrences of patterns, in a single pass
+	 *
+	 * @param text     text to scan
+	 * @param from     start index, inclusive
+	 * @param to       end index, exclusive
+	 * @param consumer called for each occurrence, in text order
+	 */
+	public void findAll(CharSequence text, int from, int to, MatchConsumer consumer) {
+		int node = ROOT;
+		int matchStart = -1;
+		int matchEnd = -1;
+		int matchIndex = -1;
+		int i = from;
+		while (i < to) {
+			node = next(node, normalize(text.charAt(i)));
+			int length = matchLength[node];
+			if (length > 0) {
+				int start = i - length + 1;
+				if (matchStart < 0 || start <= matchStart) {
+					matchStart = start;
+					matchEnd = i + 1;
+					matchIndex = matchPattern[node];
+				}
+			}
+			i++;
+			// no longer match can start before current one
+			if (matchStart >= 0 && i - depth[node] > matchStart) {
+				consumer.accept(matchStart, matchEnd, matchIndex);
+				node = ROOT;
+				i = matchEnd;
+				matchStart = -1;
+			}
+		}
+		if (matchStart >= 0) {
+			consumer.accept(matchStart, matchEnd, matchIndex);
+		}
+	}
+
+	/**
+	 * Pattern occurrence consumer
+	 */
+	@FunctionalInterface
+	public interface MatchConsumer {
+
+		/**
+		 * Pattern found
+		 *
+		 * @param start   start index in text, inclusive
+		 * @param end     end index in text, exclusive
+		 * @param pattern index of pattern in constructor collection
+		 */
+		void accept(int start, int end, int pattern);
+	}
+}
@@ -0,0 +1,97 @@
+package com.github.fonimus.ssh.shell.postprocess;
+
+/**
+ * Utility methods to find ansi escape sequences in text, without regular expressions
+ */
+public final class AnsiSequences {
+
+	public static final char ESCAPE = '\u001B';
+
+	/**
+	 * Single character control sequence introducer
+	 */
+	public static final char CSI = '\u009B';
+
+	private static final int TEXT = 0;
+
+	private static final int AFTER_ESCAPE = 1;
+
+	private static final int IN_SEQUENCE = 2;
+
+	private AnsiSequences() {
+		// utility class
+	}
+
+	/**
+	 * Get end of escape sequence starting at given index
+	 *
+	 * @param text  text
+	 * @param index index of escape character
+	 * @return index following escape sequence
+	 */
+	public static int end(CharSequence text, int index) {
+		int i = index + 1;
+		if (i >= text.length()) {
+			return i;
+		}
+		if (text.charAt(i) != '[') {
+			// two characters sequence
+			return i + 1;
+		}
+		i++;
+		// control sequence: parameter and intermediate bytes, then final byte between '@' and '~'
+		while (i < text.length()) {
+			char c = text.charAt(i++);
+			if (c >= '@' && c <= '~') {
+				break;
+			}
+		}
+		return i;
+	}
+
+	/**
+	 * Append text without ansi control sequences, using a state machine instead of a regular expression
+	 *
+	 * @param text text to strip
+	 * @param to   builder to append to
+	 * @return builder
+	 */
+	public static StringBuilder appendStripped(CharSequence text, StringBuilder to) {
+		int state = TEXT;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			switch (state) {
+				case AFTER_ESCAPE:
+					if (c == '[') {
+						state = IN_SEQUENCE;
+						break;
+					}
+					// not a control sequence, keep escape character
+					to.append(ESCAPE);
+					state = TEXT;
+					// fall through to handle current character as text
+				case TEXT:
+					if (c == ESCAPE) {
+						state = AFTER_ESCAPE;
+					} else if (c == CSI) {
+						state = IN_SEQUENCE;
+					} else {
+						to.append(c);
+					}
+					break;
+				default:
+					// parameter and intermediate bytes are skipped, sequence ends with final byte
+					if (c < ' ' || c > '?') {
+						state = TEXT;
+						if (c < '@' || c > '~') {
+							to.append(c);
+						}
+					}
+			}
+		}
+		if (state == AFTER_ESCAPE) {
+			to.append(ESCAPE);
+		}
+		return to;
+	}
+}
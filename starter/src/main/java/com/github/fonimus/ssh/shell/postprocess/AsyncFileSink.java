@@ -0,0 +1,283 @@
+package com.github.fonimus.ssh.shell.postprocess;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>File sink receiving lines from session thread, and writing them from a background I/O thread</p>
+ * <p>Lines are stripped from ansi sequences and grouped in chunks, each sink has its own bounded queue of chunks,
+ * written in order by one writer thread at a time: when too many chunks are waiting, only the session writing to this
+ * sink waits. Closing is synchronous, it waits for all chunks to be written so that failures are reported to
+ * caller. Output can be compressed with gzip, and rotated once it reaches a maximum size: next parts are suffixed
+ * by their index (<code>file.1</code>, <code>file.2</code> or <code>file.1.gz</code>, etc.)</p>
+ */
+@Slf4j
+public class AsyncFileSink {
+
+	public static final String GZIP_EXTENSION = ".gz";
+
+	public static final String THREAD_NAME = "ssh-shell-save";
+
+	private static final int CHUNK_SIZE = 8192;
+
+	private static final int MAX_PENDING_CHUNKS = 256;
+
+	/**
+	 * Writer threads, one per sink being written, idle ones are reused
+	 */
+	private static final ExecutorService IO_EXECUTOR = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L,
+			TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+		Thread thread = new Thread(r, THREAD_NAME);
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final BlockingQueue<Runnable> pending = new ArrayBlockingQueue<>(MAX_PENDING_CHUNKS);
+
+	/**
+	 * Set while a writer thread drains pending chunks, so that they are written in order
+	 */
+	private final AtomicBoolean draining = new AtomicBoolean();
+
+	private final Path path;
+
+	private final boolean append;
+
+	private final boolean gzip;
+
+	private final long maxSize;
+
+	private final CompletableFuture<Long> completion = new CompletableFuture<>();
+
+	private StringBuilder chunk = new StringBuilder(CHUNK_SIZE);
+
+	private boolean firstLine = true;
+
+	// following fields are only accessed by writer thread
+
+	private OutputStream out;
+
+	private boolean started;
+
+	private int part;
+
+	private long partSize;
+
+	private long totalSize;
+
+	private volatile IOException failure;
+
+	/**
+	 * Constructor, opens file synchronously so that errors are reported to caller
+	 *
+	 * @param path    file path
+	 * @param append  whether to append to file if it exists, else file must not exist
+	 * @param gzip    whether to compress output
+	 * @param maxSize size in bytes (before compression) after which a new file is started, 0 or negative for unlimited
+	 * @throws IOException if file cannot be opened
+	 */
+	public AsyncFileSink(Path path, boolean append, boolean gzip, long maxSize) throws IOException {
+		this.path = path;
+		this.append = append;
+		this.gzip = gzip;
+		this.maxSize = maxSize;
+		this.out = open(path);
+	}
+
+	/**
+	 * Add line, written asynchronously
+	 *
+	 * @param line line to write, without line separator
+	 * @throws IOException if a previous write failed, or if interrupted while waiting for a free slot
+	 */
+	public void writeLine(CharSequence line) throws IOException {
+		checkFailure();
+		if (!firstLine) {
+			chunk.append(LineStreams.LINE_SEPARATOR);
+		}
+		firstLine = false;
+		AnsiSequences.appendStripped(line, chunk);
+		if (chunk.length() >= CHUNK_SIZE) {
+			submit(chunk);
+			chunk = new StringBuilder(CHUNK_SIZE);
+		}
+	}
+
+	/**
+	 * Write remaining lines and close file, waiting for writer thread
+	 *
+	 * @return number of bytes written before compression
+	 * @throws IOException if a write failed, or if interrupted while waiting
+	 */
+	public long close() throws IOException {
+		checkFailure();
+		if (chunk.length() > 0) {
+			submit(chunk);
+		}
+		chunk = null;
+		execute(() -> {
+			try {
+				if (out != null) {
+					out.close();
+				}
+				if (failure != null) {
+					completion.completeExceptionally(failure);
+				} else {
+					completion.complete(totalSize);
+				}
+			} catch (IOException e) {
+				LOGGER.warn("Unable to close file: {}", path, e);
+				completion.completeExceptionally(e);
+			}
+		});
+		try {
+			return completion.get();
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to write to file: " + path);
+		}
+	}
+
+	/**
+	 * Abort writing, pending chunks are dropped and file is closed asynchronously with what has already been written
+	 */
+	public void abort() {
+		chunk = null;
+		pending.clear();
+		// only session thread adds chunks, queue cannot be full again
+		pending.offer(() -> {
+			try {
+				if (out != null) {
+					out.close();
+				}
+			} catch (IOException e) {
+				LOGGER.debug("Unable to close file: {}", path, e);
+			}
+			completion.completeExceptionally(new IOException("Aborted writing to file: " + path));
+		});
+		startDraining();
+	}
+
+	private void checkFailure() throws IOException {
+		if (failure != null) {
+			throw failure;
+		}
+		if (chunk == null) {
+			throw new IOException("File is already closed: " + path);
+		}
+	}
+
+	private void submit(CharSequence text) throws IOException {
+		String toWrite = text.toString();
+		execute(() -> {
+			if (failure != null) {
+				return;
+			}
+			try {
+				write(toWrite.getBytes(StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				LOGGER.warn("Unable to write to file: {}", path, e);
+				failure = e;
+			}
+		});
+	}
+
+	private void execute(Runnable task) throws IOException {
+		try {
+			// back pressure: wait for a free slot of this sink
+			pending.put(task);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to write to file: " + path);
+		}
+		startDraining();
+	}
+
+	private void startDraining() {
+		if (draining.compareAndSet(false, true)) {
+			IO_EXECUTOR.execute(this::drain);
+		}
+	}
+
+	private void drain() {
+		do {
+			Runnable task;
+			while ((task = pending.poll()) != null) {
+				task.run();
+			}
+			draining.set(false);
+			// a chunk may have been added after last poll, while still draining
+		} while (!pending.isEmpty() && draining.compareAndSet(false, true));
+	}
+
+	private void write(byte[] bytes) throws IOException {
+		if (!started) {
+			started = true;
+			// previous writes to same file are done, appended lines start on a new line
+			if (append && Files.size(path) > 0) {
+				out.write(LineStreams.LINE_SEPARATOR);
+				partSize++;
+				totalSize++;
+			}
+		}
+		if (maxSize > 0 && partSize > 0 && partSize + bytes.length > maxSize) {
+			out.close();
+			part++;
+			out = open(partPath(part));
+			partSize = 0;
+			// chunks start with separator of previous line, not needed at beginning of file
+			if (bytes.length > 0 && bytes[0] == LineStreams.LINE_SEPARATOR) {
+				out.write(bytes, 1, bytes.length - 1);
+				partSize += bytes.length - 1;
+				totalSize += bytes.length - 1;
+				return;
+			}
+		}
+		out.write(bytes);
+		partSize += bytes.length;
+		totalSize += bytes.length;
+	}
+
+	private Path partPath(int index) {
+		String name = path.getFileName().toString();
+		if (name.endsWith(GZIP_EXTENSION)) {
+			name = name.substring(0, name.length() - GZIP_EXTENSION.length()) + "." + index + GZIP_EXTENSION;
+		} else {
+			name = name + "." + index;
+		}
+		return path.resolveSibling(name);
+	}
+
+	private OutputStream open(Path file) throws IOException {
+		OpenOption[] options = append
+				? new OpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE}
+				: new OpenOption[]{StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE};
+		OutputStream stream = new BufferedOutputStream(Files.newOutputStream(file, options), CHUNK_SIZE);
+		if (gzip) {
+			// with append, a new gzip member is added, which is still a valid gzip file
+			return new GZIPOutputStream(stream, CHUNK_SIZE);
+		}
+		return stream;
+	}
+}
@@ -0,0 +1,70 @@
+package com.github.fonimus.ssh.shell.postprocess;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Utility methods to go from text to stream of lines and back
+ */
+public final class LineStreams {
+
+	public static final char LINE_SEPARATOR = '\n';
+
+	private LineStreams() {
+		// utility class
+	}
+
+	/**
+	 * Lazily split text on line separator, lines are sub sequences of given text
+	 *
+	 * @param text text to split
+	 * @return lazy stream of lines, without trailing empty line
+	 */
+	public static Stream<CharSequence> lines(CharSequence text) {
+		if (text == null) {
+			return Stream.empty();
+		}
+		Iterator<CharSequence> iterator = new Iterator<CharSequence>() {
+
+			private int start = 0;
+
+			@Override
+			public boolean hasNext() {
+				return start < text.length();
+			}
+
+			@Override
+			public CharSequence next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				int end = start;
+				while (end < text.length() && text.charAt(end) != LINE_SEPARATOR) {
+					end++;
+				}
+				CharSequence line = text.subSequence(start, end);
+				start = end + 1;
+				return line;
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+				Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * Join lines with line separator
+	 *
+	 * @param lines lines to join
+	 * @return text
+	 */
+	public static String join(Stream<CharSequence> lines) {
+		try (Stream<CharSequence> s = lines) {
+			return s.collect(Collectors.joining(String.valueOf(LINE_SEPARATOR)));
+		}
+	}
+}
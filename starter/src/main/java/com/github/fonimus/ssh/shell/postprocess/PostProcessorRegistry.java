@@ -0,0 +1,106 @@
+package com.github.fonimus.ssh.shell.postprocess;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.core.ResolvableType;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Immutable dispatch table of post processors, keyed by name</p>
+ * <p>Accepted input type of each post processor is resolved once at registration, from the generic type of
+ * {@link PostProcessor}, even for subclasses and proxies</p>
+ */
+@Slf4j
+public class PostProcessorRegistry {
+
+    private final Map<String, Registration> registrations;
+
+    /**
+     * Constructor
+     *
+     * @param postProcessorList post processors to register, first one wins if several have the same name
+     */
+    public PostProcessorRegistry(List<PostProcessor> postProcessorList) {
+        Map<String, Registration> map = new LinkedHashMap<>();
+        if (postProcessorList != null) {
+            for (PostProcessor postProcessor : postProcessorList) {
+                if (map.containsKey(postProcessor.getName())) {
+                    LOGGER.warn("Unable to register post processor for name [{}], it has already been registered", postProcessor.getName());
+                } else {
+                    map.put(postProcessor.getName(), new Registration(postProcessor, resolveInputType(postProcessor)));
+                    LOGGER.debug("Post processor with name [{}] registered", postProcessor.getName());
+                }
+            }
+        }
+        this.registrations = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Resolve post processor input type
+     *
+     * @param postProcessor post processor
+     * @return generic type of {@link PostProcessor}, or {@link Object} if it cannot be resolved
+     */
+    public static Class<?> resolveInputType(PostProcessor<?> postProcessor) {
+        Class<?> targetClass = AopProxyUtils.ultimateTargetClass(postProcessor);
+        Class<?> resolved = ResolvableType.forClass(targetClass).as(PostProcessor.class).resolveGeneric(0);
+        return resolved != null ? resolved : Object.class;
+    }
+
+    /**
+     * Get post processor registration
+     *
+     * @param name post processor name
+     * @return registration, or null if not found
+     */
+    public Registration get(String name) {
+        return registrations.get(name);
+    }
+
+    /**
+     * Get all registrations
+     *
+     * @return registrations, in registration order
+     */
+    public Collection<Registration> getRegistrations() {
+        return registrations.values();
+    }
+
+    /**
+     * Post processor with its resolved input type
+     */
+    @Getter
+    public static class Registration {
+
+        private final PostProcessor postProcessor;
+
+        private final Class<?> inputType;
+
+        private final boolean streaming;
+
+        private final boolean writer;
+
+        private Registration(PostProcessor postProcessor, Class<?> inputType) {
+            this.postProcessor = postProcessor;
+            this.inputType = inputType;
+            this.streaming = postProcessor instanceof StreamingPostProcessor;
+            this.writer = postProcessor instanceof WriterPostProcessor;
+        }
+
+        /**
+         * Check if post processor can apply to given class
+         *
+         * @param cls current object class
+         * @return true if accepted
+         */
+        public boolean accepts(Class<?> cls) {
+            return inputType.isAssignableFrom(cls);
+        }
+    }
+}
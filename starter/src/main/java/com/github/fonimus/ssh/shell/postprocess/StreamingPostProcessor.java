@@ -0,0 +1,24 @@
+package com.github.fonimus.ssh.shell.postprocess;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * <p>Post processor working on a lazy stream of lines, so that result is never fully built in memory</p>
+ * <p>Should be implemented in addition to {@link PostProcessor}&lt;String&gt;, which is used when
+ * the post processor is the first of the pipeline or when called outside of a pipeline</p>
+ */
+public interface StreamingPostProcessor {
+
+	String getName();
+
+	/**
+	 * Process lines
+	 *
+	 * @param lines      lazy stream of lines, without line separators
+	 * @param parameters post processor parameters
+	 * @return lazy stream of lines
+	 * @throws PostProcessorException if processing cannot be done
+	 */
+	Stream<CharSequence> process(Stream<CharSequence> lines, List<String> parameters) throws PostProcessorException;
+}
@@ -0,0 +1,32 @@
+package com.github.fonimus.ssh.shell.postprocess;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Adapter to use a {@link PostProcessor} in a streaming pipeline: lines are collected before calling it
+ */
+public class StreamingPostProcessorAdapter
+		implements StreamingPostProcessor {
+
+	private final PostProcessor<? super String> delegate;
+
+	/**
+	 * Constructor
+	 *
+	 * @param delegate post processor accepting strings
+	 */
+	public StreamingPostProcessorAdapter(PostProcessor<? super String> delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public String getName() {
+		return delegate.getName();
+	}
+
+	@Override
+	public Stream<CharSequence> process(Stream<CharSequence> lines, List<String> parameters) throws PostProcessorException {
+		return LineStreams.lines(delegate.process(LineStreams.join(lines), parameters));
+	}
+}
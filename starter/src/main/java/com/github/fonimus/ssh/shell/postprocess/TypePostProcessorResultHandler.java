@@ -6,10 +6,13 @@ import org.jline.utils.AttributedString;
 import org.jline.utils.AttributedStyle;
 import org.springframework.shell.ResultHandler;
 
-import java.lang.reflect.ParameterizedType;
-import java.util.HashMap;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.List;
-import java.util.Map;
+import java.util.stream.Stream;
 
 import static com.github.fonimus.ssh.shell.SshShellCommandFactory.SSH_THREAD_CONTEXT;
 
@@ -21,20 +24,15 @@ public class TypePostProcessorResultHandler
 
     private ResultHandler<Object> resultHandler;
 
-    private Map<String, PostProcessor> postProcessorMap = new HashMap<>();
+    private final PostProcessorRegistry registry;
 
     public TypePostProcessorResultHandler(ResultHandler<Object> resultHandler, List<PostProcessor> postProcessorList) {
+        this(resultHandler, new PostProcessorRegistry(postProcessorList));
+    }
+
+    public TypePostProcessorResultHandler(ResultHandler<Object> resultHandler, PostProcessorRegistry registry) {
         this.resultHandler = resultHandler;
-        if (postProcessorList != null) {
-            for (PostProcessor postProcessor : postProcessorList) {
-                if (this.postProcessorMap.containsKey(postProcessor.getName())) {
-                    LOGGER.warn("Unable to register post processor for name [{}], it has already been registered", postProcessor.getName());
-                } else {
-                    this.postProcessorMap.put(postProcessor.getName(), postProcessor);
-                    LOGGER.debug("Post processor with name [{}] registered", postProcessor.getName());
-                }
-            }
-        }
+        this.registry = registry;
     }
 
     @Override
@@ -42,27 +40,47 @@ public class TypePostProcessorResultHandler
         if (result == null) {
             return;
         }
+        SshContext ctx = SSH_THREAD_CONTEXT.get();
         if (result instanceof Throwable) {
             THREAD_CONTEXT.set((Throwable) result);
+            if (ctx != null && ctx.getErrorPostProcessor() != null) {
+                handleError(ctx.getErrorPostProcessor(), (Throwable) result);
+                return;
+            }
         }
         Object obj = result;
-        SshContext ctx = SSH_THREAD_CONTEXT.get();
+        // once a streaming post processor is applied, result is only available as lazy stream of lines
+        Stream<CharSequence> lines = null;
         if (ctx != null && ctx.getPostProcessorsList() != null) {
-            for (PostProcessorObject postProcessorObject : ctx.getPostProcessorsList()) {
+            List<PostProcessorObject> postProcessorObjects = ctx.getPostProcessorsList();
+            for (int i = 0; i < postProcessorObjects.size(); i++) {
+                PostProcessorObject postProcessorObject = postProcessorObjects.get(i);
                 String name = postProcessorObject.getName();
-                PostProcessor postProcessor = postProcessorMap.get(name);
-                if (postProcessor == null) {
+                PostProcessorRegistry.Registration registration = registry.get(name);
+                if (registration == null) {
                     printLogWarn("Unknown post processor [" + name + "]");
                     continue;
                 }
-                Class<?> cls = ((Class) ((ParameterizedType) (postProcessor.getClass().getGenericInterfaces())[0]).getActualTypeArguments()[0]);
-                if (!cls.isAssignableFrom(obj.getClass())) {
-                    printLogWarn("Post processor [" + name + "] can only apply to class [" + cls.getName() +
-                            "] (current object class is " + obj.getClass().getName() + ")");
+                PostProcessor postProcessor = registration.getPostProcessor();
+                Class<?> current = lines != null ? String.class : obj.getClass();
+                if (!registration.accepts(current)) {
+                    printLogWarn("Post processor [" + name + "] can only apply to class [" + registration.getInputType().getName() +
+                            "] (current object class is " + current.getName() + ")");
                 } else {
                     LOGGER.debug("Applying post processor [{}] with parameters {}", name, postProcessorObject.getParameters());
                     try {
-                        obj = postProcessor.process(obj, postProcessorObject.getParameters());
+                        if (lines == null && registration.isWriter() && i == postProcessorObjects.size() - 1
+                                && ctx.getTerminal() != null) {
+                            handleWriter(ctx, (WriterPostProcessor) postProcessor, obj, postProcessorObject.getParameters());
+                            return;
+                        } else if (lines != null) {
+                            lines = streaming(postProcessor).process(lines, postProcessorObject.getParameters());
+                        } else if (registration.isStreaming() && obj instanceof CharSequence) {
+                            lines = ((StreamingPostProcessor) postProcessor).process(LineStreams.lines((CharSequence) obj),
+                                    postProcessorObject.getParameters());
+                        } else {
+                            obj = postProcessor.process(obj, postProcessorObject.getParameters());
+                        }
                     } catch (PostProcessorException e) {
                         printError(e.getMessage());
                         return;
@@ -70,7 +88,80 @@ public class TypePostProcessorResultHandler
                 }
             }
         }
-        resultHandler.handleResult(obj);
+        if (lines != null) {
+            handleLines(ctx, lines);
+        } else {
+            resultHandler.handleResult(obj);
+        }
+    }
+
+    /**
+     * Apply error post processor to stack trace of error
+     *
+     * @param postProcessorObject error post processor
+     * @param error               command error
+     */
+    @SuppressWarnings("unchecked")
+    private void handleError(PostProcessorObject postProcessorObject, Throwable error) {
+        PostProcessorRegistry.Registration registration = registry.get(postProcessorObject.getName());
+        if (registration == null || !registration.accepts(String.class)) {
+            printLogWarn("Unknown post processor [" + postProcessorObject.getName() + "] for errors");
+            resultHandler.handleResult(error);
+            return;
+        }
+        StringWriter stackTrace = new StringWriter();
+        error.printStackTrace(new PrintWriter(stackTrace));
+        try {
+            resultHandler.handleResult(registration.getPostProcessor().process(stackTrace.toString(), postProcessorObject.getParameters()));
+        } catch (PostProcessorException e) {
+            printError(e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static StreamingPostProcessor streaming(PostProcessor postProcessor) {
+        if (postProcessor instanceof StreamingPostProcessor) {
+            return (StreamingPostProcessor) postProcessor;
+        }
+        return new StreamingPostProcessorAdapter(postProcessor);
+    }
+
+    /**
+     * Write lines straight to terminal writer, so that they are never all in memory
+     *
+     * @param ctx   ssh context
+     * @param lines lines to write
+     */
+    private void handleLines(SshContext ctx, Stream<CharSequence> lines) {
+        if (ctx.getTerminal() == null) {
+            resultHandler.handleResult(LineStreams.join(lines));
+            return;
+        }
+        PrintWriter writer = ctx.getTerminal().writer();
+        try (Stream<CharSequence> toWrite = lines) {
+            toWrite.forEach(line -> writer.append(line).println());
+        } catch (RuntimeException e) {
+            printError(e.getMessage());
+        }
+        writer.flush();
+    }
+
+    /**
+     * Let post processor write straight to terminal writer, flushed as soon as post processor writes
+     *
+     * @param ctx           ssh context
+     * @param postProcessor last post processor
+     * @param obj           current object
+     * @param parameters    post processor parameters
+     * @throws PostProcessorException if processing cannot be done
+     */
+    @SuppressWarnings("unchecked")
+    private void handleWriter(SshContext ctx, WriterPostProcessor postProcessor, Object obj, List<String> parameters)
+            throws PostProcessorException {
+        PrintWriter writer = ctx.getTerminal().writer();
+        postProcessor.process(obj, parameters, new FlushingWriter(writer));
+        writer.println();
+        writer.flush();
     }
 
     private void printLogWarn(String warn) {
@@ -82,4 +173,32 @@ public class TypePostProcessorResultHandler
     private void printError(String error) {
         resultHandler.handleResult(new AttributedString(error, AttributedStyle.DEFAULT.foreground(AttributedStyle.RED)).toAnsi());
     }
+
+    /**
+     * Writer flushing underlying one on each write, post processors already write by chunks
+     */
+    private static class FlushingWriter
+            extends FilterWriter {
+
+        private FlushingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+            out.flush();
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.write(str, off, len);
+            out.flush();
+        }
+
+        @Override
+        public void close() {
+            // terminal writer is not closed
+        }
+    }
 }
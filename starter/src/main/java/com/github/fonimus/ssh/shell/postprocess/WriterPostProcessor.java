@@ -0,0 +1,26 @@
+package com.github.fonimus.ssh.shell.postprocess;
+
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * <p>Post processor able to write its result straight to a writer, so that it is never fully built in memory</p>
+ * <p>Used instead of {@link PostProcessor} when the post processor is the last of the pipeline and a terminal is
+ * available, should be implemented in addition to it</p>
+ *
+ * @param <T> input type
+ */
+public interface WriterPostProcessor<T> {
+
+	String getName();
+
+	/**
+	 * Process result
+	 *
+	 * @param result     result to process
+	 * @param parameters post processor parameters
+	 * @param writer     writer to write result to, not closed by post processor
+	 * @throws PostProcessorException if processing cannot be done
+	 */
+	void process(T result, List<String> parameters, Writer writer) throws PostProcessorException;
+}
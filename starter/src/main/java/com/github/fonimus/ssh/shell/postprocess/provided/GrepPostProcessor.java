@@ -1,16 +1,45 @@
 package com.github.fonimus.ssh.shell.postprocess.provided;
 
+import com.github.fonimus.ssh.shell.postprocess.AhoCorasick;
+import com.github.fonimus.ssh.shell.postprocess.LineStreams;
 import com.github.fonimus.ssh.shell.postprocess.PostProcessor;
+import com.github.fonimus.ssh.shell.postprocess.PostProcessorException;
+import com.github.fonimus.ssh.shell.postprocess.StreamingPostProcessor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * Grep post processor
+ * <p>Grep post processor</p>
+ * <p>Keeps lines containing at least one of the patterns. Options, before patterns:</p>
+ * <ul>
+ * <li>-E: patterns are regular expressions</li>
+ * <li>-i: ignore case</li>
+ * <li>-v: keep non matching lines</li>
+ * <li>-c: only display the number of matching lines</li>
+ * <li>-A num, -B num, -C num: display num lines of context after, before, or around matching lines</li>
+ * <li>--: end of options</li>
+ * </ul>
  */
 @Slf4j
 public class GrepPostProcessor
-		implements PostProcessor<String> {
+		implements PostProcessor<String>, StreamingPostProcessor {
+
+	public static final String CONTEXT_SEPARATOR = "--";
 
 	@Override
 	public String getName() {
@@ -18,28 +47,208 @@ public class GrepPostProcessor
 	}
 
 	@Override
-	public String process(String result, List<String> parameters) {
+	public String process(String result, List<String> parameters) throws PostProcessorException {
+		return LineStreams.join(process(LineStreams.lines(result), parameters));
+	}
+
+	@Override
+	public Stream<CharSequence> process(Stream<CharSequence> lines, List<String> parameters) throws PostProcessorException {
 		if (parameters == null || parameters.isEmpty()) {
 			LOGGER.debug("Cannot use [{}] post processor without any parameters", getName());
-			return result;
-		} else {
-			StringBuilder sb = new StringBuilder();
-			for (String line : result.split("\n")) {
-				if (contains(line, parameters)) {
-					sb.append(line).append("\n");
-				}
+			return lines;
+		}
+		Options options = Options.parse(parameters);
+		if (options.patterns.isEmpty()) {
+			LOGGER.debug("Cannot use [{}] post processor without any pattern", getName());
+			return lines;
+		}
+		Predicate<CharSequence> matcher = matcher(options);
+		Predicate<CharSequence> selected = options.invert ? matcher.negate() : matcher;
+		if (options.count) {
+			try (Stream<CharSequence> toCount = lines) {
+				return Stream.of(String.valueOf(toCount.filter(selected).count()));
 			}
-			return sb.toString().isEmpty() ? sb.toString() : sb.toString().substring(0, sb.toString().length() - 1);
 		}
+		if (options.before == 0 && options.after == 0) {
+			return lines.filter(selected);
+		}
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+				new ContextIterator(lines.iterator(), selected, options.before, options.after),
+				Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(lines::close);
 	}
 
-	private boolean contains(String line, List<String> parameters) {
-		for (String parameter : parameters) {
-			if (parameter == null || parameter.isEmpty() || line.contains(parameter)) {
-				return true;
+	/**
+	 * Build line matcher, compiled once per invocation
+	 *
+	 * @param options grep options
+	 * @return line matcher
+	 * @throws PostProcessorException if a regular expression is not valid
+	 */
+	private static Predicate<CharSequence> matcher(Options options) throws PostProcessorException {
+		for (String pattern : options.patterns) {
+			if (pattern.isEmpty()) {
+				return line -> true;
 			}
 		}
-		return false;
+		if (!options.regex) {
+			AhoCorasick automaton = new AhoCorasick(options.patterns, options.ignoreCase);
+			return automaton::containsAny;
+		}
+		Pattern pattern;
+		try {
+			pattern = Pattern.compile(options.patterns.stream().map(p -> "(?:" + p + ")").collect(Collectors.joining("|")),
+					options.ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+		} catch (PatternSyntaxException e) {
+			throw new PostProcessorException("Invalid regular expression: " + e.getDescription(), e);
+		}
+		// stream is sequential, matcher is reused for every line
+		Matcher matcher = pattern.matcher("");
+		return line -> matcher.reset(line).find();
 	}
 
+	/**
+	 * Grep options
+	 */
+	static class Options {
+
+		private boolean regex;
+
+		private boolean ignoreCase;
+
+		private boolean invert;
+
+		private boolean count;
+
+		private int before;
+
+		private int after;
+
+		private final List<String> patterns = new ArrayList<>();
+
+		static Options parse(List<String> parameters) throws PostProcessorException {
+			Options options = new Options();
+			boolean inOptions = true;
+			for (int i = 0; i < parameters.size(); i++) {
+				String parameter = parameters.get(i) == null ? "" : parameters.get(i);
+				if (inOptions) {
+					switch (parameter) {
+						case "--":
+							inOptions = false;
+							continue;
+						case "-E":
+							options.regex = true;
+							continue;
+						case "-i":
+							options.ignoreCase = true;
+							continue;
+						case "-v":
+							options.invert = true;
+							continue;
+						case "-c":
+							options.count = true;
+							continue;
+						case "-A":
+							options.after = number(parameters, ++i, parameter);
+							continue;
+						case "-B":
+							options.before = number(parameters, ++i, parameter);
+							continue;
+						case "-C":
+							options.after = number(parameters, ++i, parameter);
+							options.before = options.after;
+							continue;
+						default:
+							inOptions = false;
+					}
+				}
+				options.patterns.add(parameter);
+			}
+			return options;
+		}
+
+		private static int number(List<String> parameters, int index, String option) throws PostProcessorException {
+			if (index >= parameters.size()) {
+				throw new PostProcessorException("Option [" + option + "] needs a number of lines");
+			}
+			try {
+				int value = Integer.parseInt(parameters.get(index));
+				if (value < 0) {
+					throw new NumberFormatException();
+				}
+				return value;
+			} catch (NumberFormatException e) {
+				throw new PostProcessorException("Option [" + option + "] needs a positive number of lines, got: " + parameters.get(index));
+			}
+		}
+	}
+
+	/**
+	 * Lazy iterator keeping selected lines with context lines, separating non contiguous groups
+	 */
+	private static class ContextIterator
+			implements Iterator<CharSequence> {
+
+		private final Iterator<CharSequence> source;
+
+		private final Predicate<CharSequence> selected;
+
+		private final int before;
+
+		private final int after;
+
+		private final Deque<CharSequence> beforeBuffer = new ArrayDeque<>();
+
+		private final Deque<CharSequence> pending = new ArrayDeque<>();
+
+		private int afterLeft;
+
+		private boolean printed;
+
+		private boolean gap;
+
+		ContextIterator(Iterator<CharSequence> source, Predicate<CharSequence> selected, int before, int after) {
+			this.source = source;
+			this.selected = selected;
+			this.before = before;
+			this.after = after;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (pending.isEmpty() && source.hasNext()) {
+				CharSequence line = source.next();
+				if (selected.test(line)) {
+					if (printed && gap) {
+						pending.add(CONTEXT_SEPARATOR);
+					}
+					pending.addAll(beforeBuffer);
+					beforeBuffer.clear();
+					pending.add(line);
+					afterLeft = after;
+					printed = true;
+					gap = false;
+				} else if (afterLeft > 0) {
+					pending.add(line);
+					afterLeft--;
+				} else {
+					if (beforeBuffer.size() == before) {
+						beforeBuffer.pollFirst();
+						gap = true;
+					}
+					if (before > 0) {
+						beforeBuffer.addLast(line);
+					}
+				}
+			}
+			return !pending.isEmpty();
+		}
+
+		@Override
+		public CharSequence next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return pending.poll();
+		}
+	}
 }
@@ -2,20 +2,44 @@ package com.github.fonimus.ssh.shell.postprocess.provided;
 
 import com.github.fonimus.ssh.shell.PromptColor;
 import com.github.fonimus.ssh.shell.SshShellHelper;
+import com.github.fonimus.ssh.shell.postprocess.AhoCorasick;
+import com.github.fonimus.ssh.shell.postprocess.AnsiSequences;
+import com.github.fonimus.ssh.shell.postprocess.LineStreams;
 import com.github.fonimus.ssh.shell.postprocess.PostProcessor;
+import com.github.fonimus.ssh.shell.postprocess.StreamingPostProcessor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
- * Grep post processor
+ * <p>Highlight post processor</p>
+ * <p>All terms are found in a single pass, outside existing ansi sequences. A term can be suffixed by
+ * <code>:color</code> (see {@link PromptColor}) to change its background color, default is yellow</p>
  */
 @Slf4j
 public class HighlightPostProcessor
-		implements PostProcessor<String> {
+		implements PostProcessor<String>, StreamingPostProcessor {
 
 	private static final SshShellHelper HELPER = new SshShellHelper();
 
+	private static final PromptColor DEFAULT_COLOR = PromptColor.YELLOW;
+
+	private static final Map<PromptColor, String[]> COLOR_CODES = new EnumMap<>(PromptColor.class);
+
+	static {
+		for (PromptColor color : PromptColor.values()) {
+			// extract ansi codes surrounding a single character
+			String colored = HELPER.getBackgroundColored("x", color);
+			int index = colored.indexOf('x');
+			COLOR_CODES.put(color, new String[]{colored.substring(0, index), colored.substring(index + 1)});
+		}
+	}
+
 	@Override
 	public String getName() {
 		return "highlight";
@@ -23,16 +47,91 @@ public class HighlightPostProcessor
 
 	@Override
 	public String process(String result, List<String> parameters) {
+		return LineStreams.join(process(LineStreams.lines(result), parameters));
+	}
+
+	@Override
+	public Stream<CharSequence> process(Stream<CharSequence> lines, List<String> parameters) {
 		if (parameters == null || parameters.isEmpty()) {
 			LOGGER.debug("Cannot use [{}] post processor without any parameters", getName());
-			return result;
-		} else {
-			String finalResult = result;
-			for (String toHighlight : parameters) {
-				finalResult = finalResult.replaceAll(toHighlight, HELPER.getBackgroundColored(toHighlight, PromptColor.YELLOW));
+			return lines;
+		}
+		List<String> terms = new ArrayList<>(parameters.size());
+		List<String[]> codes = new ArrayList<>(parameters.size());
+		for (String parameter : parameters) {
+			String term = parameter == null ? "" : parameter;
+			PromptColor color = DEFAULT_COLOR;
+			int separator = term.lastIndexOf(':');
+			if (separator > 0) {
+				PromptColor parsed = color(term.substring(separator + 1));
+				if (parsed != null) {
+					term = term.substring(0, separator);
+					color = parsed;
+				}
 			}
-			return finalResult;
+			terms.add(term);
+			codes.add(COLOR_CODES.get(color));
+		}
+		AhoCorasick automaton = new AhoCorasick(terms, false);
+		return lines.map(line -> highlight(line, automaton, codes));
+	}
+
+	private static PromptColor color(String name) {
+		try {
+			return PromptColor.valueOf(name.toUpperCase(Locale.ENGLISH));
+		} catch (IllegalArgumentException e) {
+			return null;
 		}
 	}
 
+	private static CharSequence highlight(CharSequence line, AhoCorasick automaton, List<String[]> codes) {
+		Highlighted highlighted = new Highlighted(line, codes);
+		int start = 0;
+		for (int i = 0; i < line.length(); i++) {
+			if (line.charAt(i) == AnsiSequences.ESCAPE) {
+				automaton.findAll(line, start, i, highlighted);
+				start = AnsiSequences.end(line, i);
+				i = start - 1;
+			}
+		}
+		automaton.findAll(line, start, line.length(), highlighted);
+		return highlighted.result();
+	}
+
+	/**
+	 * Append text and highlighted terms in one builder, only created on first match
+	 */
+	private static class Highlighted
+			implements AhoCorasick.MatchConsumer {
+
+		private final CharSequence line;
+
+		private final List<String[]> codes;
+
+		private StringBuilder builder;
+
+		private int copied;
+
+		private Highlighted(CharSequence line, List<String[]> codes) {
+			this.line = line;
+			this.codes = codes;
+		}
+
+		@Override
+		public void accept(int start, int end, int pattern) {
+			String[] code = codes.get(pattern);
+			if (builder == null) {
+				builder = new StringBuilder(line.length() + 16 * (code[0].length() + code[1].length()));
+			}
+			builder.append(line, copied, start).append(code[0]).append(line, start, end).append(code[1]);
+			copied = end;
+		}
+
+		private CharSequence result() {
+			if (builder == null) {
+				return line;
+			}
+			return builder.append(line, copied, line.length());
+		}
+	}
 }
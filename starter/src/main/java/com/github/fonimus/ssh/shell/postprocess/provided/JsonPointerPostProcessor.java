@@ -1,22 +1,38 @@
 package com.github.fonimus.ssh.shell.postprocess.provided;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.github.fonimus.ssh.shell.postprocess.PostProcessor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.StringJoiner;
 
 /**
- * Json pointer post processor
+ * <p>Json pointer post processor</p>
+ * <p>Json is read token by token, only matching sub trees are kept, all others are skipped. Several pointers can be
+ * given, they are all resolved in one pass. A <code>*</code> segment matches any field or array index, its results
+ * are displayed as a json array.</p>
  */
 @Slf4j
 public class JsonPointerPostProcessor
 		implements PostProcessor<String> {
 
+	public static final String WILDCARD = "*";
+
 	private static final ObjectMapper MAPPER = new ObjectMapper();
 
+	private static final int[] EMPTY = new int[0];
+
 	@Override
 	public String getName() {
 		return "json";
@@ -26,29 +42,226 @@ public class JsonPointerPostProcessor
 	public String process(String result, List<String> parameters) {
 		if (parameters == null || parameters.isEmpty()) {
 			LOGGER.debug("Cannot use [{}] post processor without any parameters", getName());
-		} else {
-			if (parameters.size() != 1) {
-				LOGGER.debug("[{}] post processor only need one parameter, rest will be ignored", getName());
-			}
-			String path = parameters.get(0);
+			return result;
+		}
+		List<Pointer> pointers = new ArrayList<>(parameters.size());
+		for (String path : parameters) {
 			try {
-				JsonNode node = MAPPER.readTree(result).at(path);
-				if (node.isMissingNode()) {
-					return "No node found with json path expression: " + path;
+				pointers.add(new Pointer(path == null ? "" : path));
+			} catch (IllegalArgumentException e) {
+				LOGGER.warn("Illegal argument: " + path, e);
+				return e.getMessage();
+			}
+		}
+		try (JsonParser parser = MAPPER.getFactory().createParser(result)) {
+			if (parser.nextToken() == null) {
+				return result;
+			}
+			new Extraction(pointers).walk(parser, all(pointers.size()), 0);
+			StringJoiner joiner = new StringJoiner("\n");
+			for (Pointer pointer : pointers) {
+				joiner.add(pointer.display());
+			}
+			return joiner.toString();
+		} catch (IOException e) {
+			LOGGER.warn("Unable to read json", e);
+		}
+		return result;
+	}
+
+	private static int[] all(int size) {
+		int[] all = new int[size];
+		for (int i = 0; i < size; i++) {
+			all[i] = i;
+		}
+		return all;
+	}
+
+	/**
+	 * Json pointer split into segments
+	 */
+	private static class Pointer {
+
+		private final String expression;
+
+		private final String[] properties;
+
+		private final int[] indexes;
+
+		private final boolean[] wildcards;
+
+		private final boolean wildcard;
+
+		private final List<TokenBuffer> matches = new ArrayList<>();
+
+		private Pointer(String expression) {
+			this.expression = expression;
+			List<JsonPointer> segments = new ArrayList<>();
+			for (JsonPointer pointer = JsonPointer.compile(expression); !pointer.matches(); pointer = pointer.tail()) {
+				segments.add(pointer);
+			}
+			this.properties = new String[segments.size()];
+			this.indexes = new int[segments.size()];
+			this.wildcards = new boolean[segments.size()];
+			boolean any = false;
+			for (int i = 0; i < segments.size(); i++) {
+				properties[i] = segments.get(i).getMatchingProperty();
+				indexes[i] = segments.get(i).getMatchingIndex();
+				wildcards[i] = WILDCARD.equals(properties[i]);
+				any |= wildcards[i];
+			}
+			this.wildcard = any;
+		}
+
+		private int length() {
+			return properties.length;
+		}
+
+		private boolean matchesField(int depth, String name) {
+			return wildcards[depth] || properties[depth].equals(name);
+		}
+
+		private boolean matchesIndex(int depth, int index) {
+			return wildcards[depth] || indexes[depth] == index;
+		}
+
+		private boolean resolved() {
+			return !wildcard && !matches.isEmpty();
+		}
+
+		private String display() throws IOException {
+			if (!wildcard && matches.isEmpty()) {
+				return "No node found with json path expression: " + expression;
+			}
+			if (!wildcard) {
+				JsonParser match = matches.get(0).asParser();
+				if (match.nextToken() == JsonToken.VALUE_STRING) {
+					return match.getText();
+				}
+			}
+			StringWriter writer = new StringWriter();
+			try (JsonGenerator generator = MAPPER.getFactory().createGenerator(writer)) {
+				generator.setPrettyPrinter(new DefaultPrettyPrinter());
+				if (wildcard) {
+					generator.writeStartArray();
+				}
+				for (TokenBuffer buffer : matches) {
+					JsonParser match = buffer.asParser();
+					match.nextToken();
+					generator.copyCurrentStructure(match);
+				}
+				if (wildcard) {
+					generator.writeEndArray();
+				}
+			}
+			return writer.toString();
+		}
+	}
+
+	/**
+	 * Walk through json tokens, keeping only pointers matching current path
+	 */
+	private static class Extraction {
+
+		private final List<Pointer> pointers;
+
+		private int unresolved;
+
+		private Extraction(List<Pointer> pointers) {
+			this.pointers = pointers;
+			this.unresolved = pointers.size();
+		}
+
+		private boolean done() {
+			return unresolved == 0;
+		}
+
+		/**
+		 * Walk value on which parser is positioned
+		 *
+		 * @param parser parser, positioned on value first token
+		 * @param active indexes of pointers matching path
+		 * @param depth  path depth
+		 * @throws IOException if json cannot be read
+		 */
+		private void walk(JsonParser parser, int[] active, int depth) throws IOException {
+			int continuing = 0;
+			for (int index : active) {
+				if (pointers.get(index).length() > depth) {
+					continuing++;
+				}
+			}
+			if (continuing == active.length) {
+				walkContainer(parser, active, depth);
+				return;
+			}
+			TokenBuffer buffer = new TokenBuffer(parser);
+			buffer.copyCurrentStructure(parser);
+			int[] next = new int[continuing];
+			int n = 0;
+			for (int index : active) {
+				Pointer pointer = pointers.get(index);
+				if (pointer.length() > depth) {
+					next[n++] = index;
 				} else {
-					if (node.isTextual()) {
-						return node.asText();
+					pointer.matches.add(buffer);
+					if (pointer.resolved()) {
+						unresolved--;
+					}
+				}
+			}
+			if (next.length > 0 && !done()) {
+				JsonParser replay = buffer.asParser();
+				replay.nextToken();
+				walkContainer(replay, next, depth);
+			}
+		}
+
+		private void walkContainer(JsonParser parser, int[] active, int depth) throws IOException {
+			JsonToken token = parser.currentToken();
+			if (token == JsonToken.START_OBJECT) {
+				while (!done() && parser.nextToken() == JsonToken.FIELD_NAME) {
+					String name = parser.getCurrentName();
+					parser.nextToken();
+					int[] next = filter(active, depth, name, -1);
+					if (next.length == 0) {
+						parser.skipChildren();
 					} else {
-						return MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(node);
+						walk(parser, next, depth + 1);
+					}
+				}
+			} else if (token == JsonToken.START_ARRAY) {
+				int index = 0;
+				while (!done() && parser.nextToken() != JsonToken.END_ARRAY && parser.currentToken() != null) {
+					int[] next = filter(active, depth, null, index++);
+					if (next.length == 0) {
+						parser.skipChildren();
+					} else {
+						walk(parser, next, depth + 1);
 					}
 				}
-			} catch (IOException e) {
-                LOGGER.warn("Unable to read tree", e);
-			} catch (IllegalArgumentException e) {
-                LOGGER.warn("Illegal argument: " + path, e);
-				return e.getMessage();
 			}
 		}
-		return result;
+
+		private int[] filter(int[] active, int depth, String name, int index) {
+			int[] next = null;
+			int n = 0;
+			for (int i : active) {
+				Pointer pointer = pointers.get(i);
+				if (pointer.resolved()) {
+					continue;
+				}
+				if (name != null ? pointer.matchesField(depth, name) : pointer.matchesIndex(depth, index)) {
+					if (next == null) {
+						next = new int[active.length];
+					}
+					next[n++] = i;
+				}
+			}
+			if (next == null) {
+				return EMPTY;
+			}
+			return n == next.length ? next : Arrays.copyOf(next, n);
+		}
 	}
 }
@@ -1,22 +1,52 @@
 package com.github.fonimus.ssh.shell.postprocess.provided;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.fonimus.ssh.shell.postprocess.PostProcessor;
 import com.github.fonimus.ssh.shell.postprocess.PostProcessorException;
+import com.github.fonimus.ssh.shell.postprocess.WriterPostProcessor;
 import lombok.extern.slf4j.Slf4j;
+import org.jline.utils.AttributedString;
+import org.jline.utils.AttributedStyle;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.List;
 
 /**
- * Pretty json post processor
+ * <p>Pretty json post processor</p>
+ * <p>Object is serialized through a json generator, straight to terminal when it is the last post processor.
+ * Output is colored with <code>--color</code> parameter</p>
  */
 @Slf4j
 public class PrettyJsonPostProcessor
-		implements PostProcessor<Object> {
+		implements PostProcessor<Object>, WriterPostProcessor<Object> {
+
+	public static final String COLOR_PARAMETER = "--color";
 
 	private static final ObjectMapper MAPPER = new ObjectMapper();
 
+	private static final String FIELD_COLOR = ansi(AttributedStyle.BLUE);
+
+	private static final String STRING_COLOR = ansi(AttributedStyle.GREEN);
+
+	private static final String NUMBER_COLOR = ansi(AttributedStyle.CYAN);
+
+	private static final String LITERAL_COLOR = ansi(AttributedStyle.MAGENTA);
+
+	private static final String RESET = "\u001B[0m";
+
+	private static String ansi(int color) {
+		String colored = new AttributedString("x", AttributedStyle.DEFAULT.foreground(color)).toAnsi();
+		return colored.substring(0, colored.indexOf('x'));
+	}
+
 	@Override
 	public String getName() {
 		return "pretty";
@@ -24,11 +54,220 @@ public class PrettyJsonPostProcessor
 
 	@Override
 	public String process(Object result, List<String> parameters) throws PostProcessorException {
-		try {
-			return MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(result);
-		} catch (JsonProcessingException e) {
+		StringWriter writer = new StringWriter();
+		process(result, parameters, writer);
+		return writer.toString();
+	}
+
+	@Override
+	public void process(Object result, List<String> parameters, Writer writer) throws PostProcessorException {
+		boolean color = parameters != null && parameters.contains(COLOR_PARAMETER);
+		try (JsonGenerator generator = generator(writer, color)) {
+			MAPPER.writeValue(generator, result);
+		} catch (IOException e) {
 			LOGGER.warn("Unable to prettify object: {}", result);
 			throw new PostProcessorException("Unable to prettify object. " + e.getMessage(), e);
 		}
 	}
+
+	private static JsonGenerator generator(Writer writer, boolean color) throws IOException {
+		// generator buffer is recycled by jackson between calls, writer is not closed with generator
+		JsonGenerator generator = MAPPER.getFactory().createGenerator(writer)
+				.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		if (!color) {
+			return generator.setPrettyPrinter(new DefaultPrettyPrinter());
+		}
+		ColoredPrettyPrinter printer = new ColoredPrettyPrinter();
+		generator.setPrettyPrinter(printer);
+		return new ColoredGenerator(generator, printer);
+	}
+
+	/**
+	 * Pretty printer writing pending color after separators, just before next token
+	 */
+	private static class ColoredPrettyPrinter
+			extends DefaultPrettyPrinter {
+
+		private static final long serialVersionUID = 1L;
+
+		private String pending;
+
+		private boolean written;
+
+		private void color(JsonGenerator g) throws IOException {
+			if (pending != null) {
+				g.writeRaw(pending);
+				pending = null;
+				written = true;
+			}
+		}
+
+		@Override
+		public void writeRootValueSeparator(JsonGenerator g) throws IOException {
+			super.writeRootValueSeparator(g);
+			color(g);
+		}
+
+		@Override
+		public void beforeObjectEntries(JsonGenerator g) throws IOException {
+			super.beforeObjectEntries(g);
+			color(g);
+		}
+
+		@Override
+		public void writeObjectFieldValueSeparator(JsonGenerator g) throws IOException {
+			super.writeObjectFieldValueSeparator(g);
+			color(g);
+		}
+
+		@Override
+		public void writeObjectEntrySeparator(JsonGenerator g) throws IOException {
+			super.writeObjectEntrySeparator(g);
+			color(g);
+		}
+
+		@Override
+		public void beforeArrayValues(JsonGenerator g) throws IOException {
+			super.beforeArrayValues(g);
+			color(g);
+		}
+
+		@Override
+		public void writeArrayValueSeparator(JsonGenerator g) throws IOException {
+			super.writeArrayValueSeparator(g);
+			color(g);
+		}
+	}
+
+	/**
+	 * Generator surrounding field names and scalar values with ansi colors
+	 */
+	private static class ColoredGenerator
+			extends JsonGeneratorDelegate {
+
+		private final ColoredPrettyPrinter printer;
+
+		private ColoredGenerator(JsonGenerator delegate, ColoredPrettyPrinter printer) {
+			super(delegate, false);
+			this.printer = printer;
+		}
+
+		private void before(String color) {
+			printer.pending = color;
+			printer.written = false;
+		}
+
+		private void after() throws IOException {
+			if (printer.written) {
+				delegate.writeRaw(RESET);
+			}
+			printer.pending = null;
+			printer.written = false;
+		}
+
+		@Override
+		public void writeFieldName(String name) throws IOException {
+			before(FIELD_COLOR);
+			delegate.writeFieldName(name);
+			after();
+		}
+
+		@Override
+		public void writeFieldName(SerializableString name) throws IOException {
+			before(FIELD_COLOR);
+			delegate.writeFieldName(name);
+			after();
+		}
+
+		@Override
+		public void writeString(String text) throws IOException {
+			before(STRING_COLOR);
+			delegate.writeString(text);
+			after();
+		}
+
+		@Override
+		public void writeString(char[] text, int offset, int len) throws IOException {
+			before(STRING_COLOR);
+			delegate.writeString(text, offset, len);
+			after();
+		}
+
+		@Override
+		public void writeString(SerializableString text) throws IOException {
+			before(STRING_COLOR);
+			delegate.writeString(text);
+			after();
+		}
+
+		@Override
+		public void writeNumber(short v) throws IOException {
+			before(NUMBER_COLOR);
+			delegate.writeNumber(v);
+			after();
+		}
+
+		@Override
+		public void writeNumber(int v) throws IOException {
+			before(NUMBER_COLOR);
+			delegate.writeNumber(v);
+			after();
+		}
+
+		@Override
+		public void writeNumber(long v) throws IOException {
+			before(NUMBER_COLOR);
+			delegate.writeNumber(v);
+			after();
+		}
+
+		@Override
+		public void writeNumber(BigInteger v) throws IOException {
+			before(NUMBER_COLOR);
+			delegate.writeNumber(v);
+			after();
+		}
+
+		@Override
+		public void writeNumber(double v) throws IOException {
+			before(NUMBER_COLOR);
+			delegate.writeNumber(v);
+			after();
+		}
+
+		@Override
+		public void writeNumber(float v) throws IOException {
+			before(NUMBER_COLOR);
+			delegate.writeNumber(v);
+			after();
+		}
+
+		@Override
+		public void writeNumber(BigDecimal v) throws IOException {
+			before(NUMBER_COLOR);
+			delegate.writeNumber(v);
+			after();
+		}
+
+		@Override
+		public void writeNumber(String encodedValue) throws IOException {
+			before(NUMBER_COLOR);
+			delegate.writeNumber(encodedValue);
+			after();
+		}
+
+		@Override
+		public void writeBoolean(boolean state) throws IOException {
+			before(LITERAL_COLOR);
+			delegate.writeBoolean(state);
+			after();
+		}
+
+		@Override
+		public void writeNull() throws IOException {
+			before(LITERAL_COLOR);
+			delegate.writeNull();
+			after();
+		}
+	}
 }
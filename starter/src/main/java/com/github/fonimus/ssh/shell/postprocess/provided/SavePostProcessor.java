@@ -1,21 +1,42 @@
 package com.github.fonimus.ssh.shell.postprocess.provided;
 
+import com.github.fonimus.ssh.shell.postprocess.AsyncFileSink;
+import com.github.fonimus.ssh.shell.postprocess.LineStreams;
 import com.github.fonimus.ssh.shell.postprocess.PostProcessor;
 import com.github.fonimus.ssh.shell.postprocess.PostProcessorException;
+import com.github.fonimus.ssh.shell.postprocess.StreamingPostProcessor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.unit.DataSize;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.file.FileAlreadyExistsException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
+/**
+ * <p>Save post processor</p>
+ * <p>Lines are stripped from ansi sequences and written to file from a background thread, result is reported once
+ * file is fully written. Options, after file path:</p>
+ * <ul>
+ * <li>--append: append to file if it exists, else file must not exist</li>
+ * <li>--gzip: compress output, default when file name ends with <code>.gz</code></li>
+ * <li>--max-size size: start a new file, suffixed by its index, once size is reached (example: 10MB)</li>
+ * </ul>
+ */
 @Slf4j
 public class SavePostProcessor
-		implements PostProcessor<String> {
+		implements PostProcessor<String>, StreamingPostProcessor {
 
 	public static final String SAVE = "save";
 
+	public static final String APPEND_OPTION = "--append";
+
+	public static final String GZIP_OPTION = "--gzip";
+
+	public static final String MAX_SIZE_OPTION = "--max-size";
+
 	@Override
 	public String getName() {
 		return SAVE;
@@ -23,29 +44,63 @@ public class SavePostProcessor
 
 	@Override
 	public String process(String result, List<String> parameters) throws PostProcessorException {
+		return LineStreams.join(process(LineStreams.lines(result), parameters));
+	}
+
+	@Override
+	public Stream<CharSequence> process(Stream<CharSequence> lines, List<String> parameters) throws PostProcessorException {
 		if (parameters == null || parameters.isEmpty()) {
 			throw new PostProcessorException("Cannot save without file path !");
-		} else {
-			if (parameters.size() != 1) {
-				LOGGER.debug("[{}] post processor only need one parameter, rest will be ignored", getName());
-			}
-			String path = parameters.get(0);
-			if (path == null || path.isEmpty()) {
-				throw new PostProcessorException("Cannot save without file path !");
-			}
-			File file = new File(path);
-			try {
-				if (file.exists()) {
-					throw new PostProcessorException("File already exists: " + file.getAbsolutePath());
+		}
+		String path = parameters.get(0);
+		if (path == null || path.isEmpty()) {
+			throw new PostProcessorException("Cannot save without file path !");
+		}
+		boolean append = false;
+		boolean gzip = path.endsWith(AsyncFileSink.GZIP_EXTENSION);
+		long maxSize = 0;
+		for (int i = 1; i < parameters.size(); i++) {
+			String parameter = parameters.get(i);
+			if (APPEND_OPTION.equals(parameter)) {
+				append = true;
+			} else if (GZIP_OPTION.equals(parameter)) {
+				gzip = true;
+			} else if (MAX_SIZE_OPTION.equals(parameter) && i + 1 < parameters.size()) {
+				try {
+					maxSize = DataSize.parse(parameters.get(++i)).toBytes();
+				} catch (IllegalArgumentException e) {
+					throw new PostProcessorException("Invalid size for option [" + MAX_SIZE_OPTION + "]: " + parameters.get(i), e);
 				}
-				String toWrite = result;
-				toWrite = toWrite.replaceAll("(\\x1b\\x5b|\\x9b)[\\x30-\\x3f]*[\\x20-\\x2f]*[\\x40-\\x7e]", "");
-				Files.write(file.toPath(), toWrite.getBytes(StandardCharsets.UTF_8));
-				return "Result saved to file: " + file.getAbsolutePath();
-			} catch (IOException e) {
-				LOGGER.debug("Unable to write to file: " + file.getAbsolutePath(), e);
-				throw new PostProcessorException("Unable to write to file: " + file.getAbsolutePath() + ". " + e.getMessage(), e);
+			} else {
+				LOGGER.debug("[{}] post processor unknown parameter [{}] will be ignored", getName(), parameter);
+			}
+		}
+		File file = new File(path);
+		if (!append && file.exists()) {
+			throw new PostProcessorException("File already exists: " + file.getAbsolutePath());
+		}
+		AsyncFileSink sink;
+		try {
+			sink = new AsyncFileSink(file.toPath(), append, gzip, maxSize);
+		} catch (FileAlreadyExistsException e) {
+			throw new PostProcessorException("File already exists: " + file.getAbsolutePath(), e);
+		} catch (IOException e) {
+			LOGGER.debug("Unable to write to file: " + file.getAbsolutePath(), e);
+			throw new PostProcessorException("Unable to write to file: " + file.getAbsolutePath() + ". " + e.getMessage(), e);
+		}
+		try (Stream<CharSequence> toWrite = lines) {
+			Iterator<CharSequence> it = toWrite.iterator();
+			while (it.hasNext()) {
+				sink.writeLine(it.next());
 			}
+			// waits for this file only, other sessions have their own writer
+			long size = sink.close();
+			LOGGER.debug("{} bytes written to file: {}", size, file.getAbsolutePath());
+			return Stream.of("Result saved to file: " + file.getAbsolutePath());
+		} catch (IOException | RuntimeException e) {
+			sink.abort();
+			LOGGER.debug("Unable to write to file: " + file.getAbsolutePath(), e);
+			throw new PostProcessorException("Unable to write to file: " + file.getAbsolutePath() + ". " + e.getMessage(), e);
 		}
 	}
 }
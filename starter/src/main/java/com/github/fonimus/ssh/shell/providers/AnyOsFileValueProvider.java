@@ -6,20 +6,39 @@ import org.springframework.shell.CompletionProposal;
 import org.springframework.shell.standard.ValueProviderSupport;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Fixed file value provider (mostly for windows)
  */
-public class AnyOsFileValueProvider extends ValueProviderSupport {
+public class AnyOsFileValueProvider extends ValueProviderSupport implements AutoCloseable {
 
     private boolean replaceAll;
 
+    private DirectoryListingCache cache;
+
+    private int maxProposals;
+
     public AnyOsFileValueProvider(boolean replaceAll) {
+        this(replaceAll, null, 0);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param replaceAll   whether to replace spring shell file value provider for all file parameters
+     * @param cache        (optional) directory listing cache
+     * @param maxProposals maximum number of proposals, 0 or negative for unlimited
+     */
+    public AnyOsFileValueProvider(boolean replaceAll, DirectoryListingCache cache, int maxProposals) {
         this.replaceAll = replaceAll;
+        this.cache = cache;
+        this.maxProposals = maxProposals;
     }
 
     @Override
@@ -37,12 +56,31 @@ public class AnyOsFileValueProvider extends ValueProviderSupport {
         File currentDir = lastSlash > -1 ? new File(input.substring(0, lastSlash + 1)) : new File("./");
         String prefix = input.substring(lastSlash + 1);
 
-        File[] files = currentDir.listFiles((dir, name) -> name.startsWith(prefix));
-        if (files == null || files.length == 0) {
-            return Collections.emptyList();
+        Stream<File> files;
+        if (cache != null) {
+            if (!currentDir.isDirectory()) {
+                return Collections.emptyList();
+            }
+            files = cache.list(currentDir, prefix, maxProposals).stream().map(name -> new File(currentDir, name));
+        } else {
+            File[] listed = currentDir.listFiles((dir, name) -> name.startsWith(prefix));
+            if (listed == null || listed.length == 0) {
+                return Collections.emptyList();
+            }
+            files = Arrays.stream(listed);
+            if (maxProposals > 0) {
+                files = files.limit(maxProposals);
+            }
         }
-        return Arrays.stream(files)
+        return files
                 .map(f -> new CompletionProposal(f.getPath().replaceAll("\\\\", "/")))
                 .collect(Collectors.toList());
     }
+
+    @Override
+    public void close() throws IOException {
+        if (cache != null) {
+            cache.close();
+        }
+    }
 }
@@ -0,0 +1,243 @@
+package com.github.fonimus.ssh.shell.providers;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>LRU cache of directory listings, used for file completion</p>
+ * <p>Each listing is kept sorted so that prefix lookups are done by binary search. Listings are kept current
+ * by {@link WatchService} events, and directory last modified time is checked on each lookup for file systems
+ * which do not send events (network file systems for instance)</p>
+ */
+@Slf4j
+public class DirectoryListingCache
+        implements AutoCloseable {
+
+    private final Map<Path, Listing> listings;
+
+    private final WatchService watchService;
+
+    private final Thread watcher;
+
+    /**
+     * Constructor
+     *
+     * @param maxEntries maximum number of cached directories
+     */
+    public DirectoryListingCache(int maxEntries) {
+        this.listings = new LinkedHashMap<Path, Listing>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Listing> eldest) {
+                if (size() > maxEntries) {
+                    eldest.getValue().cancel();
+                    return true;
+                }
+                return false;
+            }
+        };
+        WatchService ws = null;
+        try {
+            ws = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            LOGGER.warn("Unable to create watch service, listings will only be refreshed on directory modification", e);
+        }
+        this.watchService = ws;
+        if (ws != null) {
+            this.watcher = new Thread(this::watch, "ssh-shell-file-watcher");
+            this.watcher.setDaemon(true);
+            this.watcher.start();
+        } else {
+            this.watcher = null;
+        }
+    }
+
+    /**
+     * List file names starting with given prefix
+     *
+     * @param directory    directory to list
+     * @param prefix       file name prefix
+     * @param maxProposals maximum number of names returned, 0 or negative for unlimited
+     * @return sorted file names, empty if directory does not exist
+     */
+    public List<String> list(File directory, String prefix, int maxProposals) {
+        String[] names = listing(directory).names;
+        int from = Arrays.binarySearch(names, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int max = maxProposals > 0 ? maxProposals : Integer.MAX_VALUE;
+        List<String> result = new ArrayList<>();
+        for (int i = from; i < names.length && result.size() < max && names[i].startsWith(prefix); i++) {
+            result.add(names[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Get number of cached directories
+     *
+     * @return cached directories
+     */
+    public int size() {
+        synchronized (listings) {
+            return listings.size();
+        }
+    }
+
+    private Listing listing(File directory) {
+        Path path = directory.toPath().toAbsolutePath().normalize();
+        long lastModified = directory.lastModified();
+        synchronized (listings) {
+            Listing listing = listings.get(path);
+            if (listing != null && listing.lastModified == lastModified) {
+                return listing;
+            }
+        }
+        // directory is listed outside of lock, so that a slow directory does not block other completions
+        Listing created = new Listing(directory, lastModified, register(path));
+        synchronized (listings) {
+            Listing current = listings.get(path);
+            if (current != null && current.lastModified == lastModified) {
+                // listed meanwhile by another session, watch key is shared when path is still watched
+                if (current.key != created.key) {
+                    created.cancel();
+                }
+                return current;
+            }
+            if (current != null && current.key != created.key) {
+                current.cancel();
+            }
+            listings.put(path, created);
+            return created;
+        }
+    }
+
+    private WatchKey register(Path path) {
+        if (watchService == null) {
+            return null;
+        }
+        try {
+            return path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException | ClosedWatchServiceException e) {
+            LOGGER.debug("Unable to watch directory: {}", path, e);
+            return null;
+        }
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                Path path = (Path) key.watchable();
+                synchronized (listings) {
+                    Listing listing = listings.get(path);
+                    if (listing != null && listing.key == key) {
+                        boolean valid = true;
+                        for (WatchEvent<?> event : key.pollEvents()) {
+                            valid &= listing.apply(event);
+                        }
+                        if (!valid || !key.reset()) {
+                            listing.cancel();
+                            listings.remove(path);
+                        }
+                    } else {
+                        key.pollEvents();
+                        key.cancel();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            LOGGER.debug("Watch service closed");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+        if (watchService != null) {
+            watchService.close();
+        }
+        synchronized (listings) {
+            listings.clear();
+        }
+    }
+
+    private static class Listing {
+
+        private final File directory;
+
+        private final WatchKey key;
+
+        private volatile long lastModified;
+
+        private volatile String[] names;
+
+        private Listing(File directory, long lastModified, WatchKey key) {
+            this.directory = directory;
+            this.lastModified = lastModified;
+            this.key = key;
+            String[] list = directory.list();
+            if (list == null) {
+                list = new String[0];
+            }
+            Arrays.sort(list);
+            this.names = list;
+        }
+
+        /**
+         * Apply watch event to listing
+         *
+         * @param event watch event
+         * @return false if events were lost and listing has to be rebuilt
+         */
+        private boolean apply(WatchEvent<?> event) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                return false;
+            }
+            String name = event.context().toString();
+            String[] current = names;
+            int index = Arrays.binarySearch(current, name);
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && index < 0) {
+                int insert = -index - 1;
+                String[] updated = new String[current.length + 1];
+                System.arraycopy(current, 0, updated, 0, insert);
+                updated[insert] = name;
+                System.arraycopy(current, insert, updated, insert + 1, current.length - insert);
+                names = updated;
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE && index >= 0) {
+                String[] updated = new String[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, index);
+                System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+                names = updated;
+            }
+            // directory modification time changed with this event, listing is up to date
+            lastModified = directory.lastModified();
+            return true;
+        }
+
+        private void cancel() {
+            if (key != null) {
+                key.cancel();
+            }
+        }
+    }
+}
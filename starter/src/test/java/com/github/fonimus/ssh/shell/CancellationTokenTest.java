@@ -0,0 +1,66 @@
+package com.github.fonimus.ssh.shell;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CancellationTokenTest {
+
+    @Test
+    void cancel() {
+        CancellationToken token = new CancellationToken(null);
+        AtomicInteger callbacks = new AtomicInteger();
+        token.onCancel(callbacks::incrementAndGet);
+        assertFalse(token.isCancelled());
+        token.throwIfCancelled();
+
+        token.cancel();
+        token.cancel();
+        assertTrue(token.isCancelled());
+        assertEquals(1, callbacks.get());
+        assertThrows(CancellationException.class, token::throwIfCancelled);
+
+        // already cancelled, called immediately
+        token.onCancel(callbacks::incrementAndGet);
+        assertEquals(2, callbacks.get());
+    }
+
+    @Test
+    void cancelInterruptsCommand() throws Exception {
+        SshContext ctx = new SshContext(null, null, null, null);
+        assertFalse(ctx.cancel());
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch ended = new CountDownLatch(1);
+        boolean[] interrupted = new boolean[2];
+        Thread command = new Thread(() -> {
+            CancellationToken token = ctx.startCommand();
+            started.countDown();
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException e) {
+                interrupted[0] = token.isCancelled();
+                // flag is restored, as a command catching interruption would do
+                Thread.currentThread().interrupt();
+            } finally {
+                ctx.endCommand(token);
+                interrupted[1] = Thread.currentThread().isInterrupted();
+                ended.countDown();
+            }
+        });
+        command.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertSame(ctx.getCancellationToken(), ctx.getCancellationToken());
+        assertTrue(ctx.cancel());
+        assertTrue(ended.await(5, TimeUnit.SECONDS));
+        assertTrue(interrupted[0]);
+        // interruption is not leaked after command
+        assertFalse(interrupted[1]);
+        assertNull(ctx.getCancellationToken());
+    }
+}
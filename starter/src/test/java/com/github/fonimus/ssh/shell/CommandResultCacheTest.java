@@ -0,0 +1,242 @@
+package com.github.fonimus.ssh.shell;
+
+import com.github.fonimus.ssh.shell.auth.SshAuthentication;
+import com.github.fonimus.ssh.shell.commands.SshShellCacheable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.shell.Availability;
+import org.springframework.shell.Command;
+import org.springframework.shell.MethodTarget;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandResultCacheTest {
+
+    private final AtomicInteger evaluations = new AtomicInteger();
+
+    private final AtomicReference<Availability> availability = new AtomicReference<>(Availability.available());
+
+    private Map<String, MethodTarget> commands;
+
+    @BeforeEach
+    void setUp() {
+        Commands bean = new Commands();
+        commands = new HashMap<>();
+        commands.put("cached", MethodTarget.of("cached", bean, new Command.Help("cached")));
+        commands.put("cached sub", new MethodTarget(method("cached"), bean, "cached sub", availability::get));
+        commands.put("expired", MethodTarget.of("expired", bean, new Command.Help("expired")));
+        commands.put("not-cached", MethodTarget.of("notCached", bean, new Command.Help("not cached")));
+    }
+
+    private static Method method(String name) {
+        try {
+            return Commands.class.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Supplier<Object> evaluation() {
+        return () -> "result-" + evaluations.incrementAndGet();
+    }
+
+    @Test
+    void cacheHitsAndMisses() {
+        CommandResultCache cache = new CommandResultCache(10, null);
+        Object first = cache.evaluate(commands, Arrays.asList("cached", "arg"), evaluation());
+        assertEquals(first, cache.evaluate(commands, Arrays.asList("cached", "arg"), evaluation()));
+        assertNotEquals(first, cache.evaluate(commands, Arrays.asList("cached", "other"), evaluation()));
+        assertEquals(2, evaluations.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.entries().size());
+        assertEquals(1, cache.entries().get(0).getHits());
+    }
+
+    @Test
+    void quotedArguments() {
+        CommandResultCache cache = new CommandResultCache(10, null);
+        Object quoted = cache.evaluate(commands, Arrays.asList("cached", "a b"), evaluation());
+        assertNotEquals(quoted, cache.evaluate(commands, Arrays.asList("cached", "a", "b"), evaluation()));
+        assertEquals(quoted, cache.evaluate(commands, Arrays.asList("cached", "a b"), evaluation()));
+        assertEquals(2, evaluations.get());
+
+        assertEquals("cached \"a b\" a b", CommandResultCache.key(Arrays.asList("cached", "a b", "a", "b")));
+        assertEquals("cached \"\" \"say \\\"hi\\\"\" \"c:\\\\\"",
+                CommandResultCache.key(Arrays.asList("cached", "", "say \"hi\"", "c:\\")));
+    }
+
+    @Test
+    void scopedByUser() {
+        CommandResultCache cache = new CommandResultCache(10, null);
+        SshAuthentication admin = new SshAuthentication("admin", null, null, Arrays.asList("ADMIN", "ACTUATOR"));
+        SshAuthentication sameAdmin = new SshAuthentication("admin", null, null, Arrays.asList("ACTUATOR", "ADMIN"));
+        SshAuthentication user = new SshAuthentication("user", null, null, Collections.singletonList("ACTUATOR"));
+        Object adminResult = cache.evaluate(commands, Collections.singletonList("cached"), admin, evaluation());
+        assertEquals(adminResult, cache.evaluate(commands, Collections.singletonList("cached"), sameAdmin, evaluation()));
+        assertNotEquals(adminResult, cache.evaluate(commands, Collections.singletonList("cached"), user, evaluation()));
+        assertNotEquals(adminResult, cache.evaluate(commands, Collections.singletonList("cached"), evaluation()));
+        assertEquals(3, evaluations.get());
+        assertEquals(3, cache.entries().size());
+        assertEquals("admin[ACTUATOR, ADMIN]", cache.entries().get(0).getUser());
+        assertEquals(3, cache.flush("cached"));
+    }
+
+    @Test
+    void concurrentMissesEvaluatedOnce() throws Exception {
+        CommandResultCache cache = new CommandResultCache(10, null);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> first = executor.submit(() -> cache.evaluate(commands, Collections.singletonList("cached"), () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return evaluation().get();
+            }));
+            started.await();
+            Future<Object> second = executor.submit(() -> cache.evaluate(commands, Collections.singletonList("cached"), evaluation()));
+            Thread.sleep(100);
+            assertFalse(second.isDone());
+            release.countDown();
+            assertEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, evaluations.get());
+            assertEquals(1, cache.getMisses());
+            assertEquals(1, cache.getHits());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void invalidTtl() {
+        Map<String, MethodTarget> invalid = new HashMap<>(commands);
+        invalid.put("invalid", MethodTarget.of("invalid", new InvalidCommands(), new Command.Help("invalid")));
+        CommandResultCache cache = new CommandResultCache(10, null);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> cache.validate(invalid));
+        assertTrue(e.getMessage().contains("[invalid]"));
+        cache.validate(commands);
+    }
+
+    @Test
+    void notCached() {
+        CommandResultCache cache = new CommandResultCache(10, null);
+        cache.evaluate(commands, Collections.singletonList("not-cached"), evaluation());
+        cache.evaluate(commands, Collections.singletonList("not-cached"), evaluation());
+        cache.evaluate(commands, Collections.singletonList("unknown"), evaluation());
+        assertEquals(3, evaluations.get());
+        assertTrue(cache.entries().isEmpty());
+
+        // exceptions and null results are not cached
+        cache.evaluate(commands, Collections.singletonList("cached"), () -> new IllegalStateException("error"));
+        cache.evaluate(commands, Collections.singletonList("cached"), () -> null);
+        assertTrue(cache.entries().isEmpty());
+    }
+
+    @Test
+    void configuredTtl() {
+        Map<String, Duration> ttls = new HashMap<>();
+        ttls.put("cached", Duration.ZERO);
+        ttls.put("not-cached", Duration.ofMinutes(1));
+        CommandResultCache cache = new CommandResultCache(10, ttls);
+        cache.evaluate(commands, Collections.singletonList("cached"), evaluation());
+        cache.evaluate(commands, Collections.singletonList("cached"), evaluation());
+        cache.evaluate(commands, Collections.singletonList("not-cached"), evaluation());
+        cache.evaluate(commands, Collections.singletonList("not-cached"), evaluation());
+        assertEquals(3, evaluations.get());
+    }
+
+    @Test
+    void zeroTtl() {
+        CommandResultCache cache = new CommandResultCache(10, null);
+        cache.evaluate(commands, Collections.singletonList("expired"), evaluation());
+        cache.evaluate(commands, Collections.singletonList("expired"), evaluation());
+        assertEquals(2, evaluations.get());
+        assertTrue(cache.entries().isEmpty());
+    }
+
+    @Test
+    void longestCommandAndAvailability() {
+        CommandResultCache cache = new CommandResultCache(10, null);
+        cache.evaluate(commands, Arrays.asList("cached", "sub"), evaluation());
+        assertEquals("cached sub", cache.entries().get(0).getCommand());
+
+        availability.set(Availability.unavailable("test"));
+        cache.evaluate(commands, Arrays.asList("cached", "sub"), evaluation());
+        assertEquals(2, evaluations.get());
+    }
+
+    @Test
+    void eviction() {
+        CommandResultCache cache = new CommandResultCache(2, null);
+        cache.evaluate(commands, Arrays.asList("cached", "1"), evaluation());
+        cache.evaluate(commands, Arrays.asList("cached", "2"), evaluation());
+        // 1 is now most recently used
+        cache.evaluate(commands, Arrays.asList("cached", "1"), evaluation());
+        cache.evaluate(commands, Arrays.asList("cached", "3"), evaluation());
+        assertEquals(2, cache.entries().size());
+        assertEquals("cached 1", cache.entries().get(0).getKey());
+        assertEquals("cached 3", cache.entries().get(1).getKey());
+    }
+
+    @Test
+    void flush() {
+        CommandResultCache cache = new CommandResultCache(10, null);
+        cache.evaluate(commands, Arrays.asList("cached", "1"), evaluation());
+        cache.evaluate(commands, Arrays.asList("cached", "2"), evaluation());
+        cache.evaluate(commands, Arrays.asList("cached", "sub"), evaluation());
+        assertEquals(1, cache.flush("cached 1"));
+        assertEquals(1, cache.flush("cached"));
+        assertEquals(0, cache.flush("unknown"));
+        assertEquals(1, cache.flush(null));
+        assertTrue(cache.entries().isEmpty());
+    }
+
+    public static class InvalidCommands {
+
+        @SshShellCacheable(ttl = "one hour")
+        public String invalid() {
+            return "invalid";
+        }
+    }
+
+    public static class Commands {
+
+        @SshShellCacheable(ttl = "1h")
+        public String cached() {
+            return "cached";
+        }
+
+        @SshShellCacheable(ttl = "0s")
+        public String expired() {
+            return "expired";
+        }
+
+        public String notCached() {
+            return "not-cached";
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.fonimus.ssh.shell;
+
+import org.jline.utils.AttributedString;
+import org.jline.utils.AttributedStyle;
+import org.junit.jupiter.api.Test;
+import org.springframework.shell.MethodTarget;
+import org.springframework.shell.Shell;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CommandTrieTest {
+
+    @Test
+    void longestPrefix() {
+        CommandTrie trie = new CommandTrie(Arrays.asList("jvm", "jvm-env", "jvm-properties", "threads", "", null, "jvm"));
+        assertEquals(4, trie.size());
+        assertEquals(0, trie.longestPrefix(""));
+        assertEquals(0, trie.longestPrefix("jv"));
+        assertEquals(3, trie.longestPrefix("jvm"));
+        assertEquals(3, trie.longestPrefix("jvm-e"));
+        assertEquals(7, trie.longestPrefix("jvm-env --simple-view"));
+        assertEquals(7, trie.longestPrefix("threads"));
+        assertEquals(0, trie.longestPrefix("unknown"));
+    }
+
+    @Test
+    void highlighter() {
+        Map<String, MethodTarget> commands = new HashMap<>();
+        commands.put("jvm-env", null);
+        Shell shell = mock(Shell.class);
+        when(shell.listCommands()).thenReturn(commands);
+        CommandHighlighter highlighter = new CommandHighlighter(shell);
+
+        AttributedString known = highlighter.highlight(null, "jvm-env true");
+        assertEquals("jvm-env true", known.toString());
+        assertEquals(AttributedStyle.BOLD, known.styleAt(0));
+        assertEquals(AttributedStyle.DEFAULT, known.styleAt(8));
+
+        AttributedString unknown = highlighter.highlight(null, "threads");
+        assertEquals(AttributedStyle.DEFAULT.foreground(AttributedStyle.RED), unknown.styleAt(0));
+
+        // trie is rebuilt when commands change
+        commands.put("threads", null);
+        assertEquals(AttributedStyle.BOLD, highlighter.highlight(null, "threads").styleAt(0));
+    }
+}
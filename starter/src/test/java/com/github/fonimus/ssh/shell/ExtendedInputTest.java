@@ -3,6 +3,8 @@ package com.github.fonimus.ssh.shell;
 import org.junit.jupiter.api.Test;
 import org.springframework.shell.Input;
 
+import java.util.Arrays;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
@@ -21,7 +23,8 @@ class ExtendedInputTest {
         assertEquals(input.words(), i.words());
         i = new ExtendedInput(inputWithQuotes);
         assertEquals(inputWithQuotes.rawText(), i.rawText());
-        assertEquals(inputWithQuotes.words(), i.words());
+        // quotes are removed, like spring shell parser does
+        assertEquals(Arrays.asList("one,", "two", "three"), i.words());
     }
 
     @Test
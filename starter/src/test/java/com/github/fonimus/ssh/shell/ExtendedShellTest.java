@@ -3,12 +3,22 @@ package com.github.fonimus.ssh.shell;
 import com.github.fonimus.ssh.shell.postprocess.PostProcessorObject;
 import com.github.fonimus.ssh.shell.postprocess.provided.GrepPostProcessor;
 import com.github.fonimus.ssh.shell.postprocess.provided.SavePostProcessor;
+import com.github.fonimus.ssh.shell.jobs.Job;
+import com.github.fonimus.ssh.shell.jobs.JobExecutor;
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import static com.github.fonimus.ssh.shell.SshShellCommandFactory.SSH_THREAD_CONTEXT;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 class ExtendedShellTest {
 
@@ -27,6 +37,44 @@ class ExtendedShellTest {
         assertEquals(2, postProcessors.size());
         assertInList(postProcessors, new GrepPostProcessor().getName());
         assertInList(postProcessors, new SavePostProcessor().getName());
+
+        shell.evaluate(() -> "one two three >> /tmp/file --max-size 10MB");
+        postProcessors = SSH_THREAD_CONTEXT.get().getPostProcessorsList();
+        assertEquals(1, postProcessors.size());
+        assertEquals(SavePostProcessor.SAVE, postProcessors.get(0).getName());
+        assertEquals(Arrays.asList("/tmp/file", "--max-size", "10MB", SavePostProcessor.APPEND_OPTION), postProcessors.get(0).getParameters());
+    }
+
+    @Test
+    void evaluateBackground() throws Exception {
+        Terminal terminal = mock(Terminal.class);
+        when(terminal.getType()).thenReturn("xterm");
+        when(terminal.getSize()).thenReturn(new Size(80, 24));
+        SshContext ctx = new SshContext(null, terminal, null, null);
+        SSH_THREAD_CONTEXT.set(ctx);
+        List<SshContext> resultContexts = new CopyOnWriteArrayList<>();
+        ExtendedShell shell = new ExtendedShell(result -> resultContexts.add(SSH_THREAD_CONTEXT.get()), new PipelineParser(),
+                null, new JobExecutor(new SshShellProperties.Jobs()));
+
+        assertEquals("[1] one two | grep test", shell.evaluate(() -> "one two | grep test &"));
+        // post processors apply to job, not to session
+        assertNull(ctx.getPostProcessorsList());
+        Job job = ctx.getJobs().get(1);
+        assertNotNull(job);
+        await().atMost(5, TimeUnit.SECONDS).until(job::isDone);
+        // unknown command
+        assertEquals(Job.JobStatus.FAILED, job.getStatus());
+        assertEquals(1, resultContexts.size());
+        assertNotSame(ctx, resultContexts.get(0));
+        assertEquals(1, resultContexts.get(0).getPostProcessorsList().size());
+
+        // without executor, command runs in foreground
+        shell = new ExtendedShell(result -> {
+            // do nothing
+        });
+        shell.evaluate(() -> "one two | grep test &");
+        assertEquals(1, ctx.getJobs().size());
+        assertEquals(1, ctx.getPostProcessorsList().size());
     }
 
     private void assertInList(List<PostProcessorObject> postProcessors, String name) {
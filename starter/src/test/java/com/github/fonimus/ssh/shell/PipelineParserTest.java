@@ -0,0 +1,96 @@
+package com.github.fonimus.ssh.shell;
+
+import com.github.fonimus.ssh.shell.postprocess.PostProcessorObject;
+import com.github.fonimus.ssh.shell.postprocess.provided.SavePostProcessor;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineParserTest {
+
+    private final PipelineParser parser = new PipelineParser();
+
+    @Test
+    void parseCommandOnly() {
+        Pipeline pipeline = parser.parse("one  two three");
+        assertEquals("one  two three", pipeline.getCommandText());
+        assertEquals(Arrays.asList("one", "two", "three"), pipeline.getCommandWords());
+        assertFalse(pipeline.hasPostProcessors());
+
+        assertTrue(parser.parse("").getCommandWords().isEmpty());
+        assertTrue(parser.parse(null).getCommandWords().isEmpty());
+    }
+
+    @Test
+    void parseQuotes() {
+        Pipeline pipeline = parser.parse("echo 'a | b' \"c > d\" \\| e\\ f \"\" | grep \"x y\"");
+        assertEquals(Arrays.asList("echo", "a | b", "c > d", "|", "e f", ""), pipeline.getCommandWords());
+        assertEquals("echo 'a | b' \"c > d\" \\| e\\ f \"\" ", pipeline.getCommandText());
+        assertEquals(1, pipeline.getPostProcessors().size());
+        assertEquals("grep", pipeline.getPostProcessors().get(0).getName());
+        assertEquals(Collections.singletonList("x y"), pipeline.getPostProcessors().get(0).getParameters());
+
+        // not closed quote
+        assertEquals(Arrays.asList("echo", "a | b"), parser.parse("echo \"a | b").getCommandWords());
+    }
+
+    @Test
+    void parsePostProcessors() {
+        Pipeline pipeline = parser.parse("cmd arg | grep -i a b | pretty > file.txt --gzip >> other.txt 2> errors.txt");
+        assertEquals(Arrays.asList("cmd", "arg"), pipeline.getCommandWords());
+        assertEquals("cmd arg ", pipeline.getCommandText());
+        assertEquals(4, pipeline.getPostProcessors().size());
+        assertPostProcessor(pipeline.getPostProcessors().get(0), "grep", "-i", "a", "b");
+        assertPostProcessor(pipeline.getPostProcessors().get(1), "pretty");
+        assertPostProcessor(pipeline.getPostProcessors().get(2), SavePostProcessor.SAVE, "file.txt", "--gzip");
+        assertPostProcessor(pipeline.getPostProcessors().get(3), SavePostProcessor.SAVE, "other.txt", SavePostProcessor.APPEND_OPTION);
+        assertPostProcessor(pipeline.getErrorPostProcessor(), SavePostProcessor.SAVE, "errors.txt");
+
+        pipeline = parser.parse("cmd 2>> errors.txt |");
+        assertTrue(pipeline.getPostProcessors().isEmpty());
+        assertPostProcessor(pipeline.getErrorPostProcessor(), SavePostProcessor.SAVE, "errors.txt", SavePostProcessor.APPEND_OPTION);
+    }
+
+    @Test
+    void parseBackground() {
+        Pipeline pipeline = parser.parse("cmd arg | grep a > file.txt &");
+        assertTrue(pipeline.isBackground());
+        assertEquals(Arrays.asList("cmd", "arg"), pipeline.getCommandWords());
+        assertEquals(2, pipeline.getPostProcessors().size());
+        assertPostProcessor(pipeline.getPostProcessors().get(1), SavePostProcessor.SAVE, "file.txt");
+
+        pipeline = parser.parse("cmd arg &");
+        assertTrue(pipeline.isBackground());
+        assertEquals("cmd arg ", pipeline.getCommandText());
+        assertEquals(Arrays.asList("cmd", "arg"), pipeline.getCommandWords());
+
+        // only unquoted last word
+        assertFalse(parser.parse("cmd '&'").isBackground());
+        assertFalse(parser.parse("cmd & arg").isBackground());
+        assertEquals(Arrays.asList("cmd", "&", "arg"), parser.parse("cmd & arg").getCommandWords());
+    }
+
+    @Test
+    void parseCached() {
+        PipelineParser cached = new PipelineParser(2);
+        Pipeline pipeline = cached.parse("a | grep b");
+        assertSame(pipeline, cached.parse("a | grep b"));
+        cached.parse("b");
+        cached.parse("c");
+        assertEquals(2, cached.cacheSize());
+        assertNotSame(pipeline, cached.parse("a | grep b"));
+
+        PipelineParser notCached = new PipelineParser(0);
+        assertNotSame(notCached.parse("a"), notCached.parse("a"));
+        assertEquals(0, notCached.cacheSize());
+    }
+
+    private static void assertPostProcessor(PostProcessorObject postProcessor, String name, String... parameters) {
+        assertNotNull(postProcessor);
+        assertEquals(name, postProcessor.getName());
+        assertEquals(Arrays.asList(parameters), postProcessor.getParameters());
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.fonimus.ssh.shell;
+
+import org.apache.sshd.server.command.Command;
+import org.jline.reader.Parser;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.Banner;
+import org.springframework.core.env.Environment;
+import org.springframework.shell.Shell;
+import org.springframework.shell.jline.JLineShellAutoConfiguration;
+import org.springframework.shell.jline.PromptProvider;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SshShellCommandFactoryTest {
+
+    private static SshShellCommandFactory factory(Banner banner) {
+        return new SshShellCommandFactory(banner, mock(PromptProvider.class), mock(Shell.class),
+                mock(JLineShellAutoConfiguration.CompleterAdapter.class), mock(Parser.class), mock(Environment.class),
+                new File("target/history.log"), new SshShellProperties(),
+                new SshShellSessionExecutor(new SshShellProperties.SessionExecutor()));
+    }
+
+    @Test
+    void createNewCommandPerChannel() throws Exception {
+        Banner banner = mock(Banner.class);
+        SshShellCommandFactory factory = factory(banner);
+        Command firstCommand = factory.create();
+        Command secondCommand = factory.create();
+        assertTrue(firstCommand instanceof SshShellRunnable);
+        assertTrue(secondCommand instanceof SshShellRunnable);
+        assertNotSame(firstCommand, secondCommand);
+        SshShellRunnable first = (SshShellRunnable) firstCommand;
+        SshShellRunnable second = (SshShellRunnable) secondCommand;
+
+        // shared objects are built once by factory
+        assertSame(first.getFactory().getHighlighter(), second.getFactory().getHighlighter());
+        assertSame(first.getFactory().bannerBytes(), second.getFactory().bannerBytes());
+        verify(banner, times(1)).printBanner(any(), any(), any());
+
+        // session state is kept per command
+        InputStream firstIn = new ByteArrayInputStream(new byte[0]);
+        OutputStream firstOut = new ByteArrayOutputStream();
+        first.setInputStream(firstIn);
+        first.setOutputStream(firstOut);
+        second.setInputStream(new ByteArrayInputStream(new byte[0]));
+        second.setOutputStream(new ByteArrayOutputStream());
+        assertSame(firstIn, first.getInputStream());
+        assertSame(firstOut, first.getOutputStream());
+        assertNotSame(first.getInputStream(), second.getInputStream());
+        assertNotSame(first.getOutputStream(), second.getOutputStream());
+    }
+
+    @Test
+    void bannerPrintedOnce() throws Exception {
+        Banner banner = mock(Banner.class);
+        doAnswer(invocation -> {
+            ((java.io.PrintStream) invocation.getArgument(2)).print("banner");
+            return null;
+        }).when(banner).printBanner(any(), any(), any());
+        SshShellCommandFactory factory = factory(banner);
+        assertEquals("banner", new String(factory.bannerBytes()));
+        assertEquals("banner", new String(factory.bannerBytes()));
+        verify(banner, times(1)).printBanner(any(), any(), any());
+
+        assertEquals(0, factory(null).bannerBytes().length);
+    }
+}
@@ -23,6 +23,21 @@ class SshShellHelperTest extends AbstractShellHelperTest {
 
     private static final String MESSAGE = "The message";
 
+    @Test
+    void cancellation() {
+        assertFalse(h.isCancelled());
+        assertFalse(h.getCancellationToken().isCancelled());
+
+        SshContext ctx = SshShellCommandFactory.SSH_THREAD_CONTEXT.get();
+        CancellationToken token = ctx.startCommand();
+        assertSame(token, h.getCancellationToken());
+        assertTrue(ctx.cancel());
+        assertTrue(h.isCancelled());
+        ctx.endCommand(token);
+        assertFalse(Thread.currentThread().isInterrupted());
+        assertFalse(h.isCancelled());
+    }
+
     @Test
     void confirm() {
         setAnswer("y");
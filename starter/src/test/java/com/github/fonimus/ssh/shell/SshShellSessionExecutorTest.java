@@ -0,0 +1,145 @@
+package com.github.fonimus.ssh.shell;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SshShellSessionExecutorTest {
+
+    private static SshShellProperties.SessionExecutor properties(SshShellProperties.SessionExecutorType type,
+                                                                 int maxSessions, int queueSize) {
+        SshShellProperties.SessionExecutor properties = new SshShellProperties.SessionExecutor();
+        properties.setType(type);
+        properties.setMaxSessions(maxSessions);
+        properties.setQueueSize(queueSize);
+        return properties;
+    }
+
+    @Test
+    void rejectWhenMaxSessionsReached() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        try (SshShellSessionExecutor executor = new SshShellSessionExecutor(
+                properties(SshShellProperties.SessionExecutorType.pool, 1, 0))) {
+            assertFalse(executor.submit(() -> await(latch)));
+            RejectedExecutionException e = assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> {
+            }));
+            assertTrue(e.getMessage().startsWith("Too many ssh sessions (max: 1)"));
+            assertEquals(1, executor.getRejectedSessions());
+            latch.countDown();
+        }
+    }
+
+    @Test
+    void queueWhenMaxSessionsReached() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        CountDownLatch queued = new CountDownLatch(1);
+        try (SshShellSessionExecutor executor = new SshShellSessionExecutor(
+                properties(SshShellProperties.SessionExecutorType.platform, 1, 1))) {
+            assertFalse(executor.submit(() -> await(latch)));
+            assertTrue(executor.submit(queued::countDown));
+            assertEquals(1, executor.getQueuedSessions());
+            assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> {
+            }));
+            latch.countDown();
+            queued.await();
+            assertEquals(0, executor.getQueuedSessions());
+        }
+    }
+
+    @Test
+    void errorReleasesSlot() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        CountDownLatch queued = new CountDownLatch(1);
+        try (SshShellSessionExecutor executor = new SshShellSessionExecutor(
+                properties(SshShellProperties.SessionExecutorType.platform, 1, 1))) {
+            assertFalse(executor.submit(() -> {
+                await(latch);
+                throw new Error("session error");
+            }));
+            assertTrue(executor.submit(queued::countDown));
+            latch.countDown();
+            // queued session is started even though previous one ended with an error
+            assertTrue(queued.await(5, TimeUnit.SECONDS));
+            // error of session thread is expected
+            Awaitility.await().dontCatchUncaughtExceptions().atMost(5, TimeUnit.SECONDS)
+                    .until(() -> executor.getActiveSessions() == 0);
+
+            CountDownLatch next = new CountDownLatch(1);
+            assertFalse(executor.submit(next::countDown));
+            assertTrue(next.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void removeQueuedSession() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        boolean[] run = {false};
+        Runnable queued = () -> run[0] = true;
+        try (SshShellSessionExecutor executor = new SshShellSessionExecutor(
+                properties(SshShellProperties.SessionExecutorType.platform, 1, 1))) {
+            assertFalse(executor.submit(() -> await(latch)));
+            assertTrue(executor.submit(queued));
+            assertTrue(executor.remove(queued));
+            assertFalse(executor.remove(queued));
+            assertEquals(0, executor.getQueuedSessions());
+            latch.countDown();
+            Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> executor.getActiveSessions() == 0);
+            assertFalse(run[0]);
+        }
+    }
+
+    @Test
+    void poolReusesIdleThread() throws Exception {
+        String[] names = new String[2];
+        try (SshShellSessionExecutor executor = new SshShellSessionExecutor(
+                properties(SshShellProperties.SessionExecutorType.pool, 0, 0))) {
+            CountDownLatch first = new CountDownLatch(1);
+            assertFalse(executor.submit(() -> {
+                names[0] = Thread.currentThread().getName();
+                first.countDown();
+            }));
+            first.await();
+            Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> executor.getActiveSessions() == 0
+                    && executor.getExecutor().getActiveCount() == 0);
+            CountDownLatch second = new CountDownLatch(1);
+            assertFalse(executor.submit(() -> {
+                names[1] = Thread.currentThread().getName();
+                second.countDown();
+            }));
+            second.await();
+            assertEquals(names[0], names[1]);
+            assertEquals(1, executor.getExecutor().getLargestPoolSize());
+        }
+    }
+
+    @Test
+    void virtual() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        String[] name = new String[1];
+        try (SshShellSessionExecutor executor = new SshShellSessionExecutor(
+                properties(SshShellProperties.SessionExecutorType.virtual, 0, 0))) {
+            executor.submit(() -> {
+                name[0] = Thread.currentThread().getName();
+                latch.countDown();
+            });
+            latch.await();
+            assertTrue(name[0].startsWith(SshShellSessionExecutor.THREAD_PREFIX));
+            if (System.getProperty("java.version").startsWith("1.")) {
+                assertEquals(SshShellProperties.SessionExecutorType.platform, executor.getType());
+            }
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
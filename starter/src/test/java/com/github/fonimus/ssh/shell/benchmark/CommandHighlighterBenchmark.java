@@ -0,0 +1,63 @@
+package com.github.fonimus.ssh.shell.benchmark;
+
+import com.github.fonimus.ssh.shell.CommandTrie;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare command trie with previous linear scan over all commands, done on each key stroke
+ * <p>Run main method with test classpath</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandHighlighterBenchmark {
+
+    @Param({"50", "600"})
+    private int commandCount;
+
+    @Param({"custom-command-42 --option value", "unknown-command --option value"})
+    private String buffer;
+
+    private Set<String> commands;
+
+    private CommandTrie trie;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CommandHighlighterBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setup() {
+        commands = new LinkedHashSet<>();
+        for (int i = 0; i < commandCount; i++) {
+            commands.add("custom-command-" + i);
+        }
+        trie = new CommandTrie(commands);
+    }
+
+    @Benchmark
+    public int linearScan() {
+        int l = 0;
+        for (String command : commands) {
+            if (buffer.startsWith(command) && command.length() > l) {
+                l = command.length();
+            }
+        }
+        return l;
+    }
+
+    @Benchmark
+    public int trie() {
+        return trie.longestPrefix(buffer);
+    }
+}
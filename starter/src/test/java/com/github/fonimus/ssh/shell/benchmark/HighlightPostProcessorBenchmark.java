@@ -0,0 +1,65 @@
+package com.github.fonimus.ssh.shell.benchmark;
+
+import com.github.fonimus.ssh.shell.PromptColor;
+import com.github.fonimus.ssh.shell.SshShellHelper;
+import com.github.fonimus.ssh.shell.postprocess.provided.HighlightPostProcessor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare single pass highlight with previous one replace all per term, on 10MB input
+ * <p>Run main method with test classpath</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HighlightPostProcessorBenchmark {
+
+    private static final int SIZE = 10 * 1024 * 1024;
+
+    private static final SshShellHelper HELPER = new SshShellHelper();
+
+    private static final List<String> TERMS = Arrays.asList("spring", "boot", "ssh", "shell", "version");
+
+    private String input;
+
+    private HighlightPostProcessor processor;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HighlightPostProcessorBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder(SIZE + 100);
+        for (int i = 0; sb.length() < SIZE; i++) {
+            sb.append("{\"name\":\"ssh-shell-spring-boot-starter\",\"version\":\"1.1.")
+                    .append(i).append("\",\"description\":\"Spring shell over ssh\"}\n");
+        }
+        input = sb.toString();
+        processor = new HighlightPostProcessor();
+    }
+
+    @Benchmark
+    public String replaceAllPerTerm() {
+        String result = input;
+        for (String term : TERMS) {
+            result = result.replaceAll(term, HELPER.getBackgroundColored(term, PromptColor.YELLOW));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public String singlePass() {
+        return processor.process(input, TERMS);
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import com.github.fonimus.ssh.shell.AbstractShellHelperTest;
+import com.github.fonimus.ssh.shell.CommandResultCache;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheCommandTest extends AbstractShellHelperTest {
+
+    @Test
+    void cache() {
+        CacheCommand command = new CacheCommand(new CommandResultCache(10, null), h);
+        assertTrue(command.cacheAvailability().isAvailable());
+        assertTrue(command.cache(CacheCommand.CacheAction.LIST, null).startsWith("Entries: 0/10"));
+        assertTrue(command.cache(CacheCommand.CacheAction.FLUSH, null).contains("0 cache entries flushed"));
+    }
+
+    @Test
+    void cacheDisabled() {
+        assertFalse(new CacheCommand((CommandResultCache) null, h).cacheAvailability().isAvailable());
+    }
+}
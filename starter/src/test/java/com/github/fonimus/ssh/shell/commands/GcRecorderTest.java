@@ -0,0 +1,68 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GcRecorderTest {
+
+    @Test
+    void ringBuffer() {
+        GcRecorder recorder = new GcRecorder(3);
+        assertTrue(recorder.last(10).isEmpty());
+        for (int i = 0; i < 5; i++) {
+            recorder.add(new GcRecorder.GcPause(i, "gc", "end of minor GC", "test", i, 0, 0));
+        }
+        assertEquals(5, recorder.getCount());
+        List<GcRecorder.GcPause> last = recorder.last(10);
+        assertEquals(3, last.size());
+        assertEquals(4, last.get(0).getTime());
+        assertEquals(2, last.get(2).getTime());
+        assertEquals(1, recorder.last(1).size());
+        assertTrue(recorder.last(0).isEmpty());
+        assertEquals(4, last.get(0).getSequence());
+    }
+
+    @Test
+    void claimedSlotSkipped() throws Exception {
+        GcRecorder recorder = new GcRecorder(3);
+        for (int i = 0; i < 3; i++) {
+            recorder.add(new GcRecorder.GcPause(i, "gc", "end of minor GC", "test", i, 0, 0));
+        }
+        // slot of pause 3 is claimed by a writer which has not published yet, it still holds pause 0
+        Field cursor = GcRecorder.class.getDeclaredField("cursor");
+        cursor.setAccessible(true);
+        ((AtomicLong) cursor.get(recorder)).incrementAndGet();
+        List<GcRecorder.GcPause> last = recorder.last(3);
+        assertEquals(2, last.size());
+        assertEquals(2, last.get(0).getTime());
+        assertEquals(1, last.get(1).getTime());
+    }
+
+    @Test
+    void watch() {
+        GcRecorder recorder = new GcRecorder(16);
+        try (GcRecorder.Watch watch = recorder.watch()) {
+            System.gc();
+            await().atMost(5, TimeUnit.SECONDS).until(() -> recorder.getCount() > 0);
+            GcRecorder.GcPause pause = recorder.last(1).get(0);
+            assertNotNull(pause.getCollector());
+            // gc start time, not notification time
+            assertTrue(pause.getTime() >= ManagementFactory.getRuntimeMXBean().getStartTime());
+            assertTrue(pause.getTime() <= System.currentTimeMillis());
+            assertTrue(pause.getHeapBefore() > 0);
+            // closing twice does not unregister other watchers
+            watch.close();
+        }
+        long count = recorder.getCount();
+        System.gc();
+        assertEquals(count, recorder.getCount());
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import com.github.fonimus.ssh.shell.AbstractShellHelperTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeapDumpCommandTest extends AbstractShellHelperTest {
+
+    private static final String HPROF_HEADER = "JAVA PROFILE";
+
+    private HeapDumpCommand cmd;
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cmd = new HeapDumpCommand(h);
+        dir = Files.createTempDirectory("heapdump-command-test");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (File file : dir.toFile().listFiles()) {
+            assertTrue(file.delete());
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    void dump() throws Exception {
+        Path file = dir.resolve("heap.hprof");
+        String result = cmd.heapdump(file.toString(), false, false, "0B");
+        assertTrue(result.contains("Heap dumped to"));
+        assertTrue(Files.size(file) > 0);
+        assertEquals(HPROF_HEADER, header(Files.readAllBytes(file)));
+
+        assertEquals("File already exists: " + file, assertThrows(IllegalArgumentException.class,
+                () -> cmd.heapdump(file.toString(), false, false, "0B")).getMessage());
+    }
+
+    @Test
+    void dumpCompressed() throws Exception {
+        Path file = dir.resolve("heap.hprof.gz");
+        String result = cmd.heapdump(file.toString(), false, true, "0B");
+        assertTrue(result.contains("bytes uncompressed"));
+        // only compressed file is kept
+        assertEquals(1, dir.toFile().listFiles().length);
+        byte[] bytes = new byte[HPROF_HEADER.length()];
+        try (DataInputStream is = new DataInputStream(new GZIPInputStream(Files.newInputStream(file)))) {
+            is.readFully(bytes);
+        }
+        assertEquals(HPROF_HEADER, header(bytes));
+    }
+
+    @Test
+    void gzipOptionAppendsExtension() throws Exception {
+        Path file = dir.resolve("heap.hprof");
+        String result = cmd.heapdump(file.toString(), true, true, "0B");
+        Path compressed = dir.resolve("heap.hprof.gz");
+        assertTrue(result.contains(compressed.toString()));
+        assertFalse(Files.exists(file));
+        byte[] bytes = new byte[HPROF_HEADER.length()];
+        try (DataInputStream is = new DataInputStream(new GZIPInputStream(Files.newInputStream(compressed)))) {
+            is.readFully(bytes);
+        }
+        assertEquals(HPROF_HEADER, header(bytes));
+    }
+
+    @Test
+    void refused() {
+        assertTrue(assertThrows(IllegalArgumentException.class,
+                () -> cmd.heapdump(dir.resolve("heap.bin").toString(), false, false, "0B")).getMessage()
+                .startsWith("Heap dump file must end with"));
+        assertTrue(assertThrows(IllegalArgumentException.class,
+                () -> cmd.heapdump(dir.resolve("unknown/heap.hprof").toString(), false, false, "0B")).getMessage()
+                .startsWith("Directory does not exist"));
+        assertTrue(assertThrows(IllegalStateException.class,
+                () -> cmd.heapdump(dir.resolve("heap.hprof").toString(), false, false, "1000000TB")).getMessage()
+                .startsWith("Not enough disk space"));
+        assertEquals(0, dir.toFile().listFiles().length);
+    }
+
+    @Test
+    void existingFileKept() throws Exception {
+        // file created by someone else where jvm writes dump
+        Path tmp = dir.resolve("heap.hprof.gz.tmp.hprof");
+        Files.write(tmp, "other".getBytes());
+        assertTrue(assertThrows(IllegalStateException.class,
+                () -> cmd.heapdump(dir.resolve("heap.hprof.gz").toString(), false, true, "0B")).getMessage()
+                .startsWith("Heap dump failed"));
+        assertEquals("other", new String(Files.readAllBytes(tmp)));
+        assertFalse(Files.exists(dir.resolve("heap.hprof.gz")));
+    }
+
+    private static String header(byte[] bytes) {
+        return new String(bytes, 0, HPROF_HEADER.length());
+    }
+}
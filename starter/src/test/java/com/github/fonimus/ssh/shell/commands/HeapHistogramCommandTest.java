@@ -0,0 +1,65 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import com.github.fonimus.ssh.shell.AbstractShellHelperTest;
+import com.github.fonimus.ssh.shell.interactive.SamplingScheduler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class HeapHistogramCommandTest extends AbstractShellHelperTest {
+
+    private HeapHistogramCommand cmd;
+
+    @BeforeEach
+    void setUp() {
+        cmd = new HeapHistogramCommand(h);
+    }
+
+    @Test
+    void histogram() {
+        String result = cmd.heapHisto(5, null, false, true, false);
+        assertTrue(result.contains("Classes: "));
+        assertTrue(result.contains("INSTANCES"));
+        assertFalse(result.contains("+/- BYTES"));
+
+        result = cmd.heapHisto(5, "java.lang.Str, java.util.", false, true, false);
+        assertTrue(result.contains("matching: "));
+        assertTrue(result.contains("java.lang.String"));
+    }
+
+    @Test
+    void diff() {
+        assertTrue(cmd.heapHisto(5, null, true, true, false).contains("No previous snapshot"));
+        String result = cmd.heapHisto(5, null, true, true, false);
+        assertTrue(result.contains("Compared with snapshot of"));
+        assertTrue(result.contains("+/- BYTES"));
+    }
+
+    @Test
+    void interactive() throws Exception {
+        when(reader.read(100L)).thenReturn((int) 'd', 113);
+        assertEquals("", cmd.heapHisto(5, "java.", true, true, true));
+    }
+
+    @Test
+    void interactiveSampled() throws Exception {
+        try (SamplingScheduler scheduler = new SamplingScheduler()) {
+            HeapHistogramCommand sampled = new HeapHistogramCommand(h, scheduler);
+            when(reader.read(100L)).thenReturn(113);
+            assertEquals("", sampled.heapHisto(5, null, false, false, true));
+            assertEquals(0, scheduler.getSourceCount());
+        }
+    }
+
+    @Test
+    void top() {
+        long[] keys = {5, 1, 9, 3, 7, -2};
+        int[] candidates = {0, 1, 2, 3, 4, 5};
+        assertArrayEquals(new int[]{2, 4, 0}, HeapHistogramCommand.top(keys, candidates, 6, 3));
+        assertArrayEquals(new int[]{2, 4, 0, 3, 1, 5}, HeapHistogramCommand.top(keys, candidates, 6, 10));
+        assertArrayEquals(new int[]{4, 3}, HeapHistogramCommand.top(keys, new int[]{3, 4}, 2, 5));
+        assertArrayEquals(new int[0], HeapHistogramCommand.top(keys, candidates, 6, 0));
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeapHistogramTest {
+
+    private static final String JDK8 = " num     #instances         #bytes  class name\n" +
+            "----------------------------------------------\n" +
+            "   1:          3391         234400  [C\n" +
+            "   2:          1299         146968  java.lang.Class\n" +
+            "   3:            10           1000  [[Ljava.lang.String;\n" +
+            "   4:             5            100  com.acme.Foo\n" +
+            "   5:             2             40  com.acme.Foo\n" +
+            "Total          4707         382508\n";
+
+    private static final String JDK11 = " num     #instances         #bytes  class name (module)\n" +
+            "-------------------------------------------------------\n" +
+            "   1:          5208         243744  [B (java.base@17.0.9)\n" +
+            "   2:          1539         186360  java.lang.Class (java.base@17.0.9)\n" +
+            "Total          6747         430104\n";
+
+    @Test
+    void parse() {
+        HeapHistogram histogram = HeapHistogram.parse(JDK8);
+        assertEquals(4, histogram.getSize());
+        assertEquals("char[]", histogram.getNames()[0]);
+        assertEquals(3391, histogram.getInstances()[0]);
+        assertEquals(234400, histogram.getBytes()[0]);
+        assertEquals("java.lang.String[][]", histogram.getNames()[2]);
+        // same class name from different class loaders is merged
+        int foo = histogram.indexOf("com.acme.Foo");
+        assertEquals(3, foo);
+        assertEquals(7, histogram.getInstances()[foo]);
+        assertEquals(140, histogram.getBytes()[foo]);
+        assertEquals(-1, histogram.indexOf("com.acme.Bar"));
+        assertEquals(4707, histogram.getTotalInstances());
+        assertEquals(382508, histogram.getTotalBytes());
+
+        histogram = HeapHistogram.parse(JDK11);
+        assertEquals(2, histogram.getSize());
+        assertEquals("byte[]", histogram.getNames()[0]);
+        assertEquals("java.lang.Class", histogram.getNames()[1]);
+        assertEquals(186360, histogram.getBytes()[1]);
+    }
+
+    @Test
+    void className() {
+        assertEquals("java.lang.Object", HeapHistogram.className("java.lang.Object"));
+        assertEquals("int[]", HeapHistogram.className("[I"));
+        assertEquals("boolean[][]", HeapHistogram.className("[[Z"));
+        assertEquals("java.lang.Object[]", HeapHistogram.className("[Ljava.lang.Object;"));
+        assertEquals("[", HeapHistogram.className("["));
+    }
+
+    @Test
+    void take() {
+        HeapHistogram histogram = HeapHistogram.take(true);
+        assertTrue(histogram.getSize() > 0);
+        assertTrue(histogram.indexOf("java.lang.String") >= 0);
+        assertTrue(histogram.getTotalBytes() > 0);
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import com.github.fonimus.ssh.shell.AbstractShellHelperTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+class JfrCommandTest extends AbstractShellHelperTest {
+
+    private static final String NAME = "jfr-command-test";
+
+    private JfrCommand cmd;
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cmd = new JfrCommand(h);
+        dir = Files.createTempDirectory("jfr-command-test");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try {
+            cmd.jfr(JfrCommand.JfrAction.STOP, NAME, null, null, null, null, null, null);
+        } catch (IllegalArgumentException e) {
+            // already stopped
+        }
+        for (File file : dir.toFile().listFiles()) {
+            assertTrue(file.delete());
+        }
+        Files.delete(dir);
+    }
+
+    private String jfr(JfrCommand.JfrAction action, String file) {
+        return cmd.jfr(action, NAME, "default", "10MB", "5m", null, file, JfrCommand.DEFAULT_EVENTS);
+    }
+
+    @Test
+    void recording() throws Exception {
+        assertTrue(jfr(JfrCommand.JfrAction.START, null).contains("started"));
+        assertThrows(IllegalArgumentException.class, () -> jfr(JfrCommand.JfrAction.START, null));
+
+        String status = jfr(JfrCommand.JfrAction.STATUS, null);
+        assertTrue(status.contains(NAME));
+        assertTrue(status.contains("RUNNING"));
+
+        Path dump = dir.resolve("dump.jfr");
+        assertTrue(jfr(JfrCommand.JfrAction.DUMP, dump.toString()).contains("dumped"));
+        assertTrue(Files.size(dump) > 0);
+        // file is never overwritten
+        assertThrows(RuntimeException.class, () -> jfr(JfrCommand.JfrAction.DUMP, dump.toString()));
+        assertThrows(IllegalArgumentException.class, () -> jfr(JfrCommand.JfrAction.DUMP, null));
+
+        // wrong file does not discard recording
+        assertThrows(IllegalArgumentException.class, () -> jfr(JfrCommand.JfrAction.STOP, dump.toString()));
+        assertThrows(IllegalArgumentException.class,
+                () -> jfr(JfrCommand.JfrAction.STOP, dir.resolve("unknown/stopped.jfr").toString()));
+        assertTrue(jfr(JfrCommand.JfrAction.STATUS, null).contains("RUNNING"));
+
+        Path stopped = dir.resolve("stopped.jfr");
+        assertTrue(jfr(JfrCommand.JfrAction.STOP, stopped.toString()).contains("stopped"));
+        assertTrue(Files.size(stopped) > 0);
+        assertFalse(jfr(JfrCommand.JfrAction.STATUS, null).contains(NAME));
+        assertThrows(IllegalArgumentException.class, () -> jfr(JfrCommand.JfrAction.STOP, null));
+    }
+
+    @Test
+    void unknownSettings() {
+        assertThrows(IllegalArgumentException.class,
+                () -> cmd.jfr(JfrCommand.JfrAction.START, NAME, "unknown", null, null, null, null, null));
+    }
+
+    @Test
+    void watchNotSupported() {
+        assumeFalse(JfrEventStream.isSupported());
+        assertThrows(IllegalStateException.class, () -> jfr(JfrCommand.JfrAction.WATCH, null));
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import com.github.fonimus.ssh.shell.AbstractShellHelperTest;
+import com.github.fonimus.ssh.shell.CancellationToken;
+import com.github.fonimus.ssh.shell.SshContext;
+import com.github.fonimus.ssh.shell.SshShellProperties;
+import com.github.fonimus.ssh.shell.jobs.Job;
+import com.github.fonimus.ssh.shell.jobs.JobExecutor;
+import org.jline.utils.NonBlockingReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.fonimus.ssh.shell.SshShellCommandFactory.SSH_THREAD_CONTEXT;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class JobsCommandTest extends AbstractShellHelperTest {
+
+    private JobsCommand cmd;
+
+    private JobExecutor executor;
+
+    private ByteArrayOutputStream output;
+
+    @BeforeEach
+    void setUp() {
+        cmd = new JobsCommand(h);
+        executor = new JobExecutor(new SshShellProperties.Jobs());
+        output = new ByteArrayOutputStream();
+        when(ter.output()).thenReturn(output);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void jobs() throws Exception {
+        SshContext ctx = SSH_THREAD_CONTEXT.get();
+        assertEquals("No background jobs", cmd.jobs());
+        assertThrows(IllegalArgumentException.class, () -> cmd.fg(null));
+
+        Job job = executor.submit(ctx, "print", () -> {
+            SSH_THREAD_CONTEXT.get().getTerminal().writer().print("job output");
+            return "ok";
+        });
+        await().atMost(5, TimeUnit.SECONDS).until(job::isDone);
+        assertTrue(cmd.jobs().contains("DONE"));
+
+        assertTrue(cmd.fg(null).contains("[1] done"));
+        assertEquals("job output", output.toString("UTF-8"));
+        assertTrue(ctx.getJobs().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> cmd.fg(1));
+    }
+
+    @Test
+    void kill() throws Exception {
+        SshContext ctx = SSH_THREAD_CONTEXT.get();
+        CountDownLatch started = new CountDownLatch(1);
+        Job job = executor.submit(ctx, "sleep", () -> {
+            started.countDown();
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException e) {
+                return e;
+            }
+            return "ok";
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(Job.JobStatus.RUNNING, job.getStatus());
+
+        // 'q' to go back to prompt
+        when(reader.read(100L)).thenReturn(113);
+        assertTrue(cmd.fg(job.getId()).contains("still running"));
+
+        assertTrue(cmd.kill(job.getId()).contains("[1] killed"));
+        assertEquals(Job.JobStatus.KILLED, job.getStatus());
+        assertTrue(ctx.getJobs().isEmpty());
+        await().atMost(5, TimeUnit.SECONDS).until(() -> executor.getActiveCount() == 0);
+    }
+
+    @Test
+    void cancelFollowedJob() throws Exception {
+        SshContext ctx = SSH_THREAD_CONTEXT.get();
+        CountDownLatch started = new CountDownLatch(1);
+        Job job = executor.submit(ctx, "sleep", () -> {
+            started.countDown();
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException e) {
+                return e;
+            }
+            return "ok";
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // ctrl-c while following job
+        CancellationToken token = ctx.startCommand();
+        when(reader.read(100L)).thenAnswer(invocation -> {
+            ctx.cancel();
+            return NonBlockingReader.READ_EXPIRED;
+        });
+        assertTrue(cmd.fg(job.getId()).contains("[1] killed"));
+        ctx.endCommand(token);
+        assertEquals(Job.JobStatus.KILLED, job.getStatus());
+        await().atMost(5, TimeUnit.SECONDS).until(() -> executor.getActiveCount() == 0);
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import com.github.fonimus.ssh.shell.AbstractShellHelperTest;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+class JvmMemoryCommandTest extends AbstractShellHelperTest {
+
+    @Test
+    void jvmMemory() throws Exception {
+        when(reader.read(100L)).thenReturn(113);
+        assertEquals("", new JvmMemoryCommand(h).jvmMemory(10));
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ThreadInfo;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LockAnalyzerTest {
+
+    private final LockAnalyzer analyzer = new LockAnalyzer();
+
+    private static Thread start(String name, Runnable runnable) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    void contention() throws Exception {
+        Object lock = new Object();
+        String key = Object.class.getName() + '@' + Integer.toHexString(System.identityHashCode(lock));
+        Thread[] waiters = new Thread[3];
+        synchronized (lock) {
+            for (int i = 0; i < waiters.length; i++) {
+                waiters[i] = start("lock-waiter-" + i, () -> {
+                    synchronized (lock) {
+                        lock.notifyAll();
+                    }
+                });
+            }
+            await().atMost(5, TimeUnit.SECONDS).until(() -> analyzer.analyze(false).getContentions().stream()
+                    .anyMatch(c -> c.getKey().equals(key) && c.getWaiters().size() == waiters.length));
+
+            LockAnalyzer.LockReport report = analyzer.analyze(true);
+            LockAnalyzer.LockContention contention = report.getContentions().stream()
+                    .filter(c -> c.getKey().equals(key)).findFirst().orElseThrow(AssertionError::new);
+            assertEquals(Thread.currentThread().getId(), contention.getOwner().getThreadId());
+            assertEquals(waiters.length, contention.getWaiters().size());
+            assertTrue(report.getMaxWaiters() >= waiters.length);
+            assertTrue(report.getBlockedCount() >= waiters.length);
+            assertNotNull(contention.getLockedFrame());
+            assertEquals(getClass().getName(), contention.getLockedFrame().getClassName());
+        }
+        for (Thread waiter : waiters) {
+            waiter.join(5000);
+        }
+        assertTrue(analyzer.analyze(false).getContentions().stream().noneMatch(c -> c.getKey().equals(key)));
+    }
+
+    @Test
+    void contentionBetweenSamples() throws Exception {
+        Object lock = new Object();
+        ContentionTracker tracker = new ContentionTracker();
+        ThreadMeasurements measurements = analyzer.measureContention();
+        boolean timed = measurements.isAcquired(ThreadMeasurements.Measurement.CONTENTION);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch sampled = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread waiter = start("lock-live-between-samples", () -> {
+            try {
+                sampled.await();
+                blocked.countDown();
+                synchronized (lock) {
+                    lock.notifyAll();
+                }
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        synchronized (lock) {
+            tracker.update(analyzer.analyze(false));
+            sampled.countDown();
+            blocked.await();
+            await().atMost(5, TimeUnit.SECONDS).until(() -> waiter.getState() == Thread.State.BLOCKED);
+            Thread.sleep(50);
+        }
+        await().atMost(5, TimeUnit.SECONDS).until(() -> waiter.getState() == Thread.State.WAITING);
+        // not blocked when sampled, but contention since previous sample is counted
+        LockAnalyzer.LockReport report = analyzer.analyze(false);
+        tracker.update(report);
+        done.countDown();
+        waiter.join(5000);
+
+        assertTrue(report.getContentions().stream().flatMap(c -> c.getWaiters().stream())
+                .noneMatch(info -> info.getThreadId() == waiter.getId()));
+        ContentionTracker.ThreadContention contention = tracker.getContentions().stream()
+                .filter(c -> c.getId() == waiter.getId()).findFirst().orElseThrow(AssertionError::new);
+        assertEquals(1, contention.getBlockedCount());
+        assertTrue(tracker.getBlockedCount() >= 1);
+        assertEquals(tracker.getBlockedCount(), tracker.getTotalBlockedCount());
+        if (timed) {
+            assertTrue(contention.getBlockedTime() > 0);
+        }
+        // same report redrawn is not counted twice
+        tracker.update(report);
+        assertEquals(tracker.getBlockedCount(), tracker.getTotalBlockedCount());
+        measurements.close();
+    }
+
+    @Test
+    void waitingIsNotContention() throws Exception {
+        Object lock = new Object();
+        String key = Object.class.getName() + '@' + Integer.toHexString(System.identityHashCode(lock));
+        CountDownLatch waiting = new CountDownLatch(1);
+        Thread waiter = start("lock-wait", () -> {
+            synchronized (lock) {
+                waiting.countDown();
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        waiting.await();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> waiter.getState() == Thread.State.WAITING);
+        assertTrue(analyzer.analyze(false).getContentions().stream().noneMatch(c -> c.getKey().equals(key)));
+        waiter.interrupt();
+        waiter.join(5000);
+    }
+
+    @Test
+    void deadlock() throws Exception {
+        ReentrantLock first = new ReentrantLock();
+        ReentrantLock second = new ReentrantLock();
+        CountDownLatch locked = new CountDownLatch(2);
+        Thread t1 = start("deadlock-1", () -> lockBoth(first, second, locked));
+        Thread t2 = start("deadlock-2", () -> lockBoth(second, first, locked));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> !analyzer.analyze(false).getDeadlocks().isEmpty());
+        List<List<ThreadInfo>> deadlocks = analyzer.analyze(false).getDeadlocks();
+        assertEquals(1, deadlocks.size());
+        assertEquals(2, deadlocks.get(0).size());
+        for (ThreadInfo info : deadlocks.get(0)) {
+            assertTrue(info.getThreadId() == t1.getId() || info.getThreadId() == t2.getId());
+        }
+
+        t1.interrupt();
+        t2.interrupt();
+        t1.join(5000);
+        t2.join(5000);
+        assertTrue(analyzer.analyze(false).getDeadlocks().isEmpty());
+    }
+
+    static void lockBoth(ReentrantLock a, ReentrantLock b, CountDownLatch locked) {
+        a.lock();
+        try {
+            locked.countDown();
+            locked.await();
+            b.lockInterruptibly();
+            b.unlock();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            a.unlock();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import com.github.fonimus.ssh.shell.AbstractShellHelperTest;
+import com.github.fonimus.ssh.shell.interactive.SamplingScheduler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class LocksCommandTest extends AbstractShellHelperTest {
+
+    private LocksCommand cmd;
+
+    @BeforeEach
+    void setUp() {
+        cmd = new LocksCommand(h);
+    }
+
+    @Test
+    void report() {
+        String report = cmd.locks(LocksCommand.LocksAction.REPORT, 10, 5);
+        assertTrue(report.contains("No deadlock"));
+        assertTrue(report.contains("Threads: "));
+    }
+
+    @Test
+    void reportDeadlock() throws Exception {
+        ReentrantLock first = new ReentrantLock();
+        ReentrantLock second = new ReentrantLock();
+        CountDownLatch locked = new CountDownLatch(2);
+        Thread t1 = new Thread(() -> LockAnalyzerTest.lockBoth(first, second, locked), "cmd-deadlock-1");
+        Thread t2 = new Thread(() -> LockAnalyzerTest.lockBoth(second, first, locked), "cmd-deadlock-2");
+        t1.setDaemon(true);
+        t2.setDaemon(true);
+        t1.start();
+        t2.start();
+        try {
+            LockAnalyzer analyzer = new LockAnalyzer();
+            await().atMost(5, TimeUnit.SECONDS).until(() -> !analyzer.analyze(false).getDeadlocks().isEmpty());
+            String report = cmd.locks(LocksCommand.LocksAction.REPORT, 10, 5);
+            assertTrue(report.contains("Deadlock 1:"));
+            assertTrue(report.contains("cmd-deadlock-1"));
+            assertTrue(report.contains("cmd-deadlock-2"));
+            assertTrue(report.contains("WAITING THREADS"));
+
+            when(reader.read(100L)).thenReturn(113);
+            assertEquals("", cmd.locks(LocksCommand.LocksAction.WATCH, 1, 1));
+        } finally {
+            t1.interrupt();
+            t2.interrupt();
+            t1.join(5000);
+            t2.join(5000);
+        }
+    }
+
+    @Test
+    void watchSampled() throws Exception {
+        try (SamplingScheduler scheduler = new SamplingScheduler()) {
+            LocksCommand sampled = new LocksCommand(h, scheduler);
+            when(reader.read(100L)).thenReturn(113);
+            boolean contentionMonitoring = ManagementFactory.getThreadMXBean().isThreadContentionMonitoringEnabled();
+            assertEquals("", sampled.locks(LocksCommand.LocksAction.WATCH, 10, 5));
+            assertEquals(0, scheduler.getSourceCount());
+            // contention monitoring is only enabled while watching
+            assertEquals(contentionMonitoring, ManagementFactory.getThreadMXBean().isThreadContentionMonitoringEnabled());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import com.github.fonimus.ssh.shell.AbstractShellHelperTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfileCommandTest extends AbstractShellHelperTest {
+
+    private ProfileCommand cmd;
+
+    private volatile boolean running;
+
+    private Thread busy;
+
+    @BeforeEach
+    void setUp() {
+        cmd = new ProfileCommand(h);
+        running = true;
+        busy = new Thread(() -> {
+            long sum = 0;
+            while (running) {
+                sum += System.nanoTime() % 7;
+            }
+            assertTrue(sum >= 0);
+        }, "profiled-busy-thread");
+        busy.setDaemon(true);
+        busy.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        running = false;
+        busy.join(5000);
+    }
+
+    @Test
+    void top() {
+        String result = cmd.profile(1, 50, "profiled-busy", ProfileCommand.ProfileFormat.TOP, 5, false);
+        assertTrue(result.contains("threads in"));
+        assertTrue(result.contains("'profiled-busy'"));
+        assertTrue(result.contains("METHOD"));
+    }
+
+    @Test
+    void collapsed() {
+        String result = cmd.profile(1, 50, "profiled-busy", ProfileCommand.ProfileFormat.COLLAPSED, 5, false);
+        assertTrue(result.contains("java.lang.Thread.run"));
+        assertTrue(result.contains(ProfileCommandTest.class.getName()));
+    }
+
+    @Test
+    void flameGraph() {
+        String result = cmd.profile(1, 50, null, ProfileCommand.ProfileFormat.FLAMEGRAPH, 5, true);
+        assertTrue(result.startsWith("<!DOCTYPE html>"));
+        assertTrue(result.contains("all threads"));
+    }
+
+    @Test
+    void interrupted() {
+        Thread.currentThread().interrupt();
+        String result = cmd.profile(10, 50, null, ProfileCommand.ProfileFormat.TOP, 5, false);
+        assertTrue(result.contains("(stopped)"));
+        assertFalse(Thread.interrupted());
+    }
+
+    @Test
+    void invalid() {
+        assertThrows(IllegalArgumentException.class,
+                () -> cmd.profile(0, 50, null, ProfileCommand.ProfileFormat.TOP, 5, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> cmd.profile(1, 101, null, ProfileCommand.ProfileFormat.TOP, 5, false));
+    }
+
+    @Test
+    void onlyOneProfile() throws Exception {
+        Thread other = new Thread(() -> cmd.profile(2, 10, null, ProfileCommand.ProfileFormat.TOP, 5, false),
+                "other-profile");
+        other.setDaemon(true);
+        other.start();
+        try {
+            await().atMost(5, TimeUnit.SECONDS).until(() -> Thread.getAllStackTraces().keySet().stream()
+                    .anyMatch(t -> ProfileCommand.THREAD_NAME.equals(t.getName())));
+            IllegalStateException e = assertThrows(IllegalStateException.class,
+                    () -> cmd.profile(1, 10, null, ProfileCommand.ProfileFormat.TOP, 5, false));
+            assertTrue(e.getMessage().contains("already running"));
+        } finally {
+            other.join(10000);
+        }
+        assertTrue(cmd.profile(1, 10, null, ProfileCommand.ProfileFormat.TOP, 5, false).contains("threads in"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StackProfileTest {
+
+    private static StackTraceElement[] stack(String... methods) {
+        // top frame first, like Thread.getStackTrace
+        StackTraceElement[] stack = new StackTraceElement[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            stack[i] = new StackTraceElement("Test", methods[i], "Test.java", i + 1);
+        }
+        return stack;
+    }
+
+    private static StackProfile profile() {
+        StackProfile profile = new StackProfile();
+        profile.add(stack("c", "b", "main"));
+        profile.add(stack("c", "b", "main"));
+        profile.add(stack("d", "main"));
+        // recursion
+        profile.add(stack("b", "b", "b", "main"));
+        return profile;
+    }
+
+    @Test
+    void hotMethods() {
+        StackProfile profile = profile();
+        assertEquals(4, profile.getSamples());
+
+        List<StackProfile.MethodStat> methods = profile.hotMethods(10);
+        assertEquals(4, methods.size());
+        assertEquals("Test.c", methods.get(0).getName());
+        assertEquals(2, methods.get(0).getSelf());
+        assertEquals(2, methods.get(0).getTotal());
+        assertEquals("Test.b", methods.get(1).getName());
+        assertEquals(1, methods.get(1).getSelf());
+        // recursive frames are counted once per sample
+        assertEquals(3, methods.get(1).getTotal());
+        StackProfile.MethodStat main = methods.stream().filter(m -> m.getName().equals("Test.main")).findFirst()
+                .orElseThrow(AssertionError::new);
+        assertEquals(0, main.getSelf());
+        assertEquals(4, main.getTotal());
+
+        assertEquals(1, profile.hotMethods(1).size());
+        assertEquals(0, profile.hotMethods(-1).size());
+    }
+
+    @Test
+    void interning() {
+        StackProfile profile = new StackProfile();
+        // different lines of same methods share frames and nodes
+        profile.add(new StackTraceElement[]{new StackTraceElement("A", "a", "A.java", 1)});
+        profile.add(new StackTraceElement[]{new StackTraceElement("A", "a", "A.java", 2)});
+        assertEquals(2, profile.getNodeCount());
+        assertEquals(2, profile.hotMethods(1).get(0).getSelf());
+
+        for (int i = 0; i < 10_000; i++) {
+            profile.add(stack("m" + i, "main"));
+        }
+        assertEquals(10_003, profile.getNodeCount());
+    }
+
+    @Test
+    void collapsed() {
+        StringBuilder sb = new StringBuilder();
+        profile().collapsed(sb);
+        String collapsed = sb.toString();
+        assertTrue(collapsed.contains("Test.main;Test.b;Test.c 2\n"));
+        assertTrue(collapsed.contains("Test.main;Test.d 1\n"));
+        assertTrue(collapsed.contains("Test.main;Test.b;Test.b;Test.b 1\n"));
+        assertEquals(3, collapsed.split("\n").length);
+    }
+
+    @Test
+    void flameGraph() {
+        StringBuilder sb = new StringBuilder();
+        profile().flameGraph(sb, "<title>", 0);
+        String html = sb.toString();
+        assertTrue(html.startsWith("<!DOCTYPE html>"));
+        assertTrue(html.contains("&lt;title&gt;"));
+        assertTrue(html.contains("title=\"all (4 samples, 100.00%)\""));
+        assertTrue(html.contains("title=\"Test.c (2 samples, 50.00%)\""));
+
+        sb = new StringBuilder();
+        profile().flameGraph(sb, "title", 30);
+        assertFalse(sb.toString().contains("Test.d"));
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.fonimus.ssh.shell.commands;
 
 import com.github.fonimus.ssh.shell.AbstractShellHelperTest;
+import com.github.fonimus.ssh.shell.interactive.SamplingScheduler;
 import org.jline.terminal.Size;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,16 +21,68 @@ class ThreadCommandTest extends AbstractShellHelperTest {
     @Test
     void threads() throws Exception {
         for (ThreadCommand.ThreadColumn tc : ThreadCommand.ThreadColumn.values()) {
-            assertNotNull(t.threads(ThreadCommand.ThreadAction.LIST, tc, true, true, null));
+            assertNotNull(t.threads(ThreadCommand.ThreadAction.LIST, tc, true, true, null, ThreadCommand.TopColumn.CPU, -1, false));
         }
-        assertNotNull(t.threads(ThreadCommand.ThreadAction.DUMP, ThreadCommand.ThreadColumn.NAME, true, true, Thread.currentThread().getId()));
-        assertThrows(IllegalArgumentException.class, () -> assertNotNull(t.threads(ThreadCommand.ThreadAction.DUMP, ThreadCommand.ThreadColumn.NAME, true, true, null)));
-        assertThrows(IllegalArgumentException.class, () -> assertNotNull(t.threads(ThreadCommand.ThreadAction.DUMP, ThreadCommand.ThreadColumn.NAME, true, true, -1L)));
+        assertNotNull(t.threads(ThreadCommand.ThreadAction.DUMP, ThreadCommand.ThreadColumn.NAME, true, true, Thread.currentThread().getId(), ThreadCommand.TopColumn.CPU, -1, false));
+        assertThrows(IllegalArgumentException.class, () -> assertNotNull(t.threads(ThreadCommand.ThreadAction.DUMP, ThreadCommand.ThreadColumn.NAME, true, true, null, ThreadCommand.TopColumn.CPU, -1, false)));
+        assertThrows(IllegalArgumentException.class, () -> assertNotNull(t.threads(ThreadCommand.ThreadAction.DUMP, ThreadCommand.ThreadColumn.NAME, true, true, -1L, ThreadCommand.TopColumn.CPU, -1, false)));
 
         when(reader.read(100L)).thenReturn(113);
-        assertEquals("", t.threads(ThreadCommand.ThreadAction.LIST, ThreadCommand.ThreadColumn.NAME, true, false, null));
+        assertEquals("", t.threads(ThreadCommand.ThreadAction.LIST, ThreadCommand.ThreadColumn.NAME, true, false, null, ThreadCommand.TopColumn.CPU, -1, false));
 
         when(ter.getSize()).thenReturn(new Size(10, 10));
-        assertEquals("", t.threads(ThreadCommand.ThreadAction.LIST, ThreadCommand.ThreadColumn.NAME, true, false, null));
+        assertEquals("", t.threads(ThreadCommand.ThreadAction.LIST, ThreadCommand.ThreadColumn.NAME, true, false, null, ThreadCommand.TopColumn.CPU, -1, false));
     }
-}
\ No newline at end of file
+
+    @Test
+    void threadsDump() throws Exception {
+        Object lock = new Object();
+        synchronized (lock) {
+            assertEquals("", t.threads(ThreadCommand.ThreadAction.DUMP, ThreadCommand.ThreadColumn.ID, false, true,
+                    Thread.currentThread().getId(), ThreadCommand.TopColumn.CPU, 2, true));
+        }
+        assertEquals("", t.threads(ThreadCommand.ThreadAction.DUMP, ThreadCommand.ThreadColumn.ID, false, true,
+                Thread.currentThread().getId(), ThreadCommand.TopColumn.CPU, 0, false));
+        assertThrows(IllegalArgumentException.class, () -> t.threads(ThreadCommand.ThreadAction.DUMP,
+                ThreadCommand.ThreadColumn.ID, false, true, Long.MAX_VALUE, ThreadCommand.TopColumn.CPU, -1, true));
+    }
+
+    @Test
+    void threadsSampled() throws Exception {
+        try (SamplingScheduler scheduler = new SamplingScheduler()) {
+            ThreadCommand sampled = new ThreadCommand(h, scheduler);
+            when(reader.read(100L)).thenReturn(113);
+            assertEquals("", sampled.threads(ThreadCommand.ThreadAction.LIST, ThreadCommand.ThreadColumn.NAME, true, false, null, ThreadCommand.TopColumn.CPU, -1, false));
+            // subscription is closed with interactive display
+            assertEquals(0, scheduler.getSourceCount());
+        }
+    }
+
+    @Test
+    void threadsTop() throws Exception {
+        for (ThreadCommand.TopColumn tc : ThreadCommand.TopColumn.values()) {
+            String table = t.threads(ThreadCommand.ThreadAction.TOP, ThreadCommand.ThreadColumn.ID, false, true, null, tc, -1, false);
+            assertTrue(table.contains("STATE"));
+            assertTrue(table.contains("RUNNABLE"));
+        }
+
+        when(reader.read(100L)).thenReturn(113);
+        assertEquals("", t.threads(ThreadCommand.ThreadAction.TOP, ThreadCommand.ThreadColumn.ID, false, false, null,
+                ThreadCommand.TopColumn.ALLOCATION, -1, false));
+
+        when(ter.getSize()).thenReturn(new Size(10, 10));
+        assertEquals("", t.threads(ThreadCommand.ThreadAction.TOP, ThreadCommand.ThreadColumn.ID, true, false, null,
+                ThreadCommand.TopColumn.CPU, -1, false));
+    }
+
+    @Test
+    void threadsTopSampled() throws Exception {
+        try (SamplingScheduler scheduler = new SamplingScheduler()) {
+            ThreadCommand sampled = new ThreadCommand(h, scheduler);
+            when(reader.read(100L)).thenReturn(113);
+            assertEquals("", sampled.threads(ThreadCommand.ThreadAction.TOP, ThreadCommand.ThreadColumn.ID, false,
+                    false, null, ThreadCommand.TopColumn.CPU, -1, false));
+            assertEquals(0, scheduler.getSourceCount());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.MonitorInfo;
+import java.lang.management.ThreadInfo;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadInfoReaderTest {
+
+    @Test
+    void list() {
+        ThreadInfoReader reader = new ThreadInfoReader();
+        Thread current = Thread.currentThread();
+
+        List<ThreadInfoReader.ThreadRow> rows = reader.list();
+        ThreadInfoReader.ThreadRow row = rows.stream().filter(r -> r.getId() == current.getId()).findFirst()
+                .orElseThrow(() -> new AssertionError("Current thread not listed"));
+        assertEquals(current.getName(), row.getName());
+        assertEquals(Thread.State.RUNNABLE, row.getState());
+        assertEquals(current.getPriority(), row.getPriority());
+        assertEquals(current.isDaemon(), row.isDaemon());
+        assertFalse(row.isInterrupted());
+        assertThrows(UnsupportedOperationException.class, () -> rows.remove(0));
+
+        // buffers are reused
+        assertFalse(reader.list().isEmpty());
+    }
+
+    @Test
+    void listChangingThreadCount() throws Exception {
+        ThreadInfoReader reader = new ThreadInfoReader();
+        int before = reader.list().size();
+        CountDownLatch release = new CountDownLatch(1);
+        Thread[] started = new Thread[100];
+        for (int i = 0; i < started.length; i++) {
+            started[i] = new Thread(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "reader-test-" + i);
+            started[i].setDaemon(true);
+            started[i].start();
+        }
+        try {
+            List<ThreadInfoReader.ThreadRow> rows = reader.list();
+            assertTrue(rows.size() >= before + started.length);
+            assertEquals(started.length, rows.stream().filter(r -> r.getName().startsWith("reader-test-")).count());
+        } finally {
+            release.countDown();
+            for (Thread thread : started) {
+                thread.join(5000);
+            }
+        }
+        // buffers are larger than thread count, only valid ids are read
+        assertEquals(0, reader.list().stream().filter(r -> r.getName().startsWith("reader-test-")).count());
+    }
+
+    @Test
+    void info() {
+        ThreadInfoReader reader = new ThreadInfoReader();
+        long id = Thread.currentThread().getId();
+
+        assertEquals(0, reader.info(id, 0, false).getStackTrace().length);
+        assertEquals(1, reader.info(id, 1, false).getStackTrace().length);
+        assertTrue(reader.info(id, -1, false).getStackTrace().length > 1);
+        assertNull(reader.info(Long.MAX_VALUE, -1, false));
+
+        Object lock = new Object();
+        synchronized (lock) {
+            ThreadInfo info = reader.info(id, -1, true);
+            boolean found = false;
+            for (MonitorInfo monitor : info.getLockedMonitors()) {
+                found |= monitor.getIdentityHashCode() == System.identityHashCode(lock);
+            }
+            assertTrue(found);
+        }
+    }
+}
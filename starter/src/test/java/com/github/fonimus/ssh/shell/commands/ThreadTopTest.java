@@ -0,0 +1,77 @@
+package com.github.fonimus.ssh.shell.commands;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ThreadTopTest {
+
+    private static ThreadTop.ThreadUsage current(List<ThreadTop.ThreadUsage> usages) {
+        long id = Thread.currentThread().getId();
+        return usages.stream().filter(u -> u.getId() == id).findFirst()
+                .orElseThrow(() -> new AssertionError("Current thread not sampled"));
+    }
+
+    @Test
+    void deltas() {
+        try (ThreadTop top = new ThreadTop()) {
+            deltas(top);
+        }
+    }
+
+    private static void deltas(ThreadTop top) {
+        ThreadTop.ThreadUsage first = current(top.get());
+        assertEquals(Thread.currentThread().getName(), first.getName());
+        assertEquals(Thread.State.RUNNABLE, first.getState());
+        // no previous sample
+        assertEquals(-1, first.getCpuPercent());
+        assertEquals(-1, first.getAllocationRate());
+        assertEquals(-1, first.getBlockedCount());
+        assertEquals(-1, first.getWaitedTime());
+
+        long sum = 0;
+        byte[][] garbage = new byte[100][];
+        for (int i = 0; i < 100_000; i++) {
+            garbage[i % 100] = new byte[128];
+            sum += garbage[i % 100].length;
+        }
+        assertTrue(sum > 0);
+
+        ThreadTop.ThreadUsage second = current(top.get());
+        assertTrue(second.getCpuPercent() >= 0);
+        assertTrue(second.getCpuTime() >= first.getCpuTime());
+        assertTrue(second.getAllocationRate() > 0);
+        assertEquals(0, second.getBlockedCount());
+    }
+
+    @Test
+    void measurementsRestored() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean.isThreadContentionMonitoringSupported());
+        boolean before = bean.isThreadContentionMonitoringEnabled();
+        bean.setThreadContentionMonitoringEnabled(false);
+        try {
+            ThreadTop first = new ThreadTop();
+            ThreadMeasurements second = ThreadMeasurements.acquire(bean, ThreadMeasurements.Measurement.CONTENTION);
+            assertTrue(second.isAcquired(ThreadMeasurements.Measurement.CONTENTION));
+            assertTrue(bean.isThreadContentionMonitoringEnabled());
+            first.close();
+            // still used
+            assertTrue(bean.isThreadContentionMonitoringEnabled());
+            second.close();
+            assertFalse(bean.isThreadContentionMonitoringEnabled());
+
+            // enabled before use, kept enabled
+            bean.setThreadContentionMonitoringEnabled(true);
+            new ThreadTop().close();
+            assertTrue(bean.isThreadContentionMonitoringEnabled());
+        } finally {
+            bean.setThreadContentionMonitoringEnabled(before);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.fonimus.ssh.shell.interactive;
+
+import org.jline.terminal.Size;
+import org.jline.utils.AttributedString;
+import org.jline.utils.AttributedStyle;
+import org.jline.utils.Display;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class IncrementalDisplayTest {
+
+    private static List<AttributedString> lines(String... lines) {
+        return Arrays.asList(Arrays.stream(lines).map(AttributedString::new).toArray(AttributedString[]::new));
+    }
+
+    @Test
+    void update() {
+        Display display = mock(Display.class);
+        IncrementalDisplay incremental = new IncrementalDisplay(display);
+        Size size = new Size(80, 24);
+
+        assertTrue(incremental.update(lines("a", "b"), size));
+        verify(display).resize(24, 80);
+        // same frame, nothing sent
+        assertFalse(incremental.update(lines("a", "b"), size));
+        verify(display, times(1)).update(anyList(), anyInt());
+
+        assertTrue(incremental.update(lines("a", "c"), size));
+        assertTrue(incremental.update(lines("a", "c", "d"), size));
+        assertTrue(incremental.update(lines("a", "c"), size));
+        // same text, other style
+        assertTrue(incremental.update(Arrays.asList(new AttributedString("a"),
+                new AttributedString("c", AttributedStyle.BOLD)), size));
+        verify(display, times(5)).update(anyList(), anyInt());
+
+        incremental.invalidate();
+        assertTrue(incremental.update(Arrays.asList(new AttributedString("a"),
+                new AttributedString("c", AttributedStyle.BOLD)), size));
+        verify(display, times(6)).update(anyList(), anyInt());
+        verify(display, never()).clear();
+    }
+
+    @Test
+    void resize() {
+        Display display = mock(Display.class);
+        IncrementalDisplay incremental = new IncrementalDisplay(display);
+        incremental.update(lines("a"), new Size(80, 24));
+        assertTrue(incremental.update(lines("a"), new Size(100, 24)));
+        verify(display, never()).clear();
+        verify(display).resize(24, 100);
+
+        // narrower
+        assertTrue(incremental.update(lines("a"), new Size(50, 24)));
+        verify(display).clear();
+        verify(display).resize(24, 50);
+        assertFalse(incremental.update(lines("a"), new Size(50, 24)));
+    }
+}
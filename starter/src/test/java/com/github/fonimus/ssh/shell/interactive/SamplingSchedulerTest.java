@@ -0,0 +1,147 @@
+package com.github.fonimus.ssh.shell.interactive;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SamplingSchedulerTest {
+
+    private final SamplingScheduler scheduler = new SamplingScheduler();
+
+    @AfterEach
+    void tearDown() {
+        scheduler.close();
+    }
+
+    @Test
+    void sharedSamples() {
+        AtomicInteger samples = new AtomicInteger();
+        SamplingScheduler.Subscription<Integer> first = scheduler.subscribe("source", 60000, samples::incrementAndGet);
+        SamplingScheduler.Subscription<Integer> second = scheduler.subscribe("source", 60000, () -> {
+            throw new IllegalStateException("second sampler is not used");
+        });
+        assertEquals(0, first.getSampledAt());
+        // first read samples data source
+        assertEquals(1, (int) first.latest());
+        assertEquals(1, (int) second.latest());
+        assertEquals(1, samples.get());
+        assertTrue(second.getSampledAt() > 0);
+        assertEquals(1, scheduler.getSourceCount());
+
+        first.close();
+        assertEquals(1, scheduler.getSourceCount());
+        second.close();
+        second.close();
+        assertEquals(0, scheduler.getSourceCount());
+    }
+
+    @Test
+    void smallestInterval() {
+        AtomicInteger samples = new AtomicInteger();
+        SamplingScheduler.Subscription<Integer> slow = scheduler.subscribe("source", 60000, samples::incrementAndGet);
+        slow.latest();
+        SamplingScheduler.Subscription<Integer> fast = scheduler.subscribe("source", 10, samples::incrementAndGet);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> slow.latest() > 3);
+        fast.close();
+        int afterClose = samples.get();
+        // back to slow interval
+        await().pollDelay(100, TimeUnit.MILLISECONDS).atMost(5, TimeUnit.SECONDS)
+                .until(() -> samples.get() <= afterClose + 1);
+        slow.close();
+    }
+
+    @Test
+    void slowSourceDoesNotDelayOthers() throws Exception {
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger slowSamples = new AtomicInteger();
+        AtomicInteger fastSamples = new AtomicInteger();
+        SamplingScheduler.Subscription<Integer> slow = scheduler.subscribe("slow", 10, () -> {
+            slowStarted.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return slowSamples.incrementAndGet();
+        });
+        SamplingScheduler.Subscription<Integer> fast = scheduler.subscribe("fast", 10, fastSamples::incrementAndGet);
+        try {
+            assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+            int before = fastSamples.get();
+            await().atMost(5, TimeUnit.SECONDS).until(() -> fastSamples.get() > before + 3);
+            // slow source is not sampled concurrently with itself
+            assertEquals(0, slowSamples.get());
+        } finally {
+            release.countDown();
+            slow.close();
+            fast.close();
+        }
+    }
+
+    @Test
+    void samplerCreatedAndClosedWithSource() {
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        Supplier<Supplier<Integer>> factory = () -> {
+            created.incrementAndGet();
+            return new ClosingSampler(closed);
+        };
+        SamplingScheduler.Subscription<Integer> first = scheduler.subscribeSource("closing", 60000, factory);
+        SamplingScheduler.Subscription<Integer> second = scheduler.subscribeSource("closing", 60000, factory);
+        assertEquals(1, (int) second.latest());
+        assertEquals(1, created.get());
+        first.close();
+        assertEquals(0, closed.get());
+        second.close();
+        assertEquals(1, closed.get());
+
+        scheduler.subscribeSource("closing", 60000, factory);
+        assertEquals(2, created.get());
+        scheduler.close();
+        assertEquals(2, closed.get());
+    }
+
+    private static class ClosingSampler
+            implements Supplier<Integer>, AutoCloseable {
+
+        private final AtomicInteger closed;
+
+        private ClosingSampler(AtomicInteger closed) {
+            this.closed = closed;
+        }
+
+        @Override
+        public Integer get() {
+            return 1;
+        }
+
+        @Override
+        public void close() {
+            closed.incrementAndGet();
+        }
+    }
+
+    @Test
+    void failingSampler() {
+        AtomicInteger samples = new AtomicInteger();
+        SamplingScheduler.Subscription<Integer> subscription = scheduler.subscribe("failing", 10, () -> {
+            if (samples.incrementAndGet() > 1) {
+                throw new IllegalStateException("error");
+            }
+            return samples.get();
+        });
+        assertEquals(1, (int) subscription.latest());
+        await().atMost(5, TimeUnit.SECONDS).until(() -> samples.get() > 3);
+        // previous snapshot is kept
+        assertEquals(1, (int) subscription.latest());
+        subscription.close();
+    }
+}
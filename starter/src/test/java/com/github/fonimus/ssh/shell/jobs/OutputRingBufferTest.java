@@ -0,0 +1,50 @@
+package com.github.fonimus.ssh.shell.jobs;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OutputRingBufferTest {
+
+    @Test
+    void writeAndCopy() throws IOException {
+        OutputRingBuffer buffer = new OutputRingBuffer(8);
+        buffer.write("abc".getBytes(StandardCharsets.UTF_8));
+        buffer.write('d');
+        assertEquals(4, buffer.getWritten());
+        assertEquals(0, buffer.getOldest());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long position = buffer.copyTo(0, out);
+        assertEquals("abcd", out.toString("UTF-8"));
+        assertEquals(4, position);
+
+        // wraps around, oldest bytes are dropped
+        buffer.write("efghij".getBytes(StandardCharsets.UTF_8));
+        assertEquals(10, buffer.getWritten());
+        assertEquals(2, buffer.getOldest());
+        out.reset();
+        assertEquals(10, buffer.copyTo(position, out));
+        assertEquals("efghij", out.toString("UTF-8"));
+        out.reset();
+        buffer.copyTo(0, out);
+        assertEquals("cdefghij", out.toString("UTF-8"));
+
+        // bigger than capacity
+        buffer.write("0123456789".getBytes(StandardCharsets.UTF_8));
+        out.reset();
+        buffer.copyTo(0, out);
+        assertEquals("23456789", out.toString("UTF-8"));
+        assertEquals(20, buffer.getWritten());
+    }
+
+    @Test
+    void wrongCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new OutputRingBuffer(0));
+    }
+}
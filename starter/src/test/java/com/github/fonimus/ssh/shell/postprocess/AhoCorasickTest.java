@@ -0,0 +1,63 @@
+package com.github.fonimus.ssh.shell.postprocess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AhoCorasickTest {
+
+	@Test
+	void containsAny() {
+		AhoCorasick automaton = new AhoCorasick(Arrays.asList("he", "she", "his", "hers"), false);
+		assertTrue(automaton.containsAny("ushers"));
+		assertTrue(automaton.containsAny("this"));
+		assertTrue(automaton.containsAny("ahishe"));
+		assertFalse(automaton.containsAny("HERS"));
+		assertFalse(automaton.containsAny("ahi"));
+		assertFalse(automaton.containsAny(""));
+	}
+
+	@Test
+	void containsAnyFailureLinks() {
+		AhoCorasick automaton = new AhoCorasick(Arrays.asList("abcd", "bce"), false);
+		assertTrue(automaton.containsAny("xabce"));
+		assertFalse(automaton.containsAny("abcabc"));
+	}
+
+	@Test
+	void containsAnyIgnoreCase() {
+		AhoCorasick automaton = new AhoCorasick(Arrays.asList("Boot", "spring"), true);
+		assertTrue(automaton.containsAny("SPRING"));
+		assertTrue(automaton.containsAny("reboot"));
+		assertFalse(automaton.containsAny("shell"));
+	}
+
+	@Test
+	void empty() {
+		assertFalse(new AhoCorasick(Collections.singletonList(""), false).containsAny("test"));
+	}
+
+	@Test
+	void findAll() {
+		AhoCorasick automaton = new AhoCorasick(Arrays.asList("he", "she", "hers", "is"), false);
+		List<String> found = new ArrayList<>();
+		String text = "ushers this";
+		automaton.findAll(text, 0, text.length(), (start, end, pattern) -> found.add(text.substring(start, end) + "#" + pattern));
+		assertEquals(Arrays.asList("she#1", "is#3"), found);
+
+		found.clear();
+		automaton.findAll(text, 2, text.length(), (start, end, pattern) -> found.add(text.substring(start, end) + "#" + pattern));
+		assertEquals(Arrays.asList("hers#2", "is#3"), found);
+
+		found.clear();
+		automaton.findAll(text, 2, 4, (start, end, pattern) -> found.add(text.substring(start, end) + "#" + pattern));
+		assertEquals(Collections.singletonList("he#0"), found);
+	}
+}
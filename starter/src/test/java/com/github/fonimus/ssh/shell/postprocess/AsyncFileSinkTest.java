@@ -0,0 +1,112 @@
+package com.github.fonimus.ssh.shell.postprocess;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncFileSinkTest {
+
+	private Path dir;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		dir = Files.createDirectories(new File("target/sink").toPath());
+		try (Stream<Path> files = Files.list(dir)) {
+			for (Path path : (Iterable<Path>) files::iterator) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	@Test
+	void stripAnsi() {
+		assertEquals("red text", AnsiSequences.appendStripped("\u001B[31mred\u001B[0m \u001B[1;43mtext\u001B[m", new StringBuilder()).toString());
+		assertEquals("csi", AnsiSequences.appendStripped("\u009B31mcsi", new StringBuilder()).toString());
+		assertEquals("\u001B(a\u001B", AnsiSequences.appendStripped("\u001B(a\u001B", new StringBuilder()).toString());
+	}
+
+	@Test
+	void write() throws Exception {
+		Path path = dir.resolve("write.txt");
+		AsyncFileSink sink = new AsyncFileSink(path, false, false, 0);
+		sink.writeLine("\u001B[31mline\u001B[0m 1");
+		sink.writeLine("line 2");
+		assertEquals(13, sink.close());
+		assertEquals("line 1\nline 2", new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+
+		assertThrows(FileAlreadyExistsException.class, () -> new AsyncFileSink(path, false, false, 0));
+
+		sink = new AsyncFileSink(path, true, false, 0);
+		sink.writeLine("line 3");
+		sink.close();
+		assertEquals("line 1\nline 2\nline 3", new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void gzipAndRotate() throws Exception {
+		Path path = dir.resolve("rotate.txt.gz");
+		AsyncFileSink sink = new AsyncFileSink(path, false, true, 10000);
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			String line = "line " + i;
+			sink.writeLine(line);
+			expected.append(i == 0 ? "" : "\n").append(line);
+		}
+		sink.close();
+
+		StringBuilder actual = new StringBuilder(gunzip(path));
+		assertTrue(Files.exists(dir.resolve("rotate.txt.1.gz")));
+		for (int i = 1; Files.exists(dir.resolve("rotate.txt." + i + ".gz")); i++) {
+			actual.append('\n').append(gunzip(dir.resolve("rotate.txt." + i + ".gz")));
+		}
+		assertEquals(expected.toString(), actual.toString());
+		assertFalse(Files.exists(dir.resolve("rotate.txt.gz.1")));
+	}
+
+	@Test
+	void independentSinks() throws Exception {
+		Path first = dir.resolve("first.txt");
+		Path second = dir.resolve("second.txt");
+		AsyncFileSink firstSink = new AsyncFileSink(first, false, false, 0);
+		AsyncFileSink secondSink = new AsyncFileSink(second, false, false, 0);
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			String line = "line " + i;
+			firstSink.writeLine(line);
+			secondSink.writeLine(line);
+			expected.append(i == 0 ? "" : "\n").append(line);
+		}
+		secondSink.abort();
+		assertEquals(expected.length(), firstSink.close());
+		assertEquals(expected.toString(), new String(Files.readAllBytes(first), StandardCharsets.UTF_8));
+		assertTrue(Files.exists(second));
+		assertThrows(IOException.class, secondSink::close);
+	}
+
+	private static String gunzip(Path path) throws IOException {
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				out.write(buffer, 0, read);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -10,6 +10,7 @@ import com.github.fonimus.ssh.shell.postprocess.provided.GrepPostProcessor;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class GrepPostProcessorTest {
 
@@ -32,4 +33,29 @@ class GrepPostProcessorTest {
 				() -> assertEquals("toto", processor.process(TEST, Collections.singletonList("toto")))
 		);
 	}
-}
\ No newline at end of file
+
+	@Test
+	void processOptions() {
+		String text = "Test\na\nb\ntoto\nc\nd\ne\nf\ntest";
+		assertAll("grep options",
+				() -> assertEquals("test", processor.process(text, Collections.singletonList("test"))),
+				() -> assertEquals("Test\ntest", processor.process(text, Arrays.asList("-i", "test"))),
+				() -> assertEquals("Test\ntoto\ntest", processor.process(text, Arrays.asList("-E", "-i", "^t.st$", "o{1}t"))),
+				() -> assertEquals("a\nb\nc\nd\ne\nf", processor.process(text, Arrays.asList("-v", "-i", "t"))),
+				() -> assertEquals("3", processor.process(text, Arrays.asList("-c", "-i", "t"))),
+				() -> assertEquals("-i", processor.process("-i\ni", Arrays.asList("--", "-i"))),
+				() -> assertEquals("Test\na\n--\ntoto\nc\n--\ntest", processor.process(text, Arrays.asList("-A", "1", "-i", "t"))),
+				() -> assertEquals("b\ntoto\n--\nf\ntest", processor.process(text, Arrays.asList("-B", "1", "test", "toto"))),
+				() -> assertEquals("Test\na\nb\ntoto\nc\nd", processor.process(text, Arrays.asList("-C", "2", "toto", "Test")))
+		);
+	}
+
+	@Test
+	void processWrongOptions() {
+		assertAll("grep wrong options",
+				() -> assertThrows(PostProcessorException.class, () -> processor.process(TEST, Arrays.asList("-A", "x", "test"))),
+				() -> assertThrows(PostProcessorException.class, () -> processor.process(TEST, Collections.singletonList("-B"))),
+				() -> assertThrows(PostProcessorException.class, () -> processor.process(TEST, Arrays.asList("-E", "(test")))
+		);
+	}
+}
@@ -40,4 +40,33 @@ class HighlightPostProcessorTest {
                         processor.process(TEST, Arrays.asList("test", "toto")))
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    void processColors() {
+        assertAll("highlight colors",
+                () -> assertEquals(TEST
+                                .replaceAll("test", HELPER.getBackgroundColored("test", PromptColor.RED))
+                                .replaceAll("toto", HELPER.getBackgroundColored("toto", PromptColor.YELLOW)),
+                        processor.process(TEST, Arrays.asList("test:red", "toto"))),
+                () -> assertEquals(HELPER.getBackgroundColored("a:b", PromptColor.GREEN) + " c",
+                        processor.process("a:b c", Collections.singletonList("a:b:green"))),
+                () -> assertEquals(HELPER.getBackgroundColored("a:unknown", PromptColor.YELLOW),
+                        processor.process("a:unknown", Collections.singletonList("a:unknown")))
+        );
+    }
+
+    @Test
+    void processSinglePass() {
+        String colored = HELPER.getColored("test", PromptColor.RED);
+        assertAll("highlight single pass",
+                // terms are not searched within previous highlights nor existing ansi sequences
+                () -> assertEquals(processor.process(TEST, Collections.singletonList("test")),
+                        processor.process(TEST, Arrays.asList("test", "4", "m"))),
+                () -> assertEquals(colored.replace("test", HELPER.getBackgroundColored("test", PromptColor.YELLOW)),
+                        processor.process(colored, Arrays.asList("test", "1", "m"))),
+                // leftmost longest term wins
+                () -> assertEquals(HELPER.getBackgroundColored("toto", PromptColor.YELLOW) + "ti",
+                        processor.process("tototi", Arrays.asList("to", "toto", "oti")))
+        );
+    }
+}
@@ -49,13 +49,37 @@ class JsonPointerPostProcessorTest {
 						processor.process(test, Collections.singletonList("/details/list/1"))),
 				() -> assertEqualsNoLineSeparator("{  \"key\" : \"map-value\"}", processor.process(test, Collections.singletonList("/details/map"))),
 				() -> assertEquals("map-value", processor.process(test, Collections.singletonList("/details/map/key"))),
-				() -> assertEquals("map-value", processor.process(test, Arrays.asList("/details/map/key", "dont-care"))),
+				() -> assertEquals("Invalid input: JSON Pointer expression must start with '/': \"dont-care\"",
+						processor.process(test, Arrays.asList("/details/map/key", "dont-care"))),
 				() -> assertEquals("No node found with json path expression: /details/map/not-a-key",
 						processor.process(test, Collections.singletonList("/details/map/not-a-key")))
 		);
 
 	}
 
+	@Test
+	void processSeveralPointers() throws Exception {
+		Health health = Health.up()
+				.withDetail("db", Collections.singletonMap("status", "UP"))
+				.withDetail("disk", Collections.singletonMap("status", "DOWN"))
+				.withDetail("list", Arrays.asList(Collections.singletonMap("id", 1), Collections.singletonMap("id", 2)))
+				.build();
+		String test = new ObjectMapper().writeValueAsString(health);
+
+		assertAll("json pointers",
+				() -> assertEquals("UP\nDOWN", processor.process(test, Arrays.asList("/details/db/status", "/details/disk/status"))),
+				() -> assertEquals("DOWN\nNo node found with json path expression: /details/none\nUP",
+						processor.process(test, Arrays.asList("/details/disk/status", "/details/none", "/status"))),
+				() -> assertEqualsNoLineSeparator("{  \"status\" : \"UP\"}\nUP",
+						processor.process(test, Arrays.asList("/details/db", "/details/db/status"))),
+				() -> assertEquals("[ \"UP\", \"DOWN\" ]", processor.process(test, Collections.singletonList("/details/*/status"))),
+				() -> assertEquals("[ 1, 2 ]", processor.process(test, Collections.singletonList("/details/list/*/id"))),
+				() -> assertEquals("[ ]", processor.process(test, Collections.singletonList("/details/*/none"))),
+				() -> assertEquals("2\n[ \"UP\", \"DOWN\" ]",
+						processor.process(test, Arrays.asList("/details/list/1/id", "/details/*/status")))
+		);
+	}
+
 	private static void assertEqualsNoLineSeparator(String expected, String actual) {
 		assertEquals(clean(expected), clean(actual));
 	}
@@ -0,0 +1,65 @@
+package com.github.fonimus.ssh.shell.postprocess;
+
+import com.github.fonimus.ssh.shell.postprocess.provided.GrepPostProcessor;
+import com.github.fonimus.ssh.shell.postprocess.provided.PrettyJsonPostProcessor;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostProcessorRegistryTest {
+
+    @Test
+    void resolveInputType() {
+        assertEquals(String.class, PostProcessorRegistry.resolveInputType(new GrepPostProcessor()));
+        assertEquals(Object.class, PostProcessorRegistry.resolveInputType(new PrettyJsonPostProcessor()));
+        // subclass of a post processor
+        assertEquals(String.class, PostProcessorRegistry.resolveInputType(new GrepPostProcessor() {
+        }));
+        // generic base class
+        assertEquals(Integer.class, PostProcessorRegistry.resolveInputType(new IntegerPostProcessor()));
+
+        // cglib proxy
+        ProxyFactory cglib = new ProxyFactory(new IntegerPostProcessor());
+        cglib.setProxyTargetClass(true);
+        assertEquals(Integer.class, PostProcessorRegistry.resolveInputType((PostProcessor<?>) cglib.getProxy()));
+
+        // jdk proxy
+        ProxyFactory jdk = new ProxyFactory(new IntegerPostProcessor());
+        jdk.addInterface(PostProcessor.class);
+        assertEquals(Integer.class, PostProcessorRegistry.resolveInputType((PostProcessor<?>) jdk.getProxy()));
+    }
+
+    @Test
+    void registry() {
+        GrepPostProcessor first = new GrepPostProcessor();
+        PostProcessorRegistry registry = new PostProcessorRegistry(Arrays.asList(first, new GrepPostProcessor(), new IntegerPostProcessor()));
+        assertEquals(2, registry.getRegistrations().size());
+        assertSame(first, registry.get("grep").getPostProcessor());
+        assertTrue(registry.get("grep").isStreaming());
+        assertTrue(registry.get("grep").accepts(String.class));
+        assertFalse(registry.get("integer").accepts(String.class));
+        assertNull(registry.get("unknown"));
+        assertThrows(UnsupportedOperationException.class, () -> registry.getRegistrations().clear());
+        assertEquals(0, new PostProcessorRegistry(null).getRegistrations().size());
+    }
+
+    abstract static class AbstractPostProcessor<T> implements PostProcessor<T> {
+
+        @Override
+        public String process(T result, List<String> parameters) {
+            return String.valueOf(result);
+        }
+    }
+
+    static class IntegerPostProcessor extends AbstractPostProcessor<Integer> {
+
+        @Override
+        public String getName() {
+            return "integer";
+        }
+    }
+}
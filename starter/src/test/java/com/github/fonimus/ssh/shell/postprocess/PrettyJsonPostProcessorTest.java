@@ -1,6 +1,9 @@
 package com.github.fonimus.ssh.shell.postprocess;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -11,6 +14,7 @@ import com.github.fonimus.ssh.shell.postprocess.provided.PrettyJsonPostProcessor
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class PrettyJsonPostProcessorTest {
 
@@ -35,6 +39,22 @@ class PrettyJsonPostProcessorTest {
 		assertThrows(PostProcessorException.class, () -> processor.process(new NotSerializableObject("test"), null));
 	}
 
+	@Test
+	void processColor() throws Exception {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("string", "value");
+		map.put("number", 42);
+		map.put("list", Arrays.asList(true, null));
+		String plain = processor.process(map, null);
+		String colored = processor.process(map, Collections.singletonList(PrettyJsonPostProcessor.COLOR_PARAMETER));
+
+		assertEquals(new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(map), plain);
+		assertEquals(plain, colored.replaceAll("\u001B\\[[0-9;]*m", ""));
+		assertTrue(colored.contains("\u001B[34m\"string\"\u001B[0m : \u001B[32m\"value\"\u001B[0m"), colored);
+		assertTrue(colored.contains("\u001B[36m42\u001B[0m"), colored);
+		assertTrue(colored.contains("[ \u001B[35mtrue\u001B[0m, \u001B[35mnull\u001B[0m ]"), colored);
+	}
+
 	public class NotSerializableObject {
 
 		private String test;
@@ -1,15 +1,19 @@
 package com.github.fonimus.ssh.shell.postprocess;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import com.github.fonimus.ssh.shell.postprocess.provided.SavePostProcessor;
 
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -45,4 +49,37 @@ class SavePostProcessorTest {
 		assertTrue(assertThrows(PostProcessorException.class, () -> processor.process(TEST, Arrays.asList("target/test.txt", "dont-care"))).getMessage()
 				.startsWith("File already exists:"));
 	}
-}
\ No newline at end of file
+
+	@Test
+	void processAppend() throws Exception {
+		File file = new File("target/test-append.txt");
+		Files.deleteIfExists(file.toPath());
+		assertTrue(processor.process("\u001B[31mline\u001B[0m 1", Arrays.asList("target/test-append.txt", SavePostProcessor.APPEND_OPTION))
+				.startsWith("Result saved to file:"));
+		assertTrue(processor.process("line 2\nline 3", Arrays.asList("target/test-append.txt", SavePostProcessor.APPEND_OPTION))
+				.startsWith("Result saved to file:"));
+		await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertEquals("line 1\nline 2\nline 3",
+				new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8)));
+		assertTrue(assertThrows(PostProcessorException.class, () -> processor.process(TEST, Arrays.asList("target/test-append.txt", "--max-size", "wrong")))
+				.getMessage().startsWith("Invalid size"));
+	}
+
+	@Test
+	void processWriteFailure() throws Exception {
+		File file = new File("target/test-rotate.txt");
+		File part = new File("target/test-rotate.txt.1");
+		Files.deleteIfExists(file.toPath());
+		Files.write(part.toPath(), "existing".getBytes(StandardCharsets.UTF_8));
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 2000; i++) {
+			sb.append("line ").append(i).append('\n');
+		}
+		// rotation part already exists, failure happens on i/o thread
+		assertTrue(assertThrows(PostProcessorException.class, () -> processor.process(sb.toString(),
+				Arrays.asList("target/test-rotate.txt", SavePostProcessor.MAX_SIZE_OPTION, "1KB"))).getMessage()
+				.startsWith("Unable to write to file:"));
+		assertEquals("existing", new String(Files.readAllBytes(part.toPath()), StandardCharsets.UTF_8));
+		Files.deleteIfExists(file.toPath());
+		Files.deleteIfExists(part.toPath());
+	}
+}
@@ -2,17 +2,28 @@ package com.github.fonimus.ssh.shell.postprocess;
 
 import com.github.fonimus.ssh.shell.SshContext;
 import com.github.fonimus.ssh.shell.postprocess.provided.GrepPostProcessor;
+import com.github.fonimus.ssh.shell.postprocess.provided.PrettyJsonPostProcessor;
 import com.github.fonimus.ssh.shell.postprocess.provided.SavePostProcessor;
+import org.jline.terminal.Terminal;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.shell.ResultHandler;
 
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static com.github.fonimus.ssh.shell.SshShellCommandFactory.SSH_THREAD_CONTEXT;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -27,7 +38,18 @@ class TypePostProcessorResultHandlerTest {
         captor = ArgumentCaptor.forClass(Object.class);
         Mockito.doNothing().when(rhMock).handleResult(captor.capture());
         rh = new TypePostProcessorResultHandler(rhMock,
-                Arrays.asList(new GrepPostProcessor(), new GrepPostProcessor(), new SavePostProcessor())
+                Arrays.asList(new GrepPostProcessor(), new GrepPostProcessor(), new SavePostProcessor(), new PrettyJsonPostProcessor(), new PostProcessor<String>() {
+
+                    @Override
+                    public String getName() {
+                        return "upper";
+                    }
+
+                    @Override
+                    public String process(String result, List<String> parameters) {
+                        return result.toUpperCase();
+                    }
+                })
         );
         SSH_THREAD_CONTEXT.set(new SshContext(new Thread(), null, null, null));
     }
@@ -71,6 +93,23 @@ class TypePostProcessorResultHandlerTest {
         assertEquals(obj, captor.getAllValues().get(1));
     }
 
+    @Test
+    void handleResultErrorPostProcessor() throws Exception {
+        File file = new File("target/errors.txt");
+        Files.deleteIfExists(file.toPath());
+        SSH_THREAD_CONTEXT.get().setErrorPostProcessor(new PostProcessorObject("save", Collections.singletonList(file.getPath())));
+
+        // only applied to errors
+        rh.handleResult("result");
+        assertEquals("result", captor.getAllValues().get(0));
+
+        rh.handleResult(new IllegalArgumentException("[TEST]"));
+        assertEquals(2, captor.getAllValues().size());
+        assertTrue(((String) captor.getAllValues().get(1)).startsWith("Result saved to file:"));
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertTrue(
+                new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).startsWith("java.lang.IllegalArgumentException: [TEST]")));
+    }
+
     @Test
     void handleResultPostProcessorError() {
         SSH_THREAD_CONTEXT.get().setPostProcessorsList(Collections.singletonList(
@@ -90,4 +129,46 @@ class TypePostProcessorResultHandlerTest {
         assertEquals(1, captor.getAllValues().size());
         assertEquals("result", captor.getAllValues().get(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    void handleResultStreamingToTerminal() {
+        Terminal terminal = Mockito.mock(Terminal.class);
+        StringWriter out = new StringWriter();
+        Mockito.when(terminal.writer()).thenReturn(new PrintWriter(out));
+        SSH_THREAD_CONTEXT.set(new SshContext(new Thread(), terminal, null, null));
+        SSH_THREAD_CONTEXT.get().setPostProcessorsList(Arrays.asList(
+                new PostProcessorObject("grep", Collections.singletonList("to")),
+                new PostProcessorObject("upper", Collections.emptyList()))
+        );
+        rh.handleResult("test\ntoto\ntiti\ntoto");
+        assertEquals(0, captor.getAllValues().size());
+        assertEquals("TOTO\nTOTO\n", out.toString().replace(System.lineSeparator(), "\n"));
+    }
+
+    @Test
+    void handleResultWriterToTerminal() {
+        Terminal terminal = Mockito.mock(Terminal.class);
+        StringWriter out = new StringWriter();
+        Mockito.when(terminal.writer()).thenReturn(new PrintWriter(out));
+        SSH_THREAD_CONTEXT.set(new SshContext(new Thread(), terminal, null, null));
+        SSH_THREAD_CONTEXT.get().setPostProcessorsList(Collections.singletonList(new PostProcessorObject("pretty")));
+        rh.handleResult(Collections.singletonMap("key", "value"));
+        assertEquals(0, captor.getAllValues().size());
+        assertEquals("{\n  \"key\" : \"value\"\n}\n", out.toString().replace(System.lineSeparator(), "\n"));
+
+        // not last post processor: result is given to next one
+        out.getBuffer().setLength(0);
+        SSH_THREAD_CONTEXT.get().setPostProcessorsList(Arrays.asList(new PostProcessorObject("pretty"),
+                new PostProcessorObject("grep", Collections.singletonList("key"))));
+        rh.handleResult(Collections.singletonMap("key", "value"));
+        assertEquals("  \"key\" : \"value\"\n", out.toString().replace(System.lineSeparator(), "\n"));
+    }
+
+    @Test
+    void lines() {
+        assertEquals(Arrays.asList("a", "", "b"),
+                LineStreams.lines("a\n\nb\n").map(CharSequence::toString).collect(Collectors.toList()));
+        assertEquals("a\n\nb", LineStreams.join(LineStreams.lines("a\n\nb")));
+        assertEquals(0, LineStreams.lines(null).count());
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.fonimus.ssh.shell.providers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.shell.CompletionContext;
+import org.springframework.shell.CompletionProposal;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectoryListingCacheTest {
+
+    @Test
+    void list() throws Exception {
+        Path dir = Files.createTempDirectory("listing");
+        for (String name : Arrays.asList("b", "a2", "a1", "c", "a3")) {
+            Files.createFile(dir.resolve(name));
+        }
+        try (DirectoryListingCache cache = new DirectoryListingCache(1)) {
+            assertEquals(Arrays.asList("a1", "a2", "a3"), cache.list(dir.toFile(), "a", 0));
+            assertEquals(Arrays.asList("a1", "a2"), cache.list(dir.toFile(), "a", 2));
+            assertEquals(Arrays.asList("a1", "a2", "a3", "b", "c"), cache.list(dir.toFile(), "", 0));
+            assertTrue(cache.list(dir.toFile(), "d", 0).isEmpty());
+            assertEquals(1, cache.size());
+
+            Files.createFile(dir.resolve("a0"));
+            Files.delete(dir.resolve("a3"));
+            await().atMost(15, TimeUnit.SECONDS).until(() -> cache.list(dir.toFile(), "a", 0).equals(Arrays.asList("a0", "a1", "a2")));
+
+            // lru eviction
+            Path other = Files.createTempDirectory("listing");
+            assertTrue(cache.list(other.toFile(), "", 0).isEmpty());
+            assertEquals(1, cache.size());
+        }
+    }
+
+    @Test
+    void concurrentRefresh() throws Exception {
+        Path[] dirs = {Files.createTempDirectory("listing"), Files.createTempDirectory("listing")};
+        for (Path dir : dirs) {
+            Files.createFile(dir.resolve("a1"));
+        }
+        try (DirectoryListingCache cache = new DirectoryListingCache(10)) {
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        File dir = dirs[(thread + i) % dirs.length].toFile();
+                        // stale listings are rebuilt outside of lock while other threads list
+                        assertTrue(dir.setLastModified(1000L * (i + 1)));
+                        assertEquals(Collections.singletonList("a1"), cache.list(dir, "a", 0));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+            assertEquals(2, cache.size());
+
+            // refreshed listing is kept up to date
+            Files.createFile(dirs[0].resolve("a2"));
+            await().atMost(15, TimeUnit.SECONDS).until(() -> cache.list(dirs[0].toFile(), "a", 0)
+                    .equals(Arrays.asList("a1", "a2")));
+        }
+    }
+
+    @Test
+    void provider() throws Exception {
+        try (AnyOsFileValueProvider provider = new AnyOsFileValueProvider(true, new DirectoryListingCache(10), 1)) {
+            List<CompletionProposal> result = provider.complete(null,
+                    new CompletionContext(Arrays.asList("--file", "src/"), 1, 4), null);
+            assertEquals(1, result.size());
+            assertTrue(new File(result.get(0).value()).exists());
+            assertEquals(0, provider.complete(null,
+                    new CompletionContext(Arrays.asList("--file", "not-existing/"), 1, 13), null).size());
+        }
+    }
+}